@@ -12,9 +12,12 @@
  */
 package org.sonatype.nexus.blobstore.api;
 
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.Map;
 
+import com.google.common.io.ByteStreams;
+
 /**
  * A handle for binary data stored within a {@link BlobStore}.
  *
@@ -42,6 +45,32 @@ public interface Blob
    */
   InputStream getInputStream();
 
+  /**
+   * Opens an input stream to {@code length} bytes of the blob's content, starting at {@code offset}. Blob stores
+   * override this to read only the requested bytes from storage; by default the bytes before the offset are skipped
+   * from {@link #getInputStream()}.
+   *
+   * @throws BlobStoreException may be thrown if the blob is {@link BlobStore#delete deleted} or
+   *           {@link BlobStore#delete hard deleted}.
+   * @since 3.77
+   */
+  default InputStream getInputStream(final long offset, final long length) {
+    InputStream inputStream = getInputStream();
+    try {
+      ByteStreams.skipFully(inputStream, offset);
+    }
+    catch (IOException e) {
+      try {
+        inputStream.close();
+      }
+      catch (IOException suppressed) {
+        e.addSuppressed(suppressed);
+      }
+      throw new BlobStoreException(e, getId());
+    }
+    return ByteStreams.limit(inputStream, length);
+  }
+
   /**
    * Provides metrics about this Blob.
    *
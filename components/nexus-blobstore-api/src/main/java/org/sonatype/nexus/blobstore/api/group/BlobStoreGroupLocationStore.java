@@ -0,0 +1,58 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.api.group;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+/**
+ * Store for the members of blob store groups that hold each blob.
+ *
+ * @since 3.77
+ */
+public interface BlobStoreGroupLocationStore
+{
+  /**
+   * Returns the name of the member of the group holding the blob, or null if the blob's location isn't known.
+   */
+  @Nullable
+  String getMember(String groupName, BlobId blobId);
+
+  /**
+   * Records that the blob is held by the given member of the group.
+   */
+  void setMember(String groupName, BlobId blobId, String memberName);
+
+  /**
+   * Records that all of the blobs are held by the given member of the group.
+   */
+  void setMember(String groupName, Collection<BlobId> blobIds, String memberName);
+
+  /**
+   * Forgets the location of the blob.
+   */
+  void delete(String groupName, BlobId blobId);
+
+  /**
+   * Forgets the location of every blob held by the given member of the group.
+   */
+  void deleteMember(String groupName, String memberName);
+
+  /**
+   * Forgets the location of every blob in the group.
+   */
+  void deleteGroup(String groupName);
+}
@@ -48,6 +48,60 @@ public interface BlobStoreMetricsService<B extends BlobStore>
    */
   void recordDeletion(final long size);
 
+  /**
+   * Record a lookup that was answered by the blob attribute cache of the attached blobstore.
+   *
+   * @since 3.77
+   */
+  default void recordAttributeCacheHit() {
+    // no-op
+  }
+
+  /**
+   * Record a lookup that had to read blob attributes from the attached blobstore.
+   *
+   * @since 3.77
+   */
+  default void recordAttributeCacheMiss() {
+    // no-op
+  }
+
+  /**
+   * Record blob attributes being evicted from the attribute cache to stay within its size bound.
+   *
+   * @since 3.77
+   */
+  default void recordAttributeCacheEviction() {
+    // no-op
+  }
+
+  /**
+   * Get the number of blob attribute lookups answered by the attribute cache since startup.
+   *
+   * @since 3.77
+   */
+  default long getAttributeCacheHitCount() {
+    return 0L;
+  }
+
+  /**
+   * Get the number of blob attribute lookups that missed the attribute cache since startup.
+   *
+   * @since 3.77
+   */
+  default long getAttributeCacheMissCount() {
+    return 0L;
+  }
+
+  /**
+   * Get the number of entries evicted from the attribute cache since startup.
+   *
+   * @since 3.77
+   */
+  default long getAttributeCacheEvictionCount() {
+    return 0L;
+  }
+
   /**
    * Get the operation metrics for the attached blobstore.
    */
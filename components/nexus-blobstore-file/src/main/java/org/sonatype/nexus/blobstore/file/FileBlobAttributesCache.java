@@ -0,0 +1,224 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobMetrics;
+import org.sonatype.nexus.blobstore.api.metrics.BlobStoreMetricsService;
+
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalCause;
+import org.joda.time.DateTime;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Bounded cache of the attributes of recently accessed blobs, so a {@link FileBlobStore} does not have to parse the
+ * {@code .properties} file again every time its weakly held {@code FileBlob} is collected.
+ *
+ * Attributes are kept in a compact binary encoding and the cache is bounded by the total size of those encodings.
+ * Each lookup decodes a fresh copy, so callers are free to mutate what they get back.
+ *
+ * @since 3.77
+ */
+class FileBlobAttributesCache
+    extends ComponentSupport
+{
+  /**
+   * Rough per-entry overhead of the cache itself and the {@link BlobId} key, counted towards the size bound.
+   */
+  private static final int ENTRY_OVERHEAD = 128;
+
+  private static final int FLAG_DELETED = 1;
+
+  private static final int FLAG_LAST_DOWNLOADED = 2;
+
+  private final BlobStoreMetricsService<?> metricsService;
+
+  private final Cache<BlobId, byte[]> cache;
+
+  private final AtomicLong generation = new AtomicLong();
+
+  FileBlobAttributesCache(final long maximumSize, final BlobStoreMetricsService<?> metricsService) {
+    checkArgument(maximumSize > 0, "Cache size must be positive");
+    this.metricsService = checkNotNull(metricsService);
+    this.cache = CacheBuilder.newBuilder()
+        .maximumWeight(maximumSize)
+        .<BlobId, byte[]>weigher((blobId, encoded) -> ENTRY_OVERHEAD + encoded.length)
+        .removalListener(notification -> {
+          if (notification.getCause() == RemovalCause.SIZE) {
+            metricsService.recordAttributeCacheEviction();
+          }
+        })
+        .build();
+  }
+
+  /**
+   * Returns the cached attributes of the given blob, or {@code null} if they have to be loaded from disk.
+   */
+  @Nullable
+  CachedAttributes get(final BlobId blobId) {
+    byte[] encoded = cache.getIfPresent(blobId);
+    if (encoded == null) {
+      metricsService.recordAttributeCacheMiss();
+      return null;
+    }
+    metricsService.recordAttributeCacheHit();
+    return decode(encoded);
+  }
+
+  void put(final BlobId blobId, final CachedAttributes attributes) {
+    byte[] encoded = encode(attributes);
+    if (encoded != null) {
+      cache.put(blobId, encoded);
+    }
+  }
+
+  /**
+   * Returns the current generation of the cache, which changes whenever an entry is invalidated. Take it before
+   * reading attributes from disk and pass it to {@link #putIfUnchanged}.
+   */
+  long generation() {
+    return generation.get();
+  }
+
+  /**
+   * Caches attributes read from disk, unless an entry was invalidated since the given {@link #generation()} was
+   * taken, in which case what was read may already be out of date. The check and the put happen atomically with
+   * respect to {@link #invalidate} of the same blob.
+   */
+  void putIfUnchanged(final BlobId blobId, final CachedAttributes attributes, final long readGeneration) {
+    byte[] encoded = encode(attributes);
+    if (encoded != null) {
+      cache.asMap().compute(blobId, (id, existing) -> generation.get() == readGeneration ? encoded : existing);
+    }
+  }
+
+  void invalidate(final BlobId blobId) {
+    cache.asMap().compute(blobId, (id, existing) -> {
+      generation.incrementAndGet();
+      return null;
+    });
+  }
+
+  void invalidateAll() {
+    generation.incrementAndGet();
+    cache.invalidateAll();
+  }
+
+  long size() {
+    return cache.size();
+  }
+
+  @Nullable
+  private byte[] encode(final CachedAttributes attributes) {
+    BlobMetrics metrics = attributes.getMetrics();
+    ByteArrayOutputStream bytes = new ByteArrayOutputStream(256);
+    try (DataOutputStream out = new DataOutputStream(bytes)) {
+      OffsetDateTime lastDownloaded = metrics.getLastDownloaded();
+      out.writeByte((attributes.isDeleted() ? FLAG_DELETED : 0) | (lastDownloaded != null ? FLAG_LAST_DOWNLOADED : 0));
+      out.writeLong(metrics.getCreationTime().getMillis());
+      out.writeUTF(metrics.getSha1Hash());
+      out.writeLong(metrics.getContentSize());
+      if (lastDownloaded != null) {
+        out.writeUTF(lastDownloaded.toString());
+      }
+      out.writeInt(attributes.getHeaders().size());
+      for (Entry<String, String> header : attributes.getHeaders().entrySet()) {
+        out.writeUTF(header.getKey());
+        out.writeUTF(header.getValue());
+      }
+    }
+    catch (IOException | RuntimeException e) {
+      // headers too large for the encoding, or incomplete metrics; such blobs are simply read from disk each time
+      log.debug("Not caching attributes {}", attributes, e);
+      return null;
+    }
+    return bytes.toByteArray();
+  }
+
+  private static CachedAttributes decode(final byte[] encoded) {
+    try (DataInputStream in = new DataInputStream(new ByteArrayInputStream(encoded))) {
+      int flags = in.readByte();
+      BlobMetrics metrics = new BlobMetrics(new DateTime(in.readLong()), in.readUTF(), in.readLong());
+      if ((flags & FLAG_LAST_DOWNLOADED) != 0) {
+        metrics.setLastDownloaded(OffsetDateTime.parse(in.readUTF()));
+      }
+      int headerCount = in.readInt();
+      Map<String, String> headers = new HashMap<>(headerCount * 2);
+      for (int i = 0; i < headerCount; i++) {
+        headers.put(in.readUTF(), in.readUTF());
+      }
+      return new CachedAttributes(headers, metrics, (flags & FLAG_DELETED) != 0);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  /**
+   * The subset of blob attributes needed to serve a {@link FileBlobStore#get(BlobId, boolean)}.
+   */
+  static class CachedAttributes
+  {
+    private final Map<String, String> headers;
+
+    private final BlobMetrics metrics;
+
+    private final boolean deleted;
+
+    CachedAttributes(final Map<String, String> headers, final BlobMetrics metrics, final boolean deleted) {
+      this.headers = checkNotNull(headers);
+      this.metrics = checkNotNull(metrics);
+      this.deleted = deleted;
+    }
+
+    Map<String, String> getHeaders() {
+      return headers;
+    }
+
+    BlobMetrics getMetrics() {
+      return metrics;
+    }
+
+    boolean isDeleted() {
+      return deleted;
+    }
+
+    @Override
+    public String toString() {
+      return getClass().getSimpleName() + "{" +
+          "headers=" + headers +
+          ", metrics=" + metrics +
+          ", deleted=" + deleted +
+          '}';
+    }
+  }
+}
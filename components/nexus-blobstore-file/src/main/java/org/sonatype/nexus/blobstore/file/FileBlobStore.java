@@ -17,22 +17,21 @@ import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.UncheckedIOException;
+import java.lang.ref.Reference;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.DirectoryStream;
 import java.nio.file.FileStore;
-import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
 import java.nio.file.NoSuchFileException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.nio.file.SimpleFileVisitor;
-import java.nio.file.attribute.BasicFileAttributes;
 import java.time.Duration;
 import java.time.LocalDateTime;
 import java.time.OffsetDateTime;
 import java.time.ZoneId;
 import java.util.Date;
-import java.util.EnumSet;
 import java.util.HashSet;
 import java.util.Iterator;
 import java.util.List;
@@ -41,7 +40,6 @@ import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
 import java.util.UUID;
-import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.locks.Lock;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -64,11 +62,13 @@ import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
+import org.sonatype.nexus.blobstore.api.FileChannelBlob;
 import org.sonatype.nexus.blobstore.api.OperationMetrics;
 import org.sonatype.nexus.blobstore.api.OperationType;
 import org.sonatype.nexus.blobstore.api.PaginatedResult;
 import org.sonatype.nexus.blobstore.api.RawObjectAccess;
 import org.sonatype.nexus.blobstore.api.metrics.BlobStoreMetricsService;
+import org.sonatype.nexus.blobstore.file.FileBlobAttributesCache.CachedAttributes;
 import org.sonatype.nexus.blobstore.file.internal.BlobCollisionException;
 import org.sonatype.nexus.blobstore.file.internal.DateBasedWalkFile;
 import org.sonatype.nexus.blobstore.file.internal.FileOperations;
@@ -91,6 +91,7 @@ import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
+import com.google.common.io.ByteStreams;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.filefilter.AgeFileFilter;
 import org.apache.commons.lang.time.DateUtils;
@@ -107,7 +108,6 @@ import static java.util.Arrays.stream;
 import static java.util.Optional.ofNullable;
 import static org.apache.commons.io.FileUtils.forceDelete;
 import static org.apache.commons.io.FileUtils.iterateFiles;
-import static org.apache.commons.lang3.StringUtils.EMPTY;
 import static org.apache.commons.lang3.StringUtils.removeEnd;
 import static org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver.TEMPORARY_BLOB_ID_PREFIX;
 import static org.sonatype.nexus.blobstore.DirectPathLocationStrategy.DIRECT_PATH_ROOT;
@@ -137,6 +137,16 @@ public class FileBlobStore
 
   public static final String PATH_KEY = "path";
 
+  /**
+   * Maximum size in bytes of the blob attribute cache, {@code 0} disables the cache.
+   *
+   * @since 3.77
+   */
+  public static final String ATTRIBUTE_CACHE_SIZE_KEY = "attributeCacheSize";
+
+  private static final long DEFAULT_ATTRIBUTE_CACHE_SIZE =
+      SystemPropertiesHelper.getLong("nexus.blobstore.file.attributeCacheSize", 0L);
+
   @VisibleForTesting
   public static final String METADATA_FILENAME = "metadata.properties";
 
@@ -162,6 +172,12 @@ public class FileBlobStore
 
   private static final int INTERVAL_IN_SECONDS = 60;
 
+  @VisibleForTesting
+  static final String COMPACT_CHECKPOINT_FILENAME = "compact.checkpoint";
+
+  private static final int COMPACT_PARALLELISM =
+      SystemPropertiesHelper.getInteger("nexus.blobstore.file.compact.parallelism", 4);
+
   private Path contentDir;
 
   private Path reconciliationLogDir;
@@ -176,6 +192,9 @@ public class FileBlobStore
 
   private LoadingCache<BlobId, FileBlob> liveBlobs;
 
+  @Nullable
+  private FileBlobAttributesCache attributesCache;
+
   private final FileBlobDeletionIndex blobDeletionIndex;
 
   private final NodeAccess nodeAccess;
@@ -257,6 +276,12 @@ public class FileBlobStore
       metadata.store();
     }
     liveBlobs = CacheBuilder.newBuilder().weakValues().build(from(FileBlob::new));
+    long attributeCacheSize = getAttributeCacheSize();
+    if (attributeCacheSize > 0) {
+      log.debug("Caching up to {} bytes of blob attributes for blob store {}", attributeCacheSize,
+          blobStoreConfiguration.getName());
+      attributesCache = new FileBlobAttributesCache(attributeCacheSize, metricsService);
+    }
     blobDeletionIndex.initIndex(metadata, this);
     metricsService.init(this);
 
@@ -292,10 +317,14 @@ public class FileBlobStore
   @Override
   protected void doStop() throws Exception {
     liveBlobs = null;
+    attributesCache = null;
     try {
       blobDeletionIndex.stopIndex();
     }
     finally {
+      if (reconciliationLogDir != null) {
+        reconciliationLogger.close(reconciliationLogDir);
+      }
       metricsService.stop();
       blobStoreQuotaUsageChecker.stop();
     }
@@ -369,6 +398,7 @@ public class FileBlobStore
       final BlobMetrics blobMetrics)
   {
     Path attributePath = attributePath(blobId);
+    AttributesLock lock = lockCachedAttributes(blobId);
     try {
       FileBlobAttributes blobAttributes = new FileBlobAttributes(attributePath, headers, blobMetrics);
       blobAttributes.store();
@@ -378,6 +408,9 @@ public class FileBlobStore
       fileOperations.deleteQuietly(attributePath);
       throw new BlobStoreException(e, blobId);
     }
+    finally {
+      unlockCachedAttributes(blobId, lock);
+    }
   }
 
   @Override
@@ -453,11 +486,13 @@ public class FileBlobStore
         }
 
         metricsService.recordAddition(blobAttributes.getMetrics().getContentSize());
+        cacheAttributes(blobId, new CachedAttributes(headers, metrics, false));
 
         return blob;
       }
       catch (Exception e) {
         // Something went wrong, clean up the files we created
+        invalidateCachedAttributes(blobId);
         fileOperations.deleteQuietly(temporaryAttributePath);
         fileOperations.deleteQuietly(temporaryBlobPath);
         fileOperations.deleteQuietly(attributePath);
@@ -520,7 +555,7 @@ public class FileBlobStore
       Lock lock = blob.lock();
       try {
         if (blob.isStale()) {
-          FileBlobAttributes blobAttributes = getFileBlobAttributes(blobId);
+          CachedAttributes blobAttributes = getCachedAttributes(blobId);
           if (blobAttributes == null) {
             return null;
           }
@@ -599,6 +634,7 @@ public class FileBlobStore
       throw new BlobStoreException(e, blobId);
     }
     finally {
+      invalidateCachedAttributes(blobId);
       lock.unlock();
     }
   }
@@ -641,6 +677,7 @@ public class FileBlobStore
       throw new BlobStoreException(e, blobId);
     }
     finally {
+      invalidateCachedAttributes(blobId);
       lock.unlock();
       liveBlobs.invalidate(blobId);
     }
@@ -1012,87 +1049,68 @@ public class FileBlobStore
   @VisibleForTesting
   void doCompactWithoutDeletedBlobIndex(@Nullable final BlobStoreUsageChecker inUseChecker) throws IOException {
     log.info("Begin deleted blobs processing without deleted blob index");
-    // clear the deleted blob index ahead of time, so we won't lose deletes that may occur while the compact is being
-    // performed
-    blobDeletionIndex.deleteAllRecords();
+    ShardedContentWalk contentWalk = new ShardedContentWalk(contentDir,
+        getAbsoluteBlobDir().resolve(COMPACT_CHECKPOINT_FILENAME), COMPACT_PARALLELISM);
+
+    if (contentWalk.isResuming()) {
+      log.info("Resuming compact from the last checkpoint");
+    }
+    else {
+      // clear the deleted blob index ahead of time, so we won't lose deletes that may occur while the compact is being
+      // performed; a resumed compact keeps what the interrupted one already recorded
+      blobDeletionIndex.deleteAllRecords();
+    }
 
     ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, INTERVAL_IN_SECONDS);
-    AtomicInteger count = new AtomicInteger(0);
-
-    // rather than using the blobId stream here, need to use a different means of walking the file tree, as
-    // we are deleting items on the way through, and apparently on *nix systems, deleting files that you are about to
-    // walk over causes a FileNotFoundException to be thrown and the walking stops. Overridding the visitFileFailed
-    // method allows us to get past that
-    Files.walkFileTree(contentDir, EnumSet.of(FOLLOW_LINKS), Integer.MAX_VALUE, new SimpleFileVisitor<Path>()
-    {
-      @Override
-      public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) throws IOException {
-        try {
-          checkCancellation();
-        }
-        catch (TaskInterruptedException e) {
-          log.info("Cancel request received, terminating compact process.");
-          return FileVisitResult.TERMINATE;
-        }
 
-        if (!isNonTemporaryAttributeFile(file)) {
-          return FileVisitResult.CONTINUE;
-        }
+    // rather than using the blobId stream here, the content directory is walked shard by shard, as we are deleting
+    // items on the way through, and apparently on *nix systems, deleting files that you are about to walk over causes
+    // a FileNotFoundException to be thrown and the walking stops
+    contentWalk.walk(file -> {
+      if (!isNonTemporaryAttributeFile(file)) {
+        return false;
+      }
 
-        BlobId blobId = getBlobIdFromAttributeFilePath(new FileAttributesLocation(file));
-        if (blobId != null) {
-          FileBlobAttributes attributes = getFileBlobAttributes(blobId);
+      BlobId blobId = getBlobIdFromAttributeFilePath(new FileAttributesLocation(file));
+      if (blobId != null) {
+        FileBlobAttributes attributes = getFileBlobAttributes(blobId);
 
-          if (attributes != null && attributes.isDeleted()) {
-            compactByAttributes(attributes, inUseChecker, count, progressLogger);
-          }
+        if (attributes != null && attributes.isDeleted()) {
+          return compactByAttributes(attributes, inUseChecker);
         }
-
-        return FileVisitResult.CONTINUE;
-      }
-
-      @Override
-      public FileVisitResult visitFileFailed(final Path file, final IOException exc) throws IOException {
-        log.debug("Visit file failed {}, continuing to next.", file);
-        return FileVisitResult.CONTINUE;
       }
-    });
+      return false;
+    }, progressLogger);
 
     // Do this check one final time, to preserve the functionality of throwing an exception when interrupted
     checkCancellation();
 
+    contentWalk.finish();
     progressLogger.flush();
   }
 
-  private void compactByAttributes(
-      final FileBlobAttributes attributes,
-      final BlobStoreUsageChecker inUseChecker,
-      final AtomicInteger count,
-      final ProgressLogIntervalHelper progressLogger)
-  {
+  /**
+   * Returns {@code true} if the blob was hard deleted.
+   */
+  private boolean compactByAttributes(final FileBlobAttributes attributes, final BlobStoreUsageChecker inUseChecker) {
     BlobId blobId = getBlobIdFromAttributeFilePath(new FileAttributesLocation(attributes.getPath()));
     FileBlob blob = blobId != null ? liveBlobs.getIfPresent(blobId) : null;
     try {
       if (blob == null || blob.isStale()) {
-        if (!maybeCompactBlob(inUseChecker, blobId)) {
-          blobDeletionIndex.createRecord(blobId);
-        }
-        else {
-          progressLogger.info("Elapsed time: {}, processed: {}", progressLogger.getElapsed(),
-              count.incrementAndGet());
+        if (maybeCompactBlob(inUseChecker, blobId)) {
+          return true;
         }
       }
-      else {
-        blobDeletionIndex.createRecord(blobId);
-      }
+      blobDeletionIndex.createRecord(blobId);
     }
     catch (IOException e) {
       log.warn("Failed to add blobId to index from attribute file {}", blobId, e);
     }
+    return false;
   }
 
   private Stream<Path> getAttributeFilePaths() throws IOException {
-    return getAttributeFilePaths(EMPTY);
+    return new ShardedContentWalk(contentDir).files().filter(this::isNonTemporaryAttributeFile);
   }
 
   private Stream<Path> getAttributeFilePaths(final String prefix) throws IOException {
@@ -1113,11 +1131,29 @@ public class FileBlobStore
 
   class FileBlob
       extends BlobSupport
+      implements FileChannelBlob
   {
     FileBlob(final BlobId blobId) {
       super(blobId);
     }
 
+    @Override
+    public FileChannel openFileChannel() {
+      Path contentPath = contentPath(getId());
+      try {
+        checkExists(contentPath, getId());
+        return fileOperations.openChannel(contentPath);
+      }
+      catch (BlobStoreException e) {
+        // see doGetInputStream
+        markStale();
+        throw e;
+      }
+      catch (Exception e) {
+        throw new BlobStoreException(e, getId());
+      }
+    }
+
     @Override
     protected InputStream doGetInputStream() {
       Path contentPath = contentPath(getId());
@@ -1136,6 +1172,24 @@ public class FileBlobStore
         throw new BlobStoreException(e, getId());
       }
     }
+
+    @Override
+    protected InputStream doGetInputStream(final long offset, final long length) {
+      FileChannel channel = openFileChannel();
+      try {
+        return performanceLogger.maybeWrapForPerformanceLogging(
+            new BufferedInputStream(ByteStreams.limit(Channels.newInputStream(channel.position(offset)), length)));
+      }
+      catch (Exception e) {
+        try {
+          channel.close();
+        }
+        catch (IOException suppressed) {
+          e.addSuppressed(suppressed);
+        }
+        throw new BlobStoreException(e, getId());
+      }
+    }
   }
 
   private interface BlobIngester
@@ -1167,12 +1221,12 @@ public class FileBlobStore
       throw new IllegalArgumentException("duration must >= 0");
     }
     else {
-      // date-based walk files
+      // date-based walk files, only needed to resolve date-based blobs recorded in text logs
       DateBasedWalkFile dateBasedWalkFile = new DateBasedWalkFile(contentDir.toString(), duration);
-      Map<String, OffsetDateTime> dateBasedBlobIds = dateBasedWalkFile.getBlobIdToDateRef();
 
       LocalDateTime sinceDate = now().minusSeconds(duration.getSeconds());
-      return reconciliationLogger.getBlobsCreatedSince(reconciliationLogDir, sinceDate, now(), dateBasedBlobIds);
+      return reconciliationLogger.getBlobsCreatedSince(reconciliationLogDir, sinceDate, now(),
+          dateBasedWalkFile::getBlobIdToDateRef);
     }
   }
 
@@ -1185,13 +1239,16 @@ public class FileBlobStore
       final int pageSize)
   {
     DateBasedWalkFile dateBasedWalkFile = new DateBasedWalkFile(contentDir.toString(), fromDateTime);
-    Map<String, OffsetDateTime> dateBasedBlobIds =
-        dateBasedWalkFile.getBlobIdToDateRef(contentDir.resolve(prefix).toString());
+    Path prefixPath = contentDir.resolve(prefix);
     List<BlobId> blobIds =
         reconciliationLogger.getBlobsCreatedSince(reconciliationLogDir,
             fromDateTime.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
             toDateTime.atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime(),
-            dateBasedBlobIds).collect(Collectors.toList());
+            () -> dateBasedWalkFile.getBlobIdToDateRef(prefixPath.toString()))
+            // date-based blobs read from journals carry their own created ref, keep those under the prefix
+            .filter(blobId -> blobId.getBlobCreatedRef() == null ||
+                contentDir.resolve(blobIdLocationResolver.getLocation(blobId)).startsWith(prefixPath))
+            .collect(Collectors.toList());
     return new PaginatedResult<>(blobIds, null);
   }
 
@@ -1297,6 +1354,7 @@ public class FileBlobStore
 
   @Override
   public void setBlobAttributes(final BlobId blobId, final BlobAttributes blobAttributes) {
+    AttributesLock lock = lockCachedAttributes(blobId);
     try {
       FileBlobAttributes fileBlobAttributes = getFileBlobAttributes(blobId);
       fileBlobAttributes.updateFrom(blobAttributes);
@@ -1306,6 +1364,121 @@ public class FileBlobStore
       log.error("Unable to set BlobAttributes for blob id: {}, exception: {}",
           blobId, e.getMessage(), log.isDebugEnabled() ? e : null);
     }
+    finally {
+      unlockCachedAttributes(blobId, lock);
+    }
+  }
+
+  @Override
+  @Guarded(by = STARTED)
+  public boolean undelete(
+      @Nullable final BlobStoreUsageChecker inUseChecker,
+      final BlobId blobId,
+      final BlobAttributes attributes,
+      final boolean isDryRun)
+  {
+    AttributesLock lock = lockCachedAttributes(blobId);
+    try {
+      return super.undelete(inUseChecker, blobId, attributes, isDryRun);
+    }
+    finally {
+      unlockCachedAttributes(blobId, lock);
+    }
+  }
+
+  /**
+   * Returns the attributes needed to serve the given blob, from the attribute cache when enabled.
+   */
+  @Nullable
+  private CachedAttributes getCachedAttributes(final BlobId blobId) {
+    FileBlobAttributesCache cache = attributesCache;
+    long generation = 0;
+    if (cache != null) {
+      generation = cache.generation();
+      CachedAttributes cached = cache.get(blobId);
+      if (cached != null) {
+        return cached;
+      }
+    }
+    FileBlobAttributes blobAttributes = getFileBlobAttributes(blobId);
+    if (blobAttributes == null) {
+      return null;
+    }
+    CachedAttributes attributes =
+        new CachedAttributes(blobAttributes.getHeaders(), blobAttributes.getMetrics(), blobAttributes.isDeleted());
+    if (cache != null) {
+      // an update invalidating the entry while we were reading the file means what we read may be out of date
+      cache.putIfUnchanged(blobId, attributes, generation);
+    }
+    return attributes;
+  }
+
+  private void cacheAttributes(final BlobId blobId, final CachedAttributes attributes) {
+    if (attributesCache != null) {
+      attributesCache.put(blobId, attributes);
+    }
+  }
+
+  private void invalidateCachedAttributes(final BlobId blobId) {
+    if (attributesCache != null) {
+      attributesCache.invalidate(blobId);
+    }
+  }
+
+  /**
+   * Updates outside of the blob lock would race with {@link #get(BlobId, boolean)} re-caching the old attributes, so
+   * when the cache is enabled they take the lock too.
+   */
+  @Nullable
+  private AttributesLock lockCachedAttributes(final BlobId blobId) {
+    if (attributesCache == null) {
+      return null;
+    }
+    FileBlob blob = liveBlobs.getUnchecked(blobId);
+    return new AttributesLock(blob, blob.lock());
+  }
+
+  private void unlockCachedAttributes(final BlobId blobId, @Nullable final AttributesLock lock) {
+    if (lock != null) {
+      try {
+        invalidateCachedAttributes(blobId);
+      }
+      finally {
+        lock.unlock();
+      }
+    }
+  }
+
+  /**
+   * The lock of a blob taken by {@link #lockCachedAttributes(BlobId)}, along with the blob itself. {@link #liveBlobs}
+   * only holds blobs weakly; were this one collected while locked, the next caller would get a new instance with its
+   * own lock.
+   */
+  private static class AttributesLock
+  {
+    private final FileBlob blob;
+
+    private final Lock lock;
+
+    AttributesLock(final FileBlob blob, final Lock lock) {
+      this.blob = blob;
+      this.lock = lock;
+    }
+
+    void unlock() {
+      lock.unlock();
+      Reference.reachabilityFence(blob);
+    }
+  }
+
+  private long getAttributeCacheSize() {
+    return Long.parseLong(blobStoreConfiguration.attributes(CONFIG_KEY)
+        .get(ATTRIBUTE_CACHE_SIZE_KEY, DEFAULT_ATTRIBUTE_CACHE_SIZE).toString());
+  }
+
+  @VisibleForTesting
+  void setAttributesCache(@Nullable final FileBlobAttributesCache attributesCache) {
+    this.attributesCache = attributesCache;
   }
 
   @Override
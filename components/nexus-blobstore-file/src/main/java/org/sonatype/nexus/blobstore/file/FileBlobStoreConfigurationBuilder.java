@@ -29,6 +29,8 @@ public class FileBlobStoreConfigurationBuilder
 {
   private String path;
 
+  private Long attributeCacheSize;
+
   /**
    * Creates a new builder using the specified name for the resulting blob store. Unless customized, the name is also
    * used as the path for the blob store.
@@ -50,6 +52,16 @@ public class FileBlobStoreConfigurationBuilder
     return this;
   }
 
+  /**
+   * Sets the maximum size in bytes of the blob attribute cache, {@code 0} disables the cache.
+   *
+   * @since 3.77
+   */
+  public FileBlobStoreConfigurationBuilder attributeCacheSize(final long attributeCacheSize) {
+    this.attributeCacheSize = attributeCacheSize;
+    return this;
+  }
+
   /**
    * Creates the configuration for the desired file blob store.
    */
@@ -57,6 +69,9 @@ public class FileBlobStoreConfigurationBuilder
   public BlobStoreConfiguration build() {
     final BlobStoreConfiguration configuration = super.build();
     configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.PATH_KEY, path);
+    if (attributeCacheSize != null) {
+      configuration.attributes(FileBlobStore.CONFIG_KEY).set(FileBlobStore.ATTRIBUTE_CACHE_SIZE_KEY, attributeCacheSize);
+    }
     return configuration;
   }
 }
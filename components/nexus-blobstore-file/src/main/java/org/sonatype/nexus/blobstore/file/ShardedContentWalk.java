@@ -0,0 +1,347 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileVisitResult;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
+import java.nio.file.attribute.BasicFileAttributes;
+import java.util.ArrayList;
+import java.util.EnumSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Predicate;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
+import org.sonatype.nexus.thread.NexusForkJoinPoolFactory;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static com.google.common.base.Throwables.throwIfInstanceOf;
+import static com.google.common.base.Throwables.throwIfUnchecked;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.FileVisitOption.FOLLOW_LINKS;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.util.Collections.singletonList;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.Collectors.toList;
+import static org.sonatype.nexus.blobstore.file.FileBlobStore.TMP;
+import static org.sonatype.nexus.scheduling.CancelableHelper.checkCancellation;
+
+/**
+ * Walks the content directory of a {@link FileBlobStore} as independent shards on a bounded fork-join pool.
+ *
+ * Shards follow the layout of the location strategies: every {@code vol-XX/chap-YY} directory, every day of the
+ * date based {@code yyyy/MM/dd} directories, and every other top level directory (such as {@code directpath}) is
+ * walked as a whole. Finished shards are appended to a checkpoint file, so a walk that is cancelled or fails part way
+ * can be resumed without revisiting them.
+ *
+ * Cancellation and progress logging happen on the calling thread, which is the one carrying the task context.
+ *
+ * The same shards back {@link #files()}, which streams the content for callers that consume it lazily.
+ *
+ * @since 3.77
+ */
+class ShardedContentWalk
+    extends ComponentSupport
+{
+  private static final Pattern VOLUME = Pattern.compile("vol-\\d+");
+
+  private static final Pattern YEAR = Pattern.compile("\\d{4}");
+
+  private final Path contentDir;
+
+  @Nullable
+  private final Path checkpointFile;
+
+  private final int parallelism;
+
+  private final Set<String> finishedShards = new HashSet<>();
+
+  ShardedContentWalk(final Path contentDir, final Path checkpointFile, final int parallelism) throws IOException {
+    this.contentDir = checkNotNull(contentDir);
+    this.checkpointFile = checkNotNull(checkpointFile);
+    this.parallelism = parallelism;
+    if (Files.exists(checkpointFile)) {
+      finishedShards.addAll(Files.readAllLines(checkpointFile, UTF_8));
+    }
+  }
+
+  /**
+   * Creates a walk without a checkpoint, which can only be used to stream the {@link #files()}.
+   */
+  ShardedContentWalk(final Path contentDir) {
+    this.contentDir = checkNotNull(contentDir);
+    this.checkpointFile = null;
+    this.parallelism = 1;
+  }
+
+  /**
+   * Returns {@code true} if an earlier walk left a checkpoint behind.
+   */
+  boolean isResuming() {
+    return !finishedShards.isEmpty();
+  }
+
+  /**
+   * Passes every file under the content directory which is not part of an already finished shard to the visitor. The
+   * visitor is called concurrently and returns {@code true} when it removed the blob the file belongs to.
+   */
+  void walk(final Predicate<Path> visitor, final ProgressLogIntervalHelper progressLogger) throws IOException {
+    checkState(checkpointFile != null, "Walk requires a checkpoint file");
+    checkCancellation();
+
+    List<Shard> shards = listShards().stream()
+        .filter(shard -> !finishedShards.contains(shard.key))
+        .collect(toList());
+    log.info("Walking {} shards of {} ({} already done) with parallelism {}", shards.size(), contentDir,
+        finishedShards.size(), parallelism);
+
+    AtomicBoolean stop = new AtomicBoolean();
+    ForkJoinPool pool = NexusForkJoinPoolFactory.createForkJoinPool("blobstore-compact-", parallelism);
+    try {
+      CompletionService<ShardResult> completionService = new ExecutorCompletionService<>(pool);
+      for (Shard shard : shards) {
+        completionService.submit(() -> shard.walk(visitor, stop));
+      }
+
+      long removed = 0;
+      for (int done = 0; done < shards.size(); ) {
+        Future<ShardResult> future = poll(completionService);
+        if (future != null) {
+          ShardResult result = getResult(future);
+          markFinished(result.shard);
+          removed += result.removed;
+          done++;
+          progressLogger.info("Elapsed time: {}, shard {} done in {} ms ({} files/s, {} removed), {}/{} shards, " +
+                  "removed: {}", progressLogger.getElapsed(), result.shard.key, result.elapsedMillis,
+              result.filesPerSecond(), result.removed, done, shards.size(), removed);
+        }
+      }
+    }
+    finally {
+      stop.set(true);
+      pool.shutdownNow();
+      awaitTermination(pool);
+    }
+  }
+
+  /**
+   * Returns every file under the content directory outside of {@code tmp}, shard by shard. The directories of a shard
+   * are only opened once the stream reaches it, and a parallel stream is split along shard boundaries.
+   */
+  Stream<Path> files() throws IOException {
+    return listShards().stream().flatMap(Shard::files);
+  }
+
+  /**
+   * Removes the checkpoint once the walk completed.
+   */
+  void finish() throws IOException {
+    checkState(checkpointFile != null, "Walk requires a checkpoint file");
+    Files.deleteIfExists(checkpointFile);
+    finishedShards.clear();
+  }
+
+  @VisibleForTesting
+  List<String> listShardKeys() throws IOException {
+    return listShards().stream().map(shard -> shard.key).collect(toList());
+  }
+
+  private List<Shard> listShards() throws IOException {
+    List<Shard> shards = new ArrayList<>();
+    if (!Files.isDirectory(contentDir)) {
+      return shards;
+    }
+    shards.add(new Shard(contentDir, false));
+    for (Path dir : subdirectories(contentDir)) {
+      String name = dir.getFileName().toString();
+      if (TMP.equals(name)) {
+        continue;
+      }
+      int depth = VOLUME.matcher(name).matches() ? 1 : YEAR.matcher(name).matches() ? 2 : 0;
+      partition(dir, depth, shards);
+    }
+    return shards;
+  }
+
+  /**
+   * Splits {@code dir} into one shard per subdirectory {@code depth} levels down, plus shards for any files sitting in
+   * the levels above them.
+   */
+  private void partition(final Path dir, final int depth, final List<Shard> shards) throws IOException {
+    if (depth == 0) {
+      shards.add(new Shard(dir, true));
+      return;
+    }
+    shards.add(new Shard(dir, false));
+    for (Path subdirectory : subdirectories(dir)) {
+      partition(subdirectory, depth - 1, shards);
+    }
+  }
+
+  private static List<Path> subdirectories(final Path dir) throws IOException {
+    List<Path> subdirectories = new ArrayList<>();
+    try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir, Files::isDirectory)) {
+      stream.forEach(subdirectories::add);
+    }
+    subdirectories.sort(null);
+    return subdirectories;
+  }
+
+  private void markFinished(final Shard shard) throws IOException {
+    Files.write(checkpointFile, singletonList(shard.key), UTF_8, CREATE, APPEND);
+    finishedShards.add(shard.key);
+  }
+
+  private static Future<ShardResult> poll(final CompletionService<ShardResult> completionService) {
+    checkCancellation();
+    try {
+      return completionService.poll(1, SECONDS);
+    }
+    catch (InterruptedException e) { // NOSONAR
+      Thread.currentThread().interrupt();
+      checkCancellation();
+      return null;
+    }
+  }
+
+  private static ShardResult getResult(final Future<ShardResult> future) throws IOException {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException(e);
+    }
+    catch (ExecutionException e) {
+      throwIfInstanceOf(e.getCause(), IOException.class);
+      throwIfUnchecked(e.getCause());
+      throw new IOException(e.getCause());
+    }
+  }
+
+  private void awaitTermination(final ForkJoinPool pool) {
+    try {
+      if (!pool.awaitTermination(1, MINUTES)) {
+        log.warn("Timed out waiting for shards of {} to stop", contentDir);
+      }
+    }
+    catch (InterruptedException e) { // NOSONAR
+      Thread.currentThread().interrupt();
+    }
+  }
+
+  private class Shard
+  {
+    private final Path dir;
+
+    private final boolean recursive;
+
+    private final String key;
+
+    Shard(final Path dir, final boolean recursive) {
+      this.dir = dir;
+      this.recursive = recursive;
+      this.key = (recursive ? "tree:" : "files:") + contentDir.relativize(dir);
+    }
+
+    ShardResult walk(final Predicate<Path> visitor, final AtomicBoolean stop) throws IOException {
+      long start = System.nanoTime();
+      long[] counts = new long[2];
+
+      // deleting blobs while walking can make the walker trip over files that are gone, keep going regardless
+      Files.walkFileTree(dir, EnumSet.of(FOLLOW_LINKS), recursive ? Integer.MAX_VALUE : 1,
+          new SimpleFileVisitor<Path>()
+          {
+            @Override
+            public FileVisitResult visitFile(final Path file, final BasicFileAttributes attrs) {
+              if (stop.get()) {
+                return FileVisitResult.TERMINATE;
+              }
+              if (attrs.isRegularFile()) {
+                counts[0]++;
+                if (visitor.test(file)) {
+                  counts[1]++;
+                }
+              }
+              return FileVisitResult.CONTINUE;
+            }
+
+            @Override
+            public FileVisitResult visitFileFailed(final Path file, final IOException exc) {
+              log.debug("Visit file failed {}, continuing to next.", file);
+              return FileVisitResult.CONTINUE;
+            }
+          });
+
+      return new ShardResult(this, counts[0], counts[1], (System.nanoTime() - start) / 1_000_000);
+    }
+
+    Stream<Path> files() {
+      try {
+        return Files.walk(dir, recursive ? Integer.MAX_VALUE : 1, FOLLOW_LINKS).filter(Files::isRegularFile);
+      }
+      catch (NoSuchFileException e) {
+        // removed since the shards were listed, e.g. by a compact pruning empty directories
+        return Stream.empty();
+      }
+      catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+    }
+  }
+
+  private static class ShardResult
+  {
+    private final Shard shard;
+
+    private final long files;
+
+    private final long removed;
+
+    private final long elapsedMillis;
+
+    ShardResult(final Shard shard, final long files, final long removed, final long elapsedMillis) {
+      this.shard = shard;
+      this.files = files;
+      this.removed = removed;
+      this.elapsedMillis = elapsedMillis;
+    }
+
+    long filesPerSecond() {
+      return files * 1000 / Math.max(1, elapsedMillis);
+    }
+  }
+}
@@ -0,0 +1,146 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file;
+
+import java.time.OffsetDateTime;
+import java.util.HashMap;
+import java.util.Map;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobMetrics;
+import org.sonatype.nexus.blobstore.file.FileBlobAttributesCache.CachedAttributes;
+import org.sonatype.nexus.blobstore.file.internal.datastore.metrics.DatastoreFileBlobStoreMetricsService;
+
+import com.google.common.base.Strings;
+import com.google.common.collect.ImmutableMap;
+import org.joda.time.DateTime;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.atLeastOnce;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.sonatype.nexus.blobstore.api.BlobStore.BLOB_NAME_HEADER;
+import static org.sonatype.nexus.blobstore.api.BlobStore.CREATED_BY_HEADER;
+
+/**
+ * Tests {@link FileBlobAttributesCache}.
+ */
+public class FileBlobAttributesCacheTest
+    extends TestSupport
+{
+  private static final Map<String, String> HEADERS = ImmutableMap.of(
+      CREATED_BY_HEADER, "admin",
+      BLOB_NAME_HEADER, "org/example/example/1.0/example-1.0.jar");
+
+  private static final BlobId BLOB_ID = new BlobId("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7");
+
+  @Mock
+  private DatastoreFileBlobStoreMetricsService metricsService;
+
+  @Test
+  public void attributesSurviveTheRoundTrip() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(1024 * 1024, metricsService);
+
+    BlobMetrics metrics = new BlobMetrics(new DateTime(1486679665325L), "cbd5bce1c926e6b55b6b4037ce691b8f9e5dea0f", 40);
+    metrics.setLastDownloaded(OffsetDateTime.parse("2024-05-01T10:15:30+02:00"));
+    underTest.put(BLOB_ID, new CachedAttributes(HEADERS, metrics, true));
+
+    CachedAttributes cached = underTest.get(BLOB_ID);
+
+    assertThat(cached, is(notNullValue()));
+    assertThat(cached.getHeaders(), is(HEADERS));
+    assertThat(cached.getMetrics().getCreationTime().getMillis(), is(1486679665325L));
+    assertThat(cached.getMetrics().getSha1Hash(), is("cbd5bce1c926e6b55b6b4037ce691b8f9e5dea0f"));
+    assertThat(cached.getMetrics().getContentSize(), is(40L));
+    assertThat(cached.getMetrics().getLastDownloaded(), is(metrics.getLastDownloaded()));
+    assertThat(cached.isDeleted(), is(true));
+    verify(metricsService).recordAttributeCacheHit();
+  }
+
+  @Test
+  public void eachLookupReturnsAnIndependentCopy() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(1024 * 1024, metricsService);
+    underTest.put(BLOB_ID, new CachedAttributes(HEADERS, metrics(), false));
+
+    underTest.get(BLOB_ID).getHeaders().put("extra", "value");
+    underTest.get(BLOB_ID).getMetrics().setLastDownloaded(OffsetDateTime.now());
+
+    CachedAttributes cached = underTest.get(BLOB_ID);
+    assertThat(cached.getHeaders(), is(HEADERS));
+    assertThat(cached.getMetrics().getLastDownloaded(), is(nullValue()));
+  }
+
+  @Test
+  public void missesAndInvalidationsAreReported() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(1024 * 1024, metricsService);
+
+    assertThat(underTest.get(BLOB_ID), is(nullValue()));
+
+    underTest.put(BLOB_ID, new CachedAttributes(HEADERS, metrics(), false));
+    underTest.invalidate(BLOB_ID);
+
+    assertThat(underTest.get(BLOB_ID), is(nullValue()));
+    verify(metricsService, times(2)).recordAttributeCacheMiss();
+    verify(metricsService, never()).recordAttributeCacheEviction();
+  }
+
+  @Test
+  public void cacheIsBoundedBySize() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(16 * 1024, metricsService);
+
+    for (int i = 0; i < 1_000; i++) {
+      underTest.put(new BlobId("blob-" + i), new CachedAttributes(HEADERS, metrics(), false));
+    }
+
+    assertThat(underTest.size(), is(greaterThan(0L)));
+    assertThat(underTest.size(), is(lessThan(1_000L)));
+    verify(metricsService, atLeastOnce()).recordAttributeCacheEviction();
+  }
+
+  @Test
+  public void attributesReadBeforeAnInvalidationAreNotCached() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(1024 * 1024, metricsService);
+
+    long generation = underTest.generation();
+    underTest.invalidate(BLOB_ID);
+    underTest.putIfUnchanged(BLOB_ID, new CachedAttributes(HEADERS, metrics(), false), generation);
+    assertThat(underTest.size(), is(0L));
+
+    underTest.putIfUnchanged(BLOB_ID, new CachedAttributes(HEADERS, metrics(), false), underTest.generation());
+    assertThat(underTest.size(), is(1L));
+  }
+
+  @Test
+  public void attributesTooLargeToEncodeAreNotCached() {
+    FileBlobAttributesCache underTest = new FileBlobAttributesCache(1024 * 1024, metricsService);
+
+    Map<String, String> headers = new HashMap<>(HEADERS);
+    headers.put("huge", Strings.repeat("x", 70_000));
+    underTest.put(BLOB_ID, new CachedAttributes(headers, metrics(), false));
+
+    assertThat(underTest.size(), is(0L));
+  }
+
+  private static BlobMetrics metrics() {
+    return new BlobMetrics(new DateTime(), "cbd5bce1c926e6b55b6b4037ce691b8f9e5dea0f", 40);
+  }
+}
@@ -218,6 +218,20 @@ public abstract class FileBlobStoreITSupport
     assertThat(deletedBlob, is(nullValue()));
   }
 
+  @Test
+  public void readBlobRange() throws Exception {
+    final byte[] content = randomBytes();
+    final Blob blob = underTest.create(new ByteArrayInputStream(content), TEST_HEADERS);
+
+    try (InputStream range = underTest.get(blob.getId()).getInputStream(2, 5)) {
+      assertThat(ByteStreams.toByteArray(range), is(equalTo(Arrays.copyOfRange(content, 2, 7))));
+    }
+    try (InputStream tail = underTest.get(blob.getId()).getInputStream(content.length - 3, 100)) {
+      assertThat(ByteStreams.toByteArray(tail),
+          is(equalTo(Arrays.copyOfRange(content, content.length - 3, content.length))));
+    }
+  }
+
   @Test
   public void createAndDeleteBlobWithDirectPathSuccessful() throws IOException {
     final byte[] content = randomBytes();
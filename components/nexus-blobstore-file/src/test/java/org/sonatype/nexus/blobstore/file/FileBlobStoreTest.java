@@ -13,10 +13,12 @@
 package org.sonatype.nexus.blobstore.file;
 
 import java.io.IOException;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.FileSystemException;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
 import java.time.LocalTime;
@@ -28,6 +30,7 @@ import java.util.Map;
 import java.util.Properties;
 import java.util.UUID;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Supplier;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.BlobIdLocationResolver;
@@ -67,13 +70,13 @@ import org.mockito.Mock;
 import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.nio.file.Files.write;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertNotNull;
 import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
 import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
-import static org.mockito.ArgumentMatchers.anyMap;
 import static org.mockito.ArgumentMatchers.anyString;
 import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.*;
@@ -302,6 +305,46 @@ public class FileBlobStoreTest
     verify(blobStoreUsageChecker, atLeastOnce()).test(any(), any(), any());
   }
 
+  @Test
+  public void testDoCompact_RebuildMetadataNeeded_ResumesFromCheckpoint() throws Exception {
+    when(fileOperations.delete(any())).thenReturn(true);
+    when(nodeAccess.isOldestNode()).thenReturn(true);
+    underTest.doStart();
+
+    write(fullPath.resolve("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7.properties"), deletedBlobStoreProperties);
+    Path checkpoint = underTest.getAbsoluteBlobDir().resolve(FileBlobStore.COMPACT_CHECKPOINT_FILENAME);
+    write(checkpoint, "tree:vol-03/chap-44\n".getBytes(UTF_8));
+    setRebuildMetadataToTrue();
+
+    underTest.doCompact(blobStoreUsageChecker);
+
+    verify(fileBlobDeletionIndex, never()).deleteAllRecords();
+    verify(blobStoreUsageChecker, never()).test(any(), any(), any());
+    verify(fileOperations, never()).delete(any());
+    assertThat(Files.exists(checkpoint), is(false));
+  }
+
+  @Test
+  public void testDoCompact_RebuildMetadataNeeded_CancelledCompactKeepsCheckpoint() throws Exception {
+    when(nodeAccess.isOldestNode()).thenReturn(true);
+    underTest.doStart();
+
+    write(fullPath.resolve("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7.properties"), deletedBlobStoreProperties);
+    Path checkpoint = underTest.getAbsoluteBlobDir().resolve(FileBlobStore.COMPACT_CHECKPOINT_FILENAME);
+    write(checkpoint, "tree:vol-01/chap-01\n".getBytes(UTF_8));
+    setRebuildMetadataToTrue();
+    cancelled.set(true);
+
+    try {
+      underTest.doCompact(blobStoreUsageChecker);
+      fail("Expected exception to be thrown");
+    }
+    catch (TaskInterruptedException expected) {
+    }
+
+    assertThat(Files.readAllLines(checkpoint), contains("tree:vol-01/chap-01"));
+  }
+
   @Test
   public void testDoCompact_RebuildMetadataNeeded_NotOldestNode() throws Exception {
     when(nodeAccess.isOldestNode()).thenReturn(false);
@@ -388,6 +431,33 @@ public class FileBlobStoreTest
     assertThat(propertiesPath.toFile().exists(), is(false));
   }
 
+  @Test
+  public void fileBlobOpensChannelToContent() throws Exception {
+    BlobId blobId = new BlobId("0515c8b9-0de0-49d4-bcf0-7738c40c9c5e");
+    Path bytesPath = fullPath.resolve("0515c8b9-0de0-49d4-bcf0-7738c40c9c5e.bytes");
+    write(bytesPath, "hello".getBytes(UTF_8));
+    when(fileOperations.exists(bytesPath)).thenReturn(true);
+    when(fileOperations.openChannel(bytesPath)).thenAnswer(i -> FileChannel.open(bytesPath, StandardOpenOption.READ));
+
+    try (FileChannel channel = underTest.new FileBlob(blobId).openFileChannel()) {
+      assertThat(channel.size(), is(5L));
+    }
+  }
+
+  @Test
+  public void fileBlobMarkedStaleWhenChannelContentMissing() {
+    FileBlob blob = underTest.new FileBlob(new BlobId("0515c8b9-0de0-49d4-bcf0-7738c40c9c5e"));
+    blob.refresh(TEST_HEADERS, new BlobMetrics(new DateTime(), "a5aa215f17898e21986cb19d4b72f6bebf86c4bd", 5));
+
+    try {
+      blob.openFileChannel();
+      fail("Expected BlobStoreException");
+    }
+    catch (BlobStoreException e) {
+      assertThat(blob.isStale(), is(true));
+    }
+  }
+
   @Test
   public void testUndelete_AttributesNotDeleted() throws IOException {
     when(attributes.isDeleted()).thenReturn(false);
@@ -527,6 +597,64 @@ public class FileBlobStoreTest
     assertNotNull(underTest.getBlobAttributes(new BlobId("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7")));
   }
 
+  @Test
+  public void getServesStaleBlobsFromTheAttributeCache() throws Exception {
+    BlobId blobId = new BlobId("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7");
+    Path propertiesPath = fullPath.resolve(blobId.asUniqueString() + ".properties");
+    write(propertiesPath, VALID_BLOB_STORE_PROPERTIES);
+
+    underTest.setAttributesCache(new FileBlobAttributesCache(1024 * 1024, metrics));
+    when(loadingCache.getUnchecked(any())).thenAnswer(i -> underTest.new FileBlob(i.getArgument(0)));
+
+    Blob first = underTest.get(blobId);
+    Files.delete(propertiesPath);
+    Blob second = underTest.get(blobId);
+
+    assertNotNull(second);
+    assertThat(second.getHeaders(), is(first.getHeaders()));
+    assertThat(second.getMetrics().getSha1Hash(), is("cbd5bce1c926e6b55b6b4037ce691b8f9e5dea0f"));
+    verify(metrics).recordAttributeCacheMiss();
+    verify(metrics).recordAttributeCacheHit();
+  }
+
+  @Test
+  public void setBlobAttributesInvalidatesTheAttributeCache() throws Exception {
+    BlobId blobId = new BlobId("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7");
+    write(fullPath.resolve(blobId.asUniqueString() + ".properties"), VALID_BLOB_STORE_PROPERTIES);
+
+    underTest.setAttributesCache(new FileBlobAttributesCache(1024 * 1024, metrics));
+    when(loadingCache.getUnchecked(any())).thenAnswer(i -> underTest.new FileBlob(i.getArgument(0)));
+
+    BlobAttributes deleted = underTest.getBlobAttributes(blobId);
+    assertNotNull(underTest.get(blobId));
+
+    deleted.setDeleted(true);
+    deleted.setDeletedReason("test");
+    underTest.setBlobAttributes(blobId, deleted);
+
+    assertNull(underTest.get(blobId));
+    verify(metrics, times(2)).recordAttributeCacheMiss();
+  }
+
+  @Test
+  public void createBlobAttributesInvalidatesTheAttributeCache() throws Exception {
+    BlobId blobId = new BlobId("e27f83a9-dc18-4818-b4ca-ae8a9cb813c7");
+    write(fullPath.resolve(blobId.asUniqueString() + ".properties"), VALID_BLOB_STORE_PROPERTIES);
+
+    underTest.setAttributesCache(new FileBlobAttributesCache(1024 * 1024, metrics));
+    when(loadingCache.getUnchecked(any())).thenAnswer(i -> underTest.new FileBlob(i.getArgument(0)));
+
+    assertThat(underTest.get(blobId).getMetrics().getContentSize(), is(40L));
+
+    underTest.createBlobAttributes(blobId, ImmutableMap.of(BLOB_NAME_HEADER, "rewritten", CREATED_BY_HEADER, "admin"),
+        new BlobMetrics(new DateTime(), "da39a3ee5e6b4b0d3255bfef95601890afd80709", 0));
+
+    Blob blob = underTest.get(blobId);
+    assertThat(blob.getHeaders().get(BLOB_NAME_HEADER), is("rewritten"));
+    assertThat(blob.getMetrics().getContentSize(), is(0L));
+    verify(metrics, times(2)).recordAttributeCacheMiss();
+  }
+
   @Test
   public void getBlobAttributesReturnsNullWhenPropertiesFileIsNonExistent() {
     assertNull(underTest.getBlobAttributes(new BlobId("non-existent-blob")));
@@ -597,7 +725,7 @@ public class FileBlobStoreTest
 
     underTest.getBlobIdUpdatedSinceStream("test", fromDateTime, toDateTime, null, 10);
     verify(reconciliationLogger, times(1)).getBlobsCreatedSince(any(),
-        eq(fromSystemTime), eq(toSystemTime), anyMap());
+        eq(fromSystemTime), eq(toSystemTime), any(Supplier.class));
   }
 
   @Test
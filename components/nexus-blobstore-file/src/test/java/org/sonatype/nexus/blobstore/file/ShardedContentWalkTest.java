@@ -0,0 +1,165 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
+import org.sonatype.nexus.scheduling.CancelableHelper;
+import org.sonatype.nexus.scheduling.TaskInterruptedException;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.slf4j.LoggerFactory;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests {@link ShardedContentWalk}.
+ */
+public class ShardedContentWalkTest
+    extends TestSupport
+{
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private final AtomicBoolean cancelled = new AtomicBoolean(false);
+
+  private Path contentDir;
+
+  private Path checkpointFile;
+
+  private final ProgressLogIntervalHelper progressLogger =
+      new ProgressLogIntervalHelper(LoggerFactory.getLogger(ShardedContentWalkTest.class), 60);
+
+  @Before
+  public void setUp() throws IOException {
+    CancelableHelper.set(cancelled);
+    contentDir = temporaryFolder.newFolder("content").toPath();
+    checkpointFile = temporaryFolder.getRoot().toPath().resolve("compact.checkpoint");
+
+    file("vol-01/chap-01/a.properties");
+    file("vol-01/chap-02/b.properties");
+    file("vol-02/chap-01/c.properties");
+    file("2024/05/01/10/15/d.properties");
+    file("2024/05/02/11/30/e.properties");
+    file("directpath/some/path/f.properties");
+    file("tmp/tmp$g.properties");
+  }
+
+  @After
+  public void tearDown() {
+    CancelableHelper.remove();
+  }
+
+  @Test
+  public void shardsFollowTheLocationStrategies() throws IOException {
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir, checkpointFile, 2);
+
+    assertThat(underTest.listShardKeys(), containsInAnyOrder(
+        "files:",
+        "files:vol-01", "tree:vol-01/chap-01", "tree:vol-01/chap-02",
+        "files:vol-02", "tree:vol-02/chap-01",
+        "files:2024", "files:2024/05", "tree:2024/05/01", "tree:2024/05/02",
+        "tree:directpath"));
+  }
+
+  @Test
+  public void everyFileOutsideTmpIsVisitedOnce() throws IOException {
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir, checkpointFile, 3);
+    Set<String> visited = ConcurrentHashMap.newKeySet();
+
+    underTest.walk(file -> visited.add(file.getFileName().toString()), progressLogger);
+
+    assertThat(visited, containsInAnyOrder("a.properties", "b.properties", "c.properties", "d.properties",
+        "e.properties", "f.properties"));
+  }
+
+  @Test
+  public void filesStreamsEveryFileOutsideTmp() throws IOException {
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir);
+
+    try (Stream<Path> files = underTest.files()) {
+      assertThat(files.parallel().map(file -> file.getFileName().toString()).collect(toList()), containsInAnyOrder(
+          "a.properties", "b.properties", "c.properties", "d.properties", "e.properties", "f.properties"));
+    }
+  }
+
+  @Test
+  public void finishedShardsAreSkippedWhenResuming() throws IOException {
+    Files.write(checkpointFile, List.of("tree:vol-01/chap-01", "tree:directpath"), UTF_8);
+
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir, checkpointFile, 2);
+    Set<String> visited = ConcurrentHashMap.newKeySet();
+
+    assertThat(underTest.isResuming(), is(true));
+    underTest.walk(file -> visited.add(file.getFileName().toString()), progressLogger);
+
+    assertThat(visited, containsInAnyOrder("b.properties", "c.properties", "d.properties", "e.properties"));
+    assertThat(Files.readAllLines(checkpointFile).size(), is(11));
+
+    underTest.finish();
+
+    assertThat(Files.exists(checkpointFile), is(false));
+    assertThat(underTest.isResuming(), is(false));
+  }
+
+  @Test
+  public void cancelledWalkVisitsNothing() throws IOException {
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir, checkpointFile, 2);
+    Set<String> visited = ConcurrentHashMap.newKeySet();
+    cancelled.set(true);
+
+    try {
+      underTest.walk(file -> visited.add(file.getFileName().toString()), progressLogger);
+      fail("Expected exception to be thrown");
+    }
+    catch (TaskInterruptedException expected) {
+    }
+
+    assertThat(visited, is(empty()));
+    assertThat(Files.exists(checkpointFile), is(false));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void visitorFailuresAreRethrown() throws IOException {
+    ShardedContentWalk underTest = new ShardedContentWalk(contentDir, checkpointFile, 2);
+
+    underTest.walk(file -> {
+      throw new IllegalStateException("boom");
+    }, progressLogger);
+  }
+
+  private void file(final String path) throws IOException {
+    Path file = contentDir.resolve(path);
+    Files.createDirectories(file.getParent());
+    Files.write(file, new byte[0]);
+  }
+}
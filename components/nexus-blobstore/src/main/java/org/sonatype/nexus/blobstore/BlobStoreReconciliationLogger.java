@@ -18,11 +18,15 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.LocalTime;
 import java.time.OffsetDateTime;
 import java.time.format.DateTimeParseException;
+import java.util.Comparator;
 import java.util.Map;
 import java.util.Objects;
-import java.util.function.Predicate;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
 import java.util.stream.Stream;
 
 import javax.inject.Inject;
@@ -30,37 +34,45 @@ import javax.inject.Singleton;
 
 import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.node.NodeAccess;
 
+import com.google.common.base.Suppliers;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
-import org.slf4j.MDC;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver.TEMPORARY_BLOB_ID_PREFIX;
 
 /**
- * Helper class for storing and retrieving reconciliation log for newly created blob store. Configuration is stored in
- * logback.xml. Logback will be responsible for rolling the files, and all we need to do is just call it via this class
- * that sets the context properties, so each blob store has its own reconciliation log file. Reconciliation logs are
- * stored at &lt;blobstore root&gt;/reconciliation/%date.log
+ * Helper class for storing and retrieving reconciliation log for newly created blob store. Each blob store has its own
+ * reconciliation log directory holding one {@link ReconciliationJournal} per day and node, stored at
+ * &lt;blobstore root&gt;/reconciliation/%date.%node.journal. Text logs written by earlier versions through logback
+ * (&lt;blobstore root&gt;/reconciliation/%date) are still read, until they expire.
  */
 @Singleton
 public class BlobStoreReconciliationLogger
 {
+  /**
+   * @deprecated reconciliation entries are no longer written through logback, this MDC key is not set anymore.
+   */
+  @Deprecated
   public static final String BLOBSTORE = "blobstore-reconciliation-path";
 
-  private static final String RECONCILIATION_LOGGER_NAME = "blobstore-reconciliation-log";
-
   private static final Logger LOGGER = LoggerFactory.getLogger(BlobStoreReconciliationLogger.class);
 
-  private final Logger reconciliationLogger;
-
   private final ApplicationDirectories applicationDirectories;
 
+  private final NodeAccess nodeAccess;
+
+  private final ConcurrentMap<Path, ReconciliationJournal> journals = new ConcurrentHashMap<>();
+
   @Inject
-  public BlobStoreReconciliationLogger(final ApplicationDirectories applicationDirectories) {
+  public BlobStoreReconciliationLogger(
+      final ApplicationDirectories applicationDirectories,
+      final NodeAccess nodeAccess)
+  {
     this.applicationDirectories = checkNotNull(applicationDirectories);
-    this.reconciliationLogger = LoggerFactory.getLogger(RECONCILIATION_LOGGER_NAME);
+    this.nodeAccess = checkNotNull(nodeAccess);
   }
 
   /**
@@ -71,10 +83,32 @@ public class BlobStoreReconciliationLogger
    */
   public void logBlobCreated(final Path reconciliationLogPath, final BlobId blobId) {
     if (isNotTemporaryBlob(blobId)) {
-      MDC.put(BLOBSTORE, reconciliationLogPath.toString());
-      // blobId.getBlobCreatedRef() != null means the blob was stored under the date-based layout
-      reconciliationLogger.info("{},{}", blobId.asUniqueString(), blobId.getBlobCreatedRef() != null);
-      MDC.remove(BLOBSTORE);
+      ReconciliationJournal journal = journals.computeIfAbsent(reconciliationLogPath,
+          path -> new ReconciliationJournal(applicationDirectories.getWorkDirectory(path.toString()).toPath(),
+              nodeAccess.getId()));
+      try {
+        journal.append(blobId);
+      }
+      catch (IOException e) {
+        LOGGER.error("Failed to record blob {} in reconciliation log {}", blobId, reconciliationLogPath, e);
+      }
+    }
+  }
+
+  /**
+   * Closes the reconciliation log of a blob store, it is reopened when the next blob is logged.
+   *
+   * @param reconciliationLogPath The path to the blob store's reconciliation log directory
+   */
+  public void close(final Path reconciliationLogPath) {
+    ReconciliationJournal journal = journals.remove(reconciliationLogPath);
+    if (journal != null) {
+      try {
+        journal.close();
+      }
+      catch (IOException e) {
+        LOGGER.warn("Failed to close reconciliation log {}", reconciliationLogPath, e);
+      }
     }
   }
 
@@ -98,8 +132,44 @@ public class BlobStoreReconciliationLogger
       final LocalDateTime toDate,
       final Map<String, OffsetDateTime> dateBasedBlobIds)
   {
+    return getBlobsCreatedSince(reconciliationLogPath, fromDate, toDate, () -> dateBasedBlobIds);
+  }
+
+  /**
+   * Stream blob ids of blobs created in a blob store within date range (inclusive).
+   *
+   * @param reconciliationLogPath The path to the blob store's reconciliation log directory
+   * @param fromDate The date from which range starts
+   * @param toDate The date from which range ends
+   * @param dateBasedBlobIds date-based blob ids, only fetched when text logs with date-based blobs are read as the
+   *          journals already carry the created reference of those blobs
+   *
+   * @return stream of BlobId
+   */
+  public Stream<BlobId> getBlobsCreatedSince(
+      final Path reconciliationLogPath,
+      final LocalDateTime fromDate,
+      final LocalDateTime toDate,
+      final Supplier<Map<String, OffsetDateTime>> dateBasedBlobIds)
+  {
+    Supplier<Map<String, OffsetDateTime>> memoizedDateBasedBlobIds = Suppliers.memoize(dateBasedBlobIds::get);
     return getLogFilesToProcess(reconciliationLogPath, fromDate, toDate)
-        .flatMap(this::readLines)
+        .flatMap(file -> ReconciliationJournal.isJournal(file.toPath())
+            ? readJournal(file, fromDate, toDate)
+            : readTextLog(file, memoizedDateBasedBlobIds));
+  }
+
+  private Stream<BlobId> readJournal(final File file, final LocalDateTime fromDate, final LocalDateTime toDate) {
+    LocalDate day = ReconciliationJournal.dayOf(file.toPath());
+    int fromSecond = day.equals(fromDate.toLocalDate()) ? fromDate.toLocalTime().toSecondOfDay() : 0;
+    int toSecond = day.equals(toDate.toLocalDate())
+        ? toDate.toLocalTime().toSecondOfDay()
+        : LocalTime.MAX.toSecondOfDay();
+    return ReconciliationJournal.read(file.toPath(), fromSecond, toSecond);
+  }
+
+  private Stream<BlobId> readTextLog(final File file, final Supplier<Map<String, OffsetDateTime>> dateBasedBlobIds) {
+    return readLines(file)
         .map(line -> {
           String[] split = line.split(",");
           if (split.length == 2) {
@@ -109,7 +179,7 @@ public class BlobStoreReconciliationLogger
             String blobId = split[1];
             if (Boolean.parseBoolean(split[2])) {
               // we already have date-based blob ids, so we can skip them
-              return dateBasedBlobIds.get(blobId) != null ? blobId : null;
+              return dateBasedBlobIds.get().get(blobId) != null ? blobId : null;
             }
             else {
               return blobId;
@@ -121,7 +191,7 @@ public class BlobStoreReconciliationLogger
           }
         })
         .filter(Objects::nonNull)
-        .map(id -> new BlobId(id, dateBasedBlobIds.get(id) != null ? dateBasedBlobIds.get(id) : null));
+        .map(id -> new BlobId(id, dateBasedBlobIds.get().get(id)));
   }
 
   private Stream<String> readLines(final File file) {
@@ -143,7 +213,8 @@ public class BlobStoreReconciliationLogger
     File[] logs = reconciliationLogDirectory.listFiles();
     if (Objects.nonNull(logs)) {
       return Stream.of(logs)
-          .filter(isFileNameInDateRange(fromDate, toDate))
+          .filter(file -> isLogFile(file) && isInDateRange(file, fromDate, toDate))
+          .sorted(Comparator.comparing(File::getName))
           .peek(file -> LOGGER.info("Processing file '{}'", file.getName()));
     }
     else {
@@ -152,15 +223,23 @@ public class BlobStoreReconciliationLogger
     }
   }
 
-  private Predicate<File> isFileNameInDateRange(final LocalDateTime fromDate, final LocalDateTime toDate) {
-    return file -> {
-      try {
-        LocalDate logFileDate = LocalDate.parse(file.getName());
-        return !fromDate.toLocalDate().isAfter(logFileDate) && !toDate.toLocalDate().isBefore(logFileDate);
-      }
-      catch (DateTimeParseException e) {
-        return false;
-      }
-    };
+  private static boolean isLogFile(final File file) {
+    return ReconciliationJournal.isJournal(file.toPath()) || isTextLog(file);
+  }
+
+  private static boolean isTextLog(final File file) {
+    try {
+      LocalDate.parse(file.getName());
+      return true;
+    }
+    catch (DateTimeParseException e) {
+      return false;
+    }
+  }
+
+  private static boolean isInDateRange(final File file, final LocalDateTime fromDate, final LocalDateTime toDate) {
+    LocalDate logFileDate = ReconciliationJournal.dayOf(file.toPath());
+    return logFileDate != null
+        && !fromDate.toLocalDate().isAfter(logFileDate) && !toDate.toLocalDate().isBefore(logFileDate);
   }
 }
@@ -0,0 +1,429 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Instant;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.time.format.DateTimeParseException;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Spliterators;
+import java.util.UUID;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import com.google.common.io.Closer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardOpenOption.APPEND;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.READ;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+
+/**
+ * Append-only binary journal of the blobs created in a blob store, one file per day and node, stored at
+ * &lt;directory&gt;/%date.%node.journal. Nodes sharing a blob store each write their own journal, so the offsets kept
+ * in the index only ever change under this journal's lock.
+ *
+ * Each record holds the second of the day the blob was created, its id (16 bytes for UUIDs, length-prefixed UTF-8
+ * otherwise) and, for blobs stored under the date-based layout, their created reference. Next to each journal sits a
+ * sparse index with the offset of the first record of every hour, so range queries seek straight to the first hour
+ * of interest and stop at the first hour past it.
+ *
+ * @since 3.77
+ */
+class ReconciliationJournal
+{
+  static final String JOURNAL_SUFFIX = ".journal";
+
+  static final String INDEX_SUFFIX = ".idx";
+
+  private static final Logger log = LoggerFactory.getLogger(ReconciliationJournal.class);
+
+  /**
+   * Matches the history kept by the logback appender that used to write the text logs.
+   */
+  static final int MAX_HISTORY_DAYS = 90;
+
+  private static final int HOURS = 24;
+
+  private static final int SECONDS_PER_HOUR = 3600;
+
+  private static final int FLAG_UUID = 1;
+
+  private static final int FLAG_CREATED_REF = 2;
+
+  private static final int UUID_LENGTH = 36;
+
+  private final Path directory;
+
+  private final String nodeId;
+
+  private LocalDate day;
+
+  private FileChannel journal;
+
+  private FileChannel index;
+
+  private int lastIndexedHour;
+
+  ReconciliationJournal(final Path directory, final String nodeId) {
+    this.directory = checkNotNull(directory);
+    this.nodeId = checkNotNull(nodeId);
+  }
+
+  static boolean isJournal(final Path file) {
+    return file.getFileName().toString().endsWith(JOURNAL_SUFFIX);
+  }
+
+  /**
+   * Returns the day a journal or index file is for, or {@code null} for other files.
+   */
+  @Nullable
+  static LocalDate dayOf(final Path file) {
+    String name = file.getFileName().toString();
+    int suffix = name.indexOf('.');
+    try {
+      return LocalDate.parse(suffix < 0 ? name : name.substring(0, suffix));
+    }
+    catch (DateTimeParseException e) { // NOSONAR
+      return null;
+    }
+  }
+
+  /**
+   * Records that the given blob was created now. The time is taken under the journal's lock so records are appended in
+   * time order, which the hourly index relies on.
+   */
+  synchronized void append(final BlobId blobId) throws IOException {
+    append(blobId, LocalDateTime.now());
+  }
+
+  /**
+   * Records that the given blob was created at the given (local) time.
+   */
+  synchronized void append(final BlobId blobId, final LocalDateTime created) throws IOException {
+    if (!created.toLocalDate().equals(day)) {
+      roll(created.toLocalDate());
+    }
+
+    int secondOfDay = created.toLocalTime().toSecondOfDay();
+    int hour = secondOfDay / SECONDS_PER_HOUR;
+    long offset = journal.size();
+    if (hour > lastIndexedHour) {
+      for (int h = lastIndexedHour + 1; h <= hour; h++) {
+        // hours without records point at the next record, so lookups never have to scan for a populated hour
+        index.write(ByteBuffer.allocate(Long.BYTES).putLong(offset).flip(), (long) h * Long.BYTES);
+      }
+      lastIndexedHour = hour;
+    }
+
+    ByteBuffer record = encode(blobId, secondOfDay);
+    while (record.hasRemaining()) {
+      journal.write(record);
+    }
+  }
+
+  synchronized void close() throws IOException {
+    try (Closer closer = Closer.create()) {
+      if (journal != null) {
+        closer.register(journal);
+      }
+      if (index != null) {
+        closer.register(index);
+      }
+    }
+    finally {
+      journal = null;
+      index = null;
+      day = null;
+    }
+  }
+
+  private void roll(final LocalDate newDay) throws IOException {
+    close();
+    Files.createDirectories(directory);
+
+    Path journalFile = directory.resolve(newDay + "." + nodeId + JOURNAL_SUFFIX);
+    index = FileChannel.open(directory.resolve(newDay + "." + nodeId + INDEX_SUFFIX), CREATE, READ, WRITE);
+    prune(newDay.minusDays(MAX_HISTORY_DAYS));
+
+    long[] offsets = readIndex(index);
+    lastIndexedHour = -1;
+    for (int hour = 0; hour < HOURS; hour++) {
+      if (offsets[hour] >= 0) {
+        lastIndexedHour = hour;
+      }
+    }
+
+    // drop any record left half written by a crash, so it does not corrupt the records appended after it
+    try (FileChannel existing = FileChannel.open(journalFile, CREATE, READ, WRITE)) {
+      long end = lastIndexedHour < 0 ? 0 : endOfLastRecord(existing, offsets[lastIndexedHour]);
+      if (end < existing.size()) {
+        log.warn("Truncating incomplete record at the end of {}", journalFile);
+        existing.truncate(end);
+      }
+    }
+    journal = FileChannel.open(journalFile, APPEND);
+    day = newDay;
+  }
+
+  /**
+   * Deletes the journals, indexes and legacy text logs of days before the given one.
+   */
+  private void prune(final LocalDate oldestKept) {
+    try (Stream<Path> files = Files.list(directory)) {
+      files.filter(file -> {
+            LocalDate fileDay = dayOf(file);
+            return fileDay != null && fileDay.isBefore(oldestKept);
+          })
+          .forEach(file -> {
+            try {
+              Files.deleteIfExists(file);
+            }
+            catch (IOException e) {
+              log.warn("Failed to delete expired reconciliation log {}", file, e);
+            }
+          });
+    }
+    catch (IOException e) {
+      log.warn("Failed to prune reconciliation logs in {}", directory, e);
+    }
+  }
+
+  private static ByteBuffer encode(final BlobId blobId, final int secondOfDay) {
+    String id = blobId.asUniqueString();
+    UUID uuid = asUuid(id);
+    byte[] bytes = uuid == null ? id.getBytes(UTF_8) : null;
+    OffsetDateTime createdRef = blobId.getBlobCreatedRef();
+
+    ByteBuffer buffer = ByteBuffer.allocate(Integer.BYTES + 1
+        + (uuid != null ? 2 * Long.BYTES : Short.BYTES + bytes.length)
+        + (createdRef != null ? Long.BYTES + Integer.BYTES : 0));
+    buffer.putInt(secondOfDay);
+    buffer.put((byte) ((uuid != null ? FLAG_UUID : 0) | (createdRef != null ? FLAG_CREATED_REF : 0)));
+    if (uuid != null) {
+      buffer.putLong(uuid.getMostSignificantBits());
+      buffer.putLong(uuid.getLeastSignificantBits());
+    }
+    else {
+      buffer.putShort((short) bytes.length);
+      buffer.put(bytes);
+    }
+    if (createdRef != null) {
+      buffer.putLong(createdRef.toInstant().toEpochMilli());
+      buffer.putInt(createdRef.getOffset().getTotalSeconds());
+    }
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Returns the id as a {@link UUID} if it is one in canonical form, so it can be stored in 16 bytes.
+   */
+  @Nullable
+  private static UUID asUuid(final String id) {
+    if (id.length() != UUID_LENGTH) {
+      return null;
+    }
+    try {
+      UUID uuid = UUID.fromString(id);
+      return uuid.toString().equals(id) ? uuid : null;
+    }
+    catch (IllegalArgumentException e) { // NOSONAR
+      return null;
+    }
+  }
+
+  private static long[] readIndex(final FileChannel index) throws IOException {
+    long[] offsets = new long[HOURS];
+    ByteBuffer buffer = ByteBuffer.allocate(HOURS * Long.BYTES);
+    while (buffer.hasRemaining() && index.read(buffer, buffer.position()) > 0) {
+      // keep reading
+    }
+    buffer.flip();
+    for (int hour = 0; hour < HOURS; hour++) {
+      offsets[hour] = buffer.remaining() >= Long.BYTES ? buffer.getLong() : -1;
+    }
+    return offsets;
+  }
+
+  private static long endOfLastRecord(final FileChannel journal, final long from) throws IOException {
+    long end = from;
+    try (Reader reader = new Reader(journal, from, Long.MAX_VALUE, 0, Integer.MAX_VALUE, false)) {
+      while (reader.hasNext()) {
+        reader.next();
+        end = reader.position;
+      }
+    }
+    return end;
+  }
+
+  /**
+   * Streams the ids of the blobs recorded in the given journal between the given seconds of its day (inclusive).
+   */
+  static Stream<BlobId> read(final Path journalFile, final int fromSecond, final int toSecond) {
+    Path indexFile = journalFile.resolveSibling(journalFile.getFileName().toString()
+        .replace(JOURNAL_SUFFIX, INDEX_SUFFIX));
+    try {
+      long[] offsets;
+      try (FileChannel index = FileChannel.open(indexFile, READ)) {
+        offsets = readIndex(index);
+      }
+      long start = -1;
+      for (int hour = Math.max(0, fromSecond / SECONDS_PER_HOUR); hour < HOURS && start < 0; hour++) {
+        start = offsets[hour];
+      }
+      long end = Long.MAX_VALUE;
+      for (int hour = toSecond / SECONDS_PER_HOUR + 1; hour < HOURS && end == Long.MAX_VALUE; hour++) {
+        end = offsets[hour] >= 0 ? offsets[hour] : Long.MAX_VALUE;
+      }
+      if (start < 0) {
+        return Stream.empty();
+      }
+
+      Reader reader = new Reader(FileChannel.open(journalFile, READ), start, end, fromSecond, toSecond, true);
+      return StreamSupport.stream(Spliterators.spliteratorUnknownSize(reader, ORDERED | NONNULL), false)
+          .onClose(reader::closeQuietly);
+    }
+    catch (IOException e) {
+      log.error("Problem when reading file '{}'", journalFile.getFileName(), e);
+      return Stream.empty();
+    }
+  }
+
+  /**
+   * Reads the records of a journal between two offsets, skipping those outside the requested seconds of the day. A
+   * truncated record at the end of the journal ends the iteration.
+   */
+  private static class Reader
+      implements Iterator<BlobId>, AutoCloseable
+  {
+    private final DataInputStream in;
+
+    private final long end;
+
+    private final int fromSecond;
+
+    private final int toSecond;
+
+    private final boolean closeChannel;
+
+    private long position;
+
+    private BlobId next;
+
+    Reader(
+        final FileChannel channel,
+        final long start,
+        final long end,
+        final int fromSecond,
+        final int toSecond,
+        final boolean closeChannel) throws IOException
+    {
+      this.in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel.position(start))));
+      this.position = start;
+      this.end = end;
+      this.fromSecond = fromSecond;
+      this.toSecond = toSecond;
+      this.closeChannel = closeChannel;
+    }
+
+    @Override
+    public boolean hasNext() {
+      while (next == null && position < end) {
+        try {
+          int secondOfDay = in.readInt();
+          int flags = in.readByte();
+          int length = Integer.BYTES + 1;
+          String id;
+          if ((flags & FLAG_UUID) != 0) {
+            id = new UUID(in.readLong(), in.readLong()).toString();
+            length += 2 * Long.BYTES;
+          }
+          else {
+            byte[] bytes = new byte[in.readUnsignedShort()];
+            in.readFully(bytes);
+            id = new String(bytes, UTF_8);
+            length += Short.BYTES + bytes.length;
+          }
+          OffsetDateTime createdRef = null;
+          if ((flags & FLAG_CREATED_REF) != 0) {
+            Instant instant = Instant.ofEpochMilli(in.readLong());
+            createdRef = instant.atOffset(ZoneOffset.ofTotalSeconds(in.readInt()));
+            length += Long.BYTES + Integer.BYTES;
+          }
+          position += length;
+          if (secondOfDay >= fromSecond && secondOfDay <= toSecond) {
+            next = new BlobId(id, createdRef);
+          }
+        }
+        catch (EOFException e) { // NOSONAR
+          return false;
+        }
+        catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      }
+      return next != null;
+    }
+
+    @Override
+    public BlobId next() {
+      if (!hasNext()) {
+        throw new NoSuchElementException();
+      }
+      BlobId result = next;
+      next = null;
+      return result;
+    }
+
+    void closeQuietly() {
+      try {
+        close();
+      }
+      catch (IOException e) {
+        log.debug("Failed to close journal", e);
+      }
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closeChannel) {
+        in.close();
+      }
+    }
+  }
+}
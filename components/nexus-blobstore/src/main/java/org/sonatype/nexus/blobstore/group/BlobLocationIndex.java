@@ -0,0 +1,257 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.Stream;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.group.BlobStoreGroupLocationStore;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+import org.sonatype.nexus.scheduling.CancelableHelper;
+
+import com.google.common.hash.BloomFilter;
+import com.google.common.hash.Funnel;
+import com.google.common.hash.Funnels;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Durable index of the members of a {@link BlobStoreGroup} holding each blob.
+ *
+ * Exact locations are kept in the {@link BlobStoreGroupLocationStore}. Each member also has a Bloom filter of the
+ * blobs it holds which rules it out, without probing it, for blobs that have no exact location. A filter is only
+ * trusted once it is complete, i.e. built by {@link #rebuild(Map)} and kept up to date since. Filters are saved when
+ * the group stops and discarded as they are loaded, so a filter left behind by a crash is never trusted.
+ *
+ * @since 3.77
+ */
+class BlobLocationIndex
+    extends ComponentSupport
+{
+  private static final String FILTER_SUFFIX = ".bloom";
+
+  private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+  private static final long MIN_EXPECTED_BLOBS = 100_000;
+
+  private static final int BATCH_SIZE = 1000;
+
+  private static final Funnel<CharSequence> FUNNEL = Funnels.stringFunnel(UTF_8);
+
+  private final String groupName;
+
+  private final BlobStoreGroupLocationStore store;
+
+  private final Path directory;
+
+  private final Map<String, BloomFilter<CharSequence>> filters = new ConcurrentHashMap<>();
+
+  private final Map<String, BloomFilter<CharSequence>> rebuilding = new ConcurrentHashMap<>();
+
+  BlobLocationIndex(final String groupName, final BlobStoreGroupLocationStore store, final Path directory) {
+    this.groupName = checkNotNull(groupName);
+    this.store = checkNotNull(store);
+    this.directory = checkNotNull(directory);
+  }
+
+  /**
+   * Loads the filters saved for the members when the group last stopped.
+   */
+  void load(final Collection<String> memberNames) {
+    for (String memberName : memberNames) {
+      Path file = filterFile(memberName);
+      if (Files.exists(file)) {
+        try (InputStream in = Files.newInputStream(file)) {
+          filters.put(memberName, BloomFilter.readFrom(in, FUNNEL));
+        }
+        catch (IOException | RuntimeException e) {
+          log.warn("Unable to load blob location filter {}, it will be ignored until rebuilt", file, e);
+        }
+        finally {
+          deleteQuietly(file);
+        }
+      }
+    }
+    log.debug("Loaded blob location filters of {} for members {}", groupName, filters.keySet());
+  }
+
+  /**
+   * Saves the complete filters so they can be trusted the next time the group starts.
+   */
+  void save() {
+    if (filters.isEmpty()) {
+      return;
+    }
+    try {
+      DirectoryHelper.mkdir(directory);
+      for (Map.Entry<String, BloomFilter<CharSequence>> entry : filters.entrySet()) {
+        Path file = filterFile(entry.getKey());
+        Path tmp = directory.resolve(entry.getKey() + FILTER_SUFFIX + ".tmp");
+        try (OutputStream out = Files.newOutputStream(tmp)) {
+          entry.getValue().writeTo(out);
+        }
+        Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+      }
+    }
+    catch (IOException e) {
+      log.warn("Unable to save blob location filters of {}, they will need to be rebuilt", groupName, e);
+    }
+  }
+
+  /**
+   * Forgets everything about the group.
+   */
+  void delete() {
+    filters.clear();
+    store.deleteGroup(groupName);
+    try {
+      DirectoryHelper.deleteIfExists(directory);
+    }
+    catch (IOException e) {
+      log.warn("Unable to delete blob location filters of {}", groupName, e);
+    }
+  }
+
+  /**
+   * Returns the name of the member known to hold the blob, if any.
+   */
+  @Nullable
+  String find(final BlobId blobId) {
+    try {
+      return store.getMember(groupName, blobId);
+    }
+    catch (RuntimeException e) {
+      log.warn("Unable to look up the location of {} in {}", blobId, groupName, e);
+      return null;
+    }
+  }
+
+  /**
+   * Narrows the members down to those which may hold the blob.
+   */
+  List<BlobStore> candidates(final BlobId blobId, final List<BlobStore> members) {
+    return members.stream()
+        .filter(member -> {
+          BloomFilter<CharSequence> filter = filters.get(member.getBlobStoreConfiguration().getName());
+          return filter == null || filter.mightContain(blobId.asUniqueString());
+        })
+        .collect(toList());
+  }
+
+  /**
+   * Records that the blob is held by the member.
+   */
+  void add(final BlobId blobId, final String memberName) {
+    String key = blobId.asUniqueString();
+    BloomFilter<CharSequence> filter = filters.get(memberName);
+    if (filter != null) {
+      filter.put(key);
+    }
+    filter = rebuilding.get(memberName);
+    if (filter != null) {
+      filter.put(key);
+    }
+    try {
+      store.setMember(groupName, blobId, memberName);
+    }
+    catch (RuntimeException e) {
+      log.warn("Unable to record the location of {} in {}", blobId, groupName, e);
+    }
+  }
+
+  /**
+   * Forgets the blob's location; the filters keep it, which only costs a probe.
+   */
+  void remove(final BlobId blobId) {
+    try {
+      store.delete(groupName, blobId);
+    }
+    catch (RuntimeException e) {
+      log.warn("Unable to remove the location of {} in {}", blobId, groupName, e);
+    }
+  }
+
+  /**
+   * Rebuilds the locations and filters by walking every member.
+   */
+  void rebuild(final Map<String, BlobStore> members) {
+    store.deleteGroup(groupName);
+    for (Map.Entry<String, BlobStore> entry : members.entrySet()) {
+      String memberName = entry.getKey();
+      BloomFilter<CharSequence> filter = BloomFilter.create(FUNNEL, expectedBlobs(entry.getValue()),
+          FALSE_POSITIVE_PROBABILITY);
+      rebuilding.put(memberName, filter);
+      try (Stream<BlobId> blobIds = entry.getValue().getBlobIdStream()) {
+        List<BlobId> batch = new ArrayList<>(BATCH_SIZE);
+        blobIds.forEach(blobId -> {
+          CancelableHelper.checkCancellation();
+          filter.put(blobId.asUniqueString());
+          batch.add(blobId);
+          if (batch.size() == BATCH_SIZE) {
+            store.setMember(groupName, batch, memberName);
+            batch.clear();
+          }
+        });
+        if (!batch.isEmpty()) {
+          store.setMember(groupName, batch, memberName);
+        }
+        filters.put(memberName, filter);
+        log.info("Indexed {} blobs of member {} in {}", filter.approximateElementCount(), memberName, groupName);
+      }
+      finally {
+        rebuilding.remove(memberName);
+      }
+    }
+  }
+
+  private long expectedBlobs(final BlobStore member) {
+    try {
+      return Math.max(member.getMetrics().getBlobCount() * 2, MIN_EXPECTED_BLOBS);
+    }
+    catch (RuntimeException e) {
+      log.debug("Unable to get the blob count of {}", member, e);
+      return MIN_EXPECTED_BLOBS;
+    }
+  }
+
+  private Path filterFile(final String memberName) {
+    return directory.resolve(memberName + FILTER_SUFFIX);
+  }
+
+  private void deleteQuietly(final Path file) {
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      log.warn("Unable to delete {}", file, e);
+    }
+  }
+}
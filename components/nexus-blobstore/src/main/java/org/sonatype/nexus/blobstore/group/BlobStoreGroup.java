@@ -16,13 +16,20 @@ import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
 import java.util.ArrayList;
-import java.util.Comparator;
 import java.util.EnumMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+import java.util.function.Predicate;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.cache.Cache;
@@ -51,24 +58,30 @@ import org.sonatype.nexus.blobstore.api.OperationType;
 import org.sonatype.nexus.blobstore.api.PaginatedResult;
 import org.sonatype.nexus.blobstore.api.RawObjectAccess;
 import org.sonatype.nexus.blobstore.api.UnimplementedRawObjectAccess;
+import org.sonatype.nexus.blobstore.api.group.BlobStoreGroupLocationStore;
 import org.sonatype.nexus.blobstore.api.metrics.BlobStoreMetricsService;
 import org.sonatype.nexus.blobstore.group.internal.BlobStoreGroupMetrics;
 import org.sonatype.nexus.blobstore.group.internal.WriteToFirstMemberFillPolicy;
 import org.sonatype.nexus.blobstore.metrics.MonitoringBlobStoreMetrics;
 import org.sonatype.nexus.cache.CacheHelper;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.stateguard.Guarded;
 import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
 import org.sonatype.nexus.common.stateguard.Transitions;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Supplier;
 import com.google.common.base.Suppliers;
+import com.google.common.base.Throwables;
 import com.google.common.hash.HashCode;
 
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Collections.synchronizedList;
 import static java.util.Collections.unmodifiableList;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static java.util.function.Function.identity;
+import static java.util.stream.Collectors.partitioningBy;
 import static java.util.stream.Collectors.toList;
 import static org.sonatype.nexus.blobstore.api.OperationType.DOWNLOAD;
 import static org.sonatype.nexus.blobstore.api.OperationType.UPLOAD;
@@ -102,6 +115,8 @@ public class BlobStoreGroup
 
   public static final String CACHE_NAME = "blobstore-group-blobIds";
 
+  private static final String LOCATION_INDEX_DIRECTORY = "blobstore-group-index";
+
   private final BlobStoreManager blobStoreManager;
 
   private final Map<String, Provider<FillPolicy>> fillPolicyProviders;
@@ -110,6 +125,12 @@ public class BlobStoreGroup
 
   private Time blobIdCacheTimeout;
 
+  private final BlobStoreGroupLocationStore locationStore;
+
+  private final ApplicationDirectories applicationDirectories;
+
+  private final int probeParallelism;
+
   private Supplier<List<BlobStore>> members;
 
   @VisibleForTesting
@@ -120,17 +141,29 @@ public class BlobStoreGroup
   // cache of located blobs that have not been soft deleted
   private Cache<BlobId, String> locatedBlobs;
 
+  // durable index of located blobs, including soft deleted ones
+  private BlobLocationIndex locationIndex;
+
+  @Nullable
+  private ExecutorService probeExecutor;
+
   @Inject
   public BlobStoreGroup(
       final BlobStoreManager blobStoreManager,
       final Map<String, Provider<FillPolicy>> fillPolicyProviders,
       final Provider<CacheHelper> cacheHelperProvider,
-      @Named("${nexus.blobstore.group.blobId.cache.timeToLive:-2d}") final Time blobIdCacheTimeout)
+      @Named("${nexus.blobstore.group.blobId.cache.timeToLive:-2d}") final Time blobIdCacheTimeout,
+      final BlobStoreGroupLocationStore locationStore,
+      final ApplicationDirectories applicationDirectories,
+      @Named("${nexus.blobstore.group.probe.parallelism:-8}") final int probeParallelism)
   {
     this.blobStoreManager = checkNotNull(blobStoreManager);
     this.fillPolicyProviders = checkNotNull(fillPolicyProviders);
     this.cacheHelperProvider = checkNotNull(cacheHelperProvider);
     this.blobIdCacheTimeout = checkNotNull(blobIdCacheTimeout);
+    this.locationStore = checkNotNull(locationStore);
+    this.applicationDirectories = checkNotNull(applicationDirectories);
+    this.probeParallelism = probeParallelism;
   }
 
   @Override
@@ -146,11 +179,21 @@ public class BlobStoreGroup
           fillPolicyName, configuration.getName(), FALLBACK_FILL_POLICY_TYPE);
       this.fillPolicy = fillPolicyProviders.get(FALLBACK_FILL_POLICY_TYPE).get();
     }
+    Path indexDirectory = applicationDirectories.getWorkDirectory(LOCATION_INDEX_DIRECTORY, false).toPath()
+        .resolve(configuration.getName());
+    this.locationIndex = new BlobLocationIndex(configuration.getName(), locationStore, indexDirectory);
   }
 
   @Override
   protected void doStart() throws Exception {
     locatedBlobs = cacheHelperProvider.get().maybeCreateCache(CACHE_NAME, getCacheConfiguration());
+    locationIndex.load(BlobStoreGroupConfigurationHelper.memberNames(blobStoreConfiguration));
+    if (probeParallelism > 1) {
+      ThreadPoolExecutor executor = new ThreadPoolExecutor(probeParallelism, probeParallelism, 60L, SECONDS,
+          new LinkedBlockingQueue<>(), new NexusThreadFactory("blobstore-group", "probe"));
+      executor.allowCoreThreadTimeOut(true);
+      probeExecutor = executor;
+    }
   }
 
   private MutableConfiguration<BlobId, String> getCacheConfiguration() {
@@ -165,6 +208,11 @@ public class BlobStoreGroup
   @Override
   protected void doStop() throws Exception {
     locatedBlobs = null;
+    locationIndex.save();
+    if (probeExecutor != null) {
+      probeExecutor.shutdown();
+      probeExecutor = null;
+    }
   }
 
   @Override
@@ -204,7 +252,9 @@ public class BlobStoreGroup
       throw new BlobStoreException("Unable to find a member Blob Store of '" + this + "' for create", null);
     }
     Blob blob = createBlobFunction.create(result);
-    locatedBlobs.put(blob.getId(), result.getBlobStoreConfiguration().getName());
+    String memberName = result.getBlobStoreConfiguration().getName();
+    locatedBlobs.put(blob.getId(), memberName);
+    locationIndex.add(blob.getId(), memberName);
     return blob;
   }
 
@@ -235,7 +285,9 @@ public class BlobStoreGroup
     BlobStore target = locate(blobId)
         .orElseThrow(() -> new BlobStoreException("Unable to find blob", blobId));
     Blob blob = target.copy(blobId, headers);
-    locatedBlobs.put(blob.getId(), target.getBlobStoreConfiguration().getName());
+    String memberName = target.getBlobStoreConfiguration().getName();
+    locatedBlobs.put(blob.getId(), memberName);
+    locationIndex.add(blob.getId(), memberName);
     return blob;
   }
 
@@ -255,13 +307,14 @@ public class BlobStoreGroup
   @MonitoringBlobStoreMetrics(operationType = DOWNLOAD)
   public Blob get(final BlobId blobId, final boolean includeDeleted) {
     if (includeDeleted) {
-      // check directly without using cache
-      return members.get()
-          .stream()
-          .filter((BlobStore member) -> member.exists(blobId))
-          .map((BlobStore member) -> member.get(blobId, true))
-          .filter(Objects::nonNull)
-          .findAny()
+      // soft deleted blobs are not cached, but they are still indexed
+      BlobStore indexed = indexedMember(blobId);
+      Blob blob = indexed != null ? indexed.get(blobId, true) : null;
+      if (blob != null) {
+        return blob;
+      }
+      return probeFirst(candidates(blobId),
+          (BlobStore member) -> member.exists(blobId) ? member.get(blobId, true) : null)
           .orElse(null);
     }
     else {
@@ -275,10 +328,7 @@ public class BlobStoreGroup
   @Guarded(by = STARTED)
   public boolean delete(final BlobId blobId, final String reason) {
     locatedBlobs.remove(blobId);
-    List<BlobStore> locations = members.get()
-        .stream()
-        .filter((BlobStore member) -> member.exists(blobId))
-        .collect(toList());
+    List<BlobStore> locations = probeAll(candidates(blobId), (BlobStore member) -> member.exists(blobId));
 
     if (!locations.isEmpty()) {
       return locations.stream()
@@ -293,10 +343,8 @@ public class BlobStoreGroup
   @Guarded(by = STARTED)
   public boolean deleteHard(final BlobId blobId) {
     locatedBlobs.remove(blobId);
-    List<BlobStore> locations = members.get()
-        .stream()
-        .filter((BlobStore member) -> member.exists(blobId))
-        .collect(toList());
+    locationIndex.remove(blobId);
+    List<BlobStore> locations = probeAll(candidates(blobId), (BlobStore member) -> member.exists(blobId));
 
     if (!locations.isEmpty()) {
       return locations.stream()
@@ -377,7 +425,28 @@ public class BlobStoreGroup
   @Override
   @Guarded(by = STARTED)
   public synchronized void compact(@Nullable final BlobStoreUsageChecker inUseChecker) {
-    members.get().stream().forEach((BlobStore member) -> member.compact(inUseChecker));
+    members.get().stream().forEach((BlobStore member) -> member.compact(forgettingUnused(member, inUseChecker)));
+  }
+
+  /**
+   * Wraps the checker a member compacts with, so the locations of blobs it is about to hard delete are forgotten. A
+   * missing location only costs a probe, whereas a stale one would be trusted.
+   */
+  private BlobStoreUsageChecker forgettingUnused(
+      final BlobStore member,
+      @Nullable final BlobStoreUsageChecker inUseChecker)
+  {
+    String memberName = member.getBlobStoreConfiguration().getName();
+    return (BlobStore blobStore, BlobId blobId, String blobName) -> {
+      if (inUseChecker != null && inUseChecker.test(blobStore, blobId, blobName)) {
+        return true;
+      }
+      if (memberName.equals(locationIndex.find(blobId))) {
+        locatedBlobs.remove(blobId);
+        locationIndex.remove(blobId);
+      }
+      return false;
+    };
   }
 
   @Override
@@ -432,9 +501,11 @@ public class BlobStoreGroup
 
   @Override
   public boolean exists(final BlobId blobId) {
-    return members.get()
-        .stream()
-        .anyMatch((BlobStore member) -> member.exists(blobId));
+    BlobStore indexed = indexedMember(blobId);
+    if (indexed != null && indexed.exists(blobId)) {
+      return true;
+    }
+    return probeFirst(candidates(blobId), (BlobStore member) -> member.exists(blobId) ? member : null).isPresent();
   }
 
   @Override
@@ -454,7 +525,9 @@ public class BlobStoreGroup
   @Override
   @Guarded(by = {NEW, STOPPED, FAILED, SHUTDOWN})
   public void remove() {
-    // no-op
+    if (locationIndex != null) {
+      locationIndex.delete();
+    }
   }
 
   @Override
@@ -510,6 +583,34 @@ public class BlobStoreGroup
     return unmodifiableList(members.get());
   }
 
+  /**
+   * Records that a blob has been moved from one member of this group to another, e.g. while emptying a member.
+   *
+   * @since 3.77
+   */
+  public void blobMoved(final BlobId blobId, final BlobStore member) {
+    String memberName = member.getBlobStoreConfiguration().getName();
+    if (locatedBlobs != null) {
+      locatedBlobs.remove(blobId);
+      if (member.isWritable()) {
+        locatedBlobs.put(blobId, memberName);
+      }
+    }
+    locationIndex.add(blobId, memberName);
+  }
+
+  /**
+   * Rebuilds the durable index of which member holds each blob by walking all members.
+   *
+   * @since 3.77
+   */
+  @Guarded(by = STARTED)
+  public void rebuildLocationIndex() {
+    Map<String, BlobStore> byName = new LinkedHashMap<>();
+    members.get().forEach((BlobStore member) -> byName.put(member.getBlobStoreConfiguration().getName(), member));
+    locationIndex.rebuild(byName);
+  }
+
   @Override
   public RawObjectAccess getRawObjectAccess() {
     return new UnimplementedRawObjectAccess();
@@ -542,7 +643,19 @@ public class BlobStoreGroup
       return Optional.ofNullable(blobStoreManager.get(blobStoreName));
     }
 
-    BlobStore blobStore = search(blobId);
+    BlobStore blobStore = indexedMember(blobId);
+    if (blobStore != null && !blobStore.exists(blobId)) {
+      // e.g. hard deleted by a compact which didn't go through the group
+      log.debug("{} is no longer in indexed member {}", blobId, blobStore.getBlobStoreConfiguration().getName());
+      locationIndex.remove(blobId);
+      blobStore = null;
+    }
+    if (blobStore == null) {
+      blobStore = search(blobId);
+      if (blobStore != null && blobStore.isWritable()) {
+        locationIndex.add(blobId, blobStore.getBlobStoreConfiguration().getName());
+      }
+    }
     if (blobStore != null && blobStore.isWritable()) {
       String memberName = blobStore.getBlobStoreConfiguration().getName();
       log.trace("Caching {} in member {}", blobId, memberName);
@@ -552,16 +665,97 @@ public class BlobStoreGroup
     return Optional.ofNullable(blobStore);
   }
 
-  private BlobStore search(BlobId blobId) {
-    log.trace("Searching for {} in {}", blobId, members);
+  /**
+   * Returns the member the index says holds the blob, as long as it is still a member of this group.
+   */
+  @Nullable
+  private BlobStore indexedMember(final BlobId blobId) {
+    String memberName = locationIndex.find(blobId);
+    if (memberName == null) {
+      return null;
+    }
+    log.trace("{} location was indexed as {}", blobId, memberName);
     return members.get()
         .stream()
-        .sorted(Comparator.comparing(BlobStore::isWritable).reversed())
-        .filter((BlobStore member) -> member.exists(blobId))
-        .findAny()
+        .filter((BlobStore member) -> memberName.equals(member.getBlobStoreConfiguration().getName()))
+        .findFirst()
         .orElse(null);
   }
 
+  private List<BlobStore> candidates(final BlobId blobId) {
+    return locationIndex.candidates(blobId, members.get());
+  }
+
+  private BlobStore search(BlobId blobId) {
+    List<BlobStore> candidates = candidates(blobId);
+    log.trace("Searching for {} in {}", blobId, candidates);
+    // writable members are probed first, the others only when none of those hold the blob
+    Map<Boolean, List<BlobStore>> byWritable = candidates.stream().collect(partitioningBy(BlobStore::isWritable));
+    Function<BlobStore, BlobStore> holder = (BlobStore member) -> member.exists(blobId) ? member : null;
+    return probeFirst(byWritable.get(true), holder)
+        .or(() -> probeFirst(byWritable.get(false), holder))
+        .orElse(null);
+  }
+
+  /**
+   * Applies the probe to the members in parallel, returning the first non-null result in member order.
+   */
+  private <T> Optional<T> probeFirst(final List<BlobStore> candidates, final Function<BlobStore, T> probe) {
+    ExecutorService executor = probeExecutor;
+    if (executor == null || candidates.size() < 2) {
+      return candidates.stream().map(probe).filter(Objects::nonNull).findFirst();
+    }
+    List<Future<T>> probes = candidates.stream()
+        .map((BlobStore member) -> executor.submit(() -> probe.apply(member)))
+        .collect(toList());
+    try {
+      for (Future<T> future : probes) {
+        T result = await(future);
+        if (result != null) {
+          return Optional.of(result);
+        }
+      }
+      return Optional.empty();
+    }
+    finally {
+      probes.forEach(future -> future.cancel(false));
+    }
+  }
+
+  /**
+   * Returns the members passing the test, applying it to them in parallel.
+   */
+  private List<BlobStore> probeAll(final List<BlobStore> candidates, final Predicate<BlobStore> test) {
+    ExecutorService executor = probeExecutor;
+    if (executor == null || candidates.size() < 2) {
+      return candidates.stream().filter(test).collect(toList());
+    }
+    List<Future<Boolean>> probes = candidates.stream()
+        .map((BlobStore member) -> executor.submit(() -> test.test(member)))
+        .collect(toList());
+    List<BlobStore> result = new ArrayList<>();
+    for (int i = 0; i < probes.size(); i++) {
+      if (Boolean.TRUE.equals(await(probes.get(i)))) {
+        result.add(candidates.get(i));
+      }
+    }
+    return result;
+  }
+
+  private static <T> T await(final Future<T> future) {
+    try {
+      return future.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BlobStoreException("Interrupted while probing group members", e, null);
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new BlobStoreException(e.getCause(), null);
+    }
+  }
+
   @Override
   public String toString() {
     String name = blobStoreConfiguration != null ? blobStoreConfiguration.getName() : null;
@@ -0,0 +1,314 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+import java.util.function.LongSupplier;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
+import org.sonatype.nexus.blobstore.api.OperationMetrics;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.blobstore.group.FillPolicy;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaResult;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaService;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaSupport;
+import org.sonatype.nexus.blobstore.quota.internal.SpaceRemainingQuota;
+import org.sonatype.nexus.blobstore.quota.internal.SpaceUsedQuota;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.annotations.VisibleForTesting;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.stream.Collectors.toList;
+import static org.sonatype.nexus.blobstore.api.OperationType.UPLOAD;
+
+/**
+ * {@link FillPolicy} that spreads writes across members in proportion to a score made of their recent upload latency,
+ * remaining capacity and quota headroom.
+ *
+ * Members whose quota is violated, whose free space is below {@code minFreeSpace} or whose average upload latency is
+ * above {@code maxUploadLatency} receive no writes, unless every writable member is in that state. Scores are
+ * recalculated at most once per {@code refreshInterval} from the members' {@link OperationMetrics}, so the latency
+ * is that of the uploads made since the previous refresh, smoothed across refreshes. A member without uploads since
+ * the previous refresh, such as one excluded for being slow, has its latency fade instead, so it is eventually tried
+ * again and measured afresh.
+ *
+ * @since 3.77
+ */
+@Named(WeightedFillPolicy.TYPE)
+public class WeightedFillPolicy
+    extends ComponentSupport
+    implements FillPolicy
+{
+  public static final String TYPE = "weighted";
+
+  private static final String NAME = "Weighted";
+
+  // weight of the latest window when smoothing upload latency
+  private static final double LATENCY_SMOOTHING = 0.3;
+
+  // keeps members that are nearly full or slow in the draw, just rarely picked
+  private static final double MIN_SCORE = 0.01;
+
+  private final BlobStoreQuotaService quotaService;
+
+  private final MetricRegistry metricRegistry;
+
+  private final long refreshIntervalMillis;
+
+  private final long maxUploadLatencyMillis;
+
+  private final long minFreeSpace;
+
+  private final Map<String, MemberStats> stats = new ConcurrentHashMap<>();
+
+  private volatile long lastRefresh;
+
+  @VisibleForTesting
+  LongSupplier clock = System::currentTimeMillis;
+
+  @VisibleForTesting
+  DoubleSupplier random = () -> ThreadLocalRandom.current().nextDouble();
+
+  @Inject
+  public WeightedFillPolicy(
+      final BlobStoreQuotaService quotaService,
+      final MetricRegistry metricRegistry,
+      @Named("${nexus.blobstore.group.fill.weighted.refreshInterval:-10s}") final Time refreshInterval,
+      @Named("${nexus.blobstore.group.fill.weighted.maxUploadLatency:-10s}") final Time maxUploadLatency,
+      @Named("${nexus.blobstore.group.fill.weighted.minFreeSpace:-1gb}") final ByteSize minFreeSpace)
+  {
+    this.quotaService = checkNotNull(quotaService);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.refreshIntervalMillis = refreshInterval.toMillis();
+    this.maxUploadLatencyMillis = maxUploadLatency.toMillis();
+    this.minFreeSpace = minFreeSpace.toBytes();
+  }
+
+  @Override
+  public String getName() {
+    return NAME;
+  }
+
+  @Override
+  @Nullable
+  public BlobStore chooseBlobStore(final BlobStoreGroup blobStoreGroup, final Map<String, String> headers) {
+    String groupName = blobStoreGroup.getBlobStoreConfiguration().getName();
+    List<BlobStore> writable = blobStoreGroup.getMembers()
+        .stream()
+        .filter(BlobStore::isWritable)
+        .filter(BlobStore::isStorageAvailable)
+        .collect(toList());
+    if (writable.isEmpty()) {
+      mark(groupName, "noWritableMember");
+      return null;
+    }
+
+    maybeRefresh(groupName, writable);
+
+    List<BlobStore> eligible = writable.stream()
+        .filter(member -> statsOf(member).eligible)
+        .collect(toList());
+    if (eligible.isEmpty()) {
+      log.debug("Every writable member of {} breaches the fill thresholds, choosing among all of them", groupName);
+      mark(groupName, "thresholdsBreached");
+      eligible = writable;
+    }
+
+    BlobStore chosen = draw(eligible);
+    mark(groupName, name(chosen), "placements");
+    return chosen;
+  }
+
+  private BlobStore draw(final List<BlobStore> candidates) {
+    double total = 0;
+    for (BlobStore candidate : candidates) {
+      total += statsOf(candidate).score;
+    }
+    double target = random.getAsDouble() * total;
+    for (BlobStore candidate : candidates) {
+      target -= statsOf(candidate).score;
+      if (target < 0) {
+        return candidate;
+      }
+    }
+    return candidates.get(candidates.size() - 1);
+  }
+
+  private MemberStats statsOf(final BlobStore member) {
+    return stats.getOrDefault(name(member), MemberStats.UNKNOWN);
+  }
+
+  private void maybeRefresh(final String groupName, final List<BlobStore> members) {
+    if (!isStale(members)) {
+      return;
+    }
+    synchronized (this) {
+      if (isStale(members)) {
+        refresh(groupName, members);
+        lastRefresh = clock.getAsLong();
+      }
+    }
+  }
+
+  private boolean isStale(final List<BlobStore> members) {
+    return clock.getAsLong() - lastRefresh >= refreshIntervalMillis ||
+        members.stream().anyMatch(member -> !stats.containsKey(name(member)));
+  }
+
+  private void refresh(final String groupName, final List<BlobStore> members) {
+    List<String> names = new ArrayList<>();
+    for (BlobStore member : members) {
+      String memberName = name(member);
+      names.add(memberName);
+      MemberStats memberStats = stats.computeIfAbsent(memberName, key -> new MemberStats());
+      try {
+        update(memberStats, member);
+      }
+      catch (RuntimeException e) {
+        log.warn("Unable to read the metrics of {} in {}, keeping its previous score", memberName, groupName, e);
+      }
+    }
+    stats.keySet().retainAll(names);
+
+    double fastest = stats.values().stream()
+        .filter(memberStats -> memberStats.latencyMillis >= 0)
+        .mapToDouble(memberStats -> memberStats.latencyMillis)
+        .min()
+        .orElse(0);
+    stats.values().forEach(memberStats -> memberStats.score(fastest));
+
+    if (log.isDebugEnabled()) {
+      stats.forEach((memberName, memberStats) -> log.debug("Fill score of {} in {}: {}", memberName, groupName,
+          memberStats));
+    }
+  }
+
+  private void update(final MemberStats memberStats, final BlobStore member) {
+    OperationMetrics upload = member.getOperationMetricsByType().get(UPLOAD);
+    if (upload != null) {
+      memberStats.updateLatency(upload.getSuccessfulRequests(), upload.getTimeOnRequests());
+    }
+
+    BlobStoreMetrics metrics = member.getMetrics();
+    long freeSpace = metrics.isUnlimited() ? Long.MAX_VALUE : metrics.getAvailableSpace();
+    memberStats.capacity = metrics.isUnlimited() ? 1 : fraction(freeSpace, freeSpace + metrics.getTotalSize());
+    memberStats.quotaHeadroom = quotaHeadroom(member.getBlobStoreConfiguration(), metrics);
+
+    BlobStoreQuotaResult quota = quotaService.checkQuota(member);
+    boolean quotaViolated = quota != null && quota.isViolation();
+    boolean tooSlow = memberStats.latencyMillis > maxUploadLatencyMillis;
+    boolean tooFull = freeSpace < minFreeSpace;
+    memberStats.eligible = !quotaViolated && !tooSlow && !tooFull;
+  }
+
+  private static final class MemberStats
+  {
+    private static final MemberStats UNKNOWN = new MemberStats();
+
+    private boolean initialized;
+
+    private long uploads;
+
+    private long uploadTime;
+
+    private double latencyMillis = -1;
+
+    private double capacity = 1;
+
+    private double quotaHeadroom = 1;
+
+    private volatile boolean eligible = true;
+
+    private volatile double score = 1;
+
+    void updateLatency(final long currentUploads, final long currentUploadTime) {
+      long windowUploads = currentUploads - uploads;
+      if (!initialized) {
+        // seed with the lifetime average until a window of our own has been observed
+        if (currentUploads > 0) {
+          latencyMillis = (double) currentUploadTime / currentUploads;
+        }
+        initialized = true;
+      }
+      else if (windowUploads > 0) {
+        double windowLatency = (double) (currentUploadTime - uploadTime) / windowUploads;
+        latencyMillis = latencyMillis < 0 ? windowLatency
+            : latencyMillis + LATENCY_SMOOTHING * (windowLatency - latencyMillis);
+      }
+      else if (latencyMillis > 0) {
+        // nothing to measure, let the old latency fade so a member excluded for it gets uploads again
+        latencyMillis *= 1 - LATENCY_SMOOTHING;
+      }
+      // counters may also have been cleared, in which case the next window starts from here
+      uploads = currentUploads;
+      uploadTime = currentUploadTime;
+    }
+
+    void score(final double fastestLatencyMillis) {
+      double speed = latencyMillis <= 0 ? 1 : Math.max(fastestLatencyMillis, 1) / Math.max(latencyMillis, 1);
+      score = Math.max(MIN_SCORE, speed * capacity * quotaHeadroom);
+    }
+
+    @Override
+    public String toString() {
+      return String.format("score=%.3f, eligible=%s, latency=%.1fms, capacity=%.3f, quotaHeadroom=%.3f", score,
+          eligible, latencyMillis, capacity, quotaHeadroom);
+    }
+  }
+
+  private static double quotaHeadroom(final BlobStoreConfiguration config, final BlobStoreMetrics metrics) {
+    String type = BlobStoreQuotaSupport.getType(config);
+    if (type == null) {
+      return 1;
+    }
+    long limit = BlobStoreQuotaSupport.getLimit(config);
+    if (SpaceUsedQuota.ID.equals(type)) {
+      return fraction(limit - metrics.getTotalSize(), limit);
+    }
+    if (SpaceRemainingQuota.ID.equals(type) && !metrics.isUnlimited()) {
+      long availableSpace = metrics.getAvailableSpace();
+      return fraction(availableSpace - limit, availableSpace);
+    }
+    return 1;
+  }
+
+  private static double fraction(final long part, final long whole) {
+    if (whole <= 0) {
+      return 0;
+    }
+    return Math.min(1, Math.max(0, (double) part / whole));
+  }
+
+  private void mark(final String groupName, final String... names) {
+    metricRegistry.meter(MetricRegistry.name(MetricRegistry.name(WeightedFillPolicy.class, groupName), names)).mark();
+  }
+
+  private static String name(final BlobStore member) {
+    return member.getBlobStoreConfiguration().getName();
+  }
+}
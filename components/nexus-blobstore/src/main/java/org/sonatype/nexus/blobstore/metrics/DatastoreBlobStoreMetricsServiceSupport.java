@@ -16,6 +16,7 @@ import java.io.IOException;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
 
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.OperationMetrics;
@@ -45,6 +46,12 @@ public abstract class DatastoreBlobStoreMetricsServiceSupport<B extends BlobStor
 
   private PeriodicJob metricsWritingJob;
 
+  private final LongAdder attributeCacheHits = new LongAdder();
+
+  private final LongAdder attributeCacheMisses = new LongAdder();
+
+  private final LongAdder attributeCacheEvictions = new LongAdder();
+
   protected final BlobStoreMetricsStore blobStoreMetricsStore;
 
   protected B blobStore;
@@ -100,6 +107,36 @@ public abstract class DatastoreBlobStoreMetricsServiceSupport<B extends BlobStor
     datastoreBlobStoreMetricsContainer.recordDeletion(size);
   }
 
+  @Override
+  public void recordAttributeCacheHit() {
+    attributeCacheHits.increment();
+  }
+
+  @Override
+  public void recordAttributeCacheMiss() {
+    attributeCacheMisses.increment();
+  }
+
+  @Override
+  public void recordAttributeCacheEviction() {
+    attributeCacheEvictions.increment();
+  }
+
+  @Override
+  public long getAttributeCacheHitCount() {
+    return attributeCacheHits.sum();
+  }
+
+  @Override
+  public long getAttributeCacheMissCount() {
+    return attributeCacheMisses.sum();
+  }
+
+  @Override
+  public long getAttributeCacheEvictionCount() {
+    return attributeCacheEvictions.sum();
+  }
+
   @Override
   public Map<OperationType, OperationMetrics> getOperationMetrics() {
     BlobStoreMetricsEntity metricsEntity =
@@ -19,7 +19,10 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
 import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.List;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -27,26 +30,24 @@ import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.node.NodeAccess;
 
-import org.junit.After;
 import org.junit.Before;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 import org.mockito.Mock;
-import org.mockito.MockedStatic;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import static java.util.Collections.emptyMap;
+import static java.util.Collections.singletonMap;
 import static java.util.stream.Collectors.toList;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.is;
 import static org.mockito.Mockito.mock;
-import static org.mockito.Mockito.verify;
-import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
 public class BlobStoreReconciliationLoggerTest
@@ -54,6 +55,8 @@ public class BlobStoreReconciliationLoggerTest
 {
   public static final String RECONCILIATION_LOG_DIRECTORY = "reconciliationLogDirectory";
 
+  private static final String NODE_ID = "node-1";
+
   @Rule
   public TemporaryFolder temporaryFolder = new TemporaryFolder();
 
@@ -64,13 +67,7 @@ public class BlobStoreReconciliationLoggerTest
   private BlobStore blobStore;
 
   @Mock
-  private Logger logger;
-
-  @Mock
-  private MockedStatic<LoggerFactory> mockedStatic;
-
-  @Mock
-  private Path reconciliationLogPath;
+  private NodeAccess nodeAccess;
 
   private BlobStoreReconciliationLogger underTest;
 
@@ -81,39 +78,95 @@ public class BlobStoreReconciliationLoggerTest
     when(blobStoreConfiguration.getName()).thenReturn("blob-store-name");
     when(blobStore.getBlobStoreConfiguration()).thenReturn(blobStoreConfiguration);
 
-    // mock logger used to actually log blob ids
-    mockedStatic.when(() -> LoggerFactory.getLogger("blobstore-reconciliation-log")).thenReturn(logger);
-    mockedStatic.when(() -> LoggerFactory.getLogger(BlobStoreReconciliationLogger.class))
-        .thenReturn(mock(Logger.class));
+    when(applicationDirectories
+        .getWorkDirectory(RECONCILIATION_LOG_DIRECTORY))
+        .thenReturn(temporaryFolder.getRoot());
 
-    underTest = new BlobStoreReconciliationLogger(applicationDirectories);
-  }
+    when(nodeAccess.getId()).thenReturn(NODE_ID);
 
-  @After
-  public void teardown() {
-    mockedStatic.close();
+    underTest = new BlobStoreReconciliationLogger(applicationDirectories, nodeAccess);
   }
 
   @Test
   public void shouldNotLogTemporaryBlobs() {
-    underTest.logBlobCreated(reconciliationLogPath, new BlobId("tmp$00000000-0000-0000-0000-000000000000"));
-    verifyNoInteractions(logger);
+    underTest.logBlobCreated(Paths.get(RECONCILIATION_LOG_DIRECTORY),
+        new BlobId("tmp$00000000-0000-0000-0000-000000000000"));
+    assertThat(temporaryFolder.getRoot().listFiles(), emptyArray());
   }
 
   @Test
   public void shouldLogBlobId() {
-    underTest.logBlobCreated(reconciliationLogPath, new BlobId("00000000-0000-0000-0000-000000000000"));
+    OffsetDateTime createdRef = OffsetDateTime.of(2024, 5, 1, 10, 30, 0, 0, ZoneOffset.UTC);
+    underTest.logBlobCreated(Paths.get(RECONCILIATION_LOG_DIRECTORY),
+        new BlobId("00000000-0000-0000-0000-000000000000"));
+    underTest.logBlobCreated(Paths.get(RECONCILIATION_LOG_DIRECTORY),
+        new BlobId("00000000-0000-0000-0000-000000000001", createdRef));
+    underTest.close(Paths.get(RECONCILIATION_LOG_DIRECTORY));
+
+    assertThat(Files.exists(temporaryFolder.getRoot().toPath().resolve(LocalDate.now() + "." + NODE_ID + ".journal")),
+        is(true));
+
+    // date-based blobs come back with their created ref, without consulting the date-based blob ids
+    List<BlobId> result = underTest.getBlobsCreatedSince(
+            Paths.get(RECONCILIATION_LOG_DIRECTORY), LocalDate.now().atStartOfDay(), LocalDateTime.now(),
+            () -> {
+              throw new AssertionError("not needed for journals");
+            })
+        .collect(toList());
 
-    verify(logger).info("{},{}", "00000000-0000-0000-0000-000000000000", false);
+    assertThat(result, contains(
+        new BlobId("00000000-0000-0000-0000-000000000000"),
+        new BlobId("00000000-0000-0000-0000-000000000001", createdRef)));
+    assertThat(result.get(1).getBlobCreatedRef(), is(createdRef));
+  }
+
+  @Test
+  public void shouldReadTextLogsAlongsideJournals() throws IOException {
+    OffsetDateTime createdRef = OffsetDateTime.of(2024, 5, 1, 1, 0, 0, 0, ZoneOffset.UTC);
+    Files.write(temporaryFolder.newFile("2024-05-01").toPath(),
+        ("2024-05-01 01:00:00,00000000-0000-0000-0000-000000000001,true\n" +
+         "2024-05-01 02:00:00,00000000-0000-0000-0000-000000000002,false\n")
+            .getBytes(StandardCharsets.UTF_8), StandardOpenOption.CREATE);
+    ReconciliationJournal journal = new ReconciliationJournal(temporaryFolder.getRoot().toPath(), NODE_ID);
+    journal.append(new BlobId("00000000-0000-0000-0000-000000000003"), LocalDateTime.parse("2024-05-02T10:00:00"));
+    journal.append(new BlobId("00000000-0000-0000-0000-000000000004"), LocalDateTime.parse("2024-05-02T23:00:00"));
+    journal.close();
 
-    mockedStatic.verify(() -> LoggerFactory.getLogger("blobstore-reconciliation-log"));
+    List<String> result = underTest.getBlobsCreatedSince(
+            Paths.get(RECONCILIATION_LOG_DIRECTORY), LocalDateTime.parse("2024-05-01T00:00:00"),
+            LocalDateTime.parse("2024-05-02T12:00:00"),
+            singletonMap("00000000-0000-0000-0000-000000000001", createdRef))
+        .map(BlobId::asUniqueString)
+        .collect(toList());
+
+    assertThat(result, contains(
+        "00000000-0000-0000-0000-000000000001",
+        "00000000-0000-0000-0000-000000000002",
+        "00000000-0000-0000-0000-000000000003"));
+  }
+
+  @Test
+  public void shouldReadJournalsOfAllNodes() throws IOException {
+    ReconciliationJournal journal = new ReconciliationJournal(temporaryFolder.getRoot().toPath(), "node-2");
+    journal.append(new BlobId("00000000-0000-0000-0000-000000000001"), LocalDateTime.parse("2024-05-01T10:00:00"));
+    journal.close();
+    journal = new ReconciliationJournal(temporaryFolder.getRoot().toPath(), "node-3");
+    journal.append(new BlobId("00000000-0000-0000-0000-000000000002"), LocalDateTime.parse("2024-05-01T11:00:00"));
+    journal.close();
+
+    List<String> result = underTest.getBlobsCreatedSince(
+            Paths.get(RECONCILIATION_LOG_DIRECTORY), LocalDateTime.parse("2024-05-01T00:00:00"),
+            LocalDateTime.parse("2024-05-01T23:59:59"), emptyMap())
+        .map(BlobId::asUniqueString)
+        .collect(toList());
+
+    assertThat(result, containsInAnyOrder(
+        "00000000-0000-0000-0000-000000000001",
+        "00000000-0000-0000-0000-000000000002"));
   }
 
   @Test
   public void shouldReadBlobIdsLoggedOnAndAfterRequestedDate() throws IOException {
-    when(applicationDirectories
-        .getWorkDirectory(RECONCILIATION_LOG_DIRECTORY))
-        .thenReturn(temporaryFolder.getRoot());
     Files.write(temporaryFolder.newFile("2021-04-13").toPath(),
         "2021-04-13 00:00:00,00000000-0000-0000-0000-000000000001".getBytes(StandardCharsets.UTF_8),
         StandardOpenOption.CREATE);
@@ -145,10 +198,6 @@ public class BlobStoreReconciliationLoggerTest
 
   @Test
   public void testDateBasedLayoutFlag() throws IOException {
-    when(applicationDirectories
-        .getWorkDirectory(RECONCILIATION_LOG_DIRECTORY))
-        .thenReturn(temporaryFolder.getRoot());
-
     Files.write(temporaryFolder.newFile("2024-05-01").toPath(),
         ("2024-05-01 01:00:00,00000000-0000-0000-0000-000000000001,true\n" +
          "2024-05-01 02:00:00,00000000-0000-0000-0000-000000000002,false\n" +
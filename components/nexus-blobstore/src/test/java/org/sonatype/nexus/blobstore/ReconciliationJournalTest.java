@@ -0,0 +1,170 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.LocalTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
+import java.util.List;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static java.util.stream.Collectors.toList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
+import static org.hamcrest.Matchers.is;
+
+public class ReconciliationJournalTest
+    extends TestSupport
+{
+  private static final LocalDate DAY = LocalDate.parse("2024-05-01");
+
+  private static final String NODE_ID = "node-1";
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  private Path directory;
+
+  private ReconciliationJournal underTest;
+
+  @Before
+  public void setUp() {
+    directory = temporaryFolder.getRoot().toPath();
+    underTest = new ReconciliationJournal(directory, NODE_ID);
+  }
+
+  @Test
+  public void shouldReadRecordsWithinSecondsOfDay() throws IOException {
+    append("00000000-0000-0000-0000-000000000001", "00:10:00");
+    append("00000000-0000-0000-0000-000000000002", "03:59:59");
+    append("00000000-0000-0000-0000-000000000003", "04:00:00");
+    append("00000000-0000-0000-0000-000000000004", "04:30:00");
+    append("00000000-0000-0000-0000-000000000005", "09:00:00");
+    underTest.close();
+
+    assertThat(read("03:59:59", "04:30:00"), contains(
+        "00000000-0000-0000-0000-000000000002",
+        "00000000-0000-0000-0000-000000000003",
+        "00000000-0000-0000-0000-000000000004"));
+    assertThat(read("05:00:00", "08:59:59"), empty());
+    assertThat(read("05:00:00", "23:59:59"), contains("00000000-0000-0000-0000-000000000005"));
+    assertThat(read("10:00:00", "23:59:59"), empty());
+  }
+
+  @Test
+  public void shouldKeepNonUuidIdsAndCreatedRefs() throws IOException {
+    OffsetDateTime createdRef = OffsetDateTime.of(2024, 5, 1, 10, 30, 15, 0, ZoneOffset.ofHours(2));
+    underTest.append(new BlobId("not-a-uuid"), DAY.atTime(10, 0));
+    underTest.append(new BlobId("00000000-0000-0000-0000-00000000000A"), DAY.atTime(10, 0));
+    underTest.append(new BlobId("00000000-0000-0000-0000-000000000001", createdRef), DAY.atTime(10, 0));
+    underTest.close();
+
+    List<BlobId> blobIds = readAll();
+    assertThat(blobIds.stream().map(BlobId::asUniqueString).collect(toList()), contains(
+        "not-a-uuid",
+        "00000000-0000-0000-0000-00000000000A",
+        "00000000-0000-0000-0000-000000000001"));
+    assertThat(blobIds.get(2).getBlobCreatedRef(), is(createdRef));
+  }
+
+  @Test
+  public void shouldAppendToExistingJournalAfterReopening() throws IOException {
+    append("00000000-0000-0000-0000-000000000001", "01:00:00");
+    underTest.close();
+
+    underTest = new ReconciliationJournal(directory, NODE_ID);
+    append("00000000-0000-0000-0000-000000000002", "01:30:00");
+    append("00000000-0000-0000-0000-000000000003", "02:00:00");
+    underTest.close();
+
+    assertThat(read("00:00:00", "01:59:59"), contains(
+        "00000000-0000-0000-0000-000000000001",
+        "00000000-0000-0000-0000-000000000002"));
+  }
+
+  @Test
+  public void shouldDropIncompleteRecordBeforeAppending() throws IOException {
+    append("00000000-0000-0000-0000-000000000001", "01:00:00");
+    underTest.close();
+    // simulate a crash in the middle of writing a record
+    try (FileChannel journal = FileChannel.open(journalFile(), StandardOpenOption.APPEND)) {
+      journal.write(ByteBuffer.wrap(new byte[]{0, 0, 14, 16, 1, 42}));
+    }
+    assertThat(read("00:00:00", "23:59:59"), contains("00000000-0000-0000-0000-000000000001"));
+
+    underTest = new ReconciliationJournal(directory, NODE_ID);
+    append("00000000-0000-0000-0000-000000000002", "02:00:00");
+    underTest.close();
+
+    assertThat(read("00:00:00", "23:59:59"), contains(
+        "00000000-0000-0000-0000-000000000001",
+        "00000000-0000-0000-0000-000000000002"));
+  }
+
+  @Test
+  public void shouldPruneExpiredLogsWhenRolling() throws IOException {
+    LocalDate expired = DAY.minusDays(ReconciliationJournal.MAX_HISTORY_DAYS + 1L);
+    Files.createFile(directory.resolve(expired.toString()));
+    Files.createFile(directory.resolve(expired + "." + NODE_ID + ReconciliationJournal.JOURNAL_SUFFIX));
+    Files.createFile(directory.resolve(expired + ".node-2" + ReconciliationJournal.INDEX_SUFFIX));
+    Files.createFile(directory.resolve(DAY.minusDays(1).toString()));
+
+    append("00000000-0000-0000-0000-000000000001", "01:00:00");
+    underTest.close();
+
+    try (Stream<Path> files = Files.list(directory)) {
+      assertThat(files.map(file -> file.getFileName().toString()).sorted().collect(toList()), contains(
+          DAY.minusDays(1).toString(),
+          DAY + "." + NODE_ID + ReconciliationJournal.INDEX_SUFFIX,
+          DAY + "." + NODE_ID + ReconciliationJournal.JOURNAL_SUFFIX));
+    }
+  }
+
+  private void append(final String blobId, final String time) throws IOException {
+    underTest.append(new BlobId(blobId), LocalDateTime.of(DAY, LocalTime.parse(time)));
+  }
+
+  private List<String> read(final String from, final String to) {
+    try (Stream<BlobId> blobIds = ReconciliationJournal.read(journalFile(),
+        LocalTime.parse(from).toSecondOfDay(), LocalTime.parse(to).toSecondOfDay())) {
+      return blobIds.map(BlobId::asUniqueString).collect(toList());
+    }
+  }
+
+  private List<BlobId> readAll() {
+    try (Stream<BlobId> blobIds = ReconciliationJournal.read(journalFile(), 0, 86399)) {
+      return blobIds.collect(toList());
+    }
+  }
+
+  private Path journalFile() {
+    return directory.resolve(DAY + "." + NODE_ID + ReconciliationJournal.JOURNAL_SUFFIX);
+  }
+}
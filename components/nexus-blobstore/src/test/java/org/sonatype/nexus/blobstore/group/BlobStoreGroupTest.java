@@ -25,8 +25,12 @@ import org.sonatype.nexus.blobstore.api.BlobId;
 import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
+import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
+import org.sonatype.nexus.blobstore.api.group.BlobStoreGroupLocationStore;
 import org.sonatype.nexus.blobstore.group.internal.WriteToFirstMemberFillPolicy;
 import org.sonatype.nexus.cache.CacheHelper;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 
 import javax.cache.Cache;
 import javax.cache.configuration.MutableConfiguration;
@@ -44,7 +48,9 @@ import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
 import static java.util.Collections.emptyList;
+import static java.util.Collections.singletonList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.*;
@@ -67,6 +73,12 @@ public class BlobStoreGroupTest
   @Mock
   private CacheHelper cacheHelper;
 
+  @Mock
+  private BlobStoreGroupLocationStore locationStore;
+
+  @Mock
+  private ApplicationDirectories applicationDirectories;
+
   @Mock
   private Blob blobOne;
 
@@ -85,8 +97,14 @@ public class BlobStoreGroupTest
 
   private final WriteToFirstMemberFillPolicy writeToFirstMemberFillPolicy = new WriteToFirstMemberFillPolicy();
 
+  private File workDirectory;
+
   @Before
-  public void setUp() {
+  public void setUp() throws Exception {
+    config.setName("group");
+    workDirectory = util.createTempDir();
+    when(applicationDirectories.getWorkDirectory(anyString(), anyBoolean()))
+        .thenAnswer(invocation -> new File(workDirectory, invocation.getArgument(0)));
     when(cacheHelperProvider.get()).thenReturn(cacheHelper);
     when(cacheHelper.maybeCreateCache(anyString(), any(MutableConfiguration.class))).thenReturn(cache);
     when(one.getBlobStoreConfiguration()).thenReturn(mock(BlobStoreConfiguration.class));
@@ -98,8 +116,8 @@ public class BlobStoreGroupTest
     fillPolicyFactories.put("writeToFirst", () -> writeToFirstMemberFillPolicy);
     fillPolicyFactories.put("test", () -> testFillPolicy);
 
-    blobStore =
-        new BlobStoreGroup(blobStoreManager, fillPolicyFactories, cacheHelperProvider, new Time(2, TimeUnit.DAYS));
+    blobStore = new BlobStoreGroup(blobStoreManager, fillPolicyFactories, cacheHelperProvider,
+        new Time(2, TimeUnit.DAYS), locationStore, applicationDirectories, 8);
   }
 
   private Map<String, Map<String, Object>> buildAttributes(List<String> memberNames, String fillPolicyName) {
@@ -373,4 +391,162 @@ public class BlobStoreGroupTest
     assertThat(locatedMember.get(), is(two));
     verify(cache, never()).put(any(), any());
   }
+
+  @Test
+  public void itWillUseTheIndexedLocationWithoutSearching() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    when(two.isWritable()).thenReturn(true);
+    BlobId blobId = new BlobId("in_two");
+    when(locationStore.getMember(anyString(), eq(blobId))).thenReturn("two");
+    when(two.exists(blobId)).thenReturn(true);
+
+    Optional<BlobStore> locatedMember = blobStore.locate(blobId);
+
+    assertThat(locatedMember.get(), is(two));
+    verify(one, never()).exists(any());
+    verify(cache).put(blobId, "two");
+  }
+
+  @Test
+  public void itWillSearchWhenTheIndexedMemberNoLongerHoldsTheBlob() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    when(one.isWritable()).thenReturn(true);
+    when(two.isWritable()).thenReturn(true);
+    BlobId blobId = new BlobId("moved_to_one");
+    when(locationStore.getMember(anyString(), eq(blobId))).thenReturn("two");
+    when(one.exists(blobId)).thenReturn(true);
+
+    Optional<BlobStore> locatedMember = blobStore.locate(blobId);
+
+    assertThat(locatedMember.get(), is(one));
+    verify(locationStore).delete(anyString(), eq(blobId));
+    verify(locationStore).setMember(anyString(), eq(blobId), eq("one"));
+    verify(cache).put(blobId, "one");
+  }
+
+  @Test
+  public void compactForgetsTheLocationsOfBlobsMembersDelete() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    BlobId unused = new BlobId("unused");
+    BlobId inUse = new BlobId("in_use");
+    BlobId elsewhere = new BlobId("elsewhere");
+    when(locationStore.getMember(anyString(), eq(unused))).thenReturn("one");
+    when(locationStore.getMember(anyString(), eq(elsewhere))).thenReturn("two");
+    doAnswer(invocation -> {
+      BlobStoreUsageChecker checker = invocation.getArgument(0);
+      assertThat(checker.test(one, unused, "unused"), is(false));
+      assertThat(checker.test(one, inUse, "in_use"), is(true));
+      assertThat(checker.test(one, elsewhere, "elsewhere"), is(false));
+      return null;
+    }).when(one).compact(any());
+
+    blobStore.compact((BlobStore member, BlobId blobId, String blobName) -> blobId.equals(inUse));
+
+    verify(locationStore).delete(anyString(), eq(unused));
+    verify(cache).remove(unused);
+    verify(locationStore, never()).delete(anyString(), eq(inUse));
+    verify(locationStore, never()).delete(anyString(), eq(elsewhere));
+    verify(two).compact(any());
+  }
+
+  @Test
+  public void itWillIgnoreIndexedLocationsOfFormerMembers() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    when(one.isWritable()).thenReturn(true);
+    BlobId blobId = new BlobId("in_one");
+    when(locationStore.getMember(anyString(), eq(blobId))).thenReturn("removed");
+    when(one.exists(blobId)).thenReturn(true);
+
+    Optional<BlobStore> locatedMember = blobStore.locate(blobId);
+
+    assertThat(locatedMember.get(), is(one));
+    verify(locationStore).setMember(anyString(), eq(blobId), eq("one"));
+  }
+
+  @Test
+  public void getIncludeDeletedUsesTheIndex() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    BlobId blobId = new BlobId("deleted_in_two");
+    when(locationStore.getMember(anyString(), eq(blobId))).thenReturn("two");
+    when(two.get(blobId, true)).thenReturn(blobTwo);
+
+    assertThat(blobStore.get(blobId, true), is(blobTwo));
+    verify(one, never()).exists(any());
+  }
+
+  @Test
+  public void createAndDeleteHardMaintainTheIndex() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    blobStore.init(config);
+    blobStore.doStart();
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    ByteArrayInputStream byteStream = new ByteArrayInputStream("".getBytes());
+    Blob blob = mock(Blob.class);
+    BlobId blobId = new BlobId("created");
+    when(testFillPolicy.chooseBlobStore(blobStore, new HashMap<>())).thenReturn(two);
+    when(two.create(byteStream, new HashMap<>(), null)).thenReturn(blob);
+    when(blob.getId()).thenReturn(blobId);
+
+    blobStore.create(byteStream, new HashMap<>());
+
+    verify(locationStore).setMember(anyString(), eq(blobId), eq("two"));
+
+    when(two.exists(blobId)).thenReturn(true);
+    when(two.deleteHard(blobId)).thenReturn(true);
+
+    assertThat(blobStore.deleteHard(blobId), is(true));
+    verify(locationStore).delete(anyString(), eq(blobId));
+  }
+
+  @Test
+  public void rebuiltFiltersRuleOutMembersAcrossRestarts() throws Exception {
+    config.setAttributes(buildAttributes(Arrays.asList("one", "two"), "test"));
+    when(blobStoreManager.get("one")).thenReturn(one);
+    when(blobStoreManager.get("two")).thenReturn(two);
+    when(one.getMetrics()).thenReturn(mock(BlobStoreMetrics.class));
+    when(two.getMetrics()).thenReturn(mock(BlobStoreMetrics.class));
+    when(one.getBlobIdStream()).thenReturn(Stream.of(new BlobId("in_one")));
+    when(two.getBlobIdStream()).thenReturn(Stream.of(new BlobId("in_two")));
+    blobStore.init(config);
+    blobStore.start();
+
+    blobStore.rebuildLocationIndex();
+
+    verify(locationStore).deleteGroup(anyString());
+    verify(locationStore).setMember(anyString(), eq(singletonList(new BlobId("in_one"))), eq("one"));
+    verify(locationStore).setMember(anyString(), eq(singletonList(new BlobId("in_two"))), eq("two"));
+
+    blobStore.stop();
+    blobStore.init(config);
+    blobStore.start();
+
+    when(two.exists(new BlobId("in_two"))).thenReturn(true);
+    assertThat(blobStore.locate(new BlobId("in_two")).get(), is(two));
+    verify(one, never()).exists(any());
+
+    // filters are discarded as they are loaded, so they are not trusted after a crash
+    File[] saved = new File(workDirectory, "blobstore-group-index/group").listFiles();
+    assertThat(Arrays.asList(saved), is(empty()));
+  }
 }
@@ -0,0 +1,208 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.internal;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.Map;
+
+import org.sonatype.goodies.common.ByteSize;
+import org.sonatype.goodies.common.Time;
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.MockBlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
+import org.sonatype.nexus.blobstore.api.OperationMetrics;
+import org.sonatype.nexus.blobstore.api.OperationType;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaResult;
+import org.sonatype.nexus.blobstore.quota.BlobStoreQuotaService;
+
+import com.codahale.metrics.MetricRegistry;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.blobstore.api.OperationType.UPLOAD;
+
+public class WeightedFillPolicyTest
+    extends TestSupport
+{
+  private static final long GB = ByteSize.gigaBytes(1).toBytes();
+
+  @Mock
+  private BlobStoreQuotaService quotaService;
+
+  @Mock
+  private BlobStoreGroup group;
+
+  private final MetricRegistry metricRegistry = new MetricRegistry();
+
+  private long now = 100_000L;
+
+  private double random;
+
+  private WeightedFillPolicy underTest;
+
+  @Before
+  public void setup() {
+    MockBlobStoreConfiguration groupConfiguration = new MockBlobStoreConfiguration();
+    groupConfiguration.setName("group");
+    when(group.getBlobStoreConfiguration()).thenReturn(groupConfiguration);
+
+    underTest = new WeightedFillPolicy(quotaService, metricRegistry, new Time(10, SECONDS), new Time(1, SECONDS),
+        ByteSize.gigaBytes(1));
+    underTest.clock = () -> now;
+    underTest.random = () -> random;
+  }
+
+  @Test
+  public void itWillReturnNullIfNoMembersAreWritable() {
+    BlobStore one = member("one", 10 * GB, 0, 0);
+    when(one.isWritable()).thenReturn(false);
+    when(group.getMembers()).thenReturn(Collections.singletonList(one));
+
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(nullValue()));
+    assertThat(meter("noWritableMember"), is(1L));
+  }
+
+  @Test
+  public void itWillFavourFasterMembers() {
+    BlobStore fast = member("fast", 10 * GB, 10, 1_000);
+    BlobStore slow = member("slow", 10 * GB, 10, 4_000);
+    when(group.getMembers()).thenReturn(Arrays.asList(fast, slow));
+
+    // fast scores four times as much as slow
+    random = 0.7;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(fast));
+    random = 0.9;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(slow));
+
+    assertThat(meter("fast", "placements"), is(1L));
+    assertThat(meter("slow", "placements"), is(1L));
+  }
+
+  @Test
+  public void itWillFavourMembersWithMoreFreeSpace() {
+    BlobStore roomy = member("roomy", 9 * GB, 0, 0);
+    BlobStore full = member("full", 2 * GB, 0, 0);
+    when(group.getMembers()).thenReturn(Arrays.asList(full, roomy));
+
+    // both use 1GB, so full has 67% of its space free and roomy 90%
+    random = 0.5;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(roomy));
+  }
+
+  @Test
+  public void itWillSkipMembersBreachingThresholds() {
+    BlobStore overQuota = member("overQuota", 10 * GB, 0, 0);
+    BlobStore nearlyFull = member("nearlyFull", GB / 2, 0, 0);
+    BlobStore slow = member("slow", 10 * GB, 10, 20_000);
+    BlobStore healthy = member("healthy", 10 * GB, 10, 5_000);
+    when(quotaService.checkQuota(overQuota)).thenReturn(new BlobStoreQuotaResult(true, "overQuota", "violation"));
+    when(group.getMembers()).thenReturn(Arrays.asList(overQuota, nearlyFull, slow, healthy));
+
+    for (double r : new double[]{0, 0.5, 0.99}) {
+      random = r;
+      assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(healthy));
+    }
+  }
+
+  @Test
+  public void itWillGiveSlowMembersAnotherChanceOnceTheirLatencyIsOld() {
+    BlobStore slow = member("slow", 10 * GB, 10, 20_000);
+    BlobStore healthy = member("healthy", 10 * GB, 10, 5_000);
+    when(group.getMembers()).thenReturn(Arrays.asList(slow, healthy));
+    random = 0;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(healthy));
+
+    // slow gets no uploads while excluded, so its 2s latency fades by 30% per interval: 1.4s, then 0.98s
+    now += 10_000;
+    uploads(healthy, 20, 10_000);
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(healthy));
+    now += 10_000;
+    uploads(healthy, 30, 15_000);
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(slow));
+
+    // it has recovered, so the uploads it now takes keep it in
+    now += 10_000;
+    uploads(slow, 20, 21_000);
+    uploads(healthy, 40, 20_000);
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(slow));
+  }
+
+  @Test
+  public void itWillChooseAmongAllMembersWhenEveryMemberBreachesThresholds() {
+    BlobStore one = member("one", GB / 2, 0, 0);
+    BlobStore two = member("two", GB / 4, 0, 0);
+    when(group.getMembers()).thenReturn(Arrays.asList(one, two));
+
+    random = 0;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(one));
+    assertThat(meter("thresholdsBreached"), is(1L));
+  }
+
+  @Test
+  public void itWillOnlyRefreshScoresOncePerInterval() {
+    BlobStore one = member("one", 10 * GB, 10, 1_000);
+    BlobStore two = member("two", 10 * GB, 10, 1_000);
+    when(group.getMembers()).thenReturn(Arrays.asList(one, two));
+    random = 0.75;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(two));
+
+    // two has become much slower, which is only noticed once the interval has passed
+    uploads(two, 20, 21_000);
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(two));
+
+    now += 10_000;
+    assertThat(underTest.chooseBlobStore(group, Collections.emptyMap()), is(one));
+  }
+
+  private BlobStore member(final String name, final long availableSpace, final long uploads, final long uploadTime) {
+    BlobStore member = mock(BlobStore.class);
+    MockBlobStoreConfiguration configuration = new MockBlobStoreConfiguration();
+    configuration.setName(name);
+    when(member.getBlobStoreConfiguration()).thenReturn(configuration);
+    when(member.isWritable()).thenReturn(true);
+    when(member.isStorageAvailable()).thenReturn(true);
+
+    BlobStoreMetrics metrics = mock(BlobStoreMetrics.class);
+    when(metrics.getAvailableSpace()).thenReturn(availableSpace);
+    when(metrics.getTotalSize()).thenReturn(GB);
+    when(member.getMetrics()).thenReturn(metrics);
+
+    Map<OperationType, OperationMetrics> operationMetrics = new EnumMap<>(OperationType.class);
+    operationMetrics.put(UPLOAD, new OperationMetrics());
+    when(member.getOperationMetricsByType()).thenReturn(operationMetrics);
+    uploads(member, uploads, uploadTime);
+    return member;
+  }
+
+  private static void uploads(final BlobStore member, final long uploads, final long uploadTime) {
+    OperationMetrics upload = member.getOperationMetricsByType().get(UPLOAD);
+    upload.setSuccessfulRequests(uploads);
+    upload.setTimeOnRequests(uploadTime);
+  }
+
+  private long meter(final String... names) {
+    return metricRegistry.meter(MetricRegistry.name(MetricRegistry.name(WeightedFillPolicy.class, "group"), names))
+        .getCount();
+  }
+}
@@ -12,8 +12,16 @@
  */
 package org.sonatype.nexus.cleanup.internal.content.method;
 
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
+
+import javax.inject.Inject;
 import javax.inject.Named;
 
 import org.sonatype.goodies.common.ComponentSupport;
@@ -24,7 +32,10 @@ import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 import org.sonatype.nexus.repository.content.maintenance.ContentMaintenanceFacet;
 import org.sonatype.nexus.repository.task.DeletionProgress;
 import org.sonatype.nexus.scheduling.TaskInterruptedException;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
+import com.google.common.base.Throwables;
 import com.google.common.collect.Iterators;
 
 /**
@@ -37,6 +48,16 @@ public class DeleteCleanupMethod
     extends ComponentSupport
     implements CleanupMethod
 {
+  private final boolean prefetch;
+
+  /**
+   * @param prefetch when true the next batch of candidates is fetched while the current batch is being deleted
+   */
+  @Inject
+  public DeleteCleanupMethod(@Named("${nexus.cleanup.prefetch:-true}") final boolean prefetch) {
+    this.prefetch = prefetch;
+  }
+
   @Override
   public DeletionProgress run(
       final Repository repository,
@@ -46,12 +67,61 @@ public class DeleteCleanupMethod
     ContentMaintenanceFacet maintenance = repository.facet(ContentMaintenanceFacet.class);
     DeletionProgress progress = new DeletionProgress();
 
-    Iterators.partition(components.iterator(), Continuations.BROWSE_LIMIT)
-        .forEachRemaining((batch) -> deleteBatch(maintenance, batch.stream(), progress, cancelledCheck));
+    Iterator<List<FluentComponent>> batches = Iterators.partition(components.iterator(), Continuations.BROWSE_LIMIT);
+
+    if (prefetch) {
+      deleteWithPrefetch(repository, maintenance, batches, progress, cancelledCheck);
+    }
+    else {
+      batches.forEachRemaining((batch) -> deleteBatch(maintenance, batch.stream(), progress, cancelledCheck));
+    }
 
     return progress;
   }
 
+  /**
+   * Pulls the next batch from the (lazily paged) candidate stream on a helper thread while the current batch is
+   * being deleted, so the browse query and the deletes overlap instead of alternating. Only one batch is ever read
+   * ahead and the stream is never iterated by two threads at once.
+   */
+  private void deleteWithPrefetch(
+      final Repository repository,
+      final ContentMaintenanceFacet maintenance,
+      final Iterator<List<FluentComponent>> batches,
+      final DeletionProgress progress,
+      final BooleanSupplier cancelledCheck)
+  {
+    ExecutorService prefetcher = NexusExecutorService.forCurrentSubject(
+        Executors.newSingleThreadExecutor(new NexusThreadFactory("cleanup-prefetch", repository.getName())));
+    try {
+      Future<List<FluentComponent>> next = prefetcher.submit(() -> batches.hasNext() ? batches.next() : null);
+      List<FluentComponent> batch;
+      while ((batch = await(next)) != null) {
+        next = prefetcher.submit(() -> batches.hasNext() ? batches.next() : null);
+        deleteBatch(maintenance, batch.stream(), progress, cancelledCheck);
+      }
+    }
+    finally {
+      prefetcher.shutdownNow();
+    }
+  }
+
+  private static List<FluentComponent> await(final Future<List<FluentComponent>> batch) {
+    try {
+      return batch.get();
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new TaskInterruptedException(
+          String.format("Thread '%s' is interrupted", Thread.currentThread().getName()),
+          true);
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+  }
+
   private void deleteBatch(
       final ContentMaintenanceFacet maintenance,
       final Stream<FluentComponent> batch,
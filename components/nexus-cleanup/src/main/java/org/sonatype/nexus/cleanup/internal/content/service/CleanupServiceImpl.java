@@ -15,9 +15,17 @@ package org.sonatype.nexus.cleanup.internal.content.service;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
@@ -40,8 +48,12 @@ import org.sonatype.nexus.repository.content.fluent.FluentComponent;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.task.DeletionProgress;
 import org.sonatype.nexus.repository.types.GroupType;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.google.common.base.Predicates;
+import com.google.common.base.Stopwatch;
+import com.google.common.base.Throwables;
 import org.apache.commons.lang.exception.ExceptionUtils;
 import org.elasticsearch.search.SearchContextMissingException;
 
@@ -49,6 +61,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 import static java.util.Objects.nonNull;
 import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.RETAIN_KEY;
 import static org.sonatype.nexus.cleanup.config.CleanupPolicyConstants.RETAIN_SORT_BY_KEY;
+import static org.sonatype.nexus.repository.config.ConfigurationConstants.BLOB_STORE_NAME;
+import static org.sonatype.nexus.repository.config.ConfigurationConstants.DATA_STORE_NAME;
+import static org.sonatype.nexus.repository.config.ConfigurationConstants.STORAGE;
 
 /**
  * @since 3.29
@@ -81,6 +96,17 @@ public class CleanupServiceImpl
 
   private final CleanupFeatureCheck cleanupFeatureCheck;
 
+  private final int parallelism;
+
+  private final int perBlobStoreLimit;
+
+  private final int perDataStoreLimit;
+
+  /**
+   * @param parallelism       how many repositories are cleaned up at the same time; 1 cleans them up one by one
+   * @param perBlobStoreLimit how many of those may share a blob store; 0 or less for no limit
+   * @param perDataStoreLimit how many of those may share a data store; 0 or less for no limit
+   */
   @Inject
   public CleanupServiceImpl(final RepositoryManager repositoryManager,
                             final CleanupPolicyStorage cleanupPolicyStorage,
@@ -88,7 +114,10 @@ public class CleanupServiceImpl
                             final GroupType groupType,
                             @Named("${nexus.cleanup.retries:-3}") final int cleanupRetryLimit,
                             final CleanupBrowseServiceFactory browseServiceFactory,
-                            @Nullable final CleanupFeatureCheck cleanupFeatureCheck)
+                            @Nullable final CleanupFeatureCheck cleanupFeatureCheck,
+                            @Named("${nexus.cleanup.parallelism:-1}") final int parallelism,
+                            @Named("${nexus.cleanup.parallelism.perBlobStore:-2}") final int perBlobStoreLimit,
+                            @Named("${nexus.cleanup.parallelism.perDataStore:-4}") final int perDataStoreLimit)
   {
     this.repositoryManager = checkNotNull(repositoryManager);
     this.cleanupMethod = checkNotNull(cleanupMethod);
@@ -97,26 +126,95 @@ public class CleanupServiceImpl
     this.cleanupRetryLimit = cleanupRetryLimit;
     this.browseServiceFactory = checkNotNull(browseServiceFactory);
     this.cleanupFeatureCheck = cleanupFeatureCheck;
+    this.parallelism = Math.max(1, parallelism);
+    this.perBlobStoreLimit = perBlobStoreLimit > 0 ? perBlobStoreLimit : Integer.MAX_VALUE;
+    this.perDataStoreLimit = perDataStoreLimit > 0 ? perDataStoreLimit : Integer.MAX_VALUE;
   }
 
   @Override
   public void cleanup(final BooleanSupplier cancelledCheck) {
     AtomicLong totalDeletedCount = new AtomicLong(0L);
+    if (parallelism > 1) {
+      cleanupInParallel(cancelledCheck, totalDeletedCount);
+    }
+    else {
+      repositoryManager.browse().forEach(repository -> {
+        if (!cancelledCheck.getAsBoolean() && !repository.getType().equals(groupType)) {
+          totalDeletedCount.addAndGet(this.cleanup(repository, cancelledCheck));
+        }
+      });
+    }
+    log.info("{} assets cleaned up across all repositories", totalDeletedCount.get());
+  }
+
+  /**
+   * Cleans up to {@link #parallelism} repositories at the same time, never running more than the configured number
+   * of cleanups against the same blob store or data store so a single backend isn't swamped with deletes.
+   */
+  private void cleanupInParallel(final BooleanSupplier cancelledCheck, final AtomicLong totalDeletedCount) {
+    List<Repository> repositories = new ArrayList<>();
     repositoryManager.browse().forEach(repository -> {
-      if (!cancelledCheck.getAsBoolean() && !repository.getType().equals(groupType)) {
-        totalDeletedCount.addAndGet(this.cleanup(repository, cancelledCheck));
+      if (!repository.getType().equals(groupType)) {
+        repositories.add(repository);
       }
     });
-    log.info("{} assets cleaned up across all repositories", totalDeletedCount.get());
+
+    RepositoryScheduler scheduler = new RepositoryScheduler(repositories);
+    int workers = Math.min(parallelism, repositories.size());
+    log.info("Cleaning up {} repositories using {} threads", repositories.size(), workers);
+
+    ExecutorService executor = NexusExecutorService.forCurrentSubject(
+        Executors.newFixedThreadPool(Math.max(1, workers), new NexusThreadFactory("cleanup", "cleanup")));
+    try {
+      List<Future<?>> futures = new ArrayList<>();
+      for (int i = 0; i < workers; i++) {
+        futures.add(executor.submit(() -> {
+          Repository repository;
+          while ((repository = scheduler.next(cancelledCheck)) != null) {
+            try {
+              totalDeletedCount.addAndGet(cleanup(repository, cancelledCheck));
+            }
+            finally {
+              scheduler.release(repository);
+            }
+          }
+          return null;
+        }));
+      }
+      for (Future<?> future : futures) {
+        future.get();
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      log.warn("Interrupted while waiting for repository cleanup to finish");
+    }
+    catch (ExecutionException e) {
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new RuntimeException(e.getCause());
+    }
+    finally {
+      executor.shutdownNow();
+    }
   }
 
   private Long cleanup(final Repository repository, final BooleanSupplier cancelledCheck) {
     AtomicLong deleted = new AtomicLong(0L);
-    findPolicies(repository).forEach(policy -> {
+    List<CleanupPolicy> policies = findPolicies(repository);
+    if (policies.isEmpty()) {
+      return 0L;
+    }
+
+    Stopwatch stopwatch = Stopwatch.createStarted();
+    policies.forEach(policy -> {
       CleanupComponentBrowse browseService = browseServiceFactory.get(repository.getFormat());
       deleted.addAndGet(deleteByPolicy(repository, policy, cancelledCheck, browseService));
       log.info("{} assets cleaned up for repository {} in total", deleted, repository.getName());
     });
+
+    long elapsedMillis = stopwatch.elapsed(TimeUnit.MILLISECONDS);
+    log.info("Cleanup of repository {} took {} ms ({} assets/s)", repository.getName(), elapsedMillis,
+        elapsedMillis > 0 ? deleted.get() * 1000 / elapsedMillis : deleted.get());
     return deleted.get();
   }
 
@@ -201,4 +299,85 @@ public class CleanupServiceImpl
 
     return cleanupPolicies;
   }
+
+  @Nullable
+  private static String storageAttribute(final Repository repository, final String key) {
+    return Optional.ofNullable(repository.getConfiguration().getAttributes())
+        .map(attributes -> attributes.get(STORAGE))
+        .map(storage -> storage.get(key))
+        .map(Object::toString)
+        .orElse(null);
+  }
+
+  /**
+   * Hands out repositories to the cleanup workers, holding back any repository whose blob store or data store is
+   * already being cleaned up by as many workers as allowed.
+   */
+  private class RepositoryScheduler
+  {
+    private final List<Repository> pending;
+
+    private final Map<String, Integer> activeBlobStores = new HashMap<>();
+
+    private final Map<String, Integer> activeDataStores = new HashMap<>();
+
+    private final Map<Repository, String[]> running = new HashMap<>();
+
+    RepositoryScheduler(final List<Repository> repositories) {
+      this.pending = new LinkedList<>(repositories);
+    }
+
+    /**
+     * Waits for a repository that can be cleaned up within the limits.
+     *
+     * @return the repository, or null once there's nothing left to clean up or cleanup was cancelled
+     */
+    @Nullable
+    synchronized Repository next(final BooleanSupplier cancelledCheck) throws InterruptedException {
+      while (!pending.isEmpty() && !cancelledCheck.getAsBoolean()) {
+        Iterator<Repository> itr = pending.iterator();
+        while (itr.hasNext()) {
+          Repository repository = itr.next();
+          String blobStore = storageAttribute(repository, BLOB_STORE_NAME);
+          String dataStore = storageAttribute(repository, DATA_STORE_NAME);
+          if (isAvailable(activeBlobStores, blobStore, perBlobStoreLimit) &&
+              isAvailable(activeDataStores, dataStore, perDataStoreLimit)) {
+            itr.remove();
+            acquire(activeBlobStores, blobStore);
+            acquire(activeDataStores, dataStore);
+            running.put(repository, new String[]{blobStore, dataStore});
+            return repository;
+          }
+        }
+        // every remaining repository shares a store with a running cleanup; wake up when one finishes
+        wait(TimeUnit.SECONDS.toMillis(1));
+      }
+      return null;
+    }
+
+    synchronized void release(final Repository repository) {
+      String[] stores = running.remove(repository);
+      if (stores != null) {
+        release(activeBlobStores, stores[0]);
+        release(activeDataStores, stores[1]);
+      }
+      notifyAll();
+    }
+
+    private boolean isAvailable(final Map<String, Integer> active, @Nullable final String store, final int limit) {
+      return store == null || active.getOrDefault(store, 0) < limit;
+    }
+
+    private void acquire(final Map<String, Integer> active, @Nullable final String store) {
+      if (store != null) {
+        active.merge(store, 1, Integer::sum);
+      }
+    }
+
+    private void release(final Map<String, Integer> active, @Nullable final String store) {
+      if (store != null) {
+        active.computeIfPresent(store, (key, count) -> count > 1 ? count - 1 : null);
+      }
+    }
+  }
 }
@@ -14,6 +14,7 @@ package org.sonatype.nexus.cleanup.internal.content.method;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.Callable;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
@@ -24,11 +25,15 @@ import org.sonatype.nexus.repository.content.maintenance.ContentMaintenanceFacet
 import org.sonatype.nexus.repository.task.DeletionProgress;
 import org.sonatype.nexus.scheduling.TaskInterruptedException;
 
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.times;
@@ -46,6 +51,9 @@ public class DeleteCleanupMethodTest
   @Mock
   private BooleanSupplier cancelledCheck;
 
+  @Mock
+  private Subject subject;
+
   @Mock
   private ContentMaintenanceFacet contentMaintenanceFacet;
 
@@ -54,8 +62,17 @@ public class DeleteCleanupMethodTest
   @Before
   public void setUp() {
     System.setProperty("nexus.continuation.browse.limit", String.valueOf(BATCH_SIZE));
-    underTest = new DeleteCleanupMethod();
+    underTest = new DeleteCleanupMethod(true);
     when(repository.facet(ContentMaintenanceFacet.class)).thenReturn(contentMaintenanceFacet);
+
+    // worker threads run as the subject of the calling task
+    when(subject.associateWith(any(Callable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
   }
 
   @Test(expected = TaskInterruptedException.class)
@@ -84,6 +101,45 @@ public class DeleteCleanupMethodTest
     assertEquals(5000, deleted.getComponentCount());
   }
 
+  @Test
+  public void testRunWithoutPrefetch() {
+    underTest = new DeleteCleanupMethod(false);
+    when(cancelledCheck.getAsBoolean()).thenReturn(false);
+    when(contentMaintenanceFacet.deleteComponents(any(Stream.class)))
+        .thenAnswer(invocation -> {
+          Stream<FluentComponent> input = invocation.getArgument(0);
+          return (int) input.count();
+        });
+
+    DeletionProgress deleted = underTest.run(repository, getRandomStream(1200), cancelledCheck);
+
+    verify(contentMaintenanceFacet, times(3)).deleteComponents(any(Stream.class));
+    assertEquals(1200, deleted.getComponentCount());
+  }
+
+  @Test
+  public void testRunPropagatesBrowseFailure() {
+    when(cancelledCheck.getAsBoolean()).thenReturn(false);
+    when(contentMaintenanceFacet.deleteComponents(any(Stream.class)))
+        .thenAnswer(invocation -> {
+          Stream<FluentComponent> input = invocation.getArgument(0);
+          return (int) input.count();
+        });
+
+    Stream<FluentComponent> failing = Stream.concat(getRandomStream(BATCH_SIZE), Stream.generate(() -> {
+      throw new IllegalStateException("browse failed");
+    }));
+
+    try {
+      underTest.run(repository, failing, cancelledCheck);
+      fail("expected browse failure");
+    }
+    catch (IllegalStateException e) {
+      assertEquals("browse failed", e.getMessage());
+    }
+    verify(contentMaintenanceFacet).deleteComponents(any(Stream.class));
+  }
+
   public Stream<FluentComponent> getRandomStream(final int size) {
     List<FluentComponent> resultList = new ArrayList<>(size);
 
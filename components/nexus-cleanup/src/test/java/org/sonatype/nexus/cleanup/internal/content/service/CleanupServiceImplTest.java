@@ -14,6 +14,10 @@ package org.sonatype.nexus.cleanup.internal.content.service;
 
 import java.util.Collection;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.BooleanSupplier;
 import java.util.stream.Stream;
 
@@ -36,6 +40,9 @@ import org.sonatype.nexus.repository.types.GroupType;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.ImmutableMap;
 import org.elasticsearch.search.SearchContextMissingException;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -48,6 +55,8 @@ import static java.util.Arrays.asList;
 import static java.util.Collections.emptyMap;
 import static java.util.Collections.singletonMap;
 import static java.util.stream.Stream.empty;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
 import static org.junit.Assume.assumeFalse;
 import static org.junit.Assume.assumeTrue;
 import static org.mockito.ArgumentMatchers.any;
@@ -108,6 +117,9 @@ public class CleanupServiceImplTest
   @Mock
   private BooleanSupplier cancelledCheck;
 
+  @Mock
+  private Subject subject;
+
   @Mock
   private DeletionProgress deletionProgress;
 
@@ -130,7 +142,7 @@ public class CleanupServiceImplTest
     when(cleanupBrowseFactory.get(any())).thenReturn(browseService);
 
     underTest = new CleanupServiceImpl(repositoryManager, cleanupPolicyStorage, cleanupMethod,
-        new GroupType(), RETRY_LIMIT, cleanupBrowseFactory, cleanupFeatureCheck);
+        new GroupType(), RETRY_LIMIT, cleanupBrowseFactory, cleanupFeatureCheck, 1, 0, 0);
 
     setupRepository(repository1, POLICY_1_NAME);
     setupRepository(repository2, POLICY_2_NAME);
@@ -158,6 +170,15 @@ public class CleanupServiceImplTest
     when(format.getValue()).thenReturn("maven2");
 
     when(cleanupFeatureCheck.isRetainSupported(any())).thenReturn(true);
+
+    // worker threads run as the subject of the calling task
+    when(subject.associateWith(any(Callable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
   }
 
   @Test
@@ -341,6 +362,53 @@ public class CleanupServiceImplTest
     verify(cleanupMethod, times(3)).run(eq(repository2), argThat(streamContains(component3)), eq(cancelledCheck));
   }
 
+  @Test
+  public void cleanupRepositoriesInParallel() throws Exception {
+    underTest = new CleanupServiceImpl(repositoryManager, cleanupPolicyStorage, cleanupMethod,
+        new GroupType(), RETRY_LIMIT, cleanupBrowseFactory, cleanupFeatureCheck, 2, 0, 0);
+
+    CountDownLatch bothRunning = new CountDownLatch(2);
+    doAnswer(i -> {
+      bothRunning.countDown();
+      assertThat(bothRunning.await(5, TimeUnit.SECONDS), is(true));
+      return deletionProgress;
+    }).when(cleanupMethod).run(any(), any(), any());
+
+    underTest.cleanup(cancelledCheck);
+
+    verify(cleanupMethod).run(eq(repository1), argThat(streamContains(component1,  component2)), eq(cancelledCheck));
+    verify(cleanupMethod).run(eq(repository2), argThat(streamContains(component3)), eq(cancelledCheck));
+  }
+
+  @Test
+  public void cleanupInParallelRespectsBlobStoreLimit() throws Exception {
+    underTest = new CleanupServiceImpl(repositoryManager, cleanupPolicyStorage, cleanupMethod,
+        new GroupType(), RETRY_LIMIT, cleanupBrowseFactory, cleanupFeatureCheck, 2, 1, 0);
+    setupStorage(repository1, POLICY_1_NAME);
+    setupStorage(repository2, POLICY_2_NAME);
+
+    AtomicInteger running = new AtomicInteger();
+    AtomicInteger maxRunning = new AtomicInteger();
+    doAnswer(i -> {
+      maxRunning.accumulateAndGet(running.incrementAndGet(), Math::max);
+      Thread.sleep(50);
+      running.decrementAndGet();
+      return deletionProgress;
+    }).when(cleanupMethod).run(any(), any(), any());
+
+    underTest.cleanup(cancelledCheck);
+
+    verify(cleanupMethod).run(eq(repository1), argThat(streamContains(component1,  component2)), eq(cancelledCheck));
+    verify(cleanupMethod).run(eq(repository2), argThat(streamContains(component3)), eq(cancelledCheck));
+    assertThat(maxRunning.get(), is(1));
+  }
+
+  private void setupStorage(final Repository repository, final String policyName) {
+    when(repository.getConfiguration().getAttributes()).thenReturn(ImmutableMap.of(
+        "cleanup", singletonMap("policyName", newLinkedHashSet(asList(policyName))),
+        "storage", singletonMap("blobStoreName", "default")));
+  }
+
   private void setupRepository(final Repository repository, final String... policyName) {
     Configuration repositoryConfig = mock(Configuration.class);
     when(repository.getConfiguration()).thenReturn(repositoryConfig);
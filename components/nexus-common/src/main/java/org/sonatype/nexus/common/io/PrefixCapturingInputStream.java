@@ -0,0 +1,130 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import javax.annotation.Nonnull;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * An {@link InputStream} that keeps a copy of the first bytes read through it, so they can be inspected afterwards
+ * (for example to detect the content type) without reading the content a second time.
+ *
+ * @since 3.77
+ */
+public class PrefixCapturingInputStream
+    extends FilterInputStream
+{
+  private final byte[] prefix;
+
+  private int captured;
+
+  private long count;
+
+  private boolean eof;
+
+  public PrefixCapturingInputStream(final InputStream inputStream, final int limit) {
+    super(checkNotNull(inputStream));
+    checkArgument(limit >= 0, "limit must not be negative");
+    this.prefix = new byte[limit];
+  }
+
+  @Override
+  public int read() throws IOException {
+    int b = in.read();
+    if (b == -1) {
+      eof = true;
+    }
+    else {
+      count++;
+      if (captured < prefix.length) {
+        prefix[captured++] = (byte) b;
+      }
+    }
+    return b;
+  }
+
+  @Override
+  public int read(@Nonnull final byte[] bytes, final int off, final int len) throws IOException {
+    int numRead = in.read(bytes, off, len);
+    if (numRead == -1) {
+      eof = true;
+    }
+    else {
+      count += numRead;
+      if (captured < prefix.length) {
+        int length = Math.min(numRead, prefix.length - captured);
+        System.arraycopy(bytes, off, prefix, captured, length);
+        captured += length;
+      }
+    }
+    return numRead;
+  }
+
+  @Override
+  public long skip(final long n) throws IOException {
+    if (captured >= prefix.length) {
+      long skipped = in.skip(n);
+      count += skipped;
+      return skipped;
+    }
+    // read through skipped bytes that still belong to the prefix
+    byte[] buffer = new byte[(int) Math.min(n, prefix.length - captured)];
+    int numRead = read(buffer, 0, buffer.length);
+    return Math.max(numRead, 0);
+  }
+
+  @Override
+  public boolean markSupported() {
+    return false;
+  }
+
+  @Override
+  public void mark(final int readlimit) {
+    // no-op
+  }
+
+  @Override
+  public void reset() throws IOException {
+    throw new IOException("reset not supported");
+  }
+
+  /**
+   * Returns a copy of the bytes captured so far, at most the limit given at construction.
+   */
+  public byte[] prefix() {
+    return Arrays.copyOf(prefix, captured);
+  }
+
+  /**
+   * Returns {@code true} when the end of the stream was reached and the prefix holds the entire content.
+   */
+  public boolean isComplete() {
+    return eof && count == captured;
+  }
+
+  /**
+   * Returns a supplier of the captured prefix.
+   */
+  public InputStreamSupplier prefixSupplier() {
+    byte[] content = prefix();
+    return () -> new ByteArrayInputStream(content);
+  }
+}
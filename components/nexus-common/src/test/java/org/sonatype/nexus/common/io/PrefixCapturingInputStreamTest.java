@@ -0,0 +1,96 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.common.io;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static java.util.Arrays.copyOf;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * UT for {@link PrefixCapturingInputStream}.
+ */
+public class PrefixCapturingInputStreamTest
+    extends TestSupport
+{
+  private static final byte[] CONTENT = content(1000);
+
+  @Test
+  public void capturesWholeContentWithinLimit() throws IOException {
+    PrefixCapturingInputStream underTest = new PrefixCapturingInputStream(new ByteArrayInputStream(CONTENT), 4096);
+
+    assertThat(ByteStreams.toByteArray(underTest), is(CONTENT));
+    assertThat(underTest.prefix(), is(CONTENT));
+    assertThat(underTest.isComplete(), is(true));
+  }
+
+  @Test
+  public void capturesOnlyTheLimitOfLargerContent() throws IOException {
+    PrefixCapturingInputStream underTest = new PrefixCapturingInputStream(new ByteArrayInputStream(CONTENT), 100);
+
+    assertThat(ByteStreams.toByteArray(underTest), is(CONTENT));
+    assertThat(underTest.prefix(), is(copyOf(CONTENT, 100)));
+    assertThat(underTest.isComplete(), is(false));
+    try (InputStream in = underTest.prefixSupplier().get()) {
+      assertThat(ByteStreams.toByteArray(in), is(copyOf(CONTENT, 100)));
+    }
+  }
+
+  @Test
+  public void contentMatchingTheLimitIsComplete() throws IOException {
+    PrefixCapturingInputStream underTest = new PrefixCapturingInputStream(new ByteArrayInputStream(CONTENT), 1000);
+
+    ByteStreams.exhaust(underTest);
+
+    assertThat(underTest.prefix(), is(CONTENT));
+    assertThat(underTest.isComplete(), is(true));
+  }
+
+  @Test
+  public void singleByteReadsAndSkipsAreCaptured() throws IOException {
+    PrefixCapturingInputStream underTest = new PrefixCapturingInputStream(new ByteArrayInputStream(CONTENT), 10);
+
+    assertThat(underTest.read(), is(0));
+    assertThat(underTest.skip(4), is(4L));
+    assertThat(underTest.read(), is(5));
+    underTest.skip(500);
+
+    assertThat(underTest.prefix(), is(copyOf(CONTENT, 10)));
+  }
+
+  @Test
+  public void partialReadIsNotComplete() throws IOException {
+    PrefixCapturingInputStream underTest = new PrefixCapturingInputStream(new ByteArrayInputStream(CONTENT), 4096);
+
+    assertThat(underTest.read(new byte[10]), is(10));
+
+    assertThat(underTest.prefix(), is(copyOf(CONTENT, 10)));
+    assertThat(underTest.isComplete(), is(false));
+  }
+
+  private static byte[] content(final int size) {
+    byte[] bytes = new byte[size];
+    for (int i = 0; i < size; i++) {
+      bytes[i] = (byte) i;
+    }
+    return bytes;
+  }
+}
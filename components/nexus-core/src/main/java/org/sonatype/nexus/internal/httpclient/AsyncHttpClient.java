@@ -0,0 +1,671 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InterruptedIOException;
+import java.io.UncheckedIOException;
+import java.net.ConnectException;
+import java.net.SocketTimeoutException;
+import java.net.URI;
+import java.net.UnknownHostException;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpTimeoutException;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import javax.net.ssl.SSLException;
+
+import com.codahale.metrics.Counter;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.google.common.collect.ImmutableSet;
+import org.apache.http.Header;
+import org.apache.http.HttpEntity;
+import org.apache.http.HttpEntityEnclosingRequest;
+import org.apache.http.HttpException;
+import org.apache.http.HttpHost;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpStatus;
+import org.apache.http.ProtocolVersion;
+import org.apache.http.client.ClientProtocolException;
+import org.apache.http.client.CredentialsProvider;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.Configurable;
+import org.apache.http.client.methods.HttpRequestWrapper;
+import org.apache.http.client.methods.HttpUriRequest;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.client.utils.URIUtils;
+import org.apache.http.conn.ClientConnectionManager;
+import org.apache.http.conn.ClientConnectionRequest;
+import org.apache.http.conn.ManagedClientConnection;
+import org.apache.http.conn.routing.HttpRoute;
+import org.apache.http.conn.scheme.SchemeRegistry;
+import org.apache.http.entity.InputStreamEntity;
+import org.apache.http.impl.EnglishReasonPhraseCatalog;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.message.BasicHttpResponse;
+import org.apache.http.message.BasicStatusLine;
+import org.apache.http.params.HttpParams;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.Locale.ENGLISH;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static org.apache.http.HttpHeaders.CONTENT_ENCODING;
+import static org.apache.http.HttpHeaders.CONTENT_LENGTH;
+import static org.apache.http.HttpHeaders.CONTENT_TYPE;
+
+/**
+ * A {@link CloseableHttpClient} backed by the non-blocking JDK {@link java.net.http.HttpClient}.
+ *
+ * HTTPS requests are multiplexed over a single HTTP/2 connection per remote where the remote negotiates it, and fall
+ * back to HTTP/1.1 otherwise; plain HTTP requests always use HTTP/1.1 rather than attempt an h2c upgrade.
+ *
+ * Like any {@link CloseableHttpClient}, {@link #execute} blocks: the calling thread waits for the response headers,
+ * but it doesn't hold a pooled socket while it does. The response body is streamed to the caller as it arrives, and a
+ * read that waits longer than the request's socket timeout for more of it fails and aborts the exchange, as it would
+ * on the blocking client's socket.
+ *
+ * Requests and responses pass through the same {@link HttpProcessor} interceptors as the blocking client, against an
+ * {@link HttpClientContext} carrying the request, target host and credentials provider those interceptors expect.
+ *
+ * @since 3.77
+ */
+class AsyncHttpClient
+    extends CloseableHttpClient
+{
+  private static final Logger log = LoggerFactory.getLogger(AsyncHttpClient.class);
+
+  /**
+   * Headers the JDK client manages itself and refuses to have set on a request.
+   */
+  private static final Set<String> RESTRICTED_HEADERS =
+      ImmutableSet.of("connection", "content-length", "expect", "host", "upgrade");
+
+  private static final Set<String> IDEMPOTENT_METHODS = ImmutableSet.of("GET", "HEAD", "OPTIONS");
+
+  private final java.net.http.HttpClient client;
+
+  private final Map<String, String> headers;
+
+  private final HttpProcessor processor;
+
+  private final CredentialsProvider credentialsProvider;
+
+  private final Duration requestTimeout;
+
+  private final int retries;
+
+  private final MetricRegistry metricRegistry;
+
+  private final AtomicBoolean closed = new AtomicBoolean();
+
+  AsyncHttpClient(
+      final java.net.http.HttpClient client,
+      final Map<String, String> headers,
+      final HttpProcessor processor,
+      final CredentialsProvider credentialsProvider,
+      final Duration requestTimeout,
+      final int retries,
+      final MetricRegistry metricRegistry)
+  {
+    this.client = checkNotNull(client);
+    this.headers = checkNotNull(headers);
+    this.processor = checkNotNull(processor);
+    this.credentialsProvider = checkNotNull(credentialsProvider);
+    this.requestTimeout = checkNotNull(requestTimeout);
+    this.retries = retries;
+    this.metricRegistry = checkNotNull(metricRegistry);
+  }
+
+  @Override
+  protected CloseableHttpResponse doExecute(
+      final HttpHost target,
+      final HttpRequest request,
+      final HttpContext context) throws IOException
+  {
+    if (closed.get()) {
+      throw new IllegalStateException("Connection pool shut down");
+    }
+
+    URI uri = uri(target, request);
+    String method = request.getRequestLine().getMethod();
+    HttpClientContext clientContext = HttpClientContext.adapt(context != null ? context : new BasicHttpContext());
+    HttpRequestWrapper wrapper = intercept(target != null ? target : URIUtils.extractHost(uri), request, clientContext);
+    java.net.http.HttpRequest jdkRequest = toJdkRequest(uri, method, wrapper, requestTimeout(request));
+    return intercept(sendWithRetries(uri, method, jdkRequest), clientContext);
+  }
+
+  private CloseableHttpResponse sendWithRetries(
+      final URI uri,
+      final String method,
+      final java.net.http.HttpRequest jdkRequest) throws IOException
+  {
+    String remote = remote(uri);
+    int attempt = 0;
+    while (true) {
+      try {
+        return send(remote, method, jdkRequest);
+      }
+      catch (IOException e) {
+        if (attempt++ >= retries || !isRetryable(method, e)) {
+          metricRegistry.meter(MetricRegistry.name(AsyncHttpClient.class, remote, "failures")).mark();
+          throw e;
+        }
+        log.debug("Retrying {} {} after {}, attempt {} of {}", method, uri, e, attempt, retries);
+      }
+    }
+  }
+
+  /**
+   * Runs the request interceptors on a wrapper, so the caller's request isn't modified, as the blocking client does.
+   */
+  private HttpRequestWrapper intercept(
+      final HttpHost target,
+      final HttpRequest request,
+      final HttpClientContext context) throws IOException
+  {
+    HttpRequestWrapper wrapper = HttpRequestWrapper.wrap(request, target);
+    context.setAttribute(HttpClientContext.HTTP_REQUEST, wrapper);
+    context.setAttribute(HttpClientContext.HTTP_TARGET_HOST, target);
+    if (context.getCredentialsProvider() == null) {
+      context.setCredentialsProvider(credentialsProvider);
+    }
+    try {
+      processor.process(wrapper, context);
+    }
+    catch (HttpException e) {
+      throw new ClientProtocolException(e);
+    }
+    return wrapper;
+  }
+
+  private CloseableHttpResponse intercept(
+      final CloseableHttpResponse response,
+      final HttpClientContext context) throws IOException
+  {
+    context.setAttribute(HttpClientContext.HTTP_RESPONSE, response);
+    try {
+      processor.process(response, context);
+    }
+    catch (HttpException e) {
+      response.close();
+      throw new ClientProtocolException(e);
+    }
+    catch (IOException | RuntimeException e) {
+      response.close();
+      throw e;
+    }
+    return response;
+  }
+
+  private CloseableHttpResponse send(
+      final String remote,
+      final String method,
+      final java.net.http.HttpRequest jdkRequest) throws IOException
+  {
+    Counter streams = metricRegistry.counter(MetricRegistry.name(AsyncHttpClient.class, remote, "streams"));
+    Timer.Context timer = metricRegistry.timer(MetricRegistry.name(AsyncHttpClient.class, remote, "requests")).time();
+    streams.inc();
+
+    Duration readTimeout = jdkRequest.timeout().orElse(requestTimeout);
+    CompletableFuture<java.net.http.HttpResponse<InputStream>> future =
+        client.sendAsync(jdkRequest, responseInfo -> new TimedBodySubscriber(readTimeout));
+    java.net.http.HttpResponse<InputStream> response;
+    try {
+      response = future.get();
+    }
+    catch (InterruptedException e) {
+      streams.dec();
+      future.cancel(true);
+      Thread.currentThread().interrupt();
+      throw new InterruptedIOException("Interrupted waiting for " + jdkRequest.uri());
+    }
+    catch (ExecutionException e) {
+      streams.dec();
+      throw unwrap(e);
+    }
+    finally {
+      timer.stop();
+    }
+
+    protocolMeter(remote, response.version()).mark();
+    log.debug("{} {} < {} {}", method, jdkRequest.uri(), response.version(), response.statusCode());
+    return toApacheResponse(method, response, streams::dec);
+  }
+
+  private Meter protocolMeter(final String remote, final Version version) {
+    return metricRegistry.meter(MetricRegistry.name(AsyncHttpClient.class, remote, version.name().toLowerCase(ENGLISH)));
+  }
+
+  private java.net.http.HttpRequest toJdkRequest(
+      final URI uri,
+      final String method,
+      final HttpRequest request,
+      final Duration timeout)
+  {
+    java.net.http.HttpRequest.Builder builder = java.net.http.HttpRequest.newBuilder(uri).timeout(timeout);
+    if ("http".equalsIgnoreCase(uri.getScheme())) {
+      // HTTP/2 is only negotiated through TLS; over plain HTTP the JDK client would send an h2c upgrade instead
+      builder.version(Version.HTTP_1_1);
+    }
+
+    headers.forEach(builder::header);
+    for (Header header : request.getAllHeaders()) {
+      if (!RESTRICTED_HEADERS.contains(header.getName().toLowerCase(ENGLISH))) {
+        builder.setHeader(header.getName(), header.getValue());
+      }
+    }
+
+    java.net.http.HttpRequest.BodyPublisher body = java.net.http.HttpRequest.BodyPublishers.noBody();
+    if (request instanceof HttpEntityEnclosingRequest) {
+      HttpEntity entity = ((HttpEntityEnclosingRequest) request).getEntity();
+      if (entity != null) {
+        if (entity.getContentType() != null && !request.containsHeader(CONTENT_TYPE)) {
+          builder.setHeader(CONTENT_TYPE, entity.getContentType().getValue());
+        }
+        body = entity.getContentLength() >= 0
+            ? java.net.http.HttpRequest.BodyPublishers.fromPublisher(
+                java.net.http.HttpRequest.BodyPublishers.ofInputStream(() -> content(entity)),
+                entity.getContentLength())
+            : java.net.http.HttpRequest.BodyPublishers.ofInputStream(() -> content(entity));
+      }
+    }
+    return builder.method(method, body).build();
+  }
+
+  private Duration requestTimeout(final HttpRequest request) {
+    if (request instanceof Configurable) {
+      RequestConfig config = ((Configurable) request).getConfig();
+      if (config != null && config.getSocketTimeout() > 0) {
+        return Duration.ofMillis(config.getSocketTimeout());
+      }
+    }
+    return requestTimeout;
+  }
+
+  private static InputStream content(final HttpEntity entity) {
+    try {
+      return entity.getContent();
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
+  private static CloseableHttpResponse toApacheResponse(
+      final String method,
+      final java.net.http.HttpResponse<InputStream> response,
+      final Runnable onClose)
+  {
+    int statusCode = response.statusCode();
+    ProtocolVersion protocol = response.version() == Version.HTTP_2
+        ? new ProtocolVersion("HTTP", 2, 0)
+        : new ProtocolVersion("HTTP", 1, 1);
+    String reason = EnglishReasonPhraseCatalog.INSTANCE.getReason(statusCode, ENGLISH);
+
+    AsyncHttpResponse apacheResponse =
+        new AsyncHttpResponse(new BasicStatusLine(protocol, statusCode, reason), response.body(), onClose);
+    response.headers().map().forEach((name, values) -> {
+      if (!name.startsWith(":")) {
+        values.forEach(value -> apacheResponse.addHeader(name, value));
+      }
+    });
+
+    if (hasBody(method, statusCode)) {
+      long length = response.headers().firstValueAsLong(CONTENT_LENGTH).orElse(-1L);
+      InputStreamEntity entity = new InputStreamEntity(apacheResponse.body, length);
+      response.headers().firstValue(CONTENT_TYPE).ifPresent(entity::setContentType);
+      response.headers().firstValue(CONTENT_ENCODING).ifPresent(entity::setContentEncoding);
+      apacheResponse.setEntity(entity);
+    }
+    else {
+      apacheResponse.close();
+    }
+    return apacheResponse;
+  }
+
+  private static boolean hasBody(final String method, final int statusCode) {
+    return !"HEAD".equals(method)
+        && statusCode >= HttpStatus.SC_OK
+        && statusCode != HttpStatus.SC_NO_CONTENT
+        && statusCode != HttpStatus.SC_NOT_MODIFIED;
+  }
+
+  private static URI uri(final HttpHost target, final HttpRequest request) throws ClientProtocolException {
+    if (request instanceof HttpUriRequest && ((HttpUriRequest) request).getURI().isAbsolute()) {
+      return ((HttpUriRequest) request).getURI();
+    }
+    if (target == null) {
+      throw new ClientProtocolException("URI does not specify a valid host name: " + request.getRequestLine());
+    }
+    return URI.create(target.toURI()).resolve(request.getRequestLine().getUri());
+  }
+
+  private static String remote(final URI uri) {
+    return uri.getPort() == -1 ? uri.getHost() : uri.getHost() + ":" + uri.getPort();
+  }
+
+  /**
+   * Mirrors the decisions of the blocking client's retry handler, which doesn't retry requests with side effects or
+   * failures that another attempt won't fix.
+   */
+  private static boolean isRetryable(final String method, final IOException e) {
+    return IDEMPOTENT_METHODS.contains(method)
+        && !(e instanceof InterruptedIOException && !(e instanceof HttpTimeoutException))
+        && !(e instanceof UnknownHostException)
+        && !(e instanceof ConnectException)
+        && !(e instanceof SSLException);
+  }
+
+  private static IOException unwrap(final ExecutionException e) {
+    Throwable cause = e.getCause();
+    if (cause instanceof IOException) {
+      return (IOException) cause;
+    }
+    if (cause instanceof UncheckedIOException) {
+      return ((UncheckedIOException) cause).getCause();
+    }
+    if (cause instanceof RuntimeException) {
+      throw (RuntimeException) cause;
+    }
+    return new IOException(cause);
+  }
+
+  @Override
+  public void close() {
+    // the JDK client releases its connections and selector thread once it is no longer referenced
+    closed.set(true);
+  }
+
+  /**
+   * Not supported, as for the blocking client built by {@link org.apache.http.impl.client.HttpClientBuilder}, whose
+   * parameters are likewise replaced by {@link RequestConfig}.
+   */
+  @Override
+  @Deprecated
+  public HttpParams getParams() {
+    throw new UnsupportedOperationException();
+  }
+
+  /**
+   * Returns a view that supports the same operations as the blocking client's: shutting down closes this client, and
+   * idle and expired connections are left to the JDK client, which closes them itself.
+   */
+  @Override
+  @Deprecated
+  public ClientConnectionManager getConnectionManager() {
+    return new ClientConnectionManager()
+    {
+      @Override
+      public void shutdown() {
+        close();
+      }
+
+      @Override
+      public void closeIdleConnections(final long idletime, final TimeUnit unit) {
+        // managed by the JDK client
+      }
+
+      @Override
+      public void closeExpiredConnections() {
+        // managed by the JDK client
+      }
+
+      @Override
+      public SchemeRegistry getSchemeRegistry() {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public ClientConnectionRequest requestConnection(final HttpRoute route, final Object state) {
+        throw new UnsupportedOperationException();
+      }
+
+      @Override
+      public void releaseConnection(
+          final ManagedClientConnection conn,
+          final long validDuration,
+          final TimeUnit timeUnit)
+      {
+        throw new UnsupportedOperationException();
+      }
+    };
+  }
+
+  /**
+   * Response whose body is the JDK response stream; closing it before the body is consumed cancels the stream.
+   */
+  private static class AsyncHttpResponse
+      extends BasicHttpResponse
+      implements CloseableHttpResponse
+  {
+    private final InputStream body;
+
+    private final Runnable onClose;
+
+    private final AtomicBoolean closed = new AtomicBoolean();
+
+    private AsyncHttpResponse(
+        final BasicStatusLine statusLine,
+        final InputStream body,
+        final Runnable onClose)
+    {
+      super(statusLine);
+      this.body = new ClosingInputStream(body, this);
+      this.onClose = onClose;
+    }
+
+    @Override
+    public void close() {
+      if (closed.compareAndSet(false, true)) {
+        try {
+          ((ClosingInputStream) body).closeDelegate();
+        }
+        finally {
+          onClose.run();
+        }
+      }
+    }
+  }
+
+  /**
+   * Closes the owning response, and so ends the stream, once the body has been closed by its reader.
+   */
+  private static class ClosingInputStream
+      extends FilterInputStream
+  {
+    private final AsyncHttpResponse response;
+
+    private ClosingInputStream(final InputStream in, final AsyncHttpResponse response) {
+      super(in);
+      this.response = response;
+    }
+
+    @Override
+    public void close() {
+      response.close();
+    }
+
+    private void closeDelegate() {
+      try {
+        in.close();
+      }
+      catch (IOException e) {
+        log.trace("Failed to close response body", e);
+      }
+    }
+  }
+
+  /**
+   * Hands the response body to the caller as a blocking stream, like {@code BodyHandlers.ofInputStream()} does, except
+   * that a read waiting longer than the read timeout for more of the body fails and cancels the rest of the exchange.
+   */
+  private static class TimedBodySubscriber
+      extends InputStream
+      implements BodySubscriber<InputStream>
+  {
+    private static final Object END = new Object();
+
+    // lists of buffers as they arrive, then END or the failure which ended the body
+    private final BlockingQueue<Object> received = new LinkedBlockingQueue<>();
+
+    private final long readTimeoutNanos;
+
+    private volatile Flow.Subscription subscription;
+
+    private volatile boolean closed;
+
+    private Iterator<ByteBuffer> buffers;
+
+    private ByteBuffer buffer;
+
+    private boolean ended;
+
+    private TimedBodySubscriber(final Duration readTimeout) {
+      this.readTimeoutNanos = readTimeout.toNanos();
+    }
+
+    @Override
+    public CompletionStage<InputStream> getBody() {
+      return CompletableFuture.completedStage(this);
+    }
+
+    @Override
+    public void onSubscribe(final Flow.Subscription subscription) {
+      this.subscription = subscription;
+      if (closed) {
+        subscription.cancel();
+      }
+      else {
+        subscription.request(1);
+      }
+    }
+
+    @Override
+    public void onNext(final List<ByteBuffer> item) {
+      received.add(item);
+    }
+
+    @Override
+    public void onError(final Throwable throwable) {
+      received.add(throwable);
+    }
+
+    @Override
+    public void onComplete() {
+      received.add(END);
+    }
+
+    @Override
+    public int read() throws IOException {
+      ByteBuffer current = current();
+      return current == null ? -1 : current.get() & 0xFF;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      ByteBuffer current = current();
+      if (current == null) {
+        return -1;
+      }
+      int count = Math.min(len, current.remaining());
+      current.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer == null ? 0 : buffer.remaining();
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      Flow.Subscription current = subscription;
+      if (current != null) {
+        current.cancel();
+      }
+      received.clear();
+    }
+
+    /**
+     * Returns the buffer to read from, waiting for the next part of the body when needed, or {@code null} at its end.
+     */
+    private ByteBuffer current() throws IOException {
+      while (buffer == null || !buffer.hasRemaining()) {
+        if (closed) {
+          throw new IOException("Stream closed");
+        }
+        if (buffers != null && buffers.hasNext()) {
+          buffer = buffers.next();
+          continue;
+        }
+        if (ended) {
+          return null;
+        }
+        Object next;
+        try {
+          next = received.poll(readTimeoutNanos, NANOSECONDS);
+        }
+        catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+          throw new InterruptedIOException("Interrupted reading response body");
+        }
+        if (next == null) {
+          close();
+          throw new SocketTimeoutException("Read timed out");
+        }
+        if (next == END) {
+          ended = true;
+        }
+        else if (next instanceof Throwable) {
+          ended = true;
+          Throwable failure = (Throwable) next;
+          throw failure instanceof IOException ? (IOException) failure : new IOException(failure);
+        }
+        else {
+          @SuppressWarnings("unchecked")
+          List<ByteBuffer> item = (List<ByteBuffer>) next;
+          buffers = item.iterator();
+          subscription.request(1);
+        }
+      }
+      return buffer;
+    }
+  }
+}
@@ -0,0 +1,207 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.net.Authenticator;
+import java.net.PasswordAuthentication;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.nio.charset.StandardCharsets;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+import javax.net.ssl.SSLContext;
+
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.httpclient.HttpClientPlan;
+import org.sonatype.nexus.httpclient.SSLContextSelector;
+import org.sonatype.nexus.httpclient.config.AuthenticationConfiguration;
+import org.sonatype.nexus.httpclient.config.ConnectionConfiguration;
+import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import org.apache.http.auth.AuthScope;
+import org.apache.http.auth.Credentials;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
+import org.apache.http.protocol.BasicHttpContext;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.apache.http.HttpHeaders.AUTHORIZATION;
+import static org.apache.http.HttpHeaders.USER_AGENT;
+
+/**
+ * Creates {@link AsyncHttpClient} instances from a prepared {@link HttpClientPlan}.
+ *
+ * All clients share one executor for their response callbacks, so the number of threads doesn't grow with the number
+ * of proxy repositories. The executor lives between {@link #start()} and {@link #stop()}, which the
+ * {@link HttpClientManagerImpl} drives alongside its shared connection manager.
+ *
+ * @since 3.77
+ */
+@Named
+@Singleton
+public class AsyncHttpClientFactory
+    extends LifecycleSupport
+{
+  private final List<SSLContextSelector> sslContextSelectors;
+
+  private final DefaultsCustomizer defaultsCustomizer;
+
+  private final MetricRegistry metricRegistry;
+
+  private final int threads;
+
+  private ExecutorService executor;
+
+  @Inject
+  public AsyncHttpClientFactory(
+      final List<SSLContextSelector> sslContextSelectors,
+      final DefaultsCustomizer defaultsCustomizer,
+      final MetricRegistry metricRegistry,
+      @Named("${nexus.httpclient.async.threads:-8}") final int threads)
+  {
+    this.sslContextSelectors = checkNotNull(sslContextSelectors);
+    this.defaultsCustomizer = checkNotNull(defaultsCustomizer);
+    this.metricRegistry = checkNotNull(metricRegistry);
+    this.threads = threads;
+  }
+
+  @Override
+  protected void doStart() {
+    executor = Executors.newFixedThreadPool(threads, new NexusThreadFactory("httpclient-async", "httpclient"));
+  }
+
+  @Override
+  protected void doStop() {
+    executor.shutdown();
+    executor = null;
+  }
+
+  /**
+   * Creates a client for the plan, which must already have been customized with the given configuration.
+   *
+   * The processor carries the same request and response interceptors the blocking client is built with, so plan
+   * attributes, plan headers and outbound request logging behave the same for both engines.
+   */
+  public CloseableHttpClient create(
+      final HttpClientPlan plan,
+      final HttpClientConfiguration configuration,
+      final HttpProcessor processor)
+  {
+    checkNotNull(plan);
+    checkNotNull(configuration);
+    checkNotNull(processor);
+    ensureStarted();
+
+    RequestConfig requestConfig = plan.getRequest().build();
+    // only negotiated over TLS, AsyncHttpClient asks for HTTP/1.1 on plain HTTP
+    java.net.http.HttpClient.Builder builder = java.net.http.HttpClient.newBuilder()
+        .version(Version.HTTP_2)
+        .followRedirects(Redirect.NORMAL)
+        .sslContext(sslContext(plan))
+        .executor(executor);
+    if (requestConfig.getConnectTimeout() > 0) {
+      builder.connectTimeout(Duration.ofMillis(requestConfig.getConnectTimeout()));
+    }
+
+    // plan headers are added by the processor, like they are for the blocking client
+    Map<String, String> headers = new LinkedHashMap<>();
+    String userAgent = plan.getUserAgent();
+    if (userAgent != null) {
+      headers.put(USER_AGENT, userAgent);
+    }
+
+    Credentials credentials = plan.getCredentials().getCredentials(AuthScope.ANY);
+    if (credentials != null && credentials.getUserPrincipal() != null) {
+      String username = credentials.getUserPrincipal().getName();
+      String password = credentials.getPassword() == null ? "" : credentials.getPassword();
+      AuthenticationConfiguration authentication = configuration.getAuthentication();
+      if (authentication != null && authentication.isPreemptive()) {
+        String token = Base64.getEncoder().encodeToString((username + ":" + password).getBytes(StandardCharsets.UTF_8));
+        headers.put(AUTHORIZATION, "Basic " + token);
+      }
+      else {
+        builder.authenticator(new TargetAuthenticator(username, password));
+      }
+    }
+
+    Duration requestTimeout = Duration.ofMillis(requestConfig.getSocketTimeout() > 0
+        ? requestConfig.getSocketTimeout()
+        : defaultsCustomizer.getRequestTimeout().toMillis());
+
+    return new AsyncHttpClient(builder.build(), headers, processor, plan.getCredentials(), requestTimeout,
+        retries(configuration), metricRegistry);
+  }
+
+  private SSLContext sslContext(final HttpClientPlan plan) {
+    HttpContext context = new BasicHttpContext();
+    for (Entry<String, Object> entry : plan.getAttributes().entrySet()) {
+      context.setAttribute(entry.getKey(), entry.getValue());
+    }
+    for (SSLContextSelector selector : sslContextSelectors) {
+      SSLContext sslContext = selector.select(context);
+      if (sslContext != null) {
+        return sslContext;
+      }
+    }
+    try {
+      return SSLContext.getDefault();
+    }
+    catch (NoSuchAlgorithmException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  private int retries(final HttpClientConfiguration configuration) {
+    ConnectionConfiguration connection = configuration.getConnection();
+    if (connection != null && connection.getRetries() != null) {
+      return connection.getRetries();
+    }
+    return defaultsCustomizer.getRetryCount();
+  }
+
+  /**
+   * Answers authentication challenges from the remote, never from a proxy.
+   */
+  private static class TargetAuthenticator
+      extends Authenticator
+  {
+    private final String username;
+
+    private final char[] password;
+
+    private TargetAuthenticator(final String username, @Nullable final String password) {
+      this.username = username;
+      this.password = password == null ? new char[0] : password.toCharArray();
+    }
+
+    @Override
+    protected PasswordAuthentication getPasswordAuthentication() {
+      return getRequestorType() == RequestorType.SERVER ? new PasswordAuthentication(username, password) : null;
+    }
+  }
+}
@@ -37,13 +37,18 @@ import org.sonatype.nexus.httpclient.HttpClientPlan.Customizer;
 import org.sonatype.nexus.httpclient.config.ConfigurationCustomizer;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 import org.sonatype.nexus.httpclient.config.HttpClientConfigurationChangedEvent;
+import org.sonatype.nexus.httpclient.config.NtlmAuthenticationConfiguration;
+import org.sonatype.nexus.httpclient.config.ProxyConfiguration;
+import org.sonatype.nexus.httpclient.config.ProxyServerConfiguration;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Stopwatch;
 import com.google.common.eventbus.Subscribe;
 import org.apache.http.HttpHost;
 import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
 import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
 import org.apache.http.auth.AuthScope;
 import org.apache.http.auth.Credentials;
 import org.apache.http.client.methods.HttpUriRequest;
@@ -52,6 +57,7 @@ import org.apache.http.client.utils.URIUtils;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
 import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.ImmutableHttpProcessor;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -95,6 +101,8 @@ public class HttpClientManagerImpl
 
   private final DefaultsCustomizer defaultsCustomizer;
 
+  private final AsyncHttpClientFactory asyncHttpClientFactory;
+
   private final Mutex lock = new Mutex();
 
   private HttpClientConfiguration configuration;
@@ -104,7 +112,8 @@ public class HttpClientManagerImpl
       final HttpClientConfigurationStore store,
       @Named("initial") final Provider<HttpClientConfiguration> defaults,
       final SharedHttpClientConnectionManager sharedConnectionManager,
-      final DefaultsCustomizer defaultsCustomizer)
+      final DefaultsCustomizer defaultsCustomizer,
+      final AsyncHttpClientFactory asyncHttpClientFactory)
   {
     this.eventManager = checkNotNull(eventManager);
 
@@ -116,6 +125,7 @@ public class HttpClientManagerImpl
 
     this.sharedConnectionManager = checkNotNull(sharedConnectionManager);
     this.defaultsCustomizer = checkNotNull(defaultsCustomizer);
+    this.asyncHttpClientFactory = checkNotNull(asyncHttpClientFactory);
   }
 
   //
@@ -125,10 +135,12 @@ public class HttpClientManagerImpl
   @Override
   protected void doStart() throws Exception {
     sharedConnectionManager.start();
+    asyncHttpClientFactory.start();
   }
 
   @Override
   protected void doStop() throws Exception {
+    asyncHttpClientFactory.stop();
     sharedConnectionManager.stop();
   }
 
@@ -227,22 +239,52 @@ public class HttpClientManagerImpl
 
   @Override
   @Guarded(by = STARTED)
-  public HttpClientBuilder prepare(@Nullable final Customizer customizer) {
-    final HttpClientPlan plan = httpClientPlan();
+  public CloseableHttpClient createAsync(final HttpClientConfiguration configuration) {
+    checkNotNull(configuration);
 
-    // attach connection manager early, so customizer has chance to replace it if needed
-    plan.getClient().setConnectionManager(sharedConnectionManager);
+    String unsupported = asyncUnsupportedReason(configuration);
+    if (unsupported != null) {
+      log.info("Using blocking HTTP client instead of async, {}", unsupported);
+      return create(new ConfigurationCustomizer(configuration));
+    }
+    // only the defaults and configuration customizers apply here, so the only interceptor the plan's client builder
+    // can carry is the preemptive auth one, which the factory replaces with an authorization header
+    HttpClientPlan plan = plan(new ConfigurationCustomizer(configuration));
+    ImmutableHttpProcessor processor = new ImmutableHttpProcessor(
+        new HttpRequestInterceptor[]{planInterceptor(plan), outboundRequestInterceptor()},
+        new HttpResponseInterceptor[]{outboundResponseInterceptor()});
+    return asyncHttpClientFactory.create(plan, configuration, processor);
+  }
 
-    // apply defaults
-    defaultsCustomizer.customize(plan);
+  /**
+   * Returns why the async engine can't honour the configuration, or null when it can.
+   */
+  @Nullable
+  private String asyncUnsupportedReason(final HttpClientConfiguration configuration) {
+    if (configuration.getAuthentication() instanceof NtlmAuthenticationConfiguration) {
+      return "NTLM authentication is not supported";
+    }
+    if (configuration.getRedirectStrategy() != null || configuration.getAuthenticationStrategy() != null) {
+      return "custom redirect and authentication strategies are not supported";
+    }
+    if (usesProxy(getConfigurationInternal().getProxy()) || usesProxy(configuration.getProxy())) {
+      return "outbound proxy servers are not supported";
+    }
+    return null;
+  }
 
-    // apply globals
-    new ConfigurationCustomizer(getConfigurationInternal()).customize(plan);
+  private static boolean usesProxy(@Nullable final ProxyConfiguration proxy) {
+    return proxy != null && (isEnabled(proxy.getHttp()) || isEnabled(proxy.getHttps()));
+  }
 
-    // apply instance customization
-    if (customizer != null) {
-      customizer.customize(plan);
-    }
+  private static boolean isEnabled(@Nullable final ProxyServerConfiguration server) {
+    return server != null && server.isEnabled();
+  }
+
+  @Override
+  @Guarded(by = STARTED)
+  public HttpClientBuilder prepare(@Nullable final Customizer customizer) {
+    final HttpClientPlan plan = plan(customizer);
 
     // apply plan to builder
     HttpClientBuilder builder = plan.getClient();
@@ -256,48 +298,79 @@ public class HttpClientManagerImpl
     builder.setDefaultRequestConfig(plan.getRequest().build());
     builder.setDefaultCredentialsProvider(plan.getCredentials());
 
-    builder.addInterceptorFirst(
-        (HttpRequest request, HttpContext context) ->
-        {
-          // add custom http-context attributes
-          for (Entry<String, Object> entry : plan.getAttributes().entrySet()) {
-            // only set context attribute if not already set, to allow per request overrides
-            if (context.getAttribute(entry.getKey()) == null) {
-              context.setAttribute(entry.getKey(), entry.getValue());
-            }
-          }
-
-          // add custom http-request headers
-          for (Entry<String, String> entry : plan.getHeaders().entrySet()) {
-            request.addHeader(entry.getKey(), entry.getValue());
-          }
-        }
-    );
-    builder.addInterceptorLast(
-        (HttpRequest httpRequest, HttpContext httpContext) ->
-        {
-          httpContext.setAttribute(CTX_REQ_STOPWATCH, Stopwatch.createStarted());
-          if (outboundLog.isDebugEnabled()) {
-            httpContext.setAttribute(CTX_REQ_URI, getRequestURI(httpContext));
-            outboundLog.debug("{} > {}", httpContext.getAttribute(CTX_REQ_URI), httpRequest.getRequestLine());
-          }
-        }
-    );
-    builder.addInterceptorLast(
-        (HttpResponse httpResponse, HttpContext httpContext) ->
-        {
-          URI requestURI = (URI) httpContext.getAttribute(CTX_REQ_URI);
-          if (requestURI != null) {
-            Stopwatch stopwatch = (Stopwatch) httpContext.getAttribute(CTX_REQ_STOPWATCH);
-            outboundLog.debug("{} < {} @ {}", requestURI, httpResponse.getStatusLine(), stopwatch);
-          }
-          printOutboundLog(httpResponse, httpContext);
-        }
-    );
+    builder.addInterceptorFirst(planInterceptor(plan));
+    builder.addInterceptorLast(outboundRequestInterceptor());
+    builder.addInterceptorLast(outboundResponseInterceptor());
 
     return builder;
   }
 
+  /**
+   * Adds the plan's http-context attributes and http-request headers.
+   */
+  private static HttpRequestInterceptor planInterceptor(final HttpClientPlan plan) {
+    return (HttpRequest request, HttpContext context) ->
+    {
+      // add custom http-context attributes
+      for (Entry<String, Object> entry : plan.getAttributes().entrySet()) {
+        // only set context attribute if not already set, to allow per request overrides
+        if (context.getAttribute(entry.getKey()) == null) {
+          context.setAttribute(entry.getKey(), entry.getValue());
+        }
+      }
+
+      // add custom http-request headers
+      for (Entry<String, String> entry : plan.getHeaders().entrySet()) {
+        request.addHeader(entry.getKey(), entry.getValue());
+      }
+    };
+  }
+
+  private HttpRequestInterceptor outboundRequestInterceptor() {
+    return (HttpRequest httpRequest, HttpContext httpContext) ->
+    {
+      httpContext.setAttribute(CTX_REQ_STOPWATCH, Stopwatch.createStarted());
+      if (outboundLog.isDebugEnabled()) {
+        httpContext.setAttribute(CTX_REQ_URI, getRequestURI(httpContext));
+        outboundLog.debug("{} > {}", httpContext.getAttribute(CTX_REQ_URI), httpRequest.getRequestLine());
+      }
+    };
+  }
+
+  private HttpResponseInterceptor outboundResponseInterceptor() {
+    return (HttpResponse httpResponse, HttpContext httpContext) ->
+    {
+      URI requestURI = (URI) httpContext.getAttribute(CTX_REQ_URI);
+      if (requestURI != null) {
+        Stopwatch stopwatch = (Stopwatch) httpContext.getAttribute(CTX_REQ_STOPWATCH);
+        outboundLog.debug("{} < {} @ {}", requestURI, httpResponse.getStatusLine(), stopwatch);
+      }
+      printOutboundLog(httpResponse, httpContext);
+    };
+  }
+
+  /**
+   * Builds a plan with the defaults, the global configuration and then the instance customization applied.
+   */
+  private HttpClientPlan plan(@Nullable final Customizer customizer) {
+    final HttpClientPlan plan = httpClientPlan();
+
+    // attach connection manager early, so customizer has chance to replace it if needed
+    plan.getClient().setConnectionManager(sharedConnectionManager);
+
+    // apply defaults
+    defaultsCustomizer.customize(plan);
+
+    // apply globals
+    new ConfigurationCustomizer(getConfigurationInternal()).customize(plan);
+
+    // apply instance customization
+    if (customizer != null) {
+      customizer.customize(plan);
+    }
+    return plan;
+  }
+
   private void printOutboundLog(final HttpResponse httpResponse, final HttpContext httpContext) {
     SimpleDateFormat dateFormat = new SimpleDateFormat("dd/MMM/yyyy:HH:mm:ss Z");
 
@@ -0,0 +1,241 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webhooks;
+
+import java.io.IOException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.webhooks.Webhook;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Deliveries waiting to be sent to one subscriber, i.e. one webhook, url and secret combination.
+ *
+ * Holds up to a fixed number of deliveries in memory and spills the rest to disk, up to a fixed number of bytes,
+ * dropping anything beyond that. Deliveries are handed out in the order they were offered and no more than a fixed
+ * number of sends run against the subscriber at the same time.
+ *
+ * @since 3.77
+ */
+class WebhookEndpoint
+    extends ComponentSupport
+{
+  enum Outcome
+  {
+    QUEUED, SPILLED, DROPPED, RETIRED
+  }
+
+  /**
+   * A serialized payload waiting to be sent.
+   */
+  static class Delivery
+  {
+    private final String id;
+
+    private final byte[] body;
+
+    private final long queuedAt;
+
+    Delivery(final String id, final byte[] body, final long queuedAt) {
+      this.id = checkNotNull(id);
+      this.body = checkNotNull(body);
+      this.queuedAt = queuedAt;
+    }
+
+    String getId() {
+      return id;
+    }
+
+    byte[] getBody() {
+      return body;
+    }
+
+    /**
+     * {@link System#nanoTime()} when the delivery was queued.
+     */
+    long getQueuedAt() {
+      return queuedAt;
+    }
+  }
+
+  private final Webhook webhook;
+
+  private final URI url;
+
+  @Nullable
+  private final String secret;
+
+  private final int capacity;
+
+  private final int concurrency;
+
+  private final long spillLimit;
+
+  private final Deque<Delivery> queue = new ArrayDeque<>();
+
+  private final WebhookSpillFile spill;
+
+  private int sending;
+
+  private boolean retired;
+
+  WebhookEndpoint(
+      final Webhook webhook,
+      final URI url,
+      @Nullable final String secret,
+      final int capacity,
+      final int concurrency,
+      final long spillLimit,
+      final Path spillDirectory)
+  {
+    this.webhook = checkNotNull(webhook);
+    this.url = checkNotNull(url);
+    this.secret = secret;
+    this.capacity = capacity;
+    this.concurrency = concurrency;
+    this.spillLimit = spillLimit;
+    this.spill = new WebhookSpillFile(spillDirectory);
+  }
+
+  Webhook getWebhook() {
+    return webhook;
+  }
+
+  URI getUrl() {
+    return url;
+  }
+
+  @Nullable
+  String getSecret() {
+    return secret;
+  }
+
+  /**
+   * Adds the delivery to the end of the queue, in memory when there is room and nothing is spilled yet, otherwise
+   * on disk.
+   */
+  synchronized Outcome offer(final Delivery delivery) {
+    if (retired) {
+      return Outcome.RETIRED;
+    }
+    if (spill.count() == 0 && queue.size() < capacity) {
+      queue.add(delivery);
+      return Outcome.QUEUED;
+    }
+    if (spill.size() + delivery.getBody().length <= spillLimit) {
+      try {
+        spill.append(delivery);
+        return Outcome.SPILLED;
+      }
+      catch (IOException e) {
+        log.warn("Failed to spill webhook delivery {} for {} to disk", delivery.getId(), url,
+            log.isDebugEnabled() ? e : null);
+      }
+    }
+    return Outcome.DROPPED;
+  }
+
+  /**
+   * Claims a send slot when there is something to send and the subscriber isn't already at its concurrency limit.
+   * Every successful claim must be followed by {@link #poll(int)} and {@link #release()}.
+   */
+  synchronized boolean claim() {
+    if (sending < concurrency && sending < pending()) {
+      sending++;
+      return true;
+    }
+    return false;
+  }
+
+  /**
+   * Takes up to the given number of deliveries from the head of the queue, refilling memory from disk as needed.
+   */
+  synchronized List<Delivery> poll(final int max) {
+    List<Delivery> batch = new ArrayList<>(Math.min(max, capacity));
+    while (batch.size() < max) {
+      if (queue.isEmpty() && !refill()) {
+        break;
+      }
+      batch.add(queue.poll());
+    }
+    return batch;
+  }
+
+  /**
+   * Returns a send slot claimed by {@link #claim()}.
+   *
+   * @return true when the endpoint has nothing left to send and has been retired, after which it accepts no more
+   * deliveries
+   */
+  synchronized boolean release() {
+    sending--;
+    if (sending == 0 && pending() == 0) {
+      retired = true;
+    }
+    return retired;
+  }
+
+  /**
+   * Number of deliveries waiting to be sent, in memory and on disk.
+   */
+  synchronized int pending() {
+    return queue.size() + spill.count();
+  }
+
+  synchronized boolean isIdle() {
+    return sending == 0 && pending() == 0;
+  }
+
+  /**
+   * Drops the deliveries spilled to disk and removes their file.
+   *
+   * @return the number of deliveries dropped
+   */
+  synchronized int deleteSpill() {
+    int count = spill.count();
+    try {
+      spill.delete();
+    }
+    catch (IOException e) {
+      log.warn("Failed to delete spilled webhook deliveries for {}", url, log.isDebugEnabled() ? e : null);
+    }
+    return count;
+  }
+
+  private boolean refill() {
+    try {
+      while (queue.size() < capacity && spill.count() > 0) {
+        queue.add(spill.read());
+      }
+    }
+    catch (IOException e) {
+      log.warn("Failed to read spilled webhook deliveries for {}, dropping them", url, e);
+      try {
+        spill.delete();
+      }
+      catch (IOException ignore) { // NOSONAR
+        // already reported
+      }
+    }
+    return !queue.isEmpty();
+  }
+}
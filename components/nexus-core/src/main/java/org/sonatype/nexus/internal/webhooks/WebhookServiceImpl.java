@@ -12,14 +12,21 @@
  */
 package org.sonatype.nexus.internal.webhooks;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
-import java.security.InvalidKeyException;
-import java.security.NoSuchAlgorithmException;
+import java.net.URI;
+import java.nio.file.Path;
+import java.security.GeneralSecurityException;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
 
 import javax.annotation.Nullable;
 import javax.crypto.Mac;
@@ -29,20 +36,32 @@ import javax.inject.Named;
 import javax.inject.Provider;
 import javax.inject.Singleton;
 
-import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.goodies.common.InternalAccessible;
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
 import org.sonatype.nexus.common.event.EventAware;
+import org.sonatype.nexus.common.io.DirectoryHelper;
+import org.sonatype.nexus.internal.webhooks.WebhookEndpoint.Delivery;
+import org.sonatype.nexus.internal.webhooks.WebhookEndpoint.Outcome;
 import org.sonatype.nexus.thread.NexusThreadFactory;
 import org.sonatype.nexus.webhooks.Webhook;
 import org.sonatype.nexus.webhooks.WebhookRequest;
 import org.sonatype.nexus.webhooks.WebhookRequestSendEvent;
 import org.sonatype.nexus.webhooks.WebhookService;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Gauge;
 import com.fasterxml.jackson.annotation.JsonInclude;
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
 import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.CacheLoader;
+import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableList;
 import com.google.common.eventbus.AllowConcurrentEvents;
 import com.google.common.eventbus.Subscribe;
@@ -53,25 +72,36 @@ import org.apache.http.StatusLine;
 import org.apache.http.client.HttpResponseException;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
+import org.apache.http.entity.ByteArrayEntity;
 import org.apache.http.entity.ContentType;
-import org.apache.http.entity.StringEntity;
 import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.util.EntityUtils;
 
+import static com.codahale.metrics.MetricRegistry.name;
 import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static java.lang.Thread.MIN_PRIORITY;
+import static java.util.stream.Collectors.joining;
 import static org.apache.commons.lang3.StringUtils.isEmpty;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
 
 /**
  * Default {@link WebhookService} implementation.
  *
+ * Queued requests are serialized straight away and held per subscriber in a bounded queue, overflowing to a spill
+ * file on disk and dropped once that is full too, so a burst of events can't exhaust the heap. Each subscriber gets
+ * at most a configured number of concurrent sends, and several queued payloads may be combined into one POST of a
+ * JSON array when a batch size above 1 is configured. Spill files live in the {@code webhooks} work directory; they
+ * are deleted on stop, logging how many deliveries that drops, and anything left behind by an unclean shutdown is
+ * removed on start. Dropped deliveries are counted and summarized in the log at most once a minute.
+ *
  * @since 3.1
  */
+@ManagedLifecycle(phase = SERVICES)
 @Named
 @Singleton
 public class WebhookServiceImpl
-    extends ComponentSupport
+    extends LifecycleSupport
     implements WebhookService, EventAware, EventAware.Asynchronous
 {
   private static final String WEBHOOK_ID_HEADER = "X-Nexus-Webhook-ID";
@@ -85,9 +115,27 @@ public class WebhookServiceImpl
 
   private static final BaseEncoding HEX = BaseEncoding.base16().lowerCase();
 
-  private final ObjectMapper objectMapper = new ObjectMapper()
+  private static final String WEBHOOK_BATCH_SIZE_HEADER = "X-Nexus-Webhook-Batch-Size";
+
+  private static final long DROPPED_REPORT_INTERVAL_NANOS = TimeUnit.MINUTES.toNanos(1);
+
+  private final ObjectWriter objectWriter = new ObjectMapper()
       .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
-      .setSerializationInclusion(JsonInclude.Include.NON_NULL);
+      .setSerializationInclusion(JsonInclude.Include.NON_NULL)
+      .writer();
+
+  // initialized prototypes, cloned for each signature since Mac instances are not thread-safe
+  private final LoadingCache<String, Mac> macs = CacheBuilder.newBuilder()
+      .maximumSize(100)
+      .build(new CacheLoader<String, Mac>()
+      {
+        @Override
+        public Mac load(final String secret) throws Exception {
+          return newMac(secret);
+        }
+      });
+
+  private final ConcurrentMap<EndpointKey, WebhookEndpoint> endpoints = new ConcurrentHashMap<>();
 
   private final Provider<CloseableHttpClient> httpClientProvider;
 
@@ -95,26 +143,86 @@ public class WebhookServiceImpl
 
   private final ThreadPoolExecutor threadPoolExecutor;
 
+  private final int queueCapacity;
+
+  private final int endpointConcurrency;
+
+  private final int batchSize;
+
+  private final long spillLimit;
+
+  private final Path spillDirectory;
+
+  private final Timer latency;
+
+  private final Meter spilled;
+
+  private final Meter dropped;
+
+  // drops are summarized at most once per interval, a burst would otherwise log a warning per delivery
+  private final AtomicLong droppedSinceReport = new AtomicLong();
+
+  private final AtomicLong lastDroppedReport = new AtomicLong(System.nanoTime() - DROPPED_REPORT_INTERVAL_NANOS);
+
+  /**
+   * @param queueCapacity       deliveries held in memory per subscriber before spilling to disk
+   * @param endpointConcurrency concurrent sends per subscriber
+   * @param batchSize           payloads combined into one POST; 1 sends each payload on its own
+   * @param spillLimit          bytes spilled to disk per subscriber before dropping deliveries; 0 disables spilling
+   */
   @Inject
   public WebhookServiceImpl(
       final Provider<CloseableHttpClient> httpClientProvider,
       final List<Webhook> webhooks,
-      @Named("${nexus.webhook.pool.size:-128}") final int poolSize)
+      final MetricRegistry metricRegistry,
+      final ApplicationDirectories applicationDirectories,
+      @Named("${nexus.webhook.pool.size:-128}") final int poolSize,
+      @Named("${nexus.webhook.queue.capacity:-1000}") final int queueCapacity,
+      @Named("${nexus.webhook.endpoint.concurrency:-8}") final int endpointConcurrency,
+      @Named("${nexus.webhook.batch.size:-1}") final int batchSize,
+      @Named("${nexus.webhook.spill.limit:-104857600}") final long spillLimit)
   {
     this.httpClientProvider = checkNotNull(httpClientProvider);
     this.webhooks = checkNotNull(webhooks);
 
     checkArgument(poolSize > 0, "Pool size must be greater than zero");
+    checkArgument(queueCapacity > 0, "Queue capacity must be greater than zero");
+    checkArgument(endpointConcurrency > 0, "Endpoint concurrency must be greater than zero");
+    checkArgument(batchSize > 0, "Batch size must be greater than zero");
+    this.queueCapacity = queueCapacity;
+    this.endpointConcurrency = endpointConcurrency;
+    this.batchSize = batchSize;
+    this.spillLimit = Math.max(0, spillLimit);
+    this.spillDirectory = applicationDirectories.getWorkDirectory("webhooks", false).toPath();
+
+    this.latency = metricRegistry.timer(name(WebhookServiceImpl.class, "latency"));
+    this.spilled = metricRegistry.meter(name(WebhookServiceImpl.class, "spilled"));
+    this.dropped = metricRegistry.meter(name(WebhookServiceImpl.class, "dropped"));
+
     this.threadPoolExecutor = new ThreadPoolExecutor(
         poolSize, // core-size
         poolSize, // max-size
         0L, // keep-alive
         TimeUnit.MILLISECONDS,
-        new LinkedBlockingQueue<>(), // allow queueing up of requests
+        new LinkedBlockingQueue<>(), // at most one task per subscriber send slot, bounded by the endpoint queues
         new NexusThreadFactory("webhookService", "requestRool", MIN_PRIORITY),
         new AbortPolicy());
   }
 
+  @Override
+  protected void doStart() throws Exception {
+    // deliveries spilled before a crash can't be matched to their subscribers anymore
+    DirectoryHelper.deleteIfExists(spillDirectory);
+  }
+
+  @Override
+  protected void doStop() {
+    int lost = endpoints.values().stream().mapToInt(WebhookEndpoint::deleteSpill).sum();
+    if (lost > 0) {
+      log.warn("Dropped {} webhook deliveries spilled to disk that were not sent before shutdown", lost);
+    }
+  }
+
   /**
    * Attempt to extract response body as string.
    */
@@ -138,15 +246,24 @@ public class WebhookServiceImpl
   /**
    * Generate HMAC signature (HEX encoded) of given body using secret as key.
    */
-  private static String sign(
-      final String body,
-      final String secret) throws NoSuchAlgorithmException, InvalidKeyException
-  {
-    SecretKeySpec key = new SecretKeySpec(secret.getBytes(), HMAC_SHA1);
+  private String sign(final byte[] body, final String secret) throws GeneralSecurityException {
+    Mac mac;
+    try {
+      mac = (Mac) macs.get(secret).clone();
+    }
+    catch (CloneNotSupportedException e) { // NOSONAR
+      mac = newMac(secret);
+    }
+    catch (ExecutionException e) {
+      throw (GeneralSecurityException) e.getCause();
+    }
+    return HEX.encode(mac.doFinal(body));
+  }
+
+  private static Mac newMac(final String secret) throws GeneralSecurityException {
     Mac mac = Mac.getInstance(HMAC_SHA1);
-    mac.init(key);
-    byte[] bytes = mac.doFinal(body.getBytes());
-    return HEX.encode(bytes);
+    mac.init(new SecretKeySpec(secret.getBytes(), HMAC_SHA1));
+    return mac;
   }
 
   @Override
@@ -157,14 +274,84 @@ public class WebhookServiceImpl
   @Override
   public void queue(final WebhookRequest request) {
     checkNotNull(request);
-    threadPoolExecutor.execute(() -> {
-      try {
-        send(request);
+
+    Delivery delivery;
+    try {
+      delivery = new Delivery(request.getId(), objectWriter.writeValueAsBytes(request.getPayload()), System.nanoTime());
+    }
+    catch (IOException e) {
+      log.error("Failed to serialize webhook request:{}", request, e);
+      return;
+    }
+
+    EndpointKey key = new EndpointKey(request);
+    while (true) {
+      WebhookEndpoint endpoint = endpoints.computeIfAbsent(key, k -> new WebhookEndpoint(request.getWebhook(),
+          request.getUrl(), request.getSecret(), queueCapacity, endpointConcurrency, spillLimit,
+          spillDirectory));
+      Outcome outcome = endpoint.offer(delivery);
+      switch (outcome) {
+        case RETIRED:
+          // drained between lookup and offer, start a new queue
+          endpoints.remove(key, endpoint);
+          continue;
+        case SPILLED:
+          spilled.mark();
+          break;
+        case DROPPED:
+          dropped.mark();
+          log.debug("Webhook queue for {} is full, dropping request:{}", request.getUrl(), request);
+          reportDropped();
+          break;
+        default:
+          break;
+      }
+      schedule(key, endpoint);
+      return;
+    }
+  }
+
+  private void reportDropped() {
+    droppedSinceReport.incrementAndGet();
+    long now = System.nanoTime();
+    long last = lastDroppedReport.get();
+    if (now - last >= DROPPED_REPORT_INTERVAL_NANOS && lastDroppedReport.compareAndSet(last, now)) {
+      log.warn("Dropped {} webhook requests because subscriber queues were full", droppedSinceReport.getAndSet(0));
+    }
+  }
+
+  /**
+   * Starts as many sends for the subscriber as it has free slots and waiting deliveries.
+   */
+  private void schedule(final EndpointKey key, final WebhookEndpoint endpoint) {
+    while (endpoint.claim()) {
+      threadPoolExecutor.execute(() -> deliver(key, endpoint));
+    }
+  }
+
+  private void deliver(final EndpointKey key, final WebhookEndpoint endpoint) {
+    try {
+      List<Delivery> batch = endpoint.poll(batchSize);
+      if (!batch.isEmpty()) {
+        try {
+          post(endpoint.getWebhook(), endpoint.getUrl(), endpoint.getSecret(), batch);
+        }
+        catch (Exception e) {
+          log.error("Failed to send webhook request to {} for deliveries {}", endpoint.getUrl(),
+              batch.stream().map(Delivery::getId).collect(joining(",")), e);
+        }
+        long now = System.nanoTime();
+        batch.forEach(delivery -> latency.update(now - delivery.getQueuedAt(), TimeUnit.NANOSECONDS));
       }
-      catch (Exception e) {
-        log.error("Failed to send webhook request:{}", request, e);
+    }
+    finally {
+      if (endpoint.release()) {
+        endpoints.remove(key, endpoint);
+      }
+      else {
+        schedule(key, endpoint);
       }
-    });
+    }
   }
 
   /**
@@ -185,17 +372,48 @@ public class WebhookServiceImpl
 
     log.debug("Sending webhook request: {}", request);
 
-    Webhook webhook = request.getWebhook();
-    String json = objectMapper.writeValueAsString(request.getPayload());
+    byte[] json = objectWriter.writeValueAsBytes(request.getPayload());
+    post(request.getWebhook(), request.getUrl(), request.getSecret(),
+        ImmutableList.of(new Delivery(request.getId(), json, System.nanoTime())));
+  }
 
-    HttpPost httpPost = new HttpPost(request.getUrl());
+  /**
+   * POST the deliveries, as the bare payload when there is only one and as a JSON array of payloads otherwise.
+   */
+  private void post(
+      final Webhook webhook,
+      final URI url,
+      @Nullable final String secret,
+      final List<Delivery> batch) throws Exception
+  {
+    byte[] body;
+    if (batch.size() == 1) {
+      body = batch.get(0).getBody();
+    }
+    else {
+      ByteArrayOutputStream buffer = new ByteArrayOutputStream();
+      buffer.write('[');
+      for (int i = 0; i < batch.size(); i++) {
+        if (i > 0) {
+          buffer.write(',');
+        }
+        buffer.write(batch.get(i).getBody());
+      }
+      buffer.write(']');
+      body = buffer.toByteArray();
+    }
+
+    HttpPost httpPost = new HttpPost(url);
     httpPost.setHeader(WEBHOOK_ID_HEADER, webhook.getId());
-    httpPost.setHeader(WEBHOOK_DELIVERY_HEADER, request.getId());
+    httpPost.setHeader(WEBHOOK_DELIVERY_HEADER, batch.stream().map(Delivery::getId).collect(joining(",")));
+    if (batch.size() > 1) {
+      httpPost.setHeader(WEBHOOK_BATCH_SIZE_HEADER, Integer.toString(batch.size()));
+    }
     // generate HMAC signature of body if secret is present
-    if (!isEmpty(request.getSecret())) {
-      httpPost.setHeader(WEBHOOK_SIGNATURE_HEADER, sign(json, request.getSecret()));
+    if (!isEmpty(secret)) {
+      httpPost.setHeader(WEBHOOK_SIGNATURE_HEADER, sign(body, secret));
     }
-    httpPost.setEntity(new StringEntity(json, ContentType.APPLICATION_JSON));
+    httpPost.setEntity(new ByteArrayEntity(body, ContentType.APPLICATION_JSON));
 
     log.debug("Sending POST request: {}", httpPost);
     try (CloseableHttpClient httpClient = httpClientProvider.get();
@@ -218,11 +436,51 @@ public class WebhookServiceImpl
 
   @VisibleForTesting
   public boolean isCalmPeriod() {
-    return threadPoolExecutor.getQueue().isEmpty() && threadPoolExecutor.getActiveCount() == 0;
+    return threadPoolExecutor.getQueue().isEmpty() && threadPoolExecutor.getActiveCount() == 0 &&
+        endpoints.values().stream().allMatch(WebhookEndpoint::isIdle);
   }
 
+  /**
+   * Deliveries waiting to be sent across all subscribers, in memory and on disk.
+   */
   @Gauge(name = "nexus.webhooks.service.executor.queueSize")
   public int webhookQueueSize() {
-    return threadPoolExecutor.getQueue().size();
+    return endpoints.values().stream().mapToInt(WebhookEndpoint::pending).sum();
+  }
+
+  /**
+   * Identifies a subscriber; requests from the same webhook to the same url and secret share a queue.
+   */
+  private static final class EndpointKey
+  {
+    private final String webhookId;
+
+    private final URI url;
+
+    @Nullable
+    private final String secret;
+
+    private EndpointKey(final WebhookRequest request) {
+      this.webhookId = request.getWebhook().getId();
+      this.url = checkNotNull(request.getUrl());
+      this.secret = request.getSecret();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (this == o) {
+        return true;
+      }
+      if (!(o instanceof EndpointKey)) {
+        return false;
+      }
+      EndpointKey that = (EndpointKey) o;
+      return webhookId.equals(that.webhookId) && url.equals(that.url) && Objects.equals(secret, that.secret);
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hash(webhookId, url, secret);
+    }
   }
 }
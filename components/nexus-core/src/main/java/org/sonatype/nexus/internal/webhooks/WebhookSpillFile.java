@@ -0,0 +1,130 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webhooks;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import org.sonatype.nexus.common.io.DirectoryHelper;
+import org.sonatype.nexus.internal.webhooks.WebhookEndpoint.Delivery;
+
+import com.google.common.io.CountingInputStream;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+
+/**
+ * Append-only file holding the deliveries that didn't fit in the in-memory queue of a {@link WebhookEndpoint}, created
+ * in the given directory on the first append. Deliveries are read back in the order they were written; the file is
+ * removed once it has been read to the end.
+ *
+ * Not thread-safe, callers synchronize on the owning endpoint.
+ *
+ * @since 3.77
+ */
+class WebhookSpillFile
+{
+  private final Path directory;
+
+  private Path file;
+
+  private DataOutputStream out;
+
+  private CountingInputStream counter;
+
+  private DataInputStream in;
+
+  private int count;
+
+  private long size;
+
+  WebhookSpillFile(final Path directory) {
+    this.directory = checkNotNull(directory);
+  }
+
+  /**
+   * Number of deliveries written but not yet read back.
+   */
+  int count() {
+    return count;
+  }
+
+  /**
+   * Number of bytes written but not yet read back.
+   */
+  long size() {
+    return size;
+  }
+
+  void append(final Delivery delivery) throws IOException {
+    if (file == null) {
+      DirectoryHelper.mkdir(directory);
+      file = Files.createTempFile(directory, "webhook-", ".spill");
+      out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(file)));
+    }
+    int before = out.size();
+    out.writeUTF(delivery.getId());
+    out.writeLong(delivery.getQueuedAt());
+    out.writeInt(delivery.getBody().length);
+    out.write(delivery.getBody());
+    count++;
+    size += out.size() - before;
+  }
+
+  Delivery read() throws IOException {
+    checkState(count > 0, "Nothing to read");
+    // deliveries appended since the last read may still be buffered
+    out.flush();
+    if (in == null) {
+      counter = new CountingInputStream(new BufferedInputStream(Files.newInputStream(file)));
+      in = new DataInputStream(counter);
+    }
+    long before = counter.getCount();
+    String id = in.readUTF();
+    long queuedAt = in.readLong();
+    byte[] body = new byte[in.readInt()];
+    in.readFully(body);
+    size -= counter.getCount() - before;
+    if (--count == 0) {
+      delete();
+    }
+    return new Delivery(id, body, queuedAt);
+  }
+
+  void delete() throws IOException {
+    try {
+      if (in != null) {
+        in.close();
+      }
+      if (out != null) {
+        out.close();
+      }
+    }
+    finally {
+      if (file != null) {
+        Files.deleteIfExists(file);
+      }
+      file = null;
+      out = null;
+      counter = null;
+      in = null;
+      count = 0;
+      size = 0;
+    }
+  }
+}
@@ -0,0 +1,266 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.httpclient;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.net.SocketTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.collect.ImmutableMap;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.http.HttpRequest;
+import org.apache.http.HttpRequestInterceptor;
+import org.apache.http.HttpResponse;
+import org.apache.http.HttpResponseInterceptor;
+import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.CloseableHttpResponse;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.methods.HttpHead;
+import org.apache.http.client.methods.HttpPut;
+import org.apache.http.client.protocol.HttpClientContext;
+import org.apache.http.entity.StringEntity;
+import org.apache.http.impl.client.BasicCredentialsProvider;
+import org.apache.http.protocol.HttpContext;
+import org.apache.http.protocol.HttpProcessor;
+import org.apache.http.protocol.ImmutableHttpProcessor;
+import org.apache.http.util.EntityUtils;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.junit.Assert.fail;
+
+/**
+ * Tests for {@link AsyncHttpClient}.
+ */
+public class AsyncHttpClientTest
+    extends TestSupport
+{
+  private final AtomicReference<String> lastRequest = new AtomicReference<>();
+
+  private final AtomicReference<String> lastUpgrade = new AtomicReference<>();
+
+  private final CountDownLatch stalled = new CountDownLatch(1);
+
+  private HttpServer server;
+
+  private MetricRegistry metricRegistry;
+
+  private AsyncHttpClient underTest;
+
+  private String remote;
+
+  @Before
+  public void setUp() throws IOException {
+    server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+    server.createContext("/", this::handle);
+    server.start();
+    remote = "localhost:" + server.getAddress().getPort();
+
+    metricRegistry = new MetricRegistry();
+    underTest = client(new ImmutableHttpProcessor(new HttpRequestInterceptor[0], new HttpResponseInterceptor[0]));
+  }
+
+  private AsyncHttpClient client(final HttpProcessor processor) {
+    java.net.http.HttpClient client =
+        java.net.http.HttpClient.newBuilder().version(java.net.http.HttpClient.Version.HTTP_2).build();
+    return new AsyncHttpClient(client, ImmutableMap.of("User-Agent", "Nexus/Test"),
+        processor, new BasicCredentialsProvider(), Duration.ofSeconds(10), 1, metricRegistry);
+  }
+
+  @After
+  public void tearDown() {
+    stalled.countDown();
+    underTest.close();
+    server.stop(0);
+  }
+
+  private void handle(final HttpExchange exchange) throws IOException {
+    String body;
+    try (InputStream in = exchange.getRequestBody()) {
+      body = new String(in.readAllBytes(), StandardCharsets.UTF_8);
+    }
+    lastRequest.set(exchange.getRequestMethod() + " " + exchange.getRequestURI() + " "
+        + exchange.getRequestHeaders().getFirst("User-Agent") + " "
+        + exchange.getRequestHeaders().getFirst("X-Custom") + " " + body);
+    lastUpgrade.set(exchange.getRequestHeaders().getFirst("Upgrade"));
+
+    if (exchange.getRequestURI().getPath().equals("/missing")) {
+      exchange.sendResponseHeaders(404, -1);
+    }
+    else if (exchange.getRequestURI().getPath().equals("/stalled")) {
+      exchange.sendResponseHeaders(200, 0);
+      OutputStream out = exchange.getResponseBody();
+      out.write("partial".getBytes(StandardCharsets.UTF_8));
+      out.flush();
+      try {
+        stalled.await(10, TimeUnit.SECONDS);
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+    else {
+      byte[] content = "content".getBytes(StandardCharsets.UTF_8);
+      exchange.getResponseHeaders().add("Content-Type", "text/plain");
+      exchange.getResponseHeaders().add("ETag", "\"abc\"");
+      boolean head = "HEAD".equals(exchange.getRequestMethod());
+      exchange.sendResponseHeaders(200, head ? -1 : content.length);
+      if (!head) {
+        try (OutputStream out = exchange.getResponseBody()) {
+          out.write(content);
+        }
+      }
+    }
+    exchange.close();
+  }
+
+  @Test
+  public void getStreamsTheResponse() throws Exception {
+    HttpGet get = new HttpGet("http://" + remote + "/path/file.txt?x=1");
+    get.addHeader("X-Custom", "value");
+
+    try (CloseableHttpResponse response = underTest.execute(get)) {
+      assertThat(response.getStatusLine().getStatusCode(), is(200));
+      assertThat(response.getFirstHeader("ETag").getValue(), is("\"abc\""));
+      assertThat(response.getEntity().getContentLength(), is(7L));
+      assertThat(response.getEntity().getContentType().getValue(), is("text/plain"));
+      assertThat(streams(), is(1L));
+      assertThat(EntityUtils.toString(response.getEntity()), is("content"));
+    }
+
+    assertThat(lastRequest.get(), is("GET /path/file.txt?x=1 Nexus/Test value "));
+    assertThat(streams(), is(0L));
+    assertThat(metricRegistry.timer(MetricRegistry.name(AsyncHttpClient.class, remote, "requests")).getCount(), is(1L));
+    assertThat(metricRegistry.meter(MetricRegistry.name(AsyncHttpClient.class, remote, "http_1_1")).getCount(), is(1L));
+  }
+
+  @Test
+  public void plainHttpRequestsDoNotAskForAnUpgrade() throws Exception {
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://" + remote + "/file"))) {
+      assertThat(response.getStatusLine().getStatusCode(), is(200));
+    }
+    assertThat(lastUpgrade.get(), nullValue());
+  }
+
+  @Test
+  public void stalledBodyReadsTimeOut() throws Exception {
+    HttpGet get = new HttpGet("http://" + remote + "/stalled");
+    get.setConfig(RequestConfig.custom().setSocketTimeout(500).build());
+
+    try (CloseableHttpResponse response = underTest.execute(get)) {
+      InputStream body = response.getEntity().getContent();
+      assertThat(new String(body.readNBytes(7), StandardCharsets.UTF_8), is("partial"));
+      try {
+        body.read();
+        fail("Expected the read to time out");
+      }
+      catch (SocketTimeoutException e) {
+        // expected
+      }
+    }
+    assertThat(streams(), is(0L));
+  }
+
+  @Test
+  public void missingAndHeadResponsesHaveNoEntity() throws Exception {
+    try (CloseableHttpResponse response = underTest.execute(new HttpGet("http://" + remote + "/missing"))) {
+      assertThat(response.getStatusLine().getStatusCode(), is(404));
+      assertThat(response.getStatusLine().getReasonPhrase(), is("Not Found"));
+    }
+    try (CloseableHttpResponse response = underTest.execute(new HttpHead("http://" + remote + "/file"))) {
+      assertThat(response.getStatusLine().getStatusCode(), is(200));
+      assertThat(response.getEntity(), nullValue());
+    }
+    assertThat(streams(), is(0L));
+  }
+
+  @Test
+  public void putSendsTheEntity() throws Exception {
+    HttpPut put = new HttpPut("http://" + remote + "/upload");
+    put.setEntity(new StringEntity("payload", StandardCharsets.UTF_8));
+
+    try (CloseableHttpResponse response = underTest.execute(put)) {
+      assertThat(response.getStatusLine().getStatusCode(), is(200));
+      EntityUtils.consume(response.getEntity());
+    }
+    assertThat(lastRequest.get(), is("PUT /upload Nexus/Test null payload"));
+  }
+
+  @Test
+  public void failuresAreCounted() throws Exception {
+    server.stop(0);
+    try {
+      underTest.execute(new HttpGet("http://" + remote + "/file"));
+      fail("Expected IOException");
+    }
+    catch (IOException e) {
+      // expected
+    }
+    assertThat(metricRegistry.meter(MetricRegistry.name(AsyncHttpClient.class, remote, "failures")).getCount(), is(1L));
+    assertThat(streams(), is(0L));
+  }
+
+  @Test
+  public void interceptorsRunAroundTheExchange() throws Exception {
+    List<String> seen = new ArrayList<>();
+    HttpRequestInterceptor requestInterceptor = (HttpRequest request, HttpContext context) -> {
+      HttpClientContext clientContext = HttpClientContext.adapt(context);
+      seen.add("> " + clientContext.getTargetHost() + " " + clientContext.getRequest().getRequestLine().getMethod());
+      context.setAttribute("attribute", "value");
+      request.addHeader("X-Custom", "intercepted");
+    };
+    HttpResponseInterceptor responseInterceptor = (HttpResponse response, HttpContext context) ->
+        seen.add("< " + context.getAttribute("attribute") + " " + response.getStatusLine().getStatusCode());
+    underTest.close();
+    underTest = client(new ImmutableHttpProcessor(
+        new HttpRequestInterceptor[]{requestInterceptor}, new HttpResponseInterceptor[]{responseInterceptor}));
+
+    HttpGet get = new HttpGet("http://" + remote + "/file");
+    try (CloseableHttpResponse response = underTest.execute(get)) {
+      EntityUtils.consume(response.getEntity());
+    }
+
+    assertThat(seen, contains("> http://" + remote + " GET", "< value 200"));
+    assertThat(lastRequest.get(), is("GET /file Nexus/Test intercepted "));
+    assertThat(get.containsHeader("X-Custom"), is(false));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void connectionManagerShutdownClosesTheClient() throws Exception {
+    underTest.getConnectionManager().closeIdleConnections(0, TimeUnit.SECONDS);
+    underTest.getConnectionManager().shutdown();
+    underTest.execute(new HttpGet("http://" + remote + "/file"));
+  }
+
+  private long streams() {
+    return metricRegistry.counter(MetricRegistry.name(AsyncHttpClient.class, remote, "streams")).getCount();
+  }
+}
@@ -90,7 +90,7 @@ public class HttpClientManagerImplIT
   public void before() {
     underTest = new HttpClientManagerImpl(mock(EventManager.class), mock(HttpClientConfigurationStore.class),
         () -> mock(HttpClientConfiguration.class), mock(SharedHttpClientConnectionManager.class),
-        mock(DefaultsCustomizer.class));
+        mock(DefaultsCustomizer.class), mock(AsyncHttpClientFactory.class));
 
     resetCounts();
   }
@@ -17,11 +17,17 @@ import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.httpclient.HttpClientPlan;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 import org.sonatype.nexus.httpclient.config.HttpClientConfigurationChangedEvent;
+import org.sonatype.nexus.httpclient.config.NtlmAuthenticationConfiguration;
 
+import org.apache.http.HttpHost;
 import org.apache.http.client.config.RequestConfig;
+import org.apache.http.client.methods.HttpGet;
+import org.apache.http.client.protocol.HttpClientContext;
 import org.apache.http.config.ConnectionConfig;
 import org.apache.http.config.SocketConfig;
+import org.apache.http.impl.client.CloseableHttpClient;
 import org.apache.http.impl.client.HttpClientBuilder;
+import org.apache.http.protocol.HttpProcessor;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -31,10 +37,15 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertNotNull;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
 import static org.mockito.Mockito.doReturn;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.spy;
 import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.verifyNoMoreInteractions;
 import static org.mockito.Mockito.verifyNoInteractions;
 import static org.mockito.Mockito.when;
 
@@ -60,13 +71,17 @@ public class HttpClientManagerImplTest
   @Mock
   private HttpClientConfigurationEvent configEvent;
 
+  @Mock
+  private AsyncHttpClientFactory asyncHttpClientFactory;
+
   private HttpClientManagerImpl underTest;
 
   @Before
   public void setUp() {
     underTest = new HttpClientManagerImpl(eventManager, configStore, TestHttpClientConfiguration::new,
         connectionManager,
-        defaultsCustomizer);
+        defaultsCustomizer,
+        asyncHttpClientFactory);
   }
 
   @Test
@@ -119,4 +134,61 @@ public class HttpClientManagerImplTest
     verify(eventManager).post(eventCaptor.capture());
     assertThat(eventCaptor.getValue().getConfiguration(), is(config));
   }
+
+  @Test
+  public void testCreateAsyncDelegatesToFactory() {
+    CloseableHttpClient client = mock(CloseableHttpClient.class);
+    HttpClientConfiguration config = new TestHttpClientConfiguration();
+    when(asyncHttpClientFactory.create(any(HttpClientPlan.class), any(HttpClientConfiguration.class),
+        any(HttpProcessor.class))).thenReturn(client);
+
+    assertThat(underTest.createAsync(config), sameInstance(client));
+    verify(asyncHttpClientFactory).create(any(HttpClientPlan.class), eq(config), any(HttpProcessor.class));
+  }
+
+  @Test
+  public void testCreateAsyncAppliesPlanInterceptors() throws Exception {
+    HttpClientPlan plan = new HttpClientPlan();
+    plan.getHeaders().put("X-Plan", "header");
+    plan.getAttributes().put("plan.attribute", "value");
+    HttpClientManagerImpl spy = spy(underTest);
+    doReturn(plan).when(spy).httpClientPlan();
+    HttpClientConfiguration config = new TestHttpClientConfiguration();
+
+    spy.createAsync(config);
+
+    ArgumentCaptor<HttpProcessor> processorCaptor = ArgumentCaptor.forClass(HttpProcessor.class);
+    verify(asyncHttpClientFactory).create(eq(plan), eq(config), processorCaptor.capture());
+    HttpGet request = new HttpGet("http://localhost/path");
+    HttpClientContext context = HttpClientContext.create();
+    context.setAttribute(HttpClientContext.HTTP_REQUEST, request);
+    context.setTargetHost(new HttpHost("localhost"));
+    processorCaptor.getValue().process(request, context);
+
+    assertThat(request.getFirstHeader("X-Plan").getValue(), is("header"));
+    assertThat(context.getAttribute("plan.attribute"), is("value"));
+    assertThat(context.getAttribute("request.stopwatch"), notNullValue());
+  }
+
+  @Test
+  public void testLifecycleDrivesAsyncFactory() throws Exception {
+    underTest.start();
+    verify(asyncHttpClientFactory).start();
+
+    underTest.stop();
+    verify(asyncHttpClientFactory).stop();
+  }
+
+  @Test
+  public void testCreateAsyncFallsBackToBlockingClientForNtlm() {
+    HttpClientConfiguration config = new TestHttpClientConfiguration();
+    NtlmAuthenticationConfiguration ntlm = new NtlmAuthenticationConfiguration();
+    ntlm.setUsername("user");
+    ntlm.setDomain("domain");
+    ntlm.setHost("host");
+    config.setAuthentication(ntlm);
+
+    assertThat(underTest.createAsync(config), notNullValue());
+    verifyNoMoreInteractions(asyncHttpClientFactory);
+  }
 }
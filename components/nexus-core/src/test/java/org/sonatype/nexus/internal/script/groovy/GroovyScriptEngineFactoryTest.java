@@ -13,7 +13,10 @@
 package org.sonatype.nexus.internal.script.groovy;
 
 import groovy.lang.Binding;
+import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.junit.runner.RunWith;
 import org.mockito.Mock;
 import org.sonatype.nexus.common.app.ApplicationDirectories;
@@ -43,6 +46,15 @@ public class GroovyScriptEngineFactoryTest
   @Mock
   private ScriptCleanupHandler scriptCleanupHandler;
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Before
+  public void setup() {
+    // keep the compiled script classes out of the working directory
+    lenient().when(applicationDirectories.getTemporaryDirectory()).thenReturn(temporaryFolder.getRoot());
+  }
+
   @Test
   public void itWillCallTheCleanupHelperAfterExecutingTheScript() throws ScriptException {
     GroovyScriptEngineFactory factory =
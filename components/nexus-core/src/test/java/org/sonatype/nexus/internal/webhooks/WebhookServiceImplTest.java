@@ -12,17 +12,23 @@
  */
 package org.sonatype.nexus.internal.webhooks;
 
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.text.SimpleDateFormat;
 import java.util.Date;
 import java.util.List;
 import java.util.TimeZone;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
 
 import javax.inject.Provider;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.audit.InitiatorProvider;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.node.NodeAccess;
 import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Type;
@@ -31,6 +37,7 @@ import org.sonatype.nexus.repository.webhooks.GlobalRepositoryWebhook.Repository
 import org.sonatype.nexus.webhooks.Webhook;
 import org.sonatype.nexus.webhooks.WebhookRequest;
 
+import com.codahale.metrics.MetricRegistry;
 import org.apache.http.StatusLine;
 import org.apache.http.client.methods.CloseableHttpResponse;
 import org.apache.http.client.methods.HttpPost;
@@ -43,7 +50,10 @@ import org.mockito.Mock;
 
 import static java.util.Collections.emptyList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyArray;
 import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasSize;
+import static org.hamcrest.Matchers.startsWith;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.internal.webhooks.WebhookServiceImpl.WEBHOOK_SIGNATURE_HEADER;
@@ -69,6 +79,11 @@ public class WebhookServiceImplTest
   @Mock
   private InitiatorProvider initiatorProvider;
 
+  @Mock
+  private ApplicationDirectories applicationDirectories;
+
+  private File spillDirectory;
+
   private ArgumentCaptor<HttpPost> postCaptor;
 
   private WebhookServiceImpl underTest;
@@ -97,8 +112,10 @@ public class WebhookServiceImplTest
   @Before
   public void setup() throws IOException {
     List<Webhook> webhooks = emptyList();
+    spillDirectory = util.createTempDir();
+    when(applicationDirectories.getWorkDirectory("webhooks", false)).thenReturn(spillDirectory);
 
-    underTest = new WebhookServiceImpl(httpClientProvider, webhooks, 1);
+    underTest = new WebhookServiceImpl(httpClientProvider, webhooks, new MetricRegistry(), applicationDirectories, 1, 10, 1, 1, 0);
 
     when(httpClientProvider.get()).thenReturn(httpClient);
 
@@ -139,4 +156,137 @@ public class WebhookServiceImplTest
     assertThat(EntityUtils.toString(post.getEntity()), equalTo(expectedPayload));
     assertThat(post.getFirstHeader(WEBHOOK_SIGNATURE_HEADER).getValue(), equalTo(SIGNATURE));
   }
+
+  @Test
+  public void queuedRequestsAreBatchedIntoOnePost() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    underTest = new WebhookServiceImpl(httpClientProvider, webhooks(), metricRegistry, applicationDirectories, 4, 10, 1, 10, 0);
+    CountDownLatch release = blockFirstPost();
+
+    underTest.queue(request());
+    underTest.queue(request());
+    underTest.queue(request());
+    underTest.queue(request());
+    release.countDown();
+    awaitCalm();
+
+    List<HttpPost> posts = postCaptor.getAllValues();
+    assertThat(posts, hasSize(2));
+    assertThat(posts.get(1).getFirstHeader("X-Nexus-Webhook-Batch-Size").getValue(), equalTo("4"));
+    assertThat(EntityUtils.toString(posts.get(1).getEntity()), startsWith("[{"));
+    assertThat(metricRegistry.timer("org.sonatype.nexus.internal.webhooks.WebhookServiceImpl.latency").getCount(),
+        equalTo(5L));
+  }
+
+  @Test
+  public void overflowIsSpilledToDiskAndDelivered() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    underTest = new WebhookServiceImpl(httpClientProvider, webhooks(), metricRegistry, applicationDirectories, 4, 1, 1, 1, 1024 * 1024);
+    CountDownLatch release = blockFirstPost();
+
+    for (int i = 0; i < 4; i++) {
+      underTest.queue(request());
+    }
+    assertThat(underTest.webhookQueueSize(), equalTo(4));
+    release.countDown();
+    awaitCalm();
+
+    assertThat(postCaptor.getAllValues(), hasSize(5));
+    assertThat(metricRegistry.meter("org.sonatype.nexus.internal.webhooks.WebhookServiceImpl.spilled").getCount(),
+        equalTo(3L));
+    assertThat(metricRegistry.meter("org.sonatype.nexus.internal.webhooks.WebhookServiceImpl.dropped").getCount(),
+        equalTo(0L));
+  }
+
+  @Test
+  public void overflowIsDroppedWhenSpillingIsDisabled() throws Exception {
+    MetricRegistry metricRegistry = new MetricRegistry();
+    underTest = new WebhookServiceImpl(httpClientProvider, webhooks(), metricRegistry, applicationDirectories, 4, 1, 1, 1, 0);
+    CountDownLatch release = blockFirstPost();
+
+    for (int i = 0; i < 3; i++) {
+      underTest.queue(request());
+    }
+    release.countDown();
+    awaitCalm();
+
+    assertThat(postCaptor.getAllValues(), hasSize(2));
+    assertThat(metricRegistry.meter("org.sonatype.nexus.internal.webhooks.WebhookServiceImpl.dropped").getCount(),
+        equalTo(2L));
+  }
+
+  @Test
+  public void spilledDeliveriesAreDeletedOnStop() throws Exception {
+    underTest = new WebhookServiceImpl(httpClientProvider, webhooks(), new MetricRegistry(), applicationDirectories,
+        4, 1, 1, 1, 1024 * 1024);
+    underTest.start();
+    CountDownLatch release = blockFirstPost();
+
+    for (int i = 0; i < 3; i++) {
+      underTest.queue(request());
+    }
+    assertThat(spillDirectory.list().length, equalTo(1));
+
+    underTest.stop();
+    assertThat(spillDirectory.list(), emptyArray());
+    assertThat(underTest.webhookQueueSize(), equalTo(1));
+
+    release.countDown();
+    awaitCalm();
+    assertThat(postCaptor.getAllValues(), hasSize(2));
+  }
+
+  @Test
+  public void spillFilesLeftBehindAreRemovedOnStart() throws Exception {
+    Path leftover = Files.createFile(spillDirectory.toPath().resolve("webhook-1.spill"));
+
+    underTest.start();
+
+    assertThat(Files.exists(leftover), equalTo(false));
+    underTest.stop();
+  }
+
+  private List<Webhook> webhooks() {
+    return emptyList();
+  }
+
+  /**
+   * Holds the first POST until the returned latch is released, so that later requests queue up behind it.
+   */
+  private CountDownLatch blockFirstPost() throws Exception {
+    CountDownLatch started = new CountDownLatch(1);
+    CountDownLatch release = new CountDownLatch(1);
+    CloseableHttpResponse response = httpClient.execute(new HttpPost("uri"));
+    postCaptor = ArgumentCaptor.forClass(HttpPost.class);
+    when(httpClient.execute(postCaptor.capture())).thenAnswer(invocation -> {
+      if (started.getCount() > 0) {
+        started.countDown();
+        assertThat(release.await(5, TimeUnit.SECONDS), equalTo(true));
+      }
+      return response;
+    });
+    underTest.queue(request());
+    assertThat(started.await(5, TimeUnit.SECONDS), equalTo(true));
+    return release;
+  }
+
+  private void awaitCalm() throws InterruptedException {
+    long deadline = System.currentTimeMillis() + 5000;
+    while (!underTest.isCalmPeriod() && System.currentTimeMillis() < deadline) {
+      Thread.sleep(10);
+    }
+    assertThat(underTest.isCalmPeriod(), equalTo(true));
+  }
+
+  private WebhookRequest request() throws Exception {
+    RepositoryWebhookPayload.RepositoryPayload repository = new RepositoryWebhookPayload.RepositoryPayload("name",
+        new TestType(), new TestFormat());
+
+    WebhookRequest request = new WebhookRequest();
+    request.setUrl(new URI("uri"));
+    request.setSecret("secret");
+    request.setWebhook(new GlobalRepositoryWebhook(nodeAccess, initiatorProvider));
+    request.setPayload(new RepositoryWebhookPayload(CREATED, repository, "nodeId", new Date(), "initiator"));
+    return request;
+  }
 }
@@ -0,0 +1,84 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.internal.webhooks;
+
+import java.io.File;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.internal.webhooks.WebhookEndpoint.Delivery;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.emptyArray;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.greaterThan;
+
+/**
+ * Tests {@link WebhookSpillFile}
+ */
+public class WebhookSpillFileTest
+    extends TestSupport
+{
+  private File directory;
+
+  private WebhookSpillFile underTest;
+
+  @Before
+  public void setup() throws Exception {
+    directory = util.createTempDir();
+    underTest = new WebhookSpillFile(directory.toPath());
+  }
+
+  @Test
+  public void deliveriesAreReadBackInOrder() throws Exception {
+    underTest.append(delivery("1", "{\"a\":1}"));
+    underTest.append(delivery("2", "{\"b\":2}"));
+
+    assertThat(underTest.read().getId(), equalTo("1"));
+    assertThat(underTest.read().getId(), equalTo("2"));
+    assertThat(underTest.count(), equalTo(0));
+  }
+
+  @Test
+  public void sizeShrinksAsDeliveriesAreRead() throws Exception {
+    underTest.append(delivery("1", "{\"a\":1}"));
+    long one = underTest.size();
+    underTest.append(delivery("2", "{\"b\":2}"));
+    assertThat(underTest.size(), equalTo(2 * one));
+
+    underTest.read();
+    assertThat(underTest.size(), equalTo(one));
+
+    underTest.append(delivery("3", "{\"c\":3}"));
+    assertThat(underTest.size(), equalTo(2 * one));
+  }
+
+  @Test
+  public void fileIsRemovedOnceReadToTheEnd() throws Exception {
+    underTest.append(delivery("1", "{\"a\":1}"));
+    assertThat(directory.list().length, equalTo(1));
+    assertThat(underTest.size(), greaterThan(0L));
+
+    underTest.read();
+
+    assertThat(directory.list(), emptyArray());
+    assertThat(underTest.size(), equalTo(0L));
+  }
+
+  private static Delivery delivery(final String id, final String body) {
+    return new Delivery(id, body.getBytes(UTF_8), System.nanoTime());
+  }
+}
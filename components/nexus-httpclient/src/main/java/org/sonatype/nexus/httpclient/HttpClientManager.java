@@ -15,6 +15,7 @@ package org.sonatype.nexus.httpclient;
 import javax.annotation.Nullable;
 
 import org.sonatype.nexus.httpclient.HttpClientPlan.Customizer;
+import org.sonatype.nexus.httpclient.config.ConfigurationCustomizer;
 import org.sonatype.nexus.httpclient.config.HttpClientConfiguration;
 
 import org.apache.http.impl.client.CloseableHttpClient;
@@ -49,6 +50,17 @@ public interface HttpClientManager
    */
   CloseableHttpClient create();
 
+  /**
+   * Create HTTP-client for the configuration backed by a non-blocking engine, which multiplexes requests over HTTP/2
+   * where the remote supports it. Implementations fall back to a blocking client for configurations the engine can't
+   * honour.
+   *
+   * @since 3.77
+   */
+  default CloseableHttpClient createAsync(final HttpClientConfiguration configuration) {
+    return create(new ConfigurationCustomizer(configuration));
+  }
+
   /**
    * Create customized HTTP-client builder.
    *
@@ -28,6 +28,14 @@ import javax.annotation.Nullable;
  */
 public interface MimeSupport
 {
+  /**
+   * The number of leading bytes {@link #detectMimeTypes(InputStream, String)} looks at. Detecting the MIME types of
+   * the first {@code DETECTION_LENGTH} bytes of some content gives the same result as detecting them from all of it.
+   *
+   * @since 3.77
+   */
+  int DETECTION_LENGTH = 64 * 1024;
+
   /**
    * Makes a "guess" (usually based on file extension) about the MIME type that is most applicable to the given path
    * taking into consideration the requester MimeRulesSource MIME rules. When no "hard rule" present from
@@ -20,8 +20,10 @@ import java.util.List;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.mime.MimeRule;
 import org.sonatype.nexus.mime.MimeRulesSource;
+import org.sonatype.nexus.mime.MimeSupport;
 
 import com.google.common.collect.Lists;
+import org.apache.tika.config.TikaConfig;
 import org.junit.Test;
 import org.mockito.Mock;
 
@@ -29,6 +31,7 @@ import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.equalTo;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.mockito.Mockito.when;
 
 /**
@@ -85,6 +88,12 @@ public class DefaultMimeSupportTest
     assertThat(underTest.guessMimeTypeFromPath("/some/path/artifact.pom"), equalTo("application/xml"));
   }
 
+  @Test
+  public void detectionLengthCoversTikaMagicWindow() {
+    assertThat(TikaConfig.getDefaultConfig().getMimeRepository().getMinLength(),
+        lessThanOrEqualTo(MimeSupport.DETECTION_LENGTH));
+  }
+
   @Test
   public void useNexusMimeTypes() {
     this.underTest = new DefaultMimeSupport(mimeTypes);
@@ -14,7 +14,9 @@ package org.sonatype.nexus.repository.internal.blobstore;
 
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -45,6 +47,7 @@ import org.sonatype.nexus.blobstore.api.BlobStoreStoppedEvent;
 import org.sonatype.nexus.blobstore.api.BlobStoreUpdatedEvent;
 import org.sonatype.nexus.blobstore.api.DefaultBlobStoreProvider;
 import org.sonatype.nexus.blobstore.api.tasks.BlobStoreTaskService;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
 import org.sonatype.nexus.common.app.FreezeService;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.event.EventAware;
@@ -63,17 +66,20 @@ import org.sonatype.nexus.repository.blobstore.BlobStoreConfigurationStore;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.replication.ReplicationBlobStoreStatusManager;
 import org.sonatype.nexus.security.UserIdHelper;
+import org.sonatype.nexus.thread.DependencyOrderedRunner;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
 import static java.lang.String.format;
 import static java.util.Optional.empty;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
 import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
 import static org.sonatype.nexus.distributed.event.service.api.EventType.DELETED;
 import static org.sonatype.nexus.distributed.event.service.api.EventType.UPDATED;
@@ -118,6 +124,8 @@ public class BlobStoreManagerImpl
 
   private final SecretsService secretService;
 
+  private final int startupThreads;
+
   @Inject
   public BlobStoreManagerImpl(
       final EventManager eventManager, // NOSONAR
@@ -132,7 +140,8 @@ public class BlobStoreManagerImpl
       final BlobStoreTaskService blobStoreTaskService,
       final Provider<BlobStoreOverride> blobStoreOverrideProvider,
       final ReplicationBlobStoreStatusManager replicationBlobStoreStatusManager,
-      final SecretsService secretService)
+      final SecretsService secretService,
+      @Named("${nexus.blobstore.startup.maxThreads:-4}") final int startupThreads)
   {
     this.eventManager = checkNotNull(eventManager);
     this.store = checkNotNull(store);
@@ -145,6 +154,8 @@ public class BlobStoreManagerImpl
     this.replicationBlobStoreStatusManager = checkNotNull(replicationBlobStoreStatusManager);
     this.defaultBlobstoreProvider = checkNotNull(defaultBlobstoreProvider);
     this.secretService = checkNotNull(secretService);
+    checkArgument(startupThreads > 0, "startupThreads must be positive");
+    this.startupThreads = startupThreads;
 
     if (provisionDefaults != null) {
       // explicit true/false setting, so honour that
@@ -169,43 +180,73 @@ public class BlobStoreManagerImpl
       configurations = store.list();
     }
 
+    Map<String, BlobStoreConfiguration> configurationsByName = new LinkedHashMap<>();
+    configurations.forEach(configuration -> configurationsByName.put(configuration.getName(), configuration));
+    DependencyOrderedRunner runner = new DependencyOrderedRunner("blobstore-startup", startupThreads);
+
     log.debug("Restoring {} BlobStores", configurations.size());
-    for (BlobStoreConfiguration configuration : configurations) {
-      log.debug("Restoring BlobStore: {}", configuration);
-      BlobStore blobStore = null;
+    long start = System.nanoTime();
+    Map<String, Long> timings = runner.run(configurationsByName.keySet(),
+        name -> groupMemberNames(configurationsByName.get(name)), name -> {
+          BlobStoreConfiguration configuration = configurationsByName.get(name);
+          log.debug("Restoring BlobStore: {}", configuration);
+          BlobStore blobStore = null;
 
-      try {
-        blobStore = blobStorePrototypes.get(configuration.getType()).get();
-        blobStore.init(configuration);
-      }
-      catch (Exception e) {
-        log.error("Unable to restore BlobStore {}", configuration.getName(), e);
-      }
-      finally {
-        if (blobStore != null) {
-          track(configuration.getName(), blobStore);
-        }
-      }
+          try {
+            blobStore = blobStorePrototypes.get(configuration.getType()).get();
+            blobStore.init(configuration);
+          }
+          catch (Exception e) {
+            log.error("Unable to restore BlobStore {}", configuration.getName(), e);
+          }
+          finally {
+            if (blobStore != null) {
+              track(configuration.getName(), blobStore);
+            }
+          }
 
-      // TODO - event publishing
-    }
+          // TODO - event publishing
+        });
+    logTimings("Restored", timings, start);
 
     log.debug("Starting {} BlobStores", stores.size());
-    for (Map.Entry<String, BlobStore> entry : stores.entrySet()) {
-      String name = entry.getKey();
-      BlobStore blobStore = entry.getValue();
-      log.debug("Starting BlobStore: {}", name);
-      try {
-        blobStore.start();
-        eventManager.post(new BlobStoreStartedEvent(blobStore));
+    start = System.nanoTime();
+    timings = runner.run(new ArrayList<>(stores.keySet()),
+        name -> groupMemberNames(configurationsByName.get(name)), name -> {
+          BlobStore blobStore = stores.get(name);
+          log.debug("Starting BlobStore: {}", name);
+          try {
+            blobStore.start();
+            eventManager.post(new BlobStoreStartedEvent(blobStore));
 
-      }
-      catch (Exception e) {
-        log.error("Unable to start BlobStore {}", name, e);
-      }
+          }
+          catch (Exception e) {
+            log.error("Unable to start BlobStore {}", name, e);
+          }
 
-      // TODO - event publishing
+          // TODO - event publishing
+        });
+    logTimings("Started", timings, start);
+  }
+
+  /**
+   * The names of the members of a blob store group, which are restored and started before the group itself.
+   */
+  private static Collection<String> groupMemberNames(@Nullable final BlobStoreConfiguration configuration) {
+    if (configuration == null || !BlobStoreGroup.TYPE.equals(configuration.getType())) {
+      return Collections.emptyList();
     }
+    List<?> memberNames = configuration.attributes(BlobStoreGroup.CONFIG_KEY)
+        .get(BlobStoreGroup.MEMBERS_KEY, List.class);
+    return memberNames == null ? Collections.emptyList() : memberNames.stream().map(Object::toString).toList();
+  }
+
+  private void logTimings(final String action, final Map<String, Long> timings, final long start) {
+    if (log.isDebugEnabled()) {
+      timings.forEach((name, millis) -> log.debug("{} BlobStore {} in {} ms", action, name, millis));
+    }
+    log.info("{} {} BlobStores in {} ms using up to {} threads", action, timings.size(),
+        NANOSECONDS.toMillis(System.nanoTime() - start), startupThreads);
   }
 
   @Override
@@ -609,6 +650,12 @@ public class BlobStoreManagerImpl
     ensureDeletedStateTransferred(blobId, srcBlobStore, destBlobStore, isSrcDeleted);
     log.debug("Created blobId {} in blob store '{}'", blobId, destBlobStore.getBlobStoreConfiguration().getName());
 
+    // route reads through the group to the new location before the source copy goes away
+    getParent(srcBlobStore.getBlobStoreConfiguration().getName())
+        .map(this::get)
+        .filter(BlobStoreGroup.class::isInstance)
+        .ifPresent(group -> ((BlobStoreGroup) group).blobMoved(blobId, destBlobStore));
+
     try {
       srcBlobStore.deleteHard(blobId);
       log.debug("Removed blobId {} from blob store '{}'", blobId, srcBlobStore.getBlobStoreConfiguration().getName());
@@ -31,6 +31,7 @@ import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
 import org.sonatype.nexus.blobstore.api.BlobStoreException;
 import org.sonatype.nexus.blobstore.api.tasks.BlobStoreTaskService;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
 import org.sonatype.nexus.common.app.FreezeService;
 import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.common.node.NodeAccess;
@@ -43,9 +44,11 @@ import org.sonatype.nexus.repository.replication.ReplicationBlobStoreStatusManag
 import org.sonatype.nexus.security.UserIdHelper;
 
 import java.time.OffsetDateTime;
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
@@ -53,6 +56,7 @@ import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.notNullValue;
 import static org.junit.Assert.fail;
@@ -109,6 +113,8 @@ public class BlobStoreManagerImplTest
 
   private MockedStatic<UserIdHelper> userIdHelperMockedStatic;
 
+  private int startupThreads = 1;
+
   BlobStoreManagerImpl underTest;
 
   @Before
@@ -131,6 +137,7 @@ public class BlobStoreManagerImplTest
     Map<String, Provider<BlobStore>> providers = new HashMap<>();
     providers.put("test", provider);
     providers.put("File", provider);
+    providers.put(BlobStoreGroup.TYPE, provider);
     return spy(new BlobStoreManagerImpl(eventManager, store,
         descriptors,
         providers,
@@ -140,7 +147,7 @@ public class BlobStoreManagerImplTest
         blobStoreTaskService,
         blobStoreOverrideProvider,
         replicationBlobStoreStatusManager,
-        secretsService));
+        secretsService, startupThreads));
   }
 
   @Test
@@ -207,6 +214,27 @@ public class BlobStoreManagerImplTest
         .equals(Collections.singletonList(blobStore));
   }
 
+  @Test
+  public void startsGroupsAfterTheirMembers() throws Exception {
+    Map<BlobStore, String> names = new HashMap<>();
+    List<String> started = new ArrayList<>();
+    when(provider.get()).thenAnswer(invocation -> {
+      BlobStore blobStore = mock(BlobStore.class);
+      doAnswer(init -> names.put(blobStore, init.<BlobStoreConfiguration>getArgument(0).getName()))
+          .when(blobStore).init(any());
+      doAnswer(start -> started.add(names.get(blobStore))).when(blobStore).start();
+      return blobStore;
+    });
+    BlobStoreConfiguration group = createConfig("group");
+    group.setType(BlobStoreGroup.TYPE);
+    group.attributes(BlobStoreGroup.CONFIG_KEY).set(BlobStoreGroup.MEMBERS_KEY, List.of("member-a", "member-b"));
+    when(store.list()).thenReturn(List.of(group, createConfig("member-a"), createConfig("member-b")));
+
+    underTest.doStart();
+
+    assertThat(started, contains("member-a", "member-b", "group"));
+  }
+
   @Test
   public void nameCanBeDuplicateRegardlessOfCase() throws Exception {
     BlobStore blobStore = mock(BlobStore.class);
@@ -382,7 +410,7 @@ public class BlobStoreManagerImplTest
         blobStoreTaskService,
         blobStoreOverrideProvider,
         replicationBlobStoreStatusManager,
-        secretsService);
+        secretsService, startupThreads);
 
     BlobStore blobStore = mock(BlobStore.class);
     when(provider.get()).thenReturn(blobStore);
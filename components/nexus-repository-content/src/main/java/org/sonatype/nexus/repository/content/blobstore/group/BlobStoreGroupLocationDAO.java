@@ -0,0 +1,66 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.blobstore.group;
+
+import java.util.Collection;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.datastore.api.ContentDataAccess;
+
+import org.apache.ibatis.annotations.Param;
+
+/**
+ * DAO for the members of blob store groups holding each blob.
+ *
+ * @since 3.77
+ */
+public interface BlobStoreGroupLocationDAO
+    extends ContentDataAccess
+{
+  /**
+   * Retrieve the name of the member holding the blob, if known.
+   */
+  @Nullable
+  String getMember(@Param("groupName") String groupName, @Param("blobId") String blobId);
+
+  /**
+   * Record the member holding each of the blobs, replacing any previous location.
+   */
+  void setMember(
+      @Param("groupName") String groupName,
+      @Param("blobIds") Collection<String> blobIds,
+      @Param("memberName") String memberName);
+
+  /**
+   * Remove the location of the blob.
+   */
+  void delete(@Param("groupName") String groupName, @Param("blobId") String blobId);
+
+  /**
+   * Remove up to {@code limit} locations of blobs held by the member.
+   *
+   * @return number of deleted rows
+   */
+  int deleteMember(
+      @Param("groupName") String groupName,
+      @Param("memberName") String memberName,
+      @Param("limit") int limit);
+
+  /**
+   * Remove up to {@code limit} locations of blobs in the group.
+   *
+   * @return number of deleted rows
+   */
+  int deleteGroup(@Param("groupName") String groupName, @Param("limit") int limit);
+}
@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.blobstore.group;
+
+import java.util.Collection;
+import java.util.List;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.group.BlobStoreGroupLocationStore;
+import org.sonatype.nexus.datastore.ConfigStoreSupport;
+import org.sonatype.nexus.datastore.api.DataSessionSupplier;
+import org.sonatype.nexus.transaction.Transactional;
+
+import static java.util.Collections.singletonList;
+import static java.util.stream.Collectors.toList;
+
+/**
+ * {@link BlobStoreGroupLocationStore} backed by the config data store.
+ *
+ * @since 3.77
+ */
+@Named
+@Singleton
+public class BlobStoreGroupLocationStoreImpl
+    extends ConfigStoreSupport<BlobStoreGroupLocationDAO>
+    implements BlobStoreGroupLocationStore
+{
+  private static final int DELETE_BATCH_SIZE = 1000;
+
+  @Inject
+  public BlobStoreGroupLocationStoreImpl(final DataSessionSupplier sessionSupplier) {
+    super(sessionSupplier, BlobStoreGroupLocationDAO.class);
+  }
+
+  @Nullable
+  @Override
+  @Transactional
+  public String getMember(final String groupName, final BlobId blobId) {
+    return dao().getMember(groupName, blobId.asUniqueString());
+  }
+
+  @Override
+  @Transactional
+  public void setMember(final String groupName, final BlobId blobId, final String memberName) {
+    dao().setMember(groupName, singletonList(blobId.asUniqueString()), memberName);
+  }
+
+  @Override
+  @Transactional
+  public void setMember(final String groupName, final Collection<BlobId> blobIds, final String memberName) {
+    if (!blobIds.isEmpty()) {
+      List<String> ids = blobIds.stream().map(BlobId::asUniqueString).distinct().collect(toList());
+      dao().setMember(groupName, ids, memberName);
+    }
+  }
+
+  @Override
+  @Transactional
+  public void delete(final String groupName, final BlobId blobId) {
+    dao().delete(groupName, blobId.asUniqueString());
+  }
+
+  @Override
+  public void deleteMember(final String groupName, final String memberName) {
+    int deleted;
+    do {
+      deleted = deleteMemberBatch(groupName, memberName);
+    }
+    while (deleted == DELETE_BATCH_SIZE);
+  }
+
+  @Override
+  public void deleteGroup(final String groupName) {
+    int deleted;
+    do {
+      deleted = deleteGroupBatch(groupName);
+    }
+    while (deleted == DELETE_BATCH_SIZE);
+  }
+
+  @Transactional
+  protected int deleteMemberBatch(final String groupName, final String memberName) {
+    return dao().deleteMember(groupName, memberName, DELETE_BATCH_SIZE);
+  }
+
+  @Transactional
+  protected int deleteGroupBatch(final String groupName) {
+    return dao().deleteGroup(groupName, DELETE_BATCH_SIZE);
+  }
+}
@@ -21,6 +21,7 @@ import java.util.Map;
 import java.util.Optional;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -37,12 +38,14 @@ import org.sonatype.nexus.repository.content.browse.store.BrowseNodeDAO;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeData;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeManager;
 import org.sonatype.nexus.repository.content.browse.store.BrowseNodeStore;
+import org.sonatype.nexus.repository.content.browse.store.BulkBrowseNodeBuilder;
 import org.sonatype.nexus.repository.content.facet.ContentFacet;
 import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
 import org.sonatype.nexus.repository.content.fluent.FluentAssets;
 import org.sonatype.nexus.repository.content.store.FormatStoreManager;
 import org.sonatype.nexus.repository.ossindex.PackageUrlService;
+import org.sonatype.nexus.scheduling.TaskInterruptedException;
 
 import com.google.common.base.Stopwatch;
 
@@ -80,6 +83,12 @@ public class BrowseFacetImpl
 
   private final int pageSize;
 
+  private final boolean bulkRebuild;
+
+  private final int bulkCacheSize;
+
+  private final int bulkBatchSize;
+
   private String format;
 
   private BrowseNodeGenerator browseNodeGenerator;
@@ -91,12 +100,18 @@ public class BrowseFacetImpl
       final Map<String, FormatStoreManager> formatStoreManagersByFormat,
       final Map<String, BrowseNodeGenerator> browseNodeGeneratorsByFormat,
       final PackageUrlService packageUrlService,
-      @Named("${nexus.browse.rebuild.pageSize:-1000}") final int pageSize)
+      @Named("${nexus.browse.rebuild.pageSize:-1000}") final int pageSize,
+      @Named("${nexus.browse.rebuild.bulk:-true}") final boolean bulkRebuild,
+      @Named("${nexus.browse.rebuild.bulk.cacheSize:-100000}") final int bulkCacheSize,
+      @Named("${nexus.browse.rebuild.bulk.batchSize:-1000}") final int bulkBatchSize)
   {
     this.formatStoreManagersByFormat = checkNotNull(formatStoreManagersByFormat);
     this.browseNodeGeneratorsByFormat = checkNotNull(browseNodeGeneratorsByFormat);
     this.packageUrlService = checkNotNull(packageUrlService);
     this.pageSize = max(pageSize, 1);
+    this.bulkRebuild = bulkRebuild;
+    this.bulkCacheSize = max(bulkCacheSize, 1);
+    this.bulkBatchSize = max(bulkBatchSize, 1);
   }
 
   @Override
@@ -137,7 +152,8 @@ public class BrowseFacetImpl
         .filter(Optional::isPresent)
         .map(Optional::get)
         .filter(fluentAsset -> !browseNodeManager.hasAssetNode(fluentAsset))
-        .forEach(fluentAsset -> createBrowseNodes(fluentAsset, componentsProcessed));
+        .forEach(fluentAsset ->
+            createBrowseNodes(fluentAsset, componentsProcessed, browseNodeManager::createBrowseNodes));
   }
 
   @Guarded(by = STARTED)
@@ -149,6 +165,20 @@ public class BrowseFacetImpl
   @Guarded(by = STARTED)
   @Override
   public void rebuildBrowseNodes(final Consumer<String> progressUpdater) {
+    if (bulkRebuild) {
+      try {
+        bulkRebuildBrowseNodes(progressUpdater);
+        return;
+      }
+      catch (TaskInterruptedException e) {
+        throw e;
+      }
+      catch (Exception e) {
+        log.warn("Unable to rebuild browse nodes in bulk for repository {}, rebuilding them one asset at a time",
+            getRepository().getName(), e);
+      }
+    }
+
     log.info("Deleting browse nodes for repository {}", getRepository().getName());
 
     browseNodeManager.deleteBrowseNodes();
@@ -205,75 +235,120 @@ public class BrowseFacetImpl
     return Optional.ofNullable(browseNodeManager.getByRequestPath(requestPath));
   }
 
+  /**
+   * Builds a new browse tree for the repository alongside the current one, then swaps it in. Browsing keeps using the
+   * current tree until the swap.
+   */
+  private void bulkRebuildBrowseNodes(final Consumer<String> progressUpdater) {
+    String repositoryName = getRepository().getName();
+    log.info("Rebuilding browse nodes for repository {} in bulk", repositoryName);
+
+    String continuationToken;
+    try (BulkBrowseNodeBuilder builder = browseNodeManager.bulkBuilder(bulkCacheSize, bulkBatchSize)) {
+      continuationToken = browseAllAssets(progressUpdater, builder::createBrowseNodes);
+      builder.swap();
+    }
+
+    // assets added after the listing above had their nodes replaced by the swap, so add them again
+    FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
+    Map<Integer, Integer> processedComponents = newComponentCache();
+    Continuation<FluentAsset> page = assets.browse(pageSize, continuationToken);
+    while (!page.isEmpty()) {
+      page.forEach(fluentAsset ->
+          createBrowseNodes(fluentAsset, processedComponents, browseNodeManager::createBrowseNodes));
+      page = assets.browse(pageSize, page.nextContinuationToken());
+    }
+
+    log.info("Rebuilt browse nodes for repository {}", repositoryName);
+  }
+
   /**
    * Create browse nodes for every asset and their components in the repository.
    */
   private void createAllBrowseNodes(final Consumer<String> progressUpdater) {
-    String repositoryName = getRepository().getName();
     try {
-      FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
-
-      long total = assets.count();
-      if (total > 0) {
-        // useful for formats that have multiple assets per component
-        Map<Integer, Integer> processedComponents = newComponentCache();
-        ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
-        Stopwatch sw = Stopwatch.createStarted();
-
-        long processed = 0;
-
-        Continuation<FluentAsset> page = assets.browse(pageSize, null);
-        while (!page.isEmpty()) {
-          page.forEach(fluentAsset -> createBrowseNodes(fluentAsset, processedComponents));
-          processed += page.size();
-
-          long elapsed = sw.elapsed(TimeUnit.MILLISECONDS);
-          progressLogger.info("Processed {} / {} {} assets in {} ms",
-              processed, total, repositoryName, elapsed);
-          if (progressUpdater != null) {
-            long percentageComplete = BigDecimal.valueOf(processed)
-                .divide(BigDecimal.valueOf(total),
-                    2, RoundingMode.HALF_UP)
-                .multiply(BigDecimal.valueOf(100))
-                .longValue();
-            progressUpdater.accept(
-                String.format("%d%% Complete", percentageComplete));
-          }
-
-          checkCancellation();
-
-          page = assets.browse(pageSize, page.nextContinuationToken());
+      browseAllAssets(progressUpdater, browseNodeManager::createBrowseNodes);
+    }
+    catch (Exception e) {
+      log.error("Unable to rebuild browse nodes for repository {}", getRepository().getName(), e);
+    }
+  }
+
+  /**
+   * Passes the browse nodes of every asset and their components in the repository to the given writer.
+   *
+   * @return the continuation token of the last page of assets
+   */
+  @Nullable
+  private String browseAllAssets(final Consumer<String> progressUpdater, final BrowseNodeWriter writer) {
+    String repositoryName = getRepository().getName();
+    FluentAssets assets = getRepository().facet(ContentFacet.class).assets();
+
+    String continuationToken = null;
+    long total = assets.count();
+    if (total > 0) {
+      // useful for formats that have multiple assets per component
+      Map<Integer, Integer> processedComponents = newComponentCache();
+      ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60);
+      Stopwatch sw = Stopwatch.createStarted();
+
+      long processed = 0;
+
+      Continuation<FluentAsset> page = assets.browse(pageSize, null);
+      while (!page.isEmpty()) {
+        page.forEach(fluentAsset -> createBrowseNodes(fluentAsset, processedComponents, writer));
+        processed += page.size();
+        continuationToken = page.nextContinuationToken();
+
+        long elapsed = sw.elapsed(TimeUnit.MILLISECONDS);
+        progressLogger.info("Processed {} / {} {} assets in {} ms",
+            processed, total, repositoryName, elapsed);
+        if (progressUpdater != null) {
+          long percentageComplete = BigDecimal.valueOf(processed)
+              .divide(BigDecimal.valueOf(total),
+                  2, RoundingMode.HALF_UP)
+              .multiply(BigDecimal.valueOf(100))
+              .longValue();
+          progressUpdater.accept(
+              String.format("%d%% Complete", percentageComplete));
         }
 
-        progressLogger.flush(); // ensure the final progress message is flushed
+        checkCancellation();
+
+        page = assets.browse(pageSize, continuationToken);
       }
+
+      progressLogger.flush(); // ensure the final progress message is flushed
     }
-    catch (Exception e) {
-      log.error("Unable to rebuild browse nodes for repository {}", repositoryName, e);
-    }
+    return continuationToken;
   }
 
   /**
    * Create browse nodes for an asset and it's component. Using a cache of component ids to limit component
    * nodes being recreated
    */
-  private void createBrowseNodes(final FluentAsset asset, final Map<Integer, Integer> componentsProcessed) {
+  private void createBrowseNodes(
+      final FluentAsset asset,
+      final Map<Integer, Integer> componentsProcessed,
+      final BrowseNodeWriter writer)
+  {
     if (browseNodeGenerator.hasMultipleAssetsPerComponent()) {
-      createAssetBrowseNodes(asset);
-      asset.component().ifPresent(component -> createComponentBrowseNodes(asset, component, componentsProcessed));
+      createAssetBrowseNodes(asset, writer);
+      asset.component()
+          .ifPresent(component -> createComponentBrowseNodes(asset, component, componentsProcessed, writer));
     }
     else {
-      createCombinedAssetAndComponentBrowseNodes(asset);
+      createCombinedAssetAndComponentBrowseNodes(asset, writer);
     }
   }
 
   /**
    * Create browse nodes for each segment in an asset's path, assigning the asset to the final node
    */
-  private void createAssetBrowseNodes(final FluentAsset asset) {
+  private void createAssetBrowseNodes(final FluentAsset asset, final BrowseNodeWriter writer) {
     List<BrowsePath> assetPaths = browseNodeGenerator.computeAssetPaths(asset);
     if (!assetPaths.isEmpty()) {
-      browseNodeManager.createBrowseNodes(assetPaths, node -> node.setAsset(asset));
+      writer.createBrowseNodes(assetPaths, node -> node.setAsset(asset));
     }
   }
 
@@ -284,14 +359,15 @@ public class BrowseFacetImpl
   private void createComponentBrowseNodes(
       final FluentAsset asset,
       final Component component,
-      final Map<Integer, Integer> componentsProcessed)
+      final Map<Integer, Integer> componentsProcessed,
+      final BrowseNodeWriter writer)
   {
     Integer internalComponentId = internalComponentId(component);
     // null will be returned when adding a key that isn't already in the cache
     if (componentsProcessed.put(internalComponentId, internalComponentId) == null) {
       List<BrowsePath> componentPaths = browseNodeGenerator.computeComponentPaths(asset);
       if (!componentPaths.isEmpty()) {
-        browseNodeManager.createBrowseNodes(componentPaths, node -> {
+        writer.createBrowseNodes(componentPaths, node -> {
           node.setComponent(component);
           findPackageUrl(component).map(PackageUrl::toString).ifPresent(node::setPackageUrl);
         });
@@ -302,10 +378,10 @@ public class BrowseFacetImpl
   /**
    * Create browse nodes for each segment in the asset's path, and assign the asset and component to the final node
    */
-  private void createCombinedAssetAndComponentBrowseNodes(final FluentAsset asset) {
+  private void createCombinedAssetAndComponentBrowseNodes(final FluentAsset asset, final BrowseNodeWriter writer) {
     List<BrowsePath> assetPaths = browseNodeGenerator.computeAssetPaths(asset);
     if (!assetPaths.isEmpty()) {
-      browseNodeManager.createBrowseNodes(assetPaths, node -> {
+      writer.createBrowseNodes(assetPaths, node -> {
         node.setAsset(asset);
         asset.component().ifPresent(component -> {
           node.setComponent(component);
@@ -353,4 +429,13 @@ public class BrowseFacetImpl
       }
     };
   }
+
+  /**
+   * Where the browse nodes computed for an asset are written to.
+   */
+  @FunctionalInterface
+  private interface BrowseNodeWriter
+  {
+    void createBrowseNodes(List<BrowsePath> paths, Consumer<BrowseNodeData> finalStep);
+  }
 }
@@ -133,4 +133,69 @@ public interface BrowseNodeDAO
       @Param("parentNodeId") Long parentNodeId,
       @Param("limit") int limit,
       @Param("offset") int offset);
+
+  /**
+   * Stages browse nodes for a bulk rebuild of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param nodes the nodes to stage, with node and parent ids local to the rebuild
+   *
+   * @since 3.77
+   */
+  void createRebuildNodes(@Param("repositoryId") int repositoryId, @Param("nodes") List<BrowseNodeData> nodes);
+
+  /**
+   * Updates the request path, component, asset, and package url of a staged browse node.
+   *
+   * @param browseNode the staged node to update
+   *
+   * @since 3.77
+   */
+  void updateRebuildNode(BrowseNodeData browseNode);
+
+  /**
+   * Retrieves a staged browse node by its parent and display name.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param parentId the local id of the parent node
+   * @param displayName the display name of the node
+   * @return the staged node or {@code null} if not found
+   *
+   * @since 3.77
+   */
+  @Nullable
+  BrowseNodeData findRebuildNode(
+      @Param("repositoryId") int repositoryId,
+      @Param("parentId") long parentId,
+      @Param("displayName") String displayName);
+
+  /**
+   * Copies the staged browse nodes of the given repository into the browse tree, leaving the parent links to be
+   * resolved by {@link #linkRebuildNodes}.
+   *
+   * @param repositoryId the repository being rebuilt
+   *
+   * @since 3.77
+   */
+  void copyRebuildNodes(@Param("repositoryId") int repositoryId);
+
+  /**
+   * Resolves the parent links of browse nodes copied by {@link #copyRebuildNodes}.
+   *
+   * @param repositoryId the repository being rebuilt
+   *
+   * @since 3.77
+   */
+  void linkRebuildNodes(@Param("repositoryId") int repositoryId);
+
+  /**
+   * Deletes the staged browse nodes of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param limit when positive limits the number of staged nodes deleted per-call
+   * @return {@code true} if any staged nodes were deleted
+   *
+   * @since 3.77
+   */
+  boolean deleteRebuildNodes(@Param("repositoryId") int repositoryId, @Param("limit") int limit);
 }
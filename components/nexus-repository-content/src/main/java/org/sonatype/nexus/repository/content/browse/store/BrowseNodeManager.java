@@ -125,6 +125,18 @@ public class BrowseNodeManager
     }
   }
 
+  /**
+   * Starts building a replacement browse tree for the repository, which is swapped in once complete.
+   *
+   * @param cacheSize the number of recently used nodes to keep in memory while building the tree
+   * @param batchSize the number of nodes to stage per insert
+   *
+   * @since 3.77
+   */
+  public BulkBrowseNodeBuilder bulkBuilder(final int cacheSize, final int batchSize) {
+    return new BulkBrowseNodeBuilder(browseNodeStore, repositoryId, cacheSize, batchSize);
+  }
+
   /**
    * Trims any dangling browse nodes from the repository.
    */
@@ -185,4 +185,77 @@ public class BrowseNodeStore<T extends BrowseNodeDAO>
   public List<BrowseNode> getChildByParentNodeId(final Long parentNodeId, final int limit, final int offset) {
     return dao().getChildByParentNodeId(parentNodeId, limit, offset);
   }
+
+  /**
+   * Stages browse nodes for a bulk rebuild of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param created nodes not staged before
+   * @param updated previously staged nodes whose details have changed
+   *
+   * @since 3.77
+   */
+  @Transactional
+  public void stageRebuildNodes(
+      final int repositoryId,
+      final List<BrowseNodeData> created,
+      final List<BrowseNodeData> updated)
+  {
+    if (!created.isEmpty()) {
+      dao().createRebuildNodes(repositoryId, created);
+    }
+    updated.forEach(dao()::updateRebuildNode);
+  }
+
+  /**
+   * Retrieves a staged browse node by its parent and display name.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @param parentId the local id of the parent node
+   * @param displayName the display name of the node
+   * @return the staged node or {@code null} if not found
+   *
+   * @since 3.77
+   */
+  @Nullable
+  @Transactional
+  public BrowseNodeData findRebuildNode(final int repositoryId, final long parentId, final String displayName) {
+    return dao().findRebuildNode(repositoryId, parentId, displayName);
+  }
+
+  /**
+   * Replaces the browse nodes of the given repository with the staged ones in a single transaction, so browsing
+   * sees either the old tree or the new one.
+   *
+   * @param repositoryId the repository being rebuilt
+   *
+   * @since 3.77
+   */
+  @Transactional
+  public void swapInRebuildNodes(final int repositoryId) {
+    log.debug("Swapping in rebuilt browse nodes for repository {}", repositoryId);
+    dao().deleteBrowseNodes(repositoryId, 0);
+    dao().copyRebuildNodes(repositoryId);
+    dao().linkRebuildNodes(repositoryId);
+    dao().deleteRebuildNodes(repositoryId, 0);
+    log.debug("Swapped in rebuilt browse nodes for repository {}", repositoryId);
+  }
+
+  /**
+   * Deletes the staged browse nodes of the given repository.
+   *
+   * @param repositoryId the repository being rebuilt
+   * @return {@code true} if any staged nodes were deleted
+   *
+   * @since 3.77
+   */
+  @Transactional
+  public boolean deleteRebuildNodes(final int repositoryId) {
+    boolean deleted = false;
+    while (dao().deleteRebuildNodes(repositoryId, deleteBatchSize())) {
+      commitChangesSoFar();
+      deleted = true;
+    }
+    return deleted;
+  }
 }
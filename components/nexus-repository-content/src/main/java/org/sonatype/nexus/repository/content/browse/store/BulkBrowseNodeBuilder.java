@@ -0,0 +1,213 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.browse.store;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.function.Consumer;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.repository.browse.node.BrowsePath;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static com.google.common.base.Preconditions.checkState;
+import static java.lang.Math.max;
+
+/**
+ * Builds a complete browse tree for a repository in a staging table, then swaps it in with a single transaction.
+ *
+ * Nodes are deduplicated the same way {@link BrowseNodeDAO#mergeBrowseNode} does it, by parent and display name.
+ * The most recently used nodes are kept in memory; older ones are written to the staging table in multi-row batches
+ * and read back from there if they are needed again. The existing tree stays browsable until {@link #swap()}.
+ *
+ * @since 3.77
+ */
+public class BulkBrowseNodeBuilder
+    extends ComponentSupport
+    implements AutoCloseable
+{
+  private final BrowseNodeStore<BrowseNodeDAO> browseNodeStore;
+
+  private final int repositoryId;
+
+  private final int batchSize;
+
+  private final Map<String, StagedNode> recentNodes;
+
+  private final Map<String, StagedNode> pendingNodes = new LinkedHashMap<>();
+
+  private long lastNodeId;
+
+  private boolean anyStaged;
+
+  private boolean swapped;
+
+  BulkBrowseNodeBuilder(
+      final BrowseNodeStore<BrowseNodeDAO> browseNodeStore,
+      final int repositoryId,
+      final int cacheSize,
+      final int batchSize)
+  {
+    this.browseNodeStore = checkNotNull(browseNodeStore);
+    this.repositoryId = repositoryId;
+    this.batchSize = max(batchSize, 1);
+
+    int maxRecentNodes = max(cacheSize, 1);
+    this.recentNodes = new LinkedHashMap<String, StagedNode>(16, 0.75f, true)
+    {
+      @Override
+      protected boolean removeEldestEntry(final Entry<String, StagedNode> eldest) {
+        if (size() > maxRecentNodes) {
+          pendingNodes.put(eldest.getKey(), eldest.getValue());
+          return true;
+        }
+        return false;
+      }
+    };
+
+    // discard anything left behind by an earlier rebuild that didn't complete
+    browseNodeStore.deleteRebuildNodes(repositoryId);
+  }
+
+  /**
+   * Adds browse nodes for the path to the new tree, applying a final step to the last node.
+   */
+  public void createBrowseNodes(final List<BrowsePath> paths, final Consumer<BrowseNodeData> finalStep) {
+    checkState(!swapped, "Browse nodes have already been swapped in");
+
+    long parentId = 0;
+    for (int i = 0; i < paths.size(); i++) {
+      BrowsePath path = paths.get(i);
+      StagedNode node = findOrCreate(parentId, path);
+      if (path.getRequestPath().endsWith("/") && !path.getRequestPath().equals(node.data.getPath())) {
+        node.data.setRequestPath(path.getRequestPath());
+        node.dirty = true;
+      }
+      if (i == paths.size() - 1) {
+        finalStep.accept(node.data);
+        node.dirty = true;
+      }
+      parentId = node.data.nodeId;
+    }
+
+    if (pendingNodes.size() >= batchSize) {
+      stagePendingNodes();
+    }
+  }
+
+  /**
+   * Replaces the current browse tree of the repository with the one built so far.
+   */
+  public void swap() {
+    checkState(!swapped, "Browse nodes have already been swapped in");
+
+    pendingNodes.putAll(recentNodes);
+    recentNodes.clear();
+    stagePendingNodes();
+
+    log.debug("Swapping in {} browse nodes for repository {}", lastNodeId, repositoryId);
+    browseNodeStore.swapInRebuildNodes(repositoryId);
+    swapped = true;
+  }
+
+  /**
+   * Discards the staged nodes unless they were swapped in.
+   */
+  @Override
+  public void close() {
+    recentNodes.clear();
+    pendingNodes.clear();
+    if (!swapped && anyStaged) {
+      try {
+        browseNodeStore.deleteRebuildNodes(repositoryId);
+      }
+      catch (RuntimeException e) {
+        log.warn("Unable to discard staged browse nodes for repository {}", repositoryId, e);
+      }
+    }
+  }
+
+  private StagedNode findOrCreate(final long parentId, final BrowsePath path) {
+    String key = parentId + "/" + path.getDisplayName();
+
+    StagedNode node = recentNodes.get(key);
+    if (node == null) {
+      node = pendingNodes.remove(key);
+      if (node == null) {
+        node = findStaged(parentId, path.getDisplayName());
+      }
+      if (node == null) {
+        BrowseNodeData data = new BrowseNodeData();
+        data.setNodeId(++lastNodeId);
+        data.setRepositoryId(repositoryId);
+        data.setParentId(parentId);
+        data.setDisplayName(path.getDisplayName());
+        data.setRequestPath(path.getRequestPath());
+        node = new StagedNode(data, false);
+      }
+      recentNodes.put(key, node);
+    }
+    return node;
+  }
+
+  private StagedNode findStaged(final long parentId, final String displayName) {
+    if (!anyStaged) {
+      return null;
+    }
+    BrowseNodeData data = browseNodeStore.findRebuildNode(repositoryId, parentId, displayName);
+    return data != null ? new StagedNode(data, true) : null;
+  }
+
+  private void stagePendingNodes() {
+    if (pendingNodes.isEmpty()) {
+      return;
+    }
+    List<BrowseNodeData> created = new ArrayList<>();
+    List<BrowseNodeData> updated = new ArrayList<>();
+    for (StagedNode node : pendingNodes.values()) {
+      if (!node.staged) {
+        created.add(node.data);
+      }
+      else if (node.dirty) {
+        updated.add(node.data);
+      }
+      if (created.size() >= batchSize) {
+        browseNodeStore.stageRebuildNodes(repositoryId, created, updated);
+        created = new ArrayList<>();
+        updated = new ArrayList<>();
+      }
+    }
+    if (!created.isEmpty() || !updated.isEmpty()) {
+      browseNodeStore.stageRebuildNodes(repositoryId, created, updated);
+    }
+    pendingNodes.clear();
+    anyStaged = true;
+  }
+
+  private static class StagedNode
+  {
+    final BrowseNodeData data;
+
+    final boolean staged;
+
+    boolean dirty;
+
+    StagedNode(final BrowseNodeData data, final boolean staged) {
+      this.data = data;
+      this.staged = staged;
+    }
+  }
+}
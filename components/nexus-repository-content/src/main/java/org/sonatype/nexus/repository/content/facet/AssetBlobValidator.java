@@ -27,7 +27,9 @@ public interface AssetBlobValidator
    * Determines the Content-Type and optionally validates it against the declared Content-Type.
    *
    * @param strictValidation    whether the check should be strict or not.
-   * @param contentSupplier     the supplier of the content to determine or confirm content type.
+   * @param contentSupplier     the supplier of the content to determine or confirm content type. While an asset is
+   *                            being ingested this supplies only the leading {@code MimeSupport.DETECTION_LENGTH}
+   *                            (64 KB) bytes of its content, or all of it when smaller.
    * @param assetPath           blob name, usually a file path or file name or just extension (file extension is used to
    *                            determine content type along with "magic" detection where actual content bits are used,
    *                            like file headers or magic bytes). Is optional, but be aware that if present it improves
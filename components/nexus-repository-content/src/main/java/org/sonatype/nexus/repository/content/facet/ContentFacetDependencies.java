@@ -21,6 +21,7 @@ import javax.inject.Singleton;
 import org.sonatype.nexus.blobstore.api.BlobStoreManager;
 import org.sonatype.nexus.common.node.NodeAccess;
 import org.sonatype.nexus.datastore.api.DataSessionSupplier;
+import org.sonatype.nexus.repository.content.store.AssetDownloadTracker;
 import org.sonatype.nexus.repository.move.RepositoryMoveService;
 import org.sonatype.nexus.repository.search.normalize.VersionNormalizerService;
 import org.sonatype.nexus.repository.storage.BlobMetadataStorage;
@@ -55,6 +56,8 @@ public class ContentFacetDependencies
 
   private final VersionNormalizerService versionNormalizerService;
 
+  private final AssetDownloadTracker assetDownloadTracker;
+
   private final Optional<RepositoryMoveService> maybeMoveService;
 
   private final boolean dateBasedBlobStoreLayoutEnabled;
@@ -68,6 +71,7 @@ public class ContentFacetDependencies
                                   final AssetBlobValidators assetBlobValidators,
                                   final BlobMetadataStorage blobMetadataStorage,
                                   final VersionNormalizerService versionNormalizerService,
+                                  final AssetDownloadTracker assetDownloadTracker,
                                   @Nullable final RepositoryMoveService moveService,
                                   @Named(DATE_BASED_BLOBSTORE_LAYOUT_ENABLED_NAMED) final boolean dateBasedLayoutEnabled)
   {
@@ -79,6 +83,7 @@ public class ContentFacetDependencies
     this.assetBlobValidators = checkNotNull(assetBlobValidators);
     this.blobMetadataStorage = checkNotNull(blobMetadataStorage);
     this.versionNormalizerService = versionNormalizerService;
+    this.assetDownloadTracker = checkNotNull(assetDownloadTracker);
     this.maybeMoveService = Optional.ofNullable(moveService);
     this.dateBasedBlobStoreLayoutEnabled = dateBasedLayoutEnabled;
   }
@@ -115,6 +120,10 @@ public class ContentFacetDependencies
     return versionNormalizerService;
   }
 
+  public AssetDownloadTracker getAssetDownloadTracker() {
+    return assetDownloadTracker;
+  }
+
   public Optional<RepositoryMoveService> getMoveService() {
     return maybeMoveService;
   }
@@ -12,8 +12,10 @@
  */
 package org.sonatype.nexus.repository.content.facet;
 
+import java.io.InputStream;
 import java.time.OffsetDateTime;
 import java.util.HashSet;
+import java.util.Map;
 import java.util.Optional;
 import java.util.Set;
 
@@ -24,8 +26,11 @@ import javax.validation.constraints.NotNull;
 import javax.validation.groups.Default;
 
 import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobId;
+import org.sonatype.nexus.blobstore.api.BlobMetrics;
 import org.sonatype.nexus.common.collect.NestedAttributesMap;
 import org.sonatype.nexus.common.entity.EntityId;
+import org.sonatype.nexus.common.io.InputStreamSupplier;
 import org.sonatype.nexus.datastore.api.DataSession;
 import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.IllegalOperationException;
@@ -317,7 +322,17 @@ public abstract class ContentFacetSupport
   }
 
   public final String checkContentType(final Asset asset, final Blob blob) {
-    return determineContentType(asset, blob, config.strictContentTypeValidation);
+    return checkContentType(asset, blob, blob::getInputStream);
+  }
+
+  /**
+   * Checks the content type of the blob, detecting it from the given content which may be just the leading part of
+   * the blob, such as the bytes captured while the blob was ingested.
+   *
+   * @since 3.77
+   */
+  public final String checkContentType(final Asset asset, final Blob blob, final InputStreamSupplier content) {
+    return determineContentType(asset, new DetectionBlob(blob, content), config.strictContentTypeValidation);
   }
 
   /**
@@ -333,10 +348,14 @@ public abstract class ContentFacetSupport
 
   /**
    * Override this method to customize Content-Type validation of asset blobs.
+   *
+   * The default implementation detects the type from the leading bytes captured when the blob was ingested, when they
+   * are available, instead of reading the blob back; reading the given blob still returns its whole content.
    */
   protected String determineContentType(final Asset asset, final Blob blob, final boolean strictValidation) {
+    InputStreamSupplier content = blob instanceof DetectionBlob ? ((DetectionBlob) blob).content : blob::getInputStream;
     String contentType = blob.getHeaders().get(CONTENT_TYPE_HEADER);
-    return assetBlobValidator.determineContentType(strictValidation, blob::getInputStream, asset.path(), contentType);
+    return assetBlobValidator.determineContentType(strictValidation, content, asset.path(), contentType);
   }
 
   /**
@@ -345,4 +364,45 @@ public abstract class ContentFacetSupport
   protected ContentRepositoryData newContentRepository() {
     return new ContentRepositoryData();
   }
+
+  /**
+   * The blob being checked, carrying the content to detect its type from.
+   */
+  private static class DetectionBlob
+      implements Blob
+  {
+    private final Blob blob;
+
+    private final InputStreamSupplier content;
+
+    private DetectionBlob(final Blob blob, final InputStreamSupplier content) {
+      this.blob = checkNotNull(blob);
+      this.content = checkNotNull(content);
+    }
+
+    @Override
+    public BlobId getId() {
+      return blob.getId();
+    }
+
+    @Override
+    public Map<String, String> getHeaders() {
+      return blob.getHeaders();
+    }
+
+    @Override
+    public InputStream getInputStream() {
+      return blob.getInputStream();
+    }
+
+    @Override
+    public InputStream getInputStream(final long offset, final long length) {
+      return blob.getInputStream(offset, length);
+    }
+
+    @Override
+    public BlobMetrics getMetrics() {
+      return blob.getMetrics();
+    }
+  }
 }
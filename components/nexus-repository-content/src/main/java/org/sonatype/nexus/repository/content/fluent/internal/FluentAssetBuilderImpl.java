@@ -216,7 +216,7 @@ public class FluentAssetBuilderImpl
     headerBuilder.put(BLOB_NAME_HEADER, assetData.path());
     headerBuilder.put(CREATED_BY_HEADER, tempHeaders.get(CREATED_BY_HEADER));
     headerBuilder.put(CREATED_BY_IP_HEADER, tempHeaders.get(CREATED_BY_IP_HEADER));
-    headerBuilder.put(CONTENT_TYPE_HEADER, facet.checkContentType(assetData, blob));
+    headerBuilder.put(CONTENT_TYPE_HEADER, facet.checkContentType(assetData, blob, tempBlob.getDetectionContent()));
 
     Blob permanentBlob = facet.stores().blobStoreProvider.get().makeBlobPermanent(blob.getId(), headerBuilder.build());
     NestedAttributesMap componentAttributes = assetData.component().map(Component::attributes).orElse(null);
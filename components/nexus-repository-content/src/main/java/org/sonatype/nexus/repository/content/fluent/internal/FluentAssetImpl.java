@@ -224,7 +224,7 @@ public class FluentAssetImpl
 
   @Override
   public FluentAsset markAsDownloaded() {
-    facet.stores().assetStore.markAsDownloaded(asset);
+    facet.dependencies().getAssetDownloadTracker().markAsDownloaded(facet.stores().assetStore, asset);
     return this;
   }
 
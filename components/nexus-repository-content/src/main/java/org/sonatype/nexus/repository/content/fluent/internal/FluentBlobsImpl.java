@@ -33,6 +33,7 @@ import org.sonatype.nexus.blobstore.api.BlobStoreMetrics;
 import org.sonatype.nexus.common.hash.HashAlgorithm;
 import org.sonatype.nexus.common.hash.MultiHashingInputStream;
 import org.sonatype.nexus.common.hash.MultiHashingInputStreamFactory;
+import org.sonatype.nexus.common.io.PrefixCapturingInputStream;
 import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
 import org.sonatype.nexus.repository.content.fluent.FluentBlobs;
 import org.sonatype.nexus.repository.view.Content;
@@ -57,6 +58,7 @@ import static org.sonatype.nexus.blobstore.api.BlobStore.CREATED_BY_IP_HEADER;
 import static org.sonatype.nexus.blobstore.api.BlobStore.REPO_NAME_HEADER;
 import static org.sonatype.nexus.blobstore.api.BlobStore.TEMPORARY_BLOB_HEADER;
 import static org.sonatype.nexus.common.hash.Hashes.hash;
+import static org.sonatype.nexus.mime.MimeSupport.DETECTION_LENGTH;
 import static org.sonatype.nexus.repository.view.ContentTypes.APPLICATION_OCTET_STREAM;
 
 /**
@@ -100,10 +102,13 @@ public class FluentBlobsImpl
       final Map<String, String> headers,
       final Iterable<HashAlgorithm> hashing)
   {
-    MultiHashingInputStream hashingStream = MultiHashingInputStreamFactory.input(hashing, in);
+    // keep the leading bytes while the content is hashed and stored, so validating its content type later
+    // doesn't have to read the blob back from the blob store
+    PrefixCapturingInputStream prefixStream = new PrefixCapturingInputStream(in, DETECTION_LENGTH);
+    MultiHashingInputStream hashingStream = MultiHashingInputStreamFactory.input(hashing, prefixStream);
     Blob blob = blobStore.get().create(hashingStream, tempHeaders(headers, contentType));
 
-    return new TempBlob(blob, hashingStream.hashes(), true, blobStore.get());
+    return new TempBlob(blob, hashingStream.hashes(), true, blobStore.get(), prefixStream.prefixSupplier());
   }
 
   @Override
@@ -114,7 +119,9 @@ public class FluentBlobsImpl
       final boolean requireHardLink)
   {
     try {
-      Map<HashAlgorithm, HashCode> hashes = computeHashes(path, algorithms);
+      PrefixCapturingInputStream prefixStream =
+          new PrefixCapturingInputStream(new BufferedInputStream(Files.newInputStream(path)), DETECTION_LENGTH);
+      Map<HashAlgorithm, HashCode> hashes = computeHashes(prefixStream, algorithms);
       Map<String, String> tempHeaders = tempHeaders(Collections.emptyMap(), contentType);
       Blob blob;
       try {
@@ -129,16 +136,15 @@ public class FluentBlobsImpl
           blob = blobStore.get().create(in, tempHeaders);
         }
       }
-      return new TempBlob(blob, hashes, true, blobStore.get());
+      return new TempBlob(blob, hashes, true, blobStore.get(), prefixStream.prefixSupplier());
     }
     catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
-  private Map<HashAlgorithm, HashCode> computeHashes(final Path path, final Iterable<HashAlgorithm> hashing) {
-    try (InputStream in = new BufferedInputStream(Files.newInputStream(path));
-        MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashing, in)) {
+  private Map<HashAlgorithm, HashCode> computeHashes(final InputStream in, final Iterable<HashAlgorithm> hashing) {
+    try (MultiHashingInputStream hashingStream = new MultiHashingInputStream(hashing, in)) {
       IOUtils.consume(hashingStream);
       return hashingStream.hashes();
     }
@@ -271,6 +271,13 @@ public interface AssetDAO
    */
   void markAsDownloaded(Asset asset);
 
+  /**
+   * Updates the last downloaded time of the given assets in the content data store with a single statement.
+   *
+   * @param assetIds the internal ids of the assets to update
+   */
+  void markAssetsAsDownloaded(@Param("assetIds") Collection<Integer> assetIds);
+
   /**
    * Deletes an asset from the content data store.
    *
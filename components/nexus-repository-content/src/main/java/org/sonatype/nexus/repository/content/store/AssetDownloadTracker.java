@@ -0,0 +1,184 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.store;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.scheduling.PeriodicJobService;
+import org.sonatype.nexus.common.scheduling.PeriodicJobService.PeriodicJob;
+import org.sonatype.nexus.repository.content.Asset;
+
+import com.codahale.metrics.annotation.Gauge;
+import com.codahale.metrics.annotation.Timed;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+import static org.sonatype.nexus.repository.content.store.InternalIds.internalAssetId;
+
+/**
+ * Write-behind tracker of asset downloads.
+ *
+ * Downloads are recorded on the request thread by marking the asset as pending in a concurrent map, coalescing repeat
+ * downloads of the same asset. A background job periodically flushes pending assets to their {@link AssetStore} with
+ * one batch update per page, which posts the same {@code AssetDownloadedEvent}s as an immediate update would.
+ *
+ * The number of pending assets is bounded; once the bound is reached downloads are written through immediately.
+ * Pending assets are also flushed when the tracker is stopped.
+ *
+ * @since 3.77
+ */
+@Named
+@ManagedLifecycle(phase = SERVICES)
+@Singleton
+public class AssetDownloadTracker
+    extends LifecycleSupport
+{
+  private static final String TRACKER_KEY_PREFIX = "nexus.asset.download.tracker.";
+
+  private static final String ENABLED_KEY = TRACKER_KEY_PREFIX + "enabled";
+
+  private static final String FLUSH_ON_SECONDS_KEY = TRACKER_KEY_PREFIX + "flushOnSeconds";
+
+  private static final String MAX_PENDING_KEY = TRACKER_KEY_PREFIX + "maxPending";
+
+  private static final String BATCH_SIZE_KEY = TRACKER_KEY_PREFIX + "batchSize";
+
+  private final PeriodicJobService periodicJobService;
+
+  private final boolean enabled;
+
+  private final int flushOnSeconds;
+
+  private final int maxPending;
+
+  private final int batchSize;
+
+  private final Map<AssetStore<?>, ConcurrentMap<Integer, Asset>> pendingDownloads = new ConcurrentHashMap<>();
+
+  private final AtomicInteger pendingCount = new AtomicInteger();
+
+  private final Object flushMutex = new Object();
+
+  private PeriodicJob flushTask;
+
+  @Inject
+  public AssetDownloadTracker(
+      final PeriodicJobService periodicJobService,
+      @Named("${" + ENABLED_KEY + ":-true}") final boolean enabled,
+      @Named("${" + FLUSH_ON_SECONDS_KEY + ":-5}") final int flushOnSeconds,
+      @Named("${" + MAX_PENDING_KEY + ":-50000}") final int maxPending,
+      @Named("${" + BATCH_SIZE_KEY + ":-500}") final int batchSize)
+  {
+    this.periodicJobService = checkNotNull(periodicJobService);
+    this.enabled = enabled;
+    checkArgument(flushOnSeconds > 0, FLUSH_ON_SECONDS_KEY + " must be positive");
+    this.flushOnSeconds = flushOnSeconds;
+    checkArgument(maxPending > 0, MAX_PENDING_KEY + " must be positive");
+    this.maxPending = maxPending;
+    checkArgument(batchSize > 0, BATCH_SIZE_KEY + " must be positive");
+    this.batchSize = batchSize;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    if (enabled) {
+      periodicJobService.startUsing();
+      flushTask = periodicJobService.schedule(this::flush, flushOnSeconds);
+    }
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    if (enabled) {
+      flushTask.cancel();
+      periodicJobService.stopUsing();
+    }
+    flush();
+  }
+
+  /**
+   * Records a download of the given asset, to be written to the given store.
+   */
+  public void markAsDownloaded(final AssetStore<?> assetStore, final Asset asset) {
+    if (!enabled || !isStarted() || !markAsPending(assetStore, asset)) {
+      assetStore.markAsDownloaded(asset);
+    }
+  }
+
+  private boolean markAsPending(final AssetStore<?> assetStore, final Asset asset) {
+    if (pendingCount.incrementAndGet() > maxPending) {
+      pendingCount.decrementAndGet();
+      log.debug("Download tracker is full, writing through download of {}", asset.path());
+      return false;
+    }
+    if (pendingDownloads.computeIfAbsent(assetStore, store -> new ConcurrentHashMap<>())
+        .put(internalAssetId(asset), asset) != null) {
+      pendingCount.decrementAndGet(); // coalesced with an earlier download
+    }
+    return true;
+  }
+
+  /**
+   * Writes all pending downloads to their stores.
+   */
+  @Timed(name = "nexus.asset.download.tracker.flush")
+  public void flush() {
+    synchronized (flushMutex) {
+      pendingDownloads.forEach(this::flush);
+    }
+  }
+
+  private void flush(final AssetStore<?> assetStore, final ConcurrentMap<Integer, Asset> pending) {
+    List<Asset> batch = new ArrayList<>(batchSize);
+    for (Integer assetId : pending.keySet()) {
+      Asset asset = pending.remove(assetId);
+      if (asset != null) {
+        pendingCount.decrementAndGet();
+        batch.add(asset);
+        if (batch.size() >= batchSize) {
+          flushBatch(assetStore, batch);
+          batch = new ArrayList<>(batchSize);
+        }
+      }
+    }
+    if (!batch.isEmpty()) {
+      flushBatch(assetStore, batch);
+    }
+  }
+
+  private void flushBatch(final AssetStore<?> assetStore, final List<Asset> batch) {
+    try {
+      assetStore.markAsDownloaded(batch);
+    }
+    catch (RuntimeException e) {
+      log.warn("Failed to update last downloaded time of {} assets", batch.size(), e);
+    }
+  }
+
+  @Gauge(name = "nexus.asset.download.tracker.pending")
+  public int pendingDownloads() {
+    return pendingCount.get();
+  }
+}
@@ -393,6 +393,22 @@ public class AssetStore<T extends AssetDAO>
     postCommitEvent(() -> new AssetDownloadedEvent(asset));
   }
 
+  /**
+   * Updates the last downloaded time of the given assets in the content data store as a batch.
+   *
+   * @param assets the assets to update
+   */
+  @Transactional
+  public void markAsDownloaded(final Collection<? extends Asset> assets) {
+    if (assets.isEmpty()) {
+      return;
+    }
+
+    dao().markAssetsAsDownloaded(assets.stream().map(InternalIds::internalAssetId).collect(Collectors.toList()));
+
+    assets.forEach(asset -> postCommitEvent(() -> new AssetDownloadedEvent(asset)));
+  }
+
   /**
    * Deletes an asset from the content data store.
    *
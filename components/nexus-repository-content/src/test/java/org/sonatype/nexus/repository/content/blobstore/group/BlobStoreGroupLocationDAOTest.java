@@ -0,0 +1,107 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.blobstore.group;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.content.testsuite.groups.SQLTestGroup;
+import org.sonatype.nexus.datastore.api.DataSession;
+import org.sonatype.nexus.testdb.DataSessionRule;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.sonatype.nexus.datastore.api.DataStoreManager.DEFAULT_DATASTORE_NAME;
+
+@Category(SQLTestGroup.class)
+public class BlobStoreGroupLocationDAOTest
+    extends TestSupport
+{
+  @Rule
+  public DataSessionRule sessionRule =
+      new DataSessionRule(DEFAULT_DATASTORE_NAME).access(BlobStoreGroupLocationDAO.class);
+
+  private DataSession<?> dataSession;
+
+  private BlobStoreGroupLocationDAO dao;
+
+  @Before
+  public void setup() {
+    dataSession = sessionRule.openSession(DEFAULT_DATASTORE_NAME);
+    dataSession.getTransaction().begin();
+    dao = dataSession.access(BlobStoreGroupLocationDAO.class);
+  }
+
+  @After
+  public void teardown() {
+    dataSession.getTransaction().rollback();
+    dataSession.close();
+  }
+
+  @Test(expected = Test.None.class)
+  public void canRecreateSchemaMultipleTimes() {
+    dao.createSchema();
+    dao.createSchema();
+  }
+
+  @Test
+  public void setMemberReplacesPreviousLocation() {
+    dao.setMember("group", asList("a", "b"), "one");
+    dao.setMember("group", singletonList("b"), "two");
+    dao.setMember("other", singletonList("a"), "three");
+
+    assertThat(dao.getMember("group", "a"), is("one"));
+    assertThat(dao.getMember("group", "b"), is("two"));
+    assertThat(dao.getMember("other", "a"), is("three"));
+    assertThat(dao.getMember("group", "c"), is(nullValue()));
+  }
+
+  @Test
+  public void deleteRemovesSingleLocation() {
+    dao.setMember("group", asList("a", "b"), "one");
+
+    dao.delete("group", "a");
+
+    assertThat(dao.getMember("group", "a"), is(nullValue()));
+    assertThat(dao.getMember("group", "b"), is("one"));
+  }
+
+  @Test
+  public void deleteMemberRemovesLocationsInBatches() {
+    dao.setMember("group", asList("a", "b", "c"), "one");
+    dao.setMember("group", singletonList("d"), "two");
+
+    assertThat(dao.deleteMember("group", "one", 2), is(2));
+    assertThat(dao.deleteMember("group", "one", 2), is(1));
+    assertThat(dao.deleteMember("group", "one", 2), is(0));
+    assertThat(dao.getMember("group", "d"), is("two"));
+  }
+
+  @Test
+  public void deleteGroupRemovesLocationsInBatches() {
+    dao.setMember("group", asList("a", "b", "c"), "one");
+    dao.setMember("other", singletonList("a"), "one");
+
+    assertThat(dao.deleteGroup("group", 2), is(2));
+    assertThat(dao.deleteGroup("group", 2), is(1));
+    assertThat(dao.getMember("group", "c"), is(nullValue()));
+    assertThat(dao.getMember("other", "a"), is("one"));
+  }
+}
@@ -55,6 +55,9 @@ public class BrowseFacetTest
         Collections.emptyMap(),
         Collections.emptyMap(),
         packageUrlService,
+        1000,
+        true,
+        100000,
         1000);
 
     when(repository.getFormat()).thenReturn(new Format("raw")
@@ -392,6 +392,61 @@ public class BrowseNodeDAOTest
     }
   }
 
+  @Test
+  public void testSwapInRebuildNodes() {
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      BrowseNodeDAO dao = session.access(TestBrowseNodeDAO.class);
+
+      BrowseNodeData delta = stagedNode(1, 0, "delta", "/d/");
+      BrowseNodeData deltaOne = stagedNode(2, 1, "one", "/d/1/");
+      deltaOne.dbComponentId = internalComponentId(component1);
+      BrowseNodeData deltaOneAlpha = stagedNode(3, 2, "alpha", "/d/1/a");
+      deltaOneAlpha.dbAssetId = internalAssetId(asset1);
+      dao.createRebuildNodes(1, asList(delta, deltaOne, deltaOneAlpha));
+
+      BrowseNodeData staged = dao.findRebuildNode(1, 1, "one");
+      assertThat(staged.getNodeId(), is(2L));
+      assertThat(staged.getPath(), is("/d/1/"));
+
+      deltaOneAlpha.dbAssetId = internalAssetId(asset2);
+      dao.updateRebuildNode(deltaOneAlpha);
+
+      session.getTransaction().commit();
+    }
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      BrowseNodeDAO dao = session.access(TestBrowseNodeDAO.class);
+
+      // staged nodes are not visible until they are swapped in
+      assertThat(getListing(dao).size(), is(3));
+
+      dao.deleteBrowseNodes(1, 0);
+      dao.copyRebuildNodes(1);
+      dao.linkRebuildNodes(1);
+      assertThat(dao.deleteRebuildNodes(1, 0), is(true));
+      session.getTransaction().commit();
+    }
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      BrowseNodeDAO dao = session.access(TestBrowseNodeDAO.class);
+
+      List<BrowseNode> listing = getListing(dao);
+      assertThat(listing, hasSize(1));
+      assertThat(listing.get(0).getPath(), is("/d/"));
+
+      listing = getListing(dao, "delta");
+      assertThat(listing, hasSize(1));
+      assertThat(listing.get(0).getComponentId(), is(toExternalId(internalComponentId(component1))));
+
+      listing = getListing(dao, "delta", "one");
+      assertThat(listing, hasSize(1));
+      assertThat(listing.get(0).getPath(), is("/d/1/a"));
+      assertThat(listing.get(0).getAssetId(), is(toExternalId(internalAssetId(asset2))));
+
+      assertThat(dao.findRebuildNode(1, 1, "one"), is(nullValue()));
+    }
+  }
+
   private List<BrowseNode> getListing(final BrowseNodeDAO dao, final String... paths) {
     List<BrowseNode> listing = dao.getByDisplayPath(1, asList(paths), 100, null, null);
     listing.sort(byName);
@@ -428,6 +483,21 @@ public class BrowseNodeDAOTest
     return node;
   }
 
+  private static BrowseNodeData stagedNode(
+      final long nodeId,
+      final long parentId,
+      final String displayName,
+      final String requestPath)
+  {
+    BrowseNodeData node = new BrowseNodeData();
+    node.setNodeId(nodeId);
+    node.setRepositoryId(1);
+    node.setParentId(parentId);
+    node.setDisplayName(displayName);
+    node.setRequestPath(requestPath);
+    return node;
+  }
+
   private boolean isPostgreSQL() {
     return getBoolean("test.postgres", false) ||
         getString("test.jdbcUrl", "").contains("postgresql");
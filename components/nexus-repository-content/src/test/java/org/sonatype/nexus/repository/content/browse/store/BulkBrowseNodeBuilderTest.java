@@ -0,0 +1,100 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.browse.store;
+
+import java.util.List;
+import java.util.stream.Collectors;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.browse.node.BrowsePath;
+
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class BulkBrowseNodeBuilderTest
+    extends TestSupport
+{
+  private static final List<BrowsePath> FIRST_JAR = asList(
+      new BrowsePath("org", "org/"),
+      new BrowsePath("foo", "org/foo/"),
+      new BrowsePath("a.jar", "org/foo/a.jar"));
+
+  private static final List<BrowsePath> SECOND_JAR = asList(
+      new BrowsePath("org", "org/"),
+      new BrowsePath("foo", "org/foo/"),
+      new BrowsePath("b.jar", "org/foo/b.jar"));
+
+  @Mock
+  private BrowseNodeStore<BrowseNodeDAO> browseNodeStore;
+
+  @Test
+  public void nodesAreDeduplicatedAndStagedInBatches() {
+    BrowseNodeData stagedOrg = new BrowseNodeData();
+    stagedOrg.setNodeId(1);
+    stagedOrg.setDisplayName("org");
+    stagedOrg.setRequestPath("org/");
+    when(browseNodeStore.findRebuildNode(1, 0L, "org")).thenReturn(stagedOrg);
+
+    try (BulkBrowseNodeBuilder underTest = new BulkBrowseNodeBuilder(browseNodeStore, 1, 2, 2)) {
+      underTest.createBrowseNodes(FIRST_JAR, node -> node.setPackageUrl("pkg:a"));
+      underTest.createBrowseNodes(SECOND_JAR, node -> node.setPackageUrl("pkg:b"));
+      // by now "org" has been evicted and staged, so it is read back instead of being created again
+      underTest.createBrowseNodes(SECOND_JAR.subList(0, 1), node -> { });
+      underTest.swap();
+    }
+
+    verify(browseNodeStore).findRebuildNode(1, 0L, "org");
+    verify(browseNodeStore, never()).findRebuildNode(eq(1), eq(1L), anyString());
+
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<BrowseNodeData>> created = ArgumentCaptor.forClass(List.class);
+    @SuppressWarnings("unchecked")
+    ArgumentCaptor<List<BrowseNodeData>> updated = ArgumentCaptor.forClass(List.class);
+    verify(browseNodeStore, times(3)).stageRebuildNodes(eq(1), created.capture(), updated.capture());
+
+    List<String> createdPaths = created.getAllValues().stream()
+        .flatMap(List::stream)
+        .map(BrowseNodeData::getPath)
+        .collect(Collectors.toList());
+    assertThat(createdPaths, containsInAnyOrder("org/", "org/foo/", "org/foo/a.jar", "org/foo/b.jar"));
+
+    // the final step marked the node read back from the staging table as changed
+    assertThat(updated.getAllValues().stream().mapToLong(List::size).sum(), is(1L));
+
+    verify(browseNodeStore).swapInRebuildNodes(1);
+    verify(browseNodeStore).deleteRebuildNodes(1);
+  }
+
+  @Test
+  public void stagedNodesAreDiscardedWhenNotSwappedIn() {
+    try (BulkBrowseNodeBuilder underTest = new BulkBrowseNodeBuilder(browseNodeStore, 1, 1, 1)) {
+      underTest.createBrowseNodes(FIRST_JAR, node -> { });
+    }
+
+    verify(browseNodeStore, never()).swapInRebuildNodes(anyInt());
+    verify(browseNodeStore, times(2)).deleteRebuildNodes(1);
+  }
+}
@@ -0,0 +1,175 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.fluent.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Random;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.common.io.InputStreamSupplier;
+import org.sonatype.nexus.mime.MimeRulesSource;
+import org.sonatype.nexus.mime.internal.DefaultMimeSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.content.facet.ContentFacetSupport;
+import org.sonatype.nexus.repository.mime.DefaultContentValidator;
+import org.sonatype.nexus.repository.view.payloads.TempBlob;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mock;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.blobstore.api.BlobStore.CONTENT_TYPE_HEADER;
+import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA1;
+
+/**
+ * Compares the blob store reads of validating the content type of ingested content by reading the temporary blob
+ * back, with detecting it from the leading bytes captured while the content was ingested.
+ */
+@Category(Perf.class)
+public class FluentBlobsImplPerfTest
+    extends TestSupport
+{
+  private static final int ROUNDS = 200;
+
+  private static final int ARTIFACT_SIZE = 4 * 1024 * 1024;
+
+  @Mock
+  private ContentFacetSupport facet;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private BlobStore blobStore;
+
+  private final AtomicInteger blobOpens = new AtomicInteger();
+
+  private final AtomicLong blobBytesRead = new AtomicLong();
+
+  private final DefaultContentValidator contentValidator = new DefaultContentValidator(new DefaultMimeSupport());
+
+  private FluentBlobsImpl underTest;
+
+  private byte[] artifact;
+
+  @Before
+  public void setUp() throws IOException {
+    when(facet.clientInfo()).thenReturn(Optional.empty());
+    when(facet.repository()).thenReturn(repository);
+    when(repository.getName()).thenReturn("maven-releases");
+    when(blobStore.create(any(InputStream.class), any())).thenAnswer(invocation -> {
+      byte[] content = ByteStreams.toByteArray(invocation.<InputStream>getArgument(0));
+      Map<String, String> headers = invocation.getArgument(1);
+      Blob blob = mock(Blob.class);
+      when(blob.getHeaders()).thenReturn(headers);
+      when(blob.getInputStream()).thenAnswer(i -> {
+        blobOpens.incrementAndGet();
+        return new FilterInputStream(new ByteArrayInputStream(content))
+        {
+          @Override
+          public int read() throws IOException {
+            int b = super.read();
+            if (b != -1) {
+              blobBytesRead.incrementAndGet();
+            }
+            return b;
+          }
+
+          @Override
+          public int read(final byte[] bytes, final int off, final int len) throws IOException {
+            int numRead = super.read(bytes, off, len);
+            blobBytesRead.addAndGet(Math.max(numRead, 0));
+            return numRead;
+          }
+        };
+      });
+      return blob;
+    });
+
+    underTest = new FluentBlobsImpl(facet, () -> blobStore);
+    artifact = jar(ARTIFACT_SIZE);
+  }
+
+  @Test
+  public void compareValidationReads() throws IOException {
+    try (TempBlob tempBlob = ingest()) {
+      assertThat(validate(tempBlob.getDetectionContent(), tempBlob), is(validate(tempBlob, tempBlob)));
+    }
+
+    String reread = measure(false);
+    String singlePass = measure(true);
+
+    log("{} ingests of {} KB -> reading the blob back: {}; single pass: {}", ROUNDS, ARTIFACT_SIZE / 1024, reread,
+        singlePass);
+  }
+
+  private String measure(final boolean singlePass) throws IOException {
+    blobOpens.set(0);
+    blobBytesRead.set(0);
+    long start = System.nanoTime();
+    for (int i = 0; i < ROUNDS; i++) {
+      try (TempBlob tempBlob = ingest()) {
+        validate(singlePass ? tempBlob.getDetectionContent() : tempBlob, tempBlob);
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    return String.format("%d blob opens, %d KB read back, %.1f ms/ingest", blobOpens.get(),
+        blobBytesRead.get() / 1024, elapsed / 1e6d / ROUNDS);
+  }
+
+  private TempBlob ingest() {
+    return underTest.ingest(new ByteArrayInputStream(artifact), "application/java-archive", singletonList(SHA1));
+  }
+
+  private String validate(final InputStreamSupplier content, final TempBlob tempBlob) throws IOException {
+    return contentValidator.determineContentType(true, content, MimeRulesSource.NOOP, "/org/example/lib-1.0.jar",
+        tempBlob.getBlob().getHeaders().get(CONTENT_TYPE_HEADER));
+  }
+
+  private static byte[] jar(final int size) throws IOException {
+    Random random = new Random(0);
+    ByteArrayOutputStream out = new ByteArrayOutputStream(size);
+    try (ZipOutputStream zip = new ZipOutputStream(out)) {
+      zip.setLevel(0);
+      byte[] entry = new byte[64 * 1024];
+      for (int i = 0; i < size / entry.length; i++) {
+        random.nextBytes(entry);
+        zip.putNextEntry(new ZipEntry("org/example/Class" + i + ".class"));
+        zip.write(entry);
+        zip.closeEntry();
+      }
+    }
+    return out.toByteArray();
+  }
+}
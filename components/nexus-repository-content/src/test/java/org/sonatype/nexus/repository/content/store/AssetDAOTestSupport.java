@@ -16,6 +16,7 @@ import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
@@ -383,6 +384,29 @@ public class AssetDAOTestSupport
     }
   }
 
+  public void testMarkAssetsAsDownloaded() {
+    AssetData asset1 = randomAsset(repositoryId);
+    AssetData asset2 = randomAsset(repositoryId);
+    AssetData asset3 = randomAsset(repositoryId);
+    asset2.setPath(asset1.path() + "/2");
+    asset3.setPath(asset1.path() + "/3");
+
+    try (DataSession<?> session = sessionRule.openSession(DEFAULT_DATASTORE_NAME)) {
+      AssetDAO dao = session.access(TestAssetDAO.class);
+      dao.createAsset(asset1, false);
+      dao.createAsset(asset2, false);
+      dao.createAsset(asset3, false);
+
+      dao.markAssetsAsDownloaded(Arrays.asList(asset1.assetId, asset3.assetId));
+
+      assertTrue(dao.readAsset(asset1.assetId).get().lastDownloaded().isPresent());
+      assertFalse(dao.readAsset(asset2.assetId).get().lastDownloaded().isPresent());
+      assertTrue(dao.readAsset(asset3.assetId).get().lastDownloaded().isPresent());
+
+      session.getTransaction().commit();
+    }
+  }
+
   public void testAttachingBlobs() throws InterruptedException {
 
     AssetBlobData assetBlob1 = randomAssetBlob();
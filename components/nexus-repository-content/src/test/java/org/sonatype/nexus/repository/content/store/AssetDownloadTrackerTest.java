@@ -0,0 +1,139 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.content.store;
+
+import java.util.Collection;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.scheduling.PeriodicJobService;
+import org.sonatype.nexus.common.scheduling.PeriodicJobService.PeriodicJob;
+import org.sonatype.nexus.repository.content.Asset;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class AssetDownloadTrackerTest
+    extends TestSupport
+{
+  @Mock
+  private PeriodicJobService periodicJobService;
+
+  @Mock
+  private PeriodicJob periodicJob;
+
+  @Mock
+  private AssetStore<?> assetStore;
+
+  private AssetData asset1;
+
+  private AssetData asset2;
+
+  @Before
+  public void setUp() {
+    when(periodicJobService.schedule(any(Runnable.class), anyInt())).thenReturn(periodicJob);
+
+    asset1 = asset(1, "/a");
+    asset2 = asset(2, "/b");
+  }
+
+  @Test
+  public void downloadsAreCoalescedUntilFlush() throws Exception {
+    AssetDownloadTracker underTest = new AssetDownloadTracker(periodicJobService, true, 5, 100, 100);
+    underTest.start();
+
+    underTest.markAsDownloaded(assetStore, asset1);
+    underTest.markAsDownloaded(assetStore, asset1);
+    underTest.markAsDownloaded(assetStore, asset2);
+
+    verify(assetStore, never()).markAsDownloaded(any(Asset.class));
+    assertThat(underTest.pendingDownloads(), is(2));
+
+    underTest.flush();
+
+    assertThat(flushedBatches(1).getValue(), containsInAnyOrder(asset1, asset2));
+    assertThat(underTest.pendingDownloads(), is(0));
+  }
+
+  @Test
+  public void flushIsBatched() throws Exception {
+    AssetDownloadTracker underTest = new AssetDownloadTracker(periodicJobService, true, 5, 100, 1);
+    underTest.start();
+
+    underTest.markAsDownloaded(assetStore, asset1);
+    underTest.markAsDownloaded(assetStore, asset2);
+    underTest.flush();
+
+    flushedBatches(2);
+  }
+
+  @Test
+  public void downloadsAreWrittenThroughWhenFull() throws Exception {
+    AssetDownloadTracker underTest = new AssetDownloadTracker(periodicJobService, true, 5, 1, 100);
+    underTest.start();
+
+    underTest.markAsDownloaded(assetStore, asset1);
+    underTest.markAsDownloaded(assetStore, asset2);
+
+    verify(assetStore).markAsDownloaded(asset2);
+    assertThat(underTest.pendingDownloads(), is(1));
+  }
+
+  @Test
+  public void downloadsAreWrittenThroughWhenDisabled() throws Exception {
+    AssetDownloadTracker underTest = new AssetDownloadTracker(periodicJobService, false, 5, 100, 100);
+    underTest.start();
+
+    underTest.markAsDownloaded(assetStore, asset1);
+
+    verify(assetStore).markAsDownloaded(asset1);
+    verify(periodicJobService, never()).startUsing();
+  }
+
+  @Test
+  public void pendingDownloadsAreFlushedOnStop() throws Exception {
+    AssetDownloadTracker underTest = new AssetDownloadTracker(periodicJobService, true, 5, 100, 100);
+    underTest.start();
+
+    underTest.markAsDownloaded(assetStore, asset1);
+    underTest.stop();
+
+    verify(periodicJob).cancel();
+    assertThat(flushedBatches(1).getValue(), containsInAnyOrder(asset1));
+  }
+
+  @SuppressWarnings({"unchecked", "rawtypes"})
+  private ArgumentCaptor<Collection<Asset>> flushedBatches(final int count) {
+    ArgumentCaptor<Collection<Asset>> captor = ArgumentCaptor.forClass((Class) Collection.class);
+    verify(assetStore, times(count)).markAsDownloaded(captor.capture());
+    return captor;
+  }
+
+  private static AssetData asset(final int assetId, final String path) {
+    AssetData asset = new AssetData();
+    asset.assetId = assetId;
+    asset.setPath(path);
+    return asset;
+  }
+}
@@ -91,6 +91,11 @@ public class UnversionedAssetDAOTest
     super.testBrowseEagerAssetsInRepository();
   }
 
+  @Test
+  public void testMarkAssetsAsDownloaded() {
+    super.testMarkAssetsAsDownloaded();
+  }
+
   @Test
   public void testSetLastDownloaded() {
     super.testSetLastDownloaded();
@@ -94,6 +94,11 @@ public class VersionedAssetDAOTest
     super.testBrowseEagerAssetsInRepository();
   }
 
+  @Test
+  public void testMarkAssetsAsDownloaded() {
+    super.testMarkAssetsAsDownloaded();
+  }
+
   @Test
   public void testSetLastDownloaded() {
     super.testSetLastDownloaded();
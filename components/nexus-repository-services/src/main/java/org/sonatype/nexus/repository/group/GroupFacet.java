@@ -57,6 +57,13 @@ public interface GroupFacet
    */
   List<Repository> leafMembers();
 
+  /**
+   * Returns {@code true} if requests to this group should be dispatched to its members concurrently.
+   *
+   * @since 3.77
+   */
+  boolean isParallelDispatch();
+
   /**
    * Removes all entries from the group cache and the member caches.
    */
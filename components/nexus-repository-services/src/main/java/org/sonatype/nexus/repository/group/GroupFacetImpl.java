@@ -75,10 +75,16 @@ public class GroupFacetImpl
     @JsonDeserialize(as = LinkedHashSet.class) // retain order
     public Set<String> memberNames;
 
+    /**
+     * @since 3.77
+     */
+    public boolean parallelDispatch;
+
     @Override
     public String toString() {
       return getClass().getSimpleName() + "{" +
           "memberNames=" + memberNames +
+          ", parallelDispatch=" + parallelDispatch +
           '}';
     }
   }
@@ -189,6 +195,12 @@ public class GroupFacetImpl
     return config.memberNames.contains(repository.getName());
   }
 
+  @Override
+  @Guarded(by = STARTED)
+  public boolean isParallelDispatch() {
+    return config.parallelDispatch;
+  }
+
   @Override
   @Guarded(by = STARTED)
   public List<Repository> members() {
@@ -12,23 +12,34 @@
  */
 package org.sonatype.nexus.repository.group;
 
+import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
 import javax.annotation.Nonnull;
+import javax.annotation.Nullable;
+import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
 import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.common.collect.AttributesMap;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.http.HttpResponses;
 import org.sonatype.nexus.repository.view.Context;
 import org.sonatype.nexus.repository.view.Handler;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
 
+import com.codahale.metrics.Timer;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Throwables;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 
@@ -58,22 +69,34 @@ public class GroupHandler
 
   /**
    * Request-context state container for set of repositories already dispatched to.
+   *
+   * Shared by all member requests of a parallel dispatch, so access is synchronized.
    */
   @VisibleForTesting
   public static class DispatchedRepositories
   {
     private final Set<String> dispatched = Sets.newLinkedHashSet();
 
-    public void add(final Repository repository) {
+    public synchronized void add(final Repository repository) {
       dispatched.add(repository.getName());
     }
 
-    public boolean contains(final Repository repository) {
+    /**
+     * Adds the repository unless it was already dispatched to.
+     *
+     * @return {@code true} if the repository was added
+     * @since 3.77
+     */
+    public synchronized boolean addIfAbsent(final Repository repository) {
+      return dispatched.add(repository.getName());
+    }
+
+    public synchronized boolean contains(final Repository repository) {
       return dispatched.contains(repository.getName());
     }
 
     @Override
-    public String toString() {
+    public synchronized String toString() {
       return dispatched.toString();
     }
 
@@ -82,11 +105,23 @@ public class GroupHandler
      *
      * @return Unmodifiable {@link Set} of Dispatched repository names.
      */
-    public Set<String> getDispatched() {
-      return unmodifiableSet(dispatched);
+    public synchronized Set<String> getDispatched() {
+      return unmodifiableSet(Sets.newLinkedHashSet(dispatched));
     }
   }
 
+  private GroupMemberDispatcher memberDispatcher;
+
+  /**
+   * Enables concurrent member dispatch for groups which opt in via {@link GroupFacet#isParallelDispatch()}.
+   *
+   * @since 3.77
+   */
+  @Inject
+  public void setMemberDispatcher(@Nullable final GroupMemberDispatcher memberDispatcher) {
+    this.memberDispatcher = memberDispatcher;
+  }
+
   @Nonnull
   @Override
   public Response handle(@Nonnull final Context context) throws Exception {
@@ -126,6 +161,9 @@ public class GroupHandler
       @Nonnull final DispatchedRepositories dispatched) throws Exception
   {
     final Request request = context.getRequest();
+    if (isParallelDispatch(context)) {
+      return getFirstParallel(request, context, members, dispatched);
+    }
     for (Repository member : members) {
       log.trace("Trying member: {}", member);
       // track repositories we have dispatched to, prevent circular dispatch for nested groups
@@ -174,6 +212,9 @@ public class GroupHandler
       @Nonnull final Iterable<Repository> members,
       @Nonnull final DispatchedRepositories dispatched) throws Exception
   {
+    if (isParallelDispatch(context)) {
+      return getAllParallel(request, context, members, dispatched);
+    }
     final LinkedHashMap<Repository, Response> responses = Maps.newLinkedHashMap();
     for (Repository member : members) {
       log.trace("Trying member: {}", member);
@@ -193,6 +234,184 @@ public class GroupHandler
     return responses;
   }
 
+  private boolean isParallelDispatch(final Context context) {
+    return memberDispatcher != null && memberDispatcher.isAvailable() &&
+        context.getRepository().optionalFacet(GroupFacet.class).map(GroupFacet::isParallelDispatch).orElse(false);
+  }
+
+  /**
+   * Concurrent variant of {@link #getFirst(Context, List, DispatchedRepositories)}; member order still decides which
+   * response wins, and the responses of lower priority members are discarded once it is known.
+   */
+  private Response getFirstParallel(
+      final Request request,
+      final Context context,
+      final Iterable<Repository> members,
+      final DispatchedRepositories dispatched) throws Exception
+  {
+    try (Timer.Context ignored = memberDispatcher.fanOutTimer(context.getRepository()).time()) {
+      List<MemberRequest> memberRequests = dispatchAll(request, context, members, dispatched);
+      try {
+        for (int i = 0; i < memberRequests.size(); i++) {
+          Response response = memberRequests.get(i).await();
+          if (isValidResponse(response)) {
+            discard(memberRequests.subList(i + 1, memberRequests.size()));
+            return response;
+          }
+        }
+      }
+      catch (Exception e) {
+        discard(memberRequests);
+        throw e;
+      }
+    }
+    return notFoundResponse(context);
+  }
+
+  /**
+   * Concurrent variant of {@link #getAll(Request, Context, Iterable, DispatchedRepositories)}.
+   */
+  private LinkedHashMap<Repository, Response> getAllParallel(
+      final Request request,
+      final Context context,
+      final Iterable<Repository> members,
+      final DispatchedRepositories dispatched) throws Exception
+  {
+    final LinkedHashMap<Repository, Response> responses = Maps.newLinkedHashMap();
+    try (Timer.Context ignored = memberDispatcher.fanOutTimer(context.getRepository()).time()) {
+      List<MemberRequest> memberRequests = dispatchAll(request, context, members, dispatched);
+      try {
+        for (MemberRequest memberRequest : memberRequests) {
+          responses.put(memberRequest.member, memberRequest.await());
+        }
+      }
+      catch (Exception e) {
+        discard(memberRequests);
+        throw e;
+      }
+    }
+    return responses;
+  }
+
+  /**
+   * Starts a request to each member not dispatched to yet. Members the pool has no thread for are left to the
+   * sequential path: they run on the calling thread once their response is awaited, and not at all if a higher
+   * priority member answers first.
+   */
+  private List<MemberRequest> dispatchAll(
+      final Request request,
+      final Context context,
+      final Iterable<Repository> members,
+      final DispatchedRepositories dispatched)
+  {
+    // claim every member up front so nested groups racing on other threads see the same set as a sequential walk
+    List<Repository> dispatchedMembers = new ArrayList<>();
+    for (Repository member : members) {
+      log.trace("Trying member: {}", member);
+      // track repositories we have dispatched to, prevent circular dispatch for nested groups
+      if (!dispatched.addIfAbsent(member)) {
+        log.trace("Skipping already dispatched member: {}", member);
+        continue;
+      }
+      dispatchedMembers.add(member);
+    }
+
+    List<MemberRequest> memberRequests = new ArrayList<>(dispatchedMembers.size());
+    for (Repository member : dispatchedMembers) {
+      // each member gets its own attributes, but shares the dispatched repositories with the rest of the fan-out
+      Request memberRequest = new Request.Builder()
+          .copy(request)
+          .attributes(new AttributesMap(new HashMap<>(request.getAttributes().backing())))
+          .build();
+      ViewFacet view = member.facet(ViewFacet.class);
+      MemberRequest dispatch = new MemberRequest(member, () -> {
+        Response response = view.dispatch(memberRequest, context);
+        log.trace("Member {} response {}", member, response.getStatus());
+        return response;
+      });
+      dispatch.deferred = !memberDispatcher.tryExecute(dispatch);
+      memberRequests.add(dispatch);
+    }
+    return memberRequests;
+  }
+
+  /**
+   * Gives up on member requests whose response is no longer needed, releasing any content they produce. Requests
+   * already running are left to finish, and release their own response once they see it was discarded.
+   */
+  private void discard(final List<MemberRequest> memberRequests) {
+    for (MemberRequest memberRequest : memberRequests) {
+      if (!memberRequest.response.cancel(false) && !memberRequest.response.isCompletedExceptionally()) {
+        release(memberRequest.response.join());
+      }
+    }
+  }
+
+  private void release(final Response response) {
+    Payload payload = response.getPayload();
+    if (payload != null) {
+      try {
+        payload.close();
+      }
+      catch (Exception e) {
+        log.debug("Failed to release discarded member response", e);
+      }
+    }
+  }
+
+  /**
+   * A request to one group member, run on the {@link GroupMemberDispatcher} pool or, if it was {@link #deferred}, by
+   * the thread awaiting its response.
+   */
+  private class MemberRequest
+      implements Runnable
+  {
+    private final Repository member;
+
+    private final Callable<Response> dispatch;
+
+    private final CompletableFuture<Response> response = new CompletableFuture<>();
+
+    private boolean deferred;
+
+    MemberRequest(final Repository member, final Callable<Response> dispatch) {
+      this.member = member;
+      this.dispatch = dispatch;
+    }
+
+    @Override
+    public void run() {
+      if (response.isDone()) {
+        // discarded before it started
+        return;
+      }
+      try {
+        Response result = dispatch.call();
+        if (!response.complete(result)) {
+          // discarded while in flight, nobody is going to read it
+          release(result);
+        }
+      }
+      catch (Throwable e) { // NOSONAR
+        response.completeExceptionally(e);
+      }
+    }
+
+    Response await() throws Exception {
+      if (deferred) {
+        run();
+      }
+      try {
+        return response.get();
+      }
+      catch (ExecutionException e) {
+        Throwables.throwIfInstanceOf(e.getCause(), Exception.class);
+        Throwables.throwIfUnchecked(e.getCause());
+        throw e;
+      }
+    }
+  }
+
   /**
    * Returns standard 404 with no message. Override for format specific messaging.
    */
@@ -0,0 +1,120 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.group;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.SynchronousQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.ThreadPoolExecutor.AbortPolicy;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.goodies.lifecycle.LifecycleSupport;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+
+import static com.codahale.metrics.MetricRegistry.name;
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.SERVICES;
+
+/**
+ * Shared, bounded executor used by {@link GroupHandler} to fan requests out to group members concurrently, for
+ * groups that have opted in via {@link GroupFacet#isParallelDispatch()}.
+ *
+ * The pool has no queue; when every thread is busy the member request is refused and {@link GroupHandler} leaves it to
+ * the sequential path, which keeps nested groups from deadlocking on the pool and degrades to the sequential behaviour
+ * under load.
+ *
+ * @since 3.77
+ */
+@Named
+@Singleton
+@ManagedLifecycle(phase = SERVICES)
+public class GroupMemberDispatcher
+    extends LifecycleSupport
+{
+  private final MetricRegistry metricRegistry;
+
+  private final int maxThreads;
+
+  private ExecutorService executor;
+
+  @Inject
+  public GroupMemberDispatcher(
+      final MetricRegistry metricRegistry,
+      @Named("${nexus.group.parallelDispatch.maxThreads:-64}") final int maxThreads)
+  {
+    this.metricRegistry = checkNotNull(metricRegistry);
+    checkArgument(maxThreads > 0, "maxThreads must be positive");
+    this.maxThreads = maxThreads;
+  }
+
+  @Override
+  protected void doStart() throws Exception {
+    ThreadPoolExecutor threadPool = new ThreadPoolExecutor(
+        0,
+        maxThreads,
+        60L,
+        SECONDS,
+        new SynchronousQueue<>(),
+        new NexusThreadFactory("group-dispatch", "group-dispatch"),
+        new AbortPolicy());
+    executor = NexusExecutorService.forCurrentSubject(threadPool);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    executor.shutdownNow();
+    executor = null;
+  }
+
+  /**
+   * Returns {@code true} if member requests can currently be submitted.
+   */
+  public boolean isAvailable() {
+    return isStarted();
+  }
+
+  /**
+   * Runs a member request on the pool, unless no pool thread is available.
+   *
+   * @return {@code false} if the request was refused, in which case it is up to the caller to run it
+   */
+  public boolean tryExecute(final Runnable memberRequest) {
+    ensureStarted();
+    try {
+      executor.execute(memberRequest);
+      return true;
+    }
+    catch (RejectedExecutionException e) {
+      log.trace("No thread available for member request, leaving it to the caller", e);
+      return false;
+    }
+  }
+
+  /**
+   * Returns the timer recording fan-out latency for the given group.
+   */
+  public Timer fanOutTimer(final Repository group) {
+    return metricRegistry.timer(name(GroupHandler.class, group.getName(), "fanout"));
+  }
+}
@@ -14,12 +14,14 @@ package org.sonatype.nexus.repository.manager.internal;
 
 import java.util.Collection;
 import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Set;
+import java.util.function.Function;
 import java.util.stream.Stream;
 import javax.annotation.Nullable;
 import javax.inject.Inject;
@@ -57,15 +59,20 @@ import org.sonatype.nexus.repository.manager.RepositoryManager;
 import org.sonatype.nexus.repository.manager.RepositoryRestoredEvent;
 import org.sonatype.nexus.repository.manager.RepositoryUpdatedEvent;
 import org.sonatype.nexus.repository.view.ViewFacet;
+import org.sonatype.nexus.thread.DependencyOrderedRunner;
 
 import com.google.common.collect.ImmutableList;
 import com.google.common.collect.Maps;
 import com.google.common.eventbus.Subscribe;
 import org.joda.time.DateTime;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
 import static com.google.common.base.Preconditions.checkState;
+import static java.util.Map.Entry.comparingByValue;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import static java.util.stream.Collectors.joining;
 import static java.util.stream.StreamSupport.stream;
 import static org.sonatype.nexus.blobstore.api.BlobStoreManager.DEFAULT_BLOBSTORE_NAME;
 import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.REPOSITORIES;
@@ -96,6 +103,12 @@ public class RepositoryManagerImpl
 
   public static final String CLEANUP_NAME_KEY = "policyName";
 
+  private static final String GROUP_KEY = "group";
+
+  private static final String MEMBER_NAMES_KEY = "memberNames";
+
+  private static final int SLOWEST_REPORTED = 5;
+
   private final FreezeService freezeService;
 
   private final EventManager eventManager;
@@ -124,6 +137,8 @@ public class RepositoryManagerImpl
 
   private final HttpAuthenticationPasswordEncoder httpAuthenticationPasswordEncoder;
 
+  private final int startupThreads;
+
   @Inject
   public RepositoryManagerImpl(
       final EventManager eventManager,
@@ -138,7 +153,8 @@ public class RepositoryManagerImpl
       final BlobStoreManager blobStoreManager,
       final GroupMemberMappingCache groupMemberMappingCache,
       final List<ConfigurationValidator> configurationValidators,
-      final HttpAuthenticationPasswordEncoder httpAuthenticationPasswordEncoder)
+      final HttpAuthenticationPasswordEncoder httpAuthenticationPasswordEncoder,
+      @Named("${nexus.repository.startup.maxThreads:-8}") final int startupThreads)
   {
     this.eventManager = checkNotNull(eventManager);
     this.store = checkNotNull(store);
@@ -153,6 +169,8 @@ public class RepositoryManagerImpl
     this.groupMemberMappingCache = checkNotNull(groupMemberMappingCache);
     this.configurationValidators = checkNotNull(configurationValidators);
     this.httpAuthenticationPasswordEncoder = checkNotNull(httpAuthenticationPasswordEncoder);
+    checkArgument(startupThreads > 0, "startupThreads must be positive");
+    this.startupThreads = startupThreads;
   }
 
   /**
@@ -271,25 +289,77 @@ public class RepositoryManagerImpl
     }
   }
 
+  /**
+   * Restores repositories on a bounded pool. Repositories don't resolve their group members until they're used, so
+   * every repository can be restored independently.
+   */
   private void restoreRepositories(final List<Configuration> configurations) throws Exception {
     log.debug("Restoring {} repositories", configurations.size());
-    for (Configuration configuration : configurations) {
-      log.debug("Restoring repository: {}", configuration);
-      Repository repository = newRepository(configuration);
-      track(repository);
+    long start = System.nanoTime();
+    Map<Configuration, Long> timings = startupRunner().run(configurations, configuration -> List.of(),
+        configuration -> {
+          log.debug("Restoring repository: {}", configuration);
+          Repository repository = newRepository(configuration);
+          track(repository);
 
-      eventManager.post(new RepositoryLoadedEvent(repository));
-    }
+          eventManager.post(new RepositoryLoadedEvent(repository));
+        });
+    logTimings("Restored", timings, Configuration::getRepositoryName, start);
   }
 
+  /**
+   * Starts repositories on a bounded pool, starting each group only once all of its members have started.
+   */
   private void startRepositories() throws Exception {
     log.debug("Starting {} repositories", repositories.size());
-    for (Repository repository : repositories.values()) {
-      log.debug("Starting repository: {}", repository);
-      repository.start();
+    long start = System.nanoTime();
+    Map<Repository, Long> timings = startupRunner().run(repositories.values(), this::startupMembers,
+        repository -> {
+          log.debug("Starting repository: {}", repository);
+          repository.start();
 
-      eventManager.post(new RepositoryRestoredEvent(repository));
+          eventManager.post(new RepositoryRestoredEvent(repository));
+        });
+    logTimings("Started", timings, Repository::getName, start);
+  }
+
+  private DependencyOrderedRunner startupRunner() {
+    return new DependencyOrderedRunner("repository-startup", startupThreads);
+  }
+
+  /**
+   * The tracked members of a group repository, read from its configuration as the group facet may not be started.
+   */
+  private Collection<Repository> startupMembers(final Repository repository) {
+    NestedAttributesMap groupAttributes = repository.getConfiguration().attributes(GROUP_KEY);
+    Collection<?> memberNames = groupAttributes != null
+        ? groupAttributes.get(MEMBER_NAMES_KEY, Collection.class)
+        : null;
+    if (memberNames == null) {
+      return List.of();
+    }
+    return memberNames.stream()
+        .map(name -> repositories.get(name.toString().toLowerCase()))
+        .filter(Objects::nonNull)
+        .toList();
+  }
+
+  private <T> void logTimings(
+      final String action,
+      final Map<T, Long> timings,
+      final Function<T, String> name,
+      final long start)
+  {
+    if (log.isDebugEnabled()) {
+      timings.forEach((node, millis) -> log.debug("{} repository {} in {} ms", action, name.apply(node), millis));
     }
+    String slowest = timings.entrySet().stream()
+        .sorted(comparingByValue(Comparator.reverseOrder()))
+        .limit(SLOWEST_REPORTED)
+        .map(entry -> name.apply(entry.getKey()) + " (" + entry.getValue() + " ms)")
+        .collect(joining(", "));
+    log.info("{} {} repositories in {} ms using up to {} threads, slowest: {}", action, timings.size(),
+        NANOSECONDS.toMillis(System.nanoTime() - start), startupThreads, slowest);
   }
 
   @Override
@@ -33,6 +33,7 @@ import javax.ws.rs.core.Context;
 import javax.ws.rs.core.MultivaluedHashMap;
 import javax.ws.rs.core.MultivaluedMap;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
 import javax.ws.rs.core.UriInfo;
 
 import org.sonatype.goodies.common.ComponentSupport;
@@ -60,6 +61,9 @@ import org.sonatype.nexus.repository.search.query.SearchFilter;
 import org.sonatype.nexus.rest.Page;
 import org.sonatype.nexus.rest.Resource;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
 import com.google.common.annotations.VisibleForTesting;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -91,6 +95,16 @@ public class SearchResource
 
   public static final String SEARCH_AND_DOWNLOAD_URI = "/assets/download";
 
+  public static final String EXPORT_URI = "/export";
+
+  public static final String NDJSON = "application/x-ndjson";
+
+  private static final int EXPORT_PAGE_SIZE = 500;
+
+  private final ObjectWriter exportWriter = new ObjectMapper()
+      .disable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS)
+      .writer();
+
   private final SearchUtils searchUtils;
 
   private final SearchResultFilterUtils searchResultFilterUtils;
@@ -176,6 +190,37 @@ public class SearchResource
     return new AssetDownloadResponseProcessor(assets.getItems(), !Strings2.isEmpty(sort)).process();
   }
 
+  /**
+   * @since 3.77
+   */
+  @GET
+  @Path(EXPORT_URI)
+  @Produces(NDJSON)
+  @Override
+  public Response export(@QueryParam(SORT_FIELD) final String sort,
+                         @QueryParam(SORT_DIRECTION) final String direction,
+                         @Context final UriInfo uriInfo)
+  {
+    List<SearchFilter> searchFilters = searchUtils.getSearchFilters(uriInfo);
+    fireSearchEvent(searchFilters);
+
+    StreamingOutput output = out -> {
+      String continuationToken = null;
+      do {
+        SearchResponse response = doSearch(searchFilters, continuationToken, sort, direction, EXPORT_PAGE_SIZE);
+        for (ComponentSearchResult componentHit : response.getSearchResults()) {
+          out.write(exportWriter.writeValueAsBytes(toComponent(componentHit)));
+          out.write('\n');
+        }
+        out.flush();
+        continuationToken = response.getContinuationToken();
+      }
+      while (continuationToken != null);
+    };
+
+    return Response.ok(output).build();
+  }
+
   private Page<AssetXO> assetSearch(
       final String continuationToken,
       final String sort,
@@ -210,10 +255,20 @@ public class SearchResource
     List<SearchFilter> searchFilters = searchUtils.getSearchFilters(uriInfo);
     fireSearchEvent(searchFilters);
 
+    return doSearch(searchFilters, continuationToken, sort, direction, getPageSize());
+  }
+
+  private SearchResponse doSearch(
+      final List<SearchFilter> searchFilters,
+      @Nullable final String continuationToken,
+      final String sort,
+      final String direction,
+      final int limit)
+  {
     SearchRequest request = SearchRequest.builder()
         .searchFilters(searchFilters)
         .continuationToken(continuationToken)
-        .limit(getPageSize())
+        .limit(limit)
         .sortField(sort)
         .sortDirection(Optional.ofNullable(direction)
             .map(String::toUpperCase)
@@ -41,24 +41,53 @@ public class TokenEncoder
       return 0;
     }
     else {
-      String decoded = new String(Hex.decode(continuationToken), UTF_8);
-      String[] decodedParts = decoded.split(":");
-      if (decodedParts.length != 2) {
-        throw new WebApplicationException(format("Unable to parse token %s", continuationToken), NOT_ACCEPTABLE);
-      }
-      if (!decodedParts[1].equals(getHashCode(query))) {
-        throw new WebApplicationException(
-            format("Continuation token %s does not match this query", continuationToken), NOT_ACCEPTABLE);
-      }
-      return parseInt(decodedParts[0]);
+      return parseInt(decodeParts(continuationToken, query)[0]);
     }
   }
 
+  /**
+   * Returns the search cursor carried by the token, null when the token only carries an offset.
+   *
+   * @since 3.77
+   */
+  @Nullable
+  public String decodeCursor(@Nullable final String continuationToken, final QueryBuilder query) {
+    if (continuationToken == null) {
+      return null;
+    }
+    String[] decodedParts = decodeParts(continuationToken, query);
+    return decodedParts.length == 3 ? decodedParts[2] : null;
+  }
+
   public String encode(final int lastFrom, final int pageSize, final QueryBuilder query) {
     int index = lastFrom + pageSize;
     return Hex.encode(format("%s:%s", Integer.toString(index), getHashCode(query)).getBytes(UTF_8));
   }
 
+  /**
+   * Encodes a token for the next page of a cursor search. The offset is kept alongside the cursor so the search can
+   * carry on by offset should the cursor have expired.
+   *
+   * @since 3.77
+   */
+  public String encode(final int lastFrom, final int pageSize, final QueryBuilder query, final String cursor) {
+    int index = lastFrom + pageSize;
+    return Hex.encode(format("%s:%s:%s", Integer.toString(index), getHashCode(query), cursor).getBytes(UTF_8));
+  }
+
+  private String[] decodeParts(final String continuationToken, final QueryBuilder query) {
+    String decoded = new String(Hex.decode(continuationToken), UTF_8);
+    String[] decodedParts = decoded.split(":");
+    if (decodedParts.length != 2 && decodedParts.length != 3) {
+      throw new WebApplicationException(format("Unable to parse token %s", continuationToken), NOT_ACCEPTABLE);
+    }
+    if (!decodedParts[1].equals(getHashCode(query))) {
+      throw new WebApplicationException(
+          format("Continuation token %s does not match this query", continuationToken), NOT_ACCEPTABLE);
+    }
+    return decodedParts;
+  }
+
   private String getHashCode(final QueryBuilder query) {
     return MD5.function().hashString(query.toString(), UTF_8).toString();
   }
@@ -89,4 +89,14 @@ public interface SearchResourceDoc
       @ApiParam(value = TIMEOUT_DESCRIPTION, allowEmptyValue = true)
       final Integer timeout,
       @Context final UriInfo uriInfo);
+
+  @ApiOperation(value = "Export components",
+      notes = "Streams every component matching the search as newline delimited JSON, one component per line, " +
+          "so that large result sets can be exported without paging.")
+  Response export(
+      @ApiParam(value = SORT_DESCRIPTION, allowEmptyValue = true, allowableValues = ALLOWABLE_SORT_VALUES)
+      final String sort,
+      @ApiParam(value = DIRECTION_DESCRIPTION, allowEmptyValue = true, allowableValues = ALLOWABLE_SORT_DIRECTIONS)
+      final String direction,
+      @Context final UriInfo uriInfo);
 }
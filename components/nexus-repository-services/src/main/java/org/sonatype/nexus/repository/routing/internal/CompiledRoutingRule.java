@@ -0,0 +1,216 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.routing.internal;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+import java.util.regex.PatternSyntaxException;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.routing.RoutingMode;
+import org.sonatype.nexus.repository.routing.RoutingRule;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A {@link RoutingRule} whose matchers have been compiled once, so evaluating a request path doesn't recompile every
+ * regex the way {@link String#matches(String)} does.
+ *
+ * Matchers are split into three groups, checked cheapest first:
+ * <ul>
+ * <li>plain literals, which are looked up in a set</li>
+ * <li>patterns starting with a literal prefix, which are only run when the path starts with that prefix</li>
+ * <li>everything else, combined into a single alternation where that doesn't change the meaning of the pattern</li>
+ * </ul>
+ * Every matcher keeps the full-match semantics of {@link String#matches(String)}.
+ *
+ * @since 3.77
+ */
+final class CompiledRoutingRule
+{
+  private static final String METACHARACTERS = "\\^$.|?*+()[]{}";
+
+  private static final String OPTIONAL_QUANTIFIERS = "?*{";
+
+  // constructs whose meaning depends on the rest of the pattern, so they can't be wrapped in an alternation
+  private static final Pattern NOT_COMBINABLE = Pattern.compile("\\\\[1-9]|\\\\k<|\\\\Q|\\(\\?<[a-zA-Z]|#|\\n");
+
+  @Nullable
+  private final RoutingRule routingRule;
+
+  private final RoutingMode mode;
+
+  private final Set<String> literals = new HashSet<>();
+
+  private final List<String> prefixes = new ArrayList<>();
+
+  private final List<Pattern> prefixed = new ArrayList<>();
+
+  private final List<Pattern> unprefixed = new ArrayList<>();
+
+  private final List<String> invalid = new ArrayList<>();
+
+  private CompiledRoutingRule(@Nullable final RoutingRule routingRule,
+                              final RoutingMode mode,
+                              final List<String> matchers)
+  {
+    this.routingRule = routingRule;
+    this.mode = checkNotNull(mode);
+
+    List<String> combinable = new ArrayList<>();
+    for (String matcher : matchers) {
+      Pattern pattern;
+      try {
+        pattern = Pattern.compile(matcher);
+      }
+      catch (PatternSyntaxException e) { // NOSONAR
+        // keep the original behaviour of failing when the rule is evaluated, not when it is loaded
+        invalid.add(matcher);
+        continue;
+      }
+
+      String prefix = literalPrefix(matcher);
+      if (isLiteral(matcher, prefix)) {
+        literals.add(prefix);
+      }
+      else if (!prefix.isEmpty()) {
+        prefixes.add(prefix);
+        prefixed.add(pattern);
+      }
+      else if (NOT_COMBINABLE.matcher(matcher).find()) {
+        unprefixed.add(pattern);
+      }
+      else {
+        combinable.add(matcher);
+      }
+    }
+
+    if (combinable.size() == 1) {
+      unprefixed.add(Pattern.compile(combinable.get(0)));
+    }
+    else if (!combinable.isEmpty()) {
+      try {
+        unprefixed.add(Pattern.compile("(?:" + String.join(")|(?:", combinable) + ")"));
+      }
+      catch (PatternSyntaxException e) { // NOSONAR
+        combinable.forEach(matcher -> unprefixed.add(Pattern.compile(matcher)));
+      }
+    }
+  }
+
+  static CompiledRoutingRule compile(final RoutingRule routingRule) {
+    return new CompiledRoutingRule(routingRule, routingRule.mode(), routingRule.matchers());
+  }
+
+  static CompiledRoutingRule compile(final RoutingMode mode, final List<String> matchers) {
+    return new CompiledRoutingRule(null, mode, matchers);
+  }
+
+  /**
+   * The rule this was compiled from, or null when compiled from a bare list of matchers.
+   */
+  @Nullable
+  RoutingRule getRoutingRule() {
+    return routingRule;
+  }
+
+  /**
+   * @return true when the path matches any of the matchers of this rule
+   */
+  boolean matches(final String path) {
+    if (literals.contains(path)) {
+      return true;
+    }
+    for (int i = 0; i < prefixed.size(); i++) {
+      if (path.startsWith(prefixes.get(i)) && prefixed.get(i).matcher(path).matches()) {
+        return true;
+      }
+    }
+    for (Pattern pattern : unprefixed) {
+      if (pattern.matcher(path).matches()) {
+        return true;
+      }
+    }
+    for (String matcher : invalid) {
+      if (path.matches(matcher)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * @return true when this rule lets a request for the path through
+   */
+  boolean isAllowed(final String path) {
+    boolean matches = matches(path);
+    return (!matches && mode == RoutingMode.BLOCK) || (matches && mode == RoutingMode.ALLOW);
+  }
+
+  /**
+   * Returns the literal text every match of the regex must start with, which may be empty.
+   */
+  static String literalPrefix(final String regex) {
+    if (regex.indexOf('|') >= 0) {
+      // a top-level alternation would make any prefix optional
+      return "";
+    }
+
+    StringBuilder prefix = new StringBuilder();
+    int i = regex.startsWith("^") ? 1 : 0;
+    while (i < regex.length()) {
+      char c = regex.charAt(i);
+      int next;
+      if (c == '\\') {
+        if (i + 1 >= regex.length() || Character.isLetterOrDigit(regex.charAt(i + 1))) {
+          break;
+        }
+        c = regex.charAt(i + 1);
+        next = i + 2;
+      }
+      else if (METACHARACTERS.indexOf(c) >= 0) {
+        break;
+      }
+      else {
+        next = i + 1;
+      }
+
+      if (next < regex.length()) {
+        char quantifier = regex.charAt(next);
+        if (OPTIONAL_QUANTIFIERS.indexOf(quantifier) >= 0) {
+          break;
+        }
+        if (quantifier == '+') {
+          prefix.append(c);
+          break;
+        }
+      }
+      prefix.append(c);
+      i = next;
+    }
+    return prefix.toString();
+  }
+
+  private static boolean isLiteral(final String regex, final String prefix) {
+    String body = regex.startsWith("^") ? regex.substring(1) : regex;
+    if (body.endsWith("$") && !body.endsWith("\\$")) {
+      body = body.substring(0, body.length() - 1);
+    }
+    // only unescaped literals read back the same as the prefix derived from them
+    return body.equals(prefix);
+  }
+}
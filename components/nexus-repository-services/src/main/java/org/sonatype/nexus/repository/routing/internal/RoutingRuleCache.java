@@ -40,7 +40,8 @@ import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
  * An in-memory cache of the RoutingRule assigned to a Repository. Uses events to know when to invalidate the
- * cache.
+ * cache. Rules are cached in their {@link CompiledRoutingRule compiled} form, so their matchers are only compiled
+ * when the rule is first loaded.
  *
  * @since 3.17
  */
@@ -53,7 +54,7 @@ public class RoutingRuleCache
   private final LoadingCache<Repository, Optional<EntityId>> repositoryAssignedCache =
       CacheBuilder.newBuilder().build(new RepositoryMappingCacheLoader());
 
-  private final LoadingCache<EntityId, Optional<RoutingRule>> routingRuleCache =
+  private final LoadingCache<EntityId, Optional<CompiledRoutingRule>> routingRuleCache =
       CacheBuilder.newBuilder().build(new RoutingRuleCacheLoader());
 
   private final RoutingRuleStore routingRuleStore;
@@ -71,8 +72,19 @@ public class RoutingRuleCache
    */
   @Nullable
   public RoutingRule getRoutingRule(final Repository repository) {
+    CompiledRoutingRule compiledRoutingRule = getCompiledRoutingRule(repository);
+    return compiledRoutingRule != null ? compiledRoutingRule.getRoutingRule() : null;
+  }
+
+  /**
+   * Retrieves the compiled form of the routing rule assigned to a repository or null if one is not assigned.
+   *
+   * @since 3.77
+   */
+  @Nullable
+  CompiledRoutingRule getCompiledRoutingRule(final Repository repository) {
     try {
-      return repositoryAssignedCache.get(repository).map(this::getRoutingRule).orElse(null);
+      return repositoryAssignedCache.get(repository).map(this::getCompiledRoutingRule).orElse(null);
     }
     catch (ExecutionException e) {
       log.error("An error occurred retrieving the routing rule for repository: {}", repository.getName(), e);
@@ -97,7 +109,7 @@ public class RoutingRuleCache
     }
   }
 
-  private RoutingRule getRoutingRule(final EntityId id) {
+  private CompiledRoutingRule getCompiledRoutingRule(final EntityId id) {
     try {
       return routingRuleCache.get(id).orElse(null);
     }
@@ -135,11 +147,11 @@ public class RoutingRuleCache
   }
 
   private class RoutingRuleCacheLoader
-      extends CacheLoader<EntityId, Optional<RoutingRule>>
+      extends CacheLoader<EntityId, Optional<CompiledRoutingRule>>
   {
     @Override
-    public Optional<RoutingRule> load(final EntityId key) throws Exception {
-      return Optional.ofNullable(routingRuleStore.getById(key.getValue()));
+    public Optional<CompiledRoutingRule> load(final EntityId key) throws Exception {
+      return Optional.ofNullable(routingRuleStore.getById(key.getValue())).map(CompiledRoutingRule::compile);
     }
   }
 }
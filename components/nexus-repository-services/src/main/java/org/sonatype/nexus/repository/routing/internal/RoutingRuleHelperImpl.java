@@ -68,23 +68,22 @@ public class RoutingRuleHelperImpl
 
   @Override
   public boolean isAllowed(final Repository repository, final String path) {
-    RoutingRule routingRule = routingRuleCache.getRoutingRule(repository);
+    CompiledRoutingRule routingRule = routingRuleCache.getCompiledRoutingRule(repository);
 
     if (routingRule == null) {
       return true;
     }
 
-    return isAllowed(routingRule, path);
+    return routingRule.isAllowed(path);
   }
 
   public boolean isAllowed(final RoutingRule routingRule, final String path) {
-    return isAllowed(routingRule.mode(), routingRule.matchers(), path);
+    return CompiledRoutingRule.compile(routingRule).isAllowed(path);
   }
 
   @Override
   public boolean isAllowed(final RoutingMode mode, final List<String> matchers, final String path) {
-    boolean matches = matchers.stream().anyMatch(path::matches);
-    return (!matches && mode == RoutingMode.BLOCK) || (matches && mode == RoutingMode.ALLOW);
+    return CompiledRoutingRule.compile(mode, matchers).isAllowed(path);
   }
 
   @Override
@@ -26,6 +26,7 @@ import java.util.Optional;
 import java.util.Set;
 import java.util.stream.Collectors;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
@@ -40,6 +41,7 @@ import org.sonatype.nexus.repository.search.SearchRequest;
 import org.sonatype.nexus.repository.search.SearchResponse;
 import org.sonatype.nexus.repository.search.SearchService;
 import org.sonatype.nexus.repository.search.index.ElasticSearchIndexService;
+import org.sonatype.nexus.repository.search.query.CursorSearchResponse;
 import org.sonatype.nexus.repository.search.query.ElasticSearchQueryService;
 import org.sonatype.nexus.repository.search.query.ElasticSearchUtils;
 
@@ -64,6 +66,12 @@ public class ElasticSearchServiceImpl
 {
   private static final DateTimeFormatter DATE_TIME_FORMATTER = ofPattern("uuuu-MM-dd'T'HH:mm:ss.SSSZ");
 
+  /**
+   * Stands in for the cursor in the token of a first page, which is fetched by offset; the cursor is only opened once
+   * the next page is asked for, so callers that only want the first page don't leave one open.
+   */
+  private static final String OPEN_CURSOR = "open";
+
   private final ElasticSearchQueryService elasticSearchQueryService;
 
   private final ElasticSearchIndexService elasticSearchIndexService;
@@ -93,6 +101,13 @@ public class ElasticSearchServiceImpl
   public SearchResponse search(final SearchRequest searchRequest) {
     QueryBuilder queryBuilder = elasticSearchUtils.buildQuery(searchRequest);
 
+    if (searchRequest.getOffset() == null) {
+      SearchResponse response = searchWithCursor(searchRequest, queryBuilder);
+      if (response != null) {
+        return response;
+      }
+    }
+
     int from = Optional.ofNullable(searchRequest.getContinuationToken())
         .filter(Strings2::notBlank)
         .map(__ -> decodeFrom(searchRequest, queryBuilder))
@@ -103,6 +118,60 @@ public class ElasticSearchServiceImpl
     return convertSearchResponse(searchResponse, continuationToken(searchRequest, queryBuilder, searchResponse));
   }
 
+  /**
+   * Pages through the results with a search cursor, so later pages cost no more than the first. Returns null to fall
+   * back to paging by offset when the token predates cursors or its cursor has expired.
+   */
+  @Nullable
+  private SearchResponse searchWithCursor(final SearchRequest searchRequest, final QueryBuilder queryBuilder) {
+    String token = Optional.ofNullable(searchRequest.getContinuationToken()).filter(Strings2::notBlank).orElse(null);
+    if (token == null) {
+      return firstPage(searchRequest, queryBuilder);
+    }
+    int from = tokenEncoder.decode(token, queryBuilder);
+    String cursor = tokenEncoder.decodeCursor(token, queryBuilder);
+    if (cursor == null) {
+      return null;
+    }
+
+    CursorSearchResponse page = OPEN_CURSOR.equals(cursor)
+        ? openCursor(queryBuilder, from, searchRequest.getLimit())
+        : elasticSearchQueryService.searchWithCursor(queryBuilder, cursor, searchRequest.getLimit());
+    if (page == null) {
+      return null;
+    }
+
+    String continuationToken = page.getCursor() != null
+        ? tokenEncoder.encode(from, searchRequest.getLimit(), queryBuilder, page.getCursor())
+        : null;
+    return convertSearchResponse(page.getResponse(), continuationToken);
+  }
+
+  private SearchResponse firstPage(final SearchRequest searchRequest, final QueryBuilder queryBuilder) {
+    org.elasticsearch.action.search.SearchResponse searchResponse =
+        elasticSearchQueryService.search(queryBuilder, 0, searchRequest.getLimit());
+    String continuationToken = searchRequest.getLimit() == searchResponse.getHits().hits().length
+        ? tokenEncoder.encode(0, searchRequest.getLimit(), queryBuilder, OPEN_CURSOR)
+        : null;
+    return convertSearchResponse(searchResponse, continuationToken);
+  }
+
+  /**
+   * Opens a cursor and moves it past the pages already served by offset. Returns null when the results no longer
+   * reach that far, so the page is fetched by offset instead.
+   */
+  @Nullable
+  private CursorSearchResponse openCursor(final QueryBuilder queryBuilder, final int from, final int size) {
+    CursorSearchResponse page = elasticSearchQueryService.searchWithCursor(queryBuilder, null, size);
+    for (int skipped = 0; skipped < from; skipped += size) {
+      if (page == null || page.getCursor() == null) {
+        return null;
+      }
+      page = elasticSearchQueryService.searchWithCursor(queryBuilder, page.getCursor(), size);
+    }
+    return page;
+  }
+
   @Override
   public Iterable<ComponentSearchResult> browse(final SearchRequest searchRequest) {
     Iterable<SearchHit> browse = elasticSearchQueryService.browse(elasticSearchUtils.buildQuery(searchRequest));
@@ -0,0 +1,50 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.query;
+
+import javax.annotation.Nullable;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * A page of results returned by {@link ElasticSearchQueryService#searchWithCursor(QueryBuilder, String, int)}.
+ *
+ * @since 3.77
+ */
+public class CursorSearchResponse
+{
+  private final SearchResponse response;
+
+  @Nullable
+  private final String cursor;
+
+  public CursorSearchResponse(final SearchResponse response, @Nullable final String cursor) {
+    this.response = checkNotNull(response);
+    this.cursor = cursor;
+  }
+
+  public SearchResponse getResponse() {
+    return response;
+  }
+
+  /**
+   * The cursor to pass in for the next page, null when this was the last page.
+   */
+  @Nullable
+  public String getCursor() {
+    return cursor;
+  }
+}
@@ -14,6 +14,8 @@ package org.sonatype.nexus.repository.search.query;
 
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.elasticsearch.action.search.SearchResponse;
 import org.elasticsearch.index.query.QueryBuilder;
 import org.elasticsearch.search.SearchHit;
@@ -36,6 +38,17 @@ public interface ElasticSearchQueryService
    */
   SearchResponse search(QueryBuilder query, int from, int size);
 
+  /**
+   * Search component metadata a page at a time through a server-side cursor, so a page costs the same to fetch
+   * wherever it falls in the results and paging isn't limited by the maximum result window.
+   *
+   * @param cursor returned with the previous page, null to start from the first page
+   * @return the page, or null when the cursor is unknown, has expired or belongs to another subject
+   * @since 3.77
+   */
+  @Nullable
+  CursorSearchResponse searchWithCursor(QueryBuilder query, @Nullable String cursor, int size);
+
   /**
    * Search component metadata (aggregated).
    */
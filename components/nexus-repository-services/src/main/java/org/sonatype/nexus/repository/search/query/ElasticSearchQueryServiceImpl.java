@@ -18,6 +18,8 @@ import java.util.Iterator;
 import java.util.List;
 import java.util.Map.Entry;
 import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.UUID;
 import java.util.concurrent.TimeUnit;
 import java.util.function.Consumer;
 import java.util.stream.Stream;
@@ -40,6 +42,10 @@ import org.sonatype.nexus.repository.security.RepositoryViewPermission;
 import org.sonatype.nexus.security.SecurityHelper;
 
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.cache.RemovalNotification;
+import org.apache.shiro.subject.Subject;
 import org.elasticsearch.action.admin.indices.validate.query.ValidateQueryRequestBuilder;
 import org.elasticsearch.action.admin.indices.validate.query.ValidateQueryResponse;
 import org.elasticsearch.action.search.ClearScrollRequest;
@@ -97,6 +103,10 @@ public class ElasticSearchQueryServiceImpl
 
   private final boolean profile;
 
+  private final TimeValue cursorKeepAlive;
+
+  private final Cache<String, ScrollCursor> cursors;
+
   private static final int MAX_ELASTIC_RESPONSE_SIZE = 10000;
 
   /**
@@ -106,6 +116,8 @@ public class ElasticSearchQueryServiceImpl
    * @param searchSubjectHelper the searchSubjectHelper
    * @param indexNamingPolicy the index naming policy
    * @param profile whether or not to profile elasticsearch queries (default: false)
+   * @param cursorKeepAliveSeconds how long a search cursor stays open after its last page was fetched
+   * @param maxCursors the maximum number of search cursors open at once, the oldest are closed beyond that
    */
   @Inject
   public ElasticSearchQueryServiceImpl(final Provider<Client> client,
@@ -113,7 +125,10 @@ public class ElasticSearchQueryServiceImpl
                                        final SecurityHelper securityHelper,
                                        final SearchSubjectHelper searchSubjectHelper,
                                        final IndexNamingPolicy indexNamingPolicy,
-                                       @Named("${nexus.elasticsearch.profile:-false}") final boolean profile)
+                                       @Named("${nexus.elasticsearch.profile:-false}") final boolean profile,
+                                       @Named("${nexus.elasticsearch.cursor.keepAlive:-300}")
+                                       final int cursorKeepAliveSeconds,
+                                       @Named("${nexus.elasticsearch.cursor.max:-1000}") final int maxCursors)
   {
     this.client = checkNotNull(client);
     this.repositoryManager = checkNotNull(repositoryManager);
@@ -121,6 +136,12 @@ public class ElasticSearchQueryServiceImpl
     this.searchSubjectHelper = checkNotNull(searchSubjectHelper);
     this.indexNamingPolicy = checkNotNull(indexNamingPolicy);
     this.profile = profile;
+    this.cursorKeepAlive = new TimeValue(cursorKeepAliveSeconds, TimeUnit.SECONDS);
+    this.cursors = CacheBuilder.newBuilder()
+        .maximumSize(maxCursors)
+        .expireAfterWrite(cursorKeepAliveSeconds, TimeUnit.SECONDS)
+        .removalListener(this::cursorRemoved)
+        .build();
   }
 
   @Override
@@ -160,6 +181,107 @@ public class ElasticSearchQueryServiceImpl
     }
   }
 
+  @Nullable
+  @Override
+  public CursorSearchResponse searchWithCursor(final QueryBuilder query, @Nullable final String cursor, final int size) {
+    if (cursor != null) {
+      return continueSearch(cursor, size);
+    }
+
+    if (!validateQuery(query)) {
+      return new CursorSearchResponse(EMPTY_SEARCH_RESPONSE, null);
+    }
+
+    RepositoryQueryBuilder repoQuery = repositoryQuery(query);
+    final String[] searchableIndexes = getSearchableIndexes(repoQuery);
+    if (searchableIndexes.length == 0) {
+      return new CursorSearchResponse(EMPTY_SEARCH_RESPONSE, null);
+    }
+
+    // content selectors are checked on every page, so the subject stays registered for as long as the cursor is open
+    SubjectRegistration registration = null;
+    QueryBuilder selectorFilter = null;
+    if (!repoQuery.skipContentSelectors) {
+      registration = searchSubjectHelper.register(securityHelper.subject());
+      selectorFilter = scriptQuery(ContentAuthPluginScriptFactory.newScript(registration.getId()));
+    }
+
+    SearchResponse searchResponse;
+    try {
+      searchResponse = prepareSearch(repoQuery, searchableIndexes, selectorFilter)
+          .setScroll(cursorKeepAlive)
+          .setSize(size)
+          .execute().actionGet();
+    }
+    catch (RuntimeException e) {
+      if (registration != null) {
+        registration.close();
+      }
+      throw e;
+    }
+
+    if (profile) {
+      logProfileResults(searchResponse);
+    }
+
+    return nextPage(UUID.randomUUID().toString(),
+        new ScrollCursor(searchResponse.getScrollId(), registration, currentPrincipal()), searchResponse, size);
+  }
+
+  @Nullable
+  private CursorSearchResponse continueSearch(final String cursor, final int size) {
+    // taking the cursor out while the page is fetched keeps concurrent requests from reading the same page twice
+    ScrollCursor scrollCursor = cursors.asMap().remove(cursor);
+    if (scrollCursor == null) {
+      log.debug("Search cursor {} is unknown or has expired", cursor);
+      return null;
+    }
+    if (!Objects.equals(scrollCursor.principal, currentPrincipal())) {
+      log.debug("Search cursor {} belongs to another subject", cursor);
+      cursors.put(cursor, scrollCursor);
+      return null;
+    }
+
+    SearchResponse searchResponse;
+    try {
+      searchResponse = client.get().prepareSearchScroll(scrollCursor.scrollId)
+          .setScroll(cursorKeepAlive)
+          .execute().actionGet();
+    }
+    catch (RuntimeException e) {
+      scrollCursor.close();
+      throw e;
+    }
+
+    return nextPage(cursor, scrollCursor.next(searchResponse.getScrollId()), searchResponse, size);
+  }
+
+  private CursorSearchResponse nextPage(final String cursor,
+                                        final ScrollCursor scrollCursor,
+                                        final SearchResponse searchResponse,
+                                        final int size)
+  {
+    if (searchResponse.getHits().hits().length < size) {
+      scrollCursor.close();
+      return new CursorSearchResponse(searchResponse, null);
+    }
+    cursors.put(cursor, scrollCursor);
+    return new CursorSearchResponse(searchResponse, cursor);
+  }
+
+  private void cursorRemoved(final RemovalNotification<String, ScrollCursor> notification) {
+    if (notification.wasEvicted()) {
+      log.debug("Closing search cursor {}: {}", notification.getKey(), notification.getCause());
+      notification.getValue().close();
+    }
+  }
+
+  @Nullable
+  private Object currentPrincipal() {
+    Subject subject = securityHelper.subject();
+    return subject != null ? subject.getPrincipal() : null;
+  }
+
   @Override
   public SearchResponse search(final QueryBuilder query, final List<AggregationBuilder> aggregations) {
     if (!validateQuery(query)) {
@@ -188,12 +310,26 @@ public class ElasticSearchQueryServiceImpl
                                        final String[] searchableIndexes,
                                        final int from, final int size,
                                        @Nullable final QueryBuilder postFilter)
+  {
+    SearchResponse searchResponse = prepareSearch(repoQuery, searchableIndexes, postFilter)
+        .setFrom(from)
+        .setSize(size)
+        .execute().actionGet();
+
+    if (profile) {
+      logProfileResults(searchResponse);
+    }
+
+    return searchResponse;
+  }
+
+  private SearchRequestBuilder prepareSearch(final RepositoryQueryBuilder repoQuery,
+                                             final String[] searchableIndexes,
+                                             @Nullable final QueryBuilder postFilter)
   {
     SearchRequestBuilder searchRequestBuilder = client.get().prepareSearch(searchableIndexes)
         .setTypes(TYPE)
         .setQuery(repoQuery)
-        .setFrom(from)
-        .setSize(size)
         .setProfile(profile);
 
     if (repoQuery.sort != null) {
@@ -210,13 +346,7 @@ public class ElasticSearchQueryServiceImpl
       searchRequestBuilder.setTimeout(repoQuery.timeout.getSeconds() + "s");
     }
 
-    SearchResponse searchResponse = searchRequestBuilder.execute().actionGet();
-
-    if (profile) {
-      logProfileResults(searchResponse);
-    }
-
-    return searchResponse;
+    return searchRequestBuilder;
   }
 
   private SearchResponse executeSearch(final RepositoryQueryBuilder repoQuery,
@@ -450,4 +580,47 @@ public class ElasticSearchQueryServiceImpl
       }
     }
   }
+
+  /**
+   * An open scroll backing a search cursor, along with the subject registration its content selector checks use.
+   */
+  private class ScrollCursor
+  {
+    private final String scrollId;
+
+    @Nullable
+    private final SubjectRegistration registration;
+
+    @Nullable
+    private final Object principal;
+
+    ScrollCursor(final String scrollId,
+                 @Nullable final SubjectRegistration registration,
+                 @Nullable final Object principal)
+    {
+      this.scrollId = checkNotNull(scrollId);
+      this.registration = registration;
+      this.principal = principal;
+    }
+
+    ScrollCursor next(final String nextScrollId) {
+      return new ScrollCursor(nextScrollId, registration, principal);
+    }
+
+    void close() {
+      try {
+        ClearScrollRequest clearScrollRequest = new ClearScrollRequest();
+        clearScrollRequest.addScrollId(scrollId);
+        client.get().clearScroll(clearScrollRequest).actionGet();
+      }
+      catch (Exception e) {
+        log.debug("Unable to close scroll id {}", scrollId, e);
+      }
+      finally {
+        if (registration != null) {
+          registration.close();
+        }
+      }
+    }
+  }
 }
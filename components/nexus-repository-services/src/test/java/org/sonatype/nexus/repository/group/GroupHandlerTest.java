@@ -13,15 +13,25 @@
 package org.sonatype.nexus.repository.group;
 
 import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.CyclicBarrier;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.group.GroupHandler.DispatchedRepositories;
 import org.sonatype.nexus.repository.view.Context;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.ViewFacet;
 
+import com.codahale.metrics.MetricRegistry;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.Mock;
@@ -29,7 +39,13 @@ import org.mockito.Mock;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.is;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
@@ -63,6 +79,17 @@ public class GroupHandlerTest
   @Mock
   private ViewFacet viewFacet2;
 
+  @Mock
+  private Repository group;
+
+  @Mock
+  private GroupFacet groupFacet;
+
+  @Mock
+  private Subject subject;
+
+  private GroupMemberDispatcher memberDispatcher;
+
   private GroupHandler underTest;
 
   @Before
@@ -152,6 +179,167 @@ public class GroupHandlerTest
     verify(viewFacet2, times(0)).dispatch(request, context);
   }
 
+  @Test
+  public void parallelDispatchRunsMembersConcurrently() throws Exception {
+    setupParallelDispatch();
+    CyclicBarrier barrier = new CyclicBarrier(2);
+    Response ok1 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      barrier.await(5, TimeUnit.SECONDS);
+      return ok1;
+    });
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      barrier.await(5, TimeUnit.SECONDS);
+      return ok();
+    });
+
+    assertGetFirst(ok1);
+  }
+
+  @Test
+  public void parallelDispatchPrefersMemberOrder() throws Exception {
+    setupParallelDispatch();
+    CountDownLatch secondDone = new CountDownLatch(1);
+    Payload discardedPayload = mock(Payload.class);
+    Response ok1 = ok();
+    Response ok2 = ok(discardedPayload);
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondDone.await(5, TimeUnit.SECONDS);
+      return ok1;
+    });
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondDone.countDown();
+      return ok2;
+    });
+
+    assertGetFirst(ok1);
+    verify(discardedPayload, timeout(5000)).close();
+  }
+
+  @Test
+  public void parallelDispatchReleasesResponsesThatArriveAfterTheWinner() throws Exception {
+    setupParallelDispatch();
+    CountDownLatch secondStarted = new CountDownLatch(1);
+    CountDownLatch firstReturned = new CountDownLatch(1);
+    Payload latePayload = mock(Payload.class);
+    Response ok1 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondStarted.await(5, TimeUnit.SECONDS);
+      return ok1;
+    });
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondStarted.countDown();
+      // not interrupted when discarded, so this only returns once the winner is known
+      firstReturned.await(5, TimeUnit.SECONDS);
+      return ok(latePayload);
+    });
+
+    assertGetFirst(ok1);
+    firstReturned.countDown();
+    verify(latePayload, timeout(5000)).close();
+  }
+
+  @Test
+  public void parallelDispatchRunsMembersSequentiallyWhenThePoolIsFull() throws Exception {
+    setupParallelDispatch(1);
+    AtomicReference<Thread> secondThread = new AtomicReference<>();
+    Response ok2 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      Thread.sleep(200);
+      return notFound();
+    });
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondThread.set(Thread.currentThread());
+      return ok2;
+    });
+
+    assertGetFirst(ok2);
+    assertThat(secondThread.get(), is(Thread.currentThread()));
+  }
+
+  @Test
+  public void parallelDispatchSkipsQueuedMembersOnceAnEarlierMemberAnswers() throws Exception {
+    setupParallelDispatch(1);
+    Response ok1 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      Thread.sleep(200);
+      return ok1;
+    });
+
+    assertGetFirst(ok1);
+    verify(viewFacet2, never()).dispatch(any(Request.class), eq(context));
+  }
+
+  @Test
+  public void parallelDispatchFallsBackToLaterMembers() throws Exception {
+    setupParallelDispatch();
+    Response ok2 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenReturn(notFound());
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenReturn(ok2);
+
+    assertGetFirst(ok2);
+  }
+
+  @Test
+  public void parallelDispatchSkipsAlreadyDispatchedMembers() throws Exception {
+    setupParallelDispatch();
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenReturn(ok());
+    DispatchedRepositories dispatched = new DispatchedRepositories();
+    dispatched.add(proxy1);
+
+    assertThat(underTest.getFirst(context, asList(proxy1, proxy2), dispatched).getStatus().isSuccessful(), is(true));
+    verify(viewFacet1, times(0)).dispatch(any(Request.class), eq(context));
+    assertThat(dispatched.getDispatched(), contains("Proxy 1", "Proxy 2"));
+  }
+
+  @Test
+  public void parallelGetAllKeepsMemberOrder() throws Exception {
+    setupParallelDispatch();
+    CountDownLatch secondDone = new CountDownLatch(1);
+    Response notFound1 = notFound();
+    Response ok2 = ok();
+    when(viewFacet1.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondDone.await(5, TimeUnit.SECONDS);
+      return notFound1;
+    });
+    when(viewFacet2.dispatch(any(Request.class), eq(context))).thenAnswer(invocation -> {
+      secondDone.countDown();
+      return ok2;
+    });
+
+    List<Response> responses =
+        List.copyOf(underTest.getAll(context, asList(proxy1, proxy2), new DispatchedRepositories()).values());
+
+    assertThat(responses, contains(notFound1, ok2));
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    if (memberDispatcher != null) {
+      memberDispatcher.stop();
+    }
+    ThreadContext.unbindSubject();
+  }
+
+  private void setupParallelDispatch() throws Exception {
+    setupParallelDispatch(4);
+  }
+
+  private void setupParallelDispatch(final int maxThreads) throws Exception {
+    when(subject.associateWith(any(Runnable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+
+    memberDispatcher = new GroupMemberDispatcher(new MetricRegistry(), maxThreads);
+    memberDispatcher.start();
+    underTest.setMemberDispatcher(memberDispatcher);
+
+    when(context.getRequest()).thenReturn(new Request.Builder().action("GET").path("/foo").build());
+    when(context.getRepository()).thenReturn(group);
+    when(group.getName()).thenReturn("group");
+    when(group.optionalFacet(GroupFacet.class)).thenReturn(Optional.of(groupFacet));
+    when(groupFacet.isParallelDispatch()).thenReturn(true);
+  }
+
   private void setupDispatch(final Response response1, final Response response2) throws Exception {
     when(viewFacet1.dispatch(request, context)).thenReturn(response1);
     when(viewFacet2.dispatch(request, context)).thenReturn(response2);
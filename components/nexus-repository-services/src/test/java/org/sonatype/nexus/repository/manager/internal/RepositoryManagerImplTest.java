@@ -22,7 +22,9 @@ import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Optional;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 import javax.inject.Provider;
@@ -69,6 +71,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertFalse;
 import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.doAnswer;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.times;
@@ -198,6 +201,8 @@ public class RepositoryManagerImplTest
   @Mock
   private HttpAuthenticationPasswordEncoder httpAuthenticationPasswordEncoder;
 
+  private int startupThreads = 1;
+
   //Subject of the test
   private RepositoryManagerImpl repositoryManager;
 
@@ -306,7 +311,7 @@ public class RepositoryManagerImplTest
     repositoryManager = new RepositoryManagerImpl(eventManager, configurationStore, repositoryFactory,
         configurationFacetProvider, ImmutableMap.of(recipeName, recipe), securityContributor,
         defaultRepositoriesContributorList, freezeService, skipDefaultRepositories, blobStoreManager,
-        groupMemberMappingCache, Collections.emptyList(), httpAuthenticationPasswordEncoder);
+        groupMemberMappingCache, Collections.emptyList(), httpAuthenticationPasswordEncoder, startupThreads);
 
     repositoryManager.doStart();
     return repositoryManager;
@@ -344,6 +349,25 @@ public class RepositoryManagerImplTest
     verify(thirdPartyRepository).start();
   }
 
+  @Test
+  public void testParallelStartupStartsGroupsAfterTheirMembers() throws Exception {
+    Queue<String> started = new ConcurrentLinkedQueue<>();
+    for (Repository repository : asList(mavenCentralRepository, apacheSnapshotsRepository, thirdPartyRepository,
+        groupRepository, parentGroupRepository, cycleGroupA, cycleGroupB, ungroupedRepository)) {
+      doAnswer(invocation -> started.add(repository.getName())).when(repository).start();
+    }
+    startupThreads = 4;
+
+    repositoryManager = buildRepositoryManagerImpl(true);
+
+    assertThat(size(repositoryManager.browse()), equalTo(8));
+    List<String> order = List.copyOf(started);
+    assertThat(order.size(), equalTo(8));
+    assertThat(order.indexOf(MAVEN_CENTRAL_NAME) < order.indexOf(GROUP_NAME), is(true));
+    assertThat(order.indexOf(APACHE_SNAPSHOTS_NAME) < order.indexOf(GROUP_NAME), is(true));
+    assertThat(order.indexOf(GROUP_NAME) < order.indexOf(PARENT_GROUP_NAME), is(true));
+  }
+
   @Test
   public void testStartup_createsDefaultRepositoriesWhenEmpty() throws Exception {
     repositoryManager = buildRepositoryManagerImpl(false);
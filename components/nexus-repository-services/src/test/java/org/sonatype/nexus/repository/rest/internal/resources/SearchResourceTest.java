@@ -0,0 +1,162 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.rest.internal.resources;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import javax.ws.rs.core.Response;
+import javax.ws.rs.core.StreamingOutput;
+import javax.ws.rs.core.UriInfo;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.event.EventManager;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.rest.api.ComponentXOFactory;
+import org.sonatype.nexus.repository.search.ComponentSearchResult;
+import org.sonatype.nexus.repository.search.SearchRequest;
+import org.sonatype.nexus.repository.search.SearchResponse;
+import org.sonatype.nexus.repository.search.SearchService;
+import org.sonatype.nexus.repository.search.SearchUtils;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyString;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link SearchResource#export(String, String, UriInfo)}.
+ */
+public class SearchResourceTest
+    extends TestSupport
+{
+  @Mock
+  private SearchUtils searchUtils;
+
+  @Mock
+  private SearchResultFilterUtils searchResultFilterUtils;
+
+  @Mock
+  private SearchService searchService;
+
+  @Mock
+  private EventManager eventManager;
+
+  @Mock
+  private UriInfo uriInfo;
+
+  @Mock
+  private Repository repository;
+
+  private SearchResource underTest;
+
+  @Before
+  public void setup() {
+    when(repository.getName()).thenReturn("releases");
+    when(searchUtils.getRepository(anyString())).thenReturn(repository);
+    when(searchUtils.getSearchFilters(uriInfo)).thenReturn(Collections.emptyList());
+
+    underTest = new SearchResource(searchUtils, searchResultFilterUtils, searchService,
+        new ComponentXOFactory(Collections.emptySet()), Collections.emptySet(), eventManager, null);
+  }
+
+  @Test
+  public void exportWritesOneLinePerComponentAcrossPages() throws Exception {
+    when(searchService.search(any())).thenReturn(
+        response("page-2", component("a"), component("b")),
+        response(null, component("c")));
+
+    List<String> lines = Arrays.asList(export().split("\n"));
+
+    assertThat(lines.size(), is(3));
+    assertThat(lines.get(0), containsString("\"name\":\"a\""));
+    assertThat(lines.get(1), containsString("\"name\":\"b\""));
+    assertThat(lines.get(2), containsString("\"name\":\"c\""));
+
+    ArgumentCaptor<SearchRequest> requests = ArgumentCaptor.forClass(SearchRequest.class);
+    verify(searchService, times(2)).search(requests.capture());
+    assertThat(requests.getAllValues().get(0).getContinuationToken(), nullValue());
+    assertThat(requests.getAllValues().get(1).getContinuationToken(), is("page-2"));
+    verify(eventManager).post(any());
+  }
+
+  @Test
+  public void exportOfNoComponentsIsEmpty() throws Exception {
+    when(searchService.search(any())).thenReturn(response(null));
+
+    assertThat(export(), is(""));
+    verify(searchService).search(any());
+  }
+
+  @Test
+  public void exportStopsSearchingWhenTheClientGoesAway() throws Exception {
+    when(searchService.search(any())).thenReturn(response("page-2", component("a")));
+    StreamingOutput output = (StreamingOutput) underTest.export(null, null, uriInfo).getEntity();
+
+    try {
+      output.write(new OutputStream()
+      {
+        @Override
+        public void write(final int b) throws IOException {
+          throw new IOException("Broken pipe");
+        }
+      });
+      throw new AssertionError("Expected the export to fail");
+    }
+    catch (IOException e) {
+      assertThat(e.getMessage(), is("Broken pipe"));
+    }
+
+    verify(searchService).search(any());
+  }
+
+  private String export() throws IOException {
+    Response response = underTest.export(null, null, uriInfo);
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    ((StreamingOutput) response.getEntity()).write(out);
+    return out.toString(UTF_8);
+  }
+
+  private static ComponentSearchResult component(final String name) {
+    ComponentSearchResult component = new ComponentSearchResult();
+    component.setId(name + "-id");
+    component.setRepositoryName("releases");
+    component.setFormat("maven2");
+    component.setGroup("org.example");
+    component.setName(name);
+    component.setVersion("1.0");
+    return component;
+  }
+
+  private static SearchResponse response(final String continuationToken, final ComponentSearchResult... components) {
+    SearchResponse response = new SearchResponse();
+    response.setSearchResults(Arrays.asList(components));
+    response.setContinuationToken(continuationToken);
+    return response;
+  }
+}
@@ -0,0 +1,82 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.rest.internal.resources;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.common.io.Hex;
+
+import org.elasticsearch.index.query.QueryBuilder;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
+
+/**
+ * Tests for {@link TokenEncoder}.
+ */
+public class TokenEncoderTest
+    extends TestSupport
+{
+  private final QueryBuilder query = matchAllQuery();
+
+  private final TokenEncoder underTest = new TokenEncoder();
+
+  @Test
+  public void noTokenStartsAtTheBeginning() {
+    assertThat(underTest.decode(null, query), is(0));
+    assertThat(underTest.decodeCursor(null, query), nullValue());
+  }
+
+  @Test
+  public void cursorTokensRoundTrip() {
+    String token = underTest.encode(50, 50, query, "3f0c2a1e-cursor");
+
+    assertThat(underTest.decode(token, query), is(100));
+    assertThat(underTest.decodeCursor(token, query), is("3f0c2a1e-cursor"));
+  }
+
+  @Test
+  public void offsetTokensCarryNoCursor() {
+    String token = underTest.encode(0, 50, query);
+
+    assertThat(underTest.decode(token, query), is(50));
+    assertThat(underTest.decodeCursor(token, query), nullValue());
+  }
+
+  @Test
+  public void offsetTokensOfEarlierVersionsAreStillAccepted() {
+    String hash = new String(Hex.decode(underTest.encode(0, 0, query)), UTF_8).split(":")[1];
+    String token = Hex.encode(("150:" + hash).getBytes(UTF_8));
+
+    assertThat(underTest.decode(token, query), is(150));
+    assertThat(underTest.decodeCursor(token, query), nullValue());
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void cursorTokensOfAnotherQueryAreRejected() {
+    String token = underTest.encode(0, 50, query, "cursor");
+
+    underTest.decodeCursor(token, termQuery("name", "other"));
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void malformedTokensAreRejected() {
+    underTest.decode(Hex.encode("1:2:3:4".getBytes(UTF_8)), query);
+  }
+}
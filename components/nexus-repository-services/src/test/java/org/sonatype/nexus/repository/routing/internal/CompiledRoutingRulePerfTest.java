@@ -0,0 +1,111 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.routing.internal;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.function.Predicate;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+import org.sonatype.nexus.repository.routing.RoutingMode;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares {@link CompiledRoutingRule} with evaluating each matcher through {@link String#matches(String)}, for a
+ * routing rule with several dozen matchers of the kinds seen in practice.
+ */
+@Category(Perf.class)
+public class CompiledRoutingRulePerfTest
+    extends TestSupport
+{
+  private static final int GROUP_PREFIXES = 40;
+
+  private static final int CONTAINS_MATCHERS = 10;
+
+  private static final int LITERAL_MATCHERS = 10;
+
+  private static final int WARMUP_ROUNDS = 20_000;
+
+  private static final int MEASURED_ROUNDS = 200_000;
+
+  private final List<String> matchers = new ArrayList<>();
+
+  private final List<String> paths = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    for (int i = 0; i < GROUP_PREFIXES; i++) {
+      matchers.add("^/com/example/team" + i + "/.*");
+    }
+    for (int i = 0; i < CONTAINS_MATCHERS; i++) {
+      matchers.add(".*/internal-" + i + "/.*");
+    }
+    for (int i = 0; i < LITERAL_MATCHERS; i++) {
+      matchers.add("/org/example/pinned/" + i + "/artifact-" + i + ".jar");
+    }
+
+    Random random = new Random(0);
+    for (int i = 0; i < 1_000; i++) {
+      switch (random.nextInt(4)) {
+        case 0:
+          paths.add("/com/example/team" + random.nextInt(GROUP_PREFIXES * 2) + "/lib/1.0/lib-1.0.jar");
+          break;
+        case 1:
+          paths.add("/org/acme/internal-" + random.nextInt(CONTAINS_MATCHERS * 2) + "/x/1.0/x-1.0.pom");
+          break;
+        case 2:
+          paths.add("/org/example/pinned/" + random.nextInt(LITERAL_MATCHERS * 2) + "/artifact-1.jar");
+          break;
+        default:
+          paths.add("/org/apache/commons/commons-lang3/3." + i + "/commons-lang3-3." + i + ".jar");
+      }
+    }
+  }
+
+  @Test
+  public void compareCompiledAndStringMatches() {
+    CompiledRoutingRule compiled = CompiledRoutingRule.compile(RoutingMode.BLOCK, matchers);
+
+    Predicate<String> uncompiled = path -> matchers.stream().anyMatch(path::matches);
+
+    for (String path : paths) {
+      assertThat(path, compiled.matches(path), is(uncompiled.test(path)));
+    }
+
+    double uncompiledPerSecond = measure(uncompiled);
+    double compiledPerSecond = measure(compiled::matches);
+
+    log("{} matchers -> String.matches: {} paths/s, compiled: {} paths/s", matchers.size(),
+        String.format("%.0f", uncompiledPerSecond), String.format("%.0f", compiledPerSecond));
+  }
+
+  private double measure(final Predicate<String> check) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      check.test(paths.get(i % paths.size()));
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      check.test(paths.get(i % paths.size()));
+    }
+    long elapsed = System.nanoTime() - start;
+    return MEASURED_ROUNDS / (elapsed / 1e9d);
+  }
+}
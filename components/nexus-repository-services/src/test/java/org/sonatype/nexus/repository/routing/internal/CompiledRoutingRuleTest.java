@@ -0,0 +1,105 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.routing.internal;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.PatternSyntaxException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.routing.RoutingMode;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+public class CompiledRoutingRuleTest
+    extends TestSupport
+{
+  private static final List<String> MATCHERS = Arrays.asList(
+      "^/com/sonatype/.*",
+      ".*foobar.*",
+      "/exact/path.jar",
+      "^/org/apache\\.commons/.*$",
+      "/opt?ional/.*",
+      "/plus+/.*",
+      "(?i).*/SNAPSHOT/.*",
+      "/(a)\\1/.*",
+      "/alpha/.*|/beta/.*",
+      ".*\\.md5");
+
+  private static final List<String> PATHS = Arrays.asList(
+      "/com/sonatype/internal/secrets",
+      "/com/sonatypes/foo",
+      "/com/foobar/",
+      "/exact/path.jar",
+      "/exact/path.jar/",
+      "/exact/pathxjar",
+      "/org/apache.commons/lang",
+      "/org/apachex/commons/lang",
+      "/opional/x",
+      "/optional/x",
+      "/optxonal/x",
+      "/plusss/x",
+      "/plu/x",
+      "/foo/snapshot/bar",
+      "/aa/x",
+      "/ab/x",
+      "/beta/y",
+      "/gamma/y",
+      "/foo/bar.jar.md5",
+      "/foo/bar.jar.sha1",
+      "");
+
+  @Test
+  public void matchesLikeStringMatches() {
+    CompiledRoutingRule underTest = CompiledRoutingRule.compile(RoutingMode.BLOCK, MATCHERS);
+
+    for (String path : PATHS) {
+      boolean expected = MATCHERS.stream().anyMatch(path::matches);
+      assertThat(path, underTest.matches(path), is(expected));
+    }
+  }
+
+  @Test
+  public void isAllowedHonoursMode() {
+    CompiledRoutingRule block = CompiledRoutingRule.compile(RoutingMode.BLOCK, MATCHERS);
+    CompiledRoutingRule allow = CompiledRoutingRule.compile(RoutingMode.ALLOW, MATCHERS);
+
+    assertThat(block.isAllowed("/com/sonatype/internal"), is(false));
+    assertThat(block.isAllowed("/org/example"), is(true));
+    assertThat(allow.isAllowed("/com/sonatype/internal"), is(true));
+    assertThat(allow.isAllowed("/org/example"), is(false));
+  }
+
+  @Test
+  public void literalPrefix() {
+    assertThat(CompiledRoutingRule.literalPrefix("^/com/sonatype/.*"), is("/com/sonatype/"));
+    assertThat(CompiledRoutingRule.literalPrefix("/org/apache\\.commons/.*"), is("/org/apache.commons/"));
+    assertThat(CompiledRoutingRule.literalPrefix("/opt?ional"), is("/op"));
+    assertThat(CompiledRoutingRule.literalPrefix("/ab{2}"), is("/a"));
+    assertThat(CompiledRoutingRule.literalPrefix("/plus+/.*"), is("/plus"));
+    assertThat(CompiledRoutingRule.literalPrefix("/\\d+"), is("/"));
+    assertThat(CompiledRoutingRule.literalPrefix(".*foobar.*"), is(""));
+    assertThat(CompiledRoutingRule.literalPrefix("/alpha/.*|/beta/.*"), is(""));
+  }
+
+  @Test(expected = PatternSyntaxException.class)
+  public void invalidMatcherFailsOnEvaluation() {
+    CompiledRoutingRule underTest = CompiledRoutingRule.compile(RoutingMode.BLOCK, Arrays.asList("/valid/.*", "(["));
+
+    assertThat(underTest.matches("/valid/path"), is(true));
+    underTest.matches("/other/path");
+  }
+}
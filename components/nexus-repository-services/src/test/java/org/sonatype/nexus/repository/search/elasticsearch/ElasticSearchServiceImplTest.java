@@ -0,0 +1,190 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.search.elasticsearch;
+
+import java.util.Collections;
+
+import javax.ws.rs.WebApplicationException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.rest.internal.resources.TokenEncoder;
+import org.sonatype.nexus.repository.search.SearchRequest;
+import org.sonatype.nexus.repository.search.index.ElasticSearchIndexService;
+import org.sonatype.nexus.repository.search.query.CursorSearchResponse;
+import org.sonatype.nexus.repository.search.query.ElasticSearchQueryService;
+import org.sonatype.nexus.repository.search.query.ElasticSearchUtils;
+
+import org.elasticsearch.action.search.SearchResponse;
+import org.elasticsearch.index.query.QueryBuilder;
+import org.elasticsearch.search.SearchHit;
+import org.elasticsearch.search.SearchHits;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static org.elasticsearch.index.query.QueryBuilders.matchAllQuery;
+import static org.elasticsearch.index.query.QueryBuilders.termQuery;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.ArgumentMatchers.isNull;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Tests for {@link ElasticSearchServiceImpl}.
+ */
+public class ElasticSearchServiceImplTest
+    extends TestSupport
+{
+  private static final int LIMIT = 10;
+
+  @Mock
+  private ElasticSearchQueryService elasticSearchQueryService;
+
+  @Mock
+  private ElasticSearchIndexService elasticSearchIndexService;
+
+  @Mock
+  private ElasticSearchUtils elasticSearchUtils;
+
+  private final QueryBuilder query = matchAllQuery();
+
+  private final TokenEncoder tokenEncoder = new TokenEncoder();
+
+  private ElasticSearchServiceImpl underTest;
+
+  @Before
+  public void setup() {
+    when(elasticSearchUtils.buildQuery(any(SearchRequest.class))).thenReturn(query);
+
+    underTest = new ElasticSearchServiceImpl(elasticSearchQueryService, elasticSearchIndexService, elasticSearchUtils,
+        tokenEncoder, Collections.emptySet());
+  }
+
+  @Test
+  public void theFirstPageIsFetchedByOffsetWithoutOpeningACursor() {
+    SearchResponse page1 = page(LIMIT);
+    when(elasticSearchQueryService.search(query, 0, LIMIT)).thenReturn(page1);
+
+    String token = nextToken(null);
+
+    assertThat(token, notNullValue());
+    assertThat(tokenEncoder.decode(token, query), is(LIMIT));
+    verify(elasticSearchQueryService, never()).searchWithCursor(any(), any(), anyInt());
+  }
+
+  @Test
+  public void aShortFirstPageHasNoContinuation() {
+    SearchResponse page1 = page(3);
+    when(elasticSearchQueryService.search(query, 0, LIMIT)).thenReturn(page1);
+
+    String token = nextToken(null);
+
+    assertThat(token, nullValue());
+    verify(elasticSearchQueryService, never()).searchWithCursor(any(), any(), anyInt());
+  }
+
+  @Test
+  public void theSecondPageOpensACursorPastTheFirstPage() {
+    SearchResponse page1 = page(LIMIT);
+    when(elasticSearchQueryService.search(query, 0, LIMIT)).thenReturn(page1);
+    SearchResponse page2 = page(LIMIT);
+    when(elasticSearchQueryService.searchWithCursor(eq(query), isNull(), eq(LIMIT)))
+        .thenReturn(new CursorSearchResponse(page2, "cursor-1"));
+    SearchResponse page3 = page(LIMIT);
+    when(elasticSearchQueryService.searchWithCursor(query, "cursor-1", LIMIT))
+        .thenReturn(new CursorSearchResponse(page3, "cursor-2"));
+
+    String firstToken = nextToken(null);
+    String token = nextToken(firstToken);
+
+    assertThat(tokenEncoder.decode(token, query), is(2 * LIMIT));
+    assertThat(tokenEncoder.decodeCursor(token, query), is("cursor-2"));
+    verify(elasticSearchQueryService, never()).search(query, LIMIT, LIMIT);
+  }
+
+  @Test
+  public void laterPagesContinueTheCursor() {
+    SearchResponse page1 = page(LIMIT);
+    when(elasticSearchQueryService.searchWithCursor(query, "cursor-2", LIMIT))
+        .thenReturn(new CursorSearchResponse(page1, "cursor-3"));
+
+    String token = nextToken(tokenEncoder.encode(LIMIT, LIMIT, query, "cursor-2"));
+
+    assertThat(tokenEncoder.decode(token, query), is(3 * LIMIT));
+    assertThat(tokenEncoder.decodeCursor(token, query), is("cursor-3"));
+    verify(elasticSearchQueryService, never()).search(any(), anyInt(), anyInt());
+  }
+
+  @Test
+  public void theLastCursorPageHasNoContinuation() {
+    SearchResponse page1 = page(4);
+    when(elasticSearchQueryService.searchWithCursor(query, "cursor-2", LIMIT))
+        .thenReturn(new CursorSearchResponse(page1, null));
+
+    String token = nextToken(tokenEncoder.encode(LIMIT, LIMIT, query, "cursor-2"));
+
+    assertThat(token, nullValue());
+  }
+
+  @Test
+  public void anExpiredCursorFallsBackToTheOffset() {
+    when(elasticSearchQueryService.searchWithCursor(query, "expired", LIMIT)).thenReturn(null);
+    SearchResponse page1 = page(LIMIT);
+    when(elasticSearchQueryService.search(query, 2 * LIMIT, LIMIT)).thenReturn(page1);
+
+    String token = nextToken(tokenEncoder.encode(LIMIT, LIMIT, query, "expired"));
+
+    verify(elasticSearchQueryService).search(query, 2 * LIMIT, LIMIT);
+    assertThat(tokenEncoder.decode(token, query), is(3 * LIMIT));
+    assertThat(tokenEncoder.decodeCursor(token, query), nullValue());
+  }
+
+  @Test
+  public void offsetTokensArePagedByOffset() {
+    SearchResponse page1 = page(LIMIT);
+    when(elasticSearchQueryService.search(query, LIMIT, LIMIT)).thenReturn(page1);
+
+    String token = nextToken(tokenEncoder.encode(0, LIMIT, query));
+
+    verify(elasticSearchQueryService).search(query, LIMIT, LIMIT);
+    verify(elasticSearchQueryService, never()).searchWithCursor(any(), any(), anyInt());
+    assertThat(tokenEncoder.decode(token, query), is(2 * LIMIT));
+  }
+
+  @Test(expected = WebApplicationException.class)
+  public void cursorTokensOfAnotherQueryAreRejected() {
+    nextToken(tokenEncoder.encode(0, LIMIT, termQuery("name", "other"), "cursor-1"));
+  }
+
+  private String nextToken(final String continuationToken) {
+    return underTest.search(SearchRequest.builder().limit(LIMIT).continuationToken(continuationToken).build())
+        .getContinuationToken();
+  }
+
+  private static SearchResponse page(final int size) {
+    SearchHits hits = mock(SearchHits.class);
+    when(hits.hits()).thenReturn(new SearchHit[size]);
+    when(hits.iterator()).thenReturn(Collections.emptyIterator());
+    SearchResponse response = mock(SearchResponse.class);
+    when(response.getHits()).thenReturn(hits);
+    return response;
+  }
+}
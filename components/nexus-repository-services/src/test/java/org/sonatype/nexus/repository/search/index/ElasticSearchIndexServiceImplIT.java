@@ -16,11 +16,14 @@ import java.io.File;
 import java.nio.file.Paths;
 import java.security.SecureRandom;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.Random;
+import java.util.Set;
 import java.util.stream.Collectors;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -34,6 +37,7 @@ import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.manager.RepositoryManager;
+import org.sonatype.nexus.repository.search.query.CursorSearchResponse;
 import org.sonatype.nexus.repository.search.query.ElasticSearchQueryServiceImpl;
 import org.sonatype.nexus.repository.search.query.SearchSubjectHelper;
 import org.sonatype.nexus.security.SecurityHelper;
@@ -61,6 +65,7 @@ import static org.hamcrest.CoreMatchers.hasItems;
 import static org.hamcrest.CoreMatchers.not;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.when;
@@ -136,7 +141,7 @@ public class ElasticSearchIndexServiceImplIT
         indexNamingPolicy, List.of(), eventManager, 1000, 1, 0, CALM_TIMEOUT, 1);
 
     searchQueryService = new ElasticSearchQueryServiceImpl(clientProvider,
-        repositoryManager, securityHelper, searchSubjectHelper, indexNamingPolicy, false);
+        repositoryManager, securityHelper, searchSubjectHelper, indexNamingPolicy, false, 300, 1000);
 
     when(repositoryConfig.isOnline()).thenReturn(true);
     when(testFormat.getValue()).thenReturn("test-format");
@@ -213,6 +218,30 @@ public class ElasticSearchIndexServiceImplIT
     assertThat(searchResponse.getHits(), not(hasItems(secondPage.getHits().hits()[0], secondPage.getHits().hits()[1])));
   }
 
+  @Test
+  public void searchResultsArePagedWithCursor() {
+    seedComponentIndex();
+
+    BoolQueryBuilder query = boolQuery().must(matchAllQuery());
+    List<String> repos = repositories.stream().map(Repository::getName).collect(Collectors.toList());
+
+    Set<String> ids = new HashSet<>();
+    int pages = 0;
+    String cursor = null;
+    do {
+      CursorSearchResponse page =
+          searchQueryService.searchWithCursor(unrestricted(query).inRepositories(repos), cursor, 700);
+      Arrays.stream(page.getResponse().getHits().hits()).forEach(hit -> ids.add(hit.getId()));
+      cursor = page.getCursor();
+      pages++;
+    }
+    while (cursor != null);
+
+    assertThat(pages, is(5));
+    assertThat(ids.size(), is(TEST_COMPONENT_COUNT));
+    assertThat(searchQueryService.searchWithCursor(unrestricted(query), "unknown", 700), is(nullValue()));
+  }
+
   private void seedComponentIndex() {
     Random random = new SecureRandom();
 
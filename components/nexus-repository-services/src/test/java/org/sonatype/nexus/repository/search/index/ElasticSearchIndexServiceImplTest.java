@@ -139,7 +139,7 @@ public class ElasticSearchIndexServiceImplTest
         indexNamingPolicy, indexSettingsContributors, eventManager, 1000, 0, 0, 3000, 1);
 
     searchQueryService = new ElasticSearchQueryServiceImpl(clientProvider,
-        repositoryManager, securityHelper, searchSubjectHelper, indexNamingPolicy, false);
+        repositoryManager, securityHelper, searchSubjectHelper, indexNamingPolicy, false, 300, 1000);
 
     Map<Integer, Entry<BulkProcessor, ExecutorService>> bulkProcessorToExecutors = new HashMap<>();
     bulkProcessorToExecutors.put(0, new SimpleImmutableEntry<>(bulkProcessor, executorService));
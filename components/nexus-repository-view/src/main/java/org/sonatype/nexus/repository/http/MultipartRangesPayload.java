@@ -0,0 +1,191 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.http;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.List;
+import java.util.UUID;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.repository.view.Payload;
+
+import com.codahale.metrics.Meter;
+import com.google.common.collect.Range;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * A wrapper {@link Payload} that returns several portions of the original payload as a {@code multipart/byteranges}
+ * body, as per RFC 7233. Each portion is read separately, so payloads supporting ranged reads only read the requested
+ * bytes.
+ *
+ * @since 3.77
+ */
+class MultipartRangesPayload
+    implements Payload
+{
+  private static final String CRLF = "\r\n";
+
+  private final Payload payload;
+
+  private final List<Range<Long>> ranges;
+
+  private final Meter bytesSaved;
+
+  private final String boundary;
+
+  private final byte[][] partHeaders;
+
+  private final byte[] closeDelimiter;
+
+  private final long size;
+
+  /**
+   * The endpoints of each Range are interpreted as the first and last byte positions to send.
+   */
+  MultipartRangesPayload(final Payload payload, final List<Range<Long>> ranges, final Meter bytesSaved) {
+    this.payload = payload;
+    this.ranges = ranges;
+    this.bytesSaved = bytesSaved;
+    this.boundary = UUID.randomUUID().toString().replace("-", "");
+    this.partHeaders = new byte[ranges.size()][];
+    this.closeDelimiter = (CRLF + "--" + boundary + "--" + CRLF).getBytes(US_ASCII);
+
+    long totalSize = closeDelimiter.length;
+    for (int i = 0; i < ranges.size(); i++) {
+      Range<Long> range = ranges.get(i);
+      StringBuilder header = new StringBuilder();
+      if (i > 0) {
+        header.append(CRLF);
+      }
+      header.append("--").append(boundary).append(CRLF);
+      if (payload.getContentType() != null) {
+        header.append("Content-Type: ").append(payload.getContentType()).append(CRLF);
+      }
+      header.append("Content-Range: bytes ").append(range.lowerEndpoint()).append('-').append(range.upperEndpoint())
+          .append('/').append(payload.getSize()).append(CRLF)
+          .append(CRLF);
+      partHeaders[i] = header.toString().getBytes(US_ASCII);
+      totalSize += partHeaders[i].length + 1 + range.upperEndpoint() - range.lowerEndpoint();
+    }
+    this.size = totalSize;
+  }
+
+  @Override
+  public InputStream openInputStream() {
+    return new PartsInputStream();
+  }
+
+  @Override
+  public long getSize() {
+    return size;
+  }
+
+  @Nullable
+  @Override
+  public String getContentType() {
+    return "multipart/byteranges; boundary=" + boundary;
+  }
+
+  /**
+   * Reads the parts one after the other, opening each one only once the previous part has been read to the end.
+   * Closing the stream closes the part being read, parts never reached are never opened.
+   */
+  private class PartsInputStream
+      extends InputStream
+  {
+    // each range contributes its part header followed by its content, the close delimiter comes last
+    private int next;
+
+    @Nullable
+    private InputStream current;
+
+    private boolean closed;
+
+    @Override
+    public int read() throws IOException {
+      while (nextPart()) {
+        int b = current.read();
+        if (b != -1) {
+          return b;
+        }
+        endPart();
+      }
+      return -1;
+    }
+
+    @Override
+    public int read(final byte[] b, final int off, final int len) throws IOException {
+      if (len == 0) {
+        return 0;
+      }
+      while (nextPart()) {
+        int n = current.read(b, off, len);
+        if (n > 0) {
+          return n;
+        }
+        endPart();
+      }
+      return -1;
+    }
+
+    @Override
+    public int available() throws IOException {
+      return current != null ? current.available() : 0;
+    }
+
+    @Override
+    public void close() throws IOException {
+      closed = true;
+      next = 2 * ranges.size() + 1;
+      endPart();
+    }
+
+    private boolean nextPart() throws IOException {
+      if (closed) {
+        throw new IOException("Stream closed");
+      }
+      if (current != null) {
+        return true;
+      }
+      if (next > 2 * ranges.size()) {
+        return false;
+      }
+      int element = next++;
+      if (element == 2 * ranges.size()) {
+        current = new ByteArrayInputStream(closeDelimiter);
+      }
+      else if (element % 2 == 0) {
+        current = new ByteArrayInputStream(partHeaders[element / 2]);
+      }
+      else {
+        current = PartialPayload.openRange(payload, ranges.get(element / 2), bytesSaved);
+      }
+      return true;
+    }
+
+    private void endPart() throws IOException {
+      if (current != null) {
+        try {
+          current.close();
+        }
+        finally {
+          current = null;
+        }
+      }
+    }
+  }
+}
@@ -27,6 +27,8 @@ import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
 
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.base.Strings;
 import com.google.common.collect.Range;
 import com.google.common.net.HttpHeaders;
@@ -48,9 +50,13 @@ public class PartialFetchHandler
 {
   private final RangeParser rangeParser;
 
+  private final Meter bytesSaved;
+
   @Inject
-  public PartialFetchHandler(final RangeParser rangeParser) {
+  public PartialFetchHandler(final RangeParser rangeParser, final MetricRegistry metricRegistry) {
     this.rangeParser = checkNotNull(rangeParser);
+    // bytes before the requested ranges that were not read from storage, thanks to ranged reads
+    this.bytesSaved = metricRegistry.meter(MetricRegistry.name(PartialFetchHandler.class, "bytesSaved"));
   }
 
   @Nonnull
@@ -95,15 +101,15 @@ public class PartialFetchHandler
       return response;
     }
 
-    if (ranges.size() > 1) {
-      return HttpResponses.notImplemented("Multiple ranges not supported.");
-    }
-
     final String ifRangeHeader = getHeaderValue(context.getRequest(), HttpHeaders.IF_RANGE);
     if (ifRangeHeader != null && !ifRangeHeaderMatches(response, ifRangeHeader)) {
       return response;
     }
 
+    if (ranges.size() > 1) {
+      return multipartResponse(response, payload, ranges);
+    }
+
     Range<Long> requestedRange = ranges.get(0);
 
     // Mutate the response
@@ -121,7 +127,7 @@ public class PartialFetchHandler
         .copy(response)
         .status(Status.success(HttpStatus.PARTIAL_CONTENT));
 
-    Payload partialPayload = new PartialPayload(payload, requestedRange);
+    Payload partialPayload = new PartialPayload(payload, requestedRange, bytesSaved);
     builder.payload(partialPayload);
 
     // ResponseSender takes care of Content-Length header, via payload.size
@@ -131,6 +137,21 @@ public class PartialFetchHandler
     return builder.build();
   }
 
+  /**
+   * Mutate the response into one that returns several parts of the payload in a multipart/byteranges body.
+   */
+  private Response multipartResponse(final Response response,
+                                     final Payload payload,
+                                     final List<Range<Long>> requestedRanges)
+  {
+    // ResponseSender takes care of Content-Type and Content-Length headers, via the payload
+    return new Response.Builder()
+        .copy(response)
+        .status(Status.success(HttpStatus.PARTIAL_CONTENT))
+        .payload(new MultipartRangesPayload(payload, requestedRanges, bytesSaved))
+        .build();
+  }
+
   private static boolean ifRangeHeaderMatches(final Response response, final String ifRangeHeader) {
     // If the if-range header starts with " it is an ETag
     if (ifRangeHeader.startsWith("\"")) {
@@ -19,10 +19,9 @@ import javax.annotation.Nullable;
 
 import org.sonatype.nexus.repository.view.Payload;
 
+import com.codahale.metrics.Meter;
 import com.google.common.collect.Range;
 
-import static com.google.common.io.ByteStreams.limit;
-
 /**
  * A wrapper {@link Payload} that returns only a portion of the original payload.
  *
@@ -37,20 +36,29 @@ class PartialPayload
 
   private final long partialSize;
 
+  private final Meter bytesSaved;
+
   /**
    * The endpoints of the Range are interpreted as the first and last byte positions to send.
    */
   public PartialPayload(final Payload payload, final Range<Long> rangeToSend) {
+    this(payload, rangeToSend, new Meter());
+  }
+
+  /**
+   * @param bytesSaved marked with the bytes before the range that are not read, when the payload supports ranged reads
+   * @since 3.77
+   */
+  public PartialPayload(final Payload payload, final Range<Long> rangeToSend, final Meter bytesSaved) {
     this.payload = payload;
     this.rangeToSend = rangeToSend;
     this.partialSize = 1 + rangeToSend.upperEndpoint() - rangeToSend.lowerEndpoint();
+    this.bytesSaved = bytesSaved;
   }
 
   @Override
   public InputStream openInputStream() throws IOException {
-    final InputStream payloadStream = payload.openInputStream();
-    payloadStream.skip(rangeToSend.lowerEndpoint());
-    return limit(payloadStream, partialSize);
+    return openRange(payload, rangeToSend, bytesSaved);
   }
 
   @Override
@@ -63,4 +71,19 @@ class PartialPayload
   public String getContentType() {
     return payload.getContentType();
   }
+
+  /**
+   * Opens the given range (inclusive) of a payload, marking the bytes not read before it when the payload supports
+   * ranged reads.
+   */
+  static InputStream openRange(final Payload payload, final Range<Long> range, final Meter bytesSaved)
+      throws IOException
+  {
+    InputStream input =
+        payload.openInputStream(range.lowerEndpoint(), 1 + range.upperEndpoint() - range.lowerEndpoint());
+    if (payload.supportsRangedReads()) {
+      bytesSaved.mark(range.lowerEndpoint());
+    }
+    return input;
+  }
 }
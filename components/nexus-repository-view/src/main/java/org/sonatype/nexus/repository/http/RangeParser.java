@@ -12,16 +12,17 @@
  */
 package org.sonatype.nexus.repository.http;
 
+import java.util.ArrayList;
 import java.util.Collections;
 import java.util.List;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.goodies.common.ComponentSupport;
 
 import com.google.common.base.Strings;
 import com.google.common.collect.Range;
 
-import static java.util.Collections.singletonList;
-
 /**
  * Parses the "Range" request header.
  *
@@ -36,6 +37,13 @@ class RangeParser
 
   public static final List<Range<Long>> WHOLE_RANGE = Collections.emptyList();
 
+  private static final Range<Long> UNSATISFIABLE_RANGE = Range.closedOpen(0L, 0L);
+
+  /**
+   * The most ranges served for a single request, the complete content is sent to requests asking for more.
+   */
+  static final int MAX_RANGES = 16;
+
   /**
    * Returns a list of {@link Range}s, each indicating a range of byte indices (inclusive).
    *
@@ -43,6 +51,9 @@ class RangeParser
    * Range: bytes=500-999 (from byte 500 to byte 999)
    * Range: bytes=500- (from byte 500 to the end)
    * Range: bytes=-500 (the last 500 bytes, per the RFC)
+   * Range: bytes=0-10,500-999 (several of the above, in the requested order)
+   *
+   * Ranges that cannot be satisfied are left out when other ranges can be.
    *
    * @return {@code null} if the requested range cannot be satisfied given the size of the content, or an empty list in
    * the case of parsing errors
@@ -50,33 +61,29 @@ class RangeParser
   public List<Range<Long>> parseRangeSpec(final String rangeHeader, long size) {
     Range<Long> content = Range.closed(0L, size - 1L);
 
-    // TODO: Current limitation: only one Range of bytes supported in forms of "-X", "X-Y" (where X<Y) and "X-".
     if (!Strings.isNullOrEmpty(rangeHeader)) {
       try {
-        if (rangeHeader.startsWith("bytes=") && rangeHeader.length() > 6 && !rangeHeader.contains(",")) {
-          final String rangeSpec = rangeHeader.substring(6, rangeHeader.length());
-          if (rangeSpec.startsWith("-")) {
-            final long byteCount = Long.parseLong(rangeSpec.substring(1));
-            if (byteCount > size) {
-              return UNSATISFIABLE;
-            }
-            final Range<Long> suffix = Range.atLeast(size - byteCount);
-            return ensureSatisfiable(suffix, content);
-          }
-          else if (rangeSpec.endsWith("-")) {
-            final Range<Long> requested = Range.atLeast(Long.parseLong(rangeSpec.substring(0, rangeSpec.length() - 1)));
-            return ensureSatisfiable(requested, content);
-          }
-          else if (rangeSpec.contains("-")) {
-            final String[] parts = rangeSpec.split("-");
-            return ensureSatisfiable(Range.closed(Long.parseLong(parts[0]), Long.parseLong(parts[1])), content);
+        if (rangeHeader.startsWith("bytes=") && rangeHeader.length() > 6) {
+          final String[] rangeSpecs = rangeHeader.substring(6).split(",");
+          if (rangeSpecs.length > MAX_RANGES) {
+            log.warn("Too many HTTP Ranges: {}; sending complete content", rangeHeader);
+            return WHOLE_RANGE;
           }
-          else {
-            log.warn("Malformed HTTP Range value: {}, ignoring it", rangeHeader);
+          List<Range<Long>> ranges = new ArrayList<>(rangeSpecs.length);
+          for (String rangeSpec : rangeSpecs) {
+            final Range<Long> range = parseRange(rangeSpec.trim(), size, content);
+            if (range == null) {
+              log.warn("Malformed HTTP Range value: {}, ignoring it", rangeHeader);
+              return WHOLE_RANGE;
+            }
+            if (!range.isEmpty()) {
+              ranges.add(range);
+            }
           }
+          return ranges.isEmpty() ? UNSATISFIABLE : ranges;
         }
         else {
-          log.warn("Unsupported non-byte or multiple HTTP Ranges: {}; sending complete content", rangeHeader);
+          log.warn("Unsupported non-byte HTTP Ranges: {}; sending complete content", rangeHeader);
         }
       }
       catch (Exception e) {
@@ -92,12 +99,34 @@ class RangeParser
     return WHOLE_RANGE;
   }
 
-  private List<Range<Long>> ensureSatisfiable(Range<Long> requested, Range<Long> content) {
+  /**
+   * Parses a single range spec, returning an empty range if it cannot be satisfied or {@code null} if it is malformed.
+   */
+  @Nullable
+  private Range<Long> parseRange(final String rangeSpec, final long size, final Range<Long> content) {
+    if (rangeSpec.startsWith("-")) {
+      final long byteCount = Long.parseLong(rangeSpec.substring(1));
+      if (byteCount > size) {
+        return UNSATISFIABLE_RANGE;
+      }
+      return ensureSatisfiable(Range.atLeast(size - byteCount), content);
+    }
+    else if (rangeSpec.endsWith("-")) {
+      return ensureSatisfiable(Range.atLeast(Long.parseLong(rangeSpec.substring(0, rangeSpec.length() - 1))), content);
+    }
+    else if (rangeSpec.contains("-")) {
+      final String[] parts = rangeSpec.split("-");
+      return ensureSatisfiable(Range.closed(Long.parseLong(parts[0]), Long.parseLong(parts[1])), content);
+    }
+    return null;
+  }
+
+  private Range<Long> ensureSatisfiable(Range<Long> requested, Range<Long> content) {
     if (requested.isConnected(content)) {
-      return singletonList(requested.intersection(content));
+      return requested.intersection(content);
     }
     else {
-      return UNSATISFIABLE;
+      return UNSATISFIABLE_RANGE;
     }
   }
 
@@ -20,6 +20,7 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.validation.Valid;
+import javax.validation.constraints.Pattern;
 
 import org.sonatype.nexus.common.event.EventHelper;
 import org.sonatype.nexus.common.stateguard.Guarded;
@@ -74,6 +75,20 @@ public class HttpClientFacetImpl
 {
   private static final String DEFAULT = "default";
 
+  /**
+   * Engine using the pooled, blocking Apache HTTP client.
+   *
+   * @since 3.77
+   */
+  public static final String BLOCKING_ENGINE = "blocking";
+
+  /**
+   * Engine using a non-blocking client which multiplexes requests over HTTP/2 where the remote supports it.
+   *
+   * @since 3.77
+   */
+  public static final String ASYNC_ENGINE = "async";
+
   private final HttpClientManager httpClientManager;
 
   @VisibleForTesting
@@ -107,6 +122,15 @@ public class HttpClientFacetImpl
 
     @Nullable
     public Boolean autoBlock;
+
+    /**
+     * Either {@link #BLOCKING_ENGINE}, the default, or {@link #ASYNC_ENGINE}.
+     *
+     * @since 3.77
+     */
+    @Nullable
+    @Pattern(regexp = BLOCKING_ENGINE + "|" + ASYNC_ENGINE)
+    public String engine;
   }
 
   private Config config;
@@ -289,7 +313,9 @@ public class HttpClientFacetImpl
 
   private void createHttpClient() {
     HttpClientConfiguration delegateConfig = getHttpClientConfiguration(httpClientManager, config);
-    CloseableHttpClient delegate = httpClientManager.create(new ConfigurationCustomizer(delegateConfig));
+    CloseableHttpClient delegate = ASYNC_ENGINE.equals(config.engine)
+        ? httpClientManager.createAsync(delegateConfig)
+        : httpClientManager.create(new ConfigurationCustomizer(delegateConfig));
 
     boolean online = getRepository().getConfiguration().isOnline();
     // wrap delegate with auto-block aware client
@@ -15,6 +15,7 @@ package org.sonatype.nexus.repository.view;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 import javax.annotation.Nonnull;
 import javax.annotation.Nullable;
@@ -101,6 +102,22 @@ public class Content
     payload.copy(inputStream, outputStream);
   }
 
+  @Nullable
+  @Override
+  public FileChannel openFileChannel() throws IOException {
+    return payload.openFileChannel();
+  }
+
+  @Override
+  public InputStream openInputStream(final long offset, final long length) throws IOException {
+    return payload.openInputStream(offset, length);
+  }
+
+  @Override
+  public boolean supportsRangedReads() {
+    return payload.supportsRangedReads();
+  }
+
   public Payload getPayload() {
     return payload;
   }
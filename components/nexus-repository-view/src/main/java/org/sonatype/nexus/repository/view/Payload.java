@@ -16,6 +16,7 @@ import java.io.Closeable;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.FileChannel;
 
 import javax.annotation.Nullable;
 
@@ -60,4 +61,45 @@ public interface Payload
   default void copy(final InputStream input, final OutputStream output) throws IOException {
     ByteStreams.copy(input, output);
   }
+
+  /**
+   * Opens a read-only {@link FileChannel} to the content when it is held verbatim in a local file, so callers can
+   * send it with {@link FileChannel#transferTo} instead of {@link #copy}. Returns {@code null} by default, in which
+   * case callers must fall back to {@link #openInputStream()}. Callers are required to close the channel.
+   *
+   * @since 3.77
+   */
+  @Nullable
+  default FileChannel openFileChannel() throws IOException {
+    return null;
+  }
+
+  /**
+   * Opens an input stream to {@code length} bytes of the content, starting at {@code offset}. By default the bytes
+   * before the offset are skipped from {@link #openInputStream()}.
+   *
+   * @see #supportsRangedReads()
+   * @since 3.77
+   */
+  default InputStream openInputStream(final long offset, final long length) throws IOException {
+    InputStream input = openInputStream();
+    try {
+      ByteStreams.skipFully(input, offset);
+    }
+    catch (IOException e) {
+      input.close();
+      throw e;
+    }
+    return ByteStreams.limit(input, length);
+  }
+
+  /**
+   * Returns {@code true} when {@link #openInputStream(long, long)} reads only the requested bytes from the underlying
+   * storage, rather than reading and discarding the ones before the offset.
+   *
+   * @since 3.77
+   */
+  default boolean supportsRangedReads() {
+    return false;
+  }
 }
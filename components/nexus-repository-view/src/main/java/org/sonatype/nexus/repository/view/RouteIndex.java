@@ -0,0 +1,296 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import javax.annotation.Nullable;
+
+import org.sonatype.nexus.common.text.Strings2;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.AlwaysMatcher;
+import org.sonatype.nexus.repository.view.matchers.LiteralMatcher;
+import org.sonatype.nexus.repository.view.matchers.NeverMatcher;
+import org.sonatype.nexus.repository.view.matchers.PrefixMatcher;
+import org.sonatype.nexus.repository.view.matchers.SuffixMatcher;
+import org.sonatype.nexus.repository.view.matchers.logic.AndMatcher;
+import org.sonatype.nexus.repository.view.matchers.logic.OrMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.LiteralToken;
+import org.sonatype.nexus.repository.view.matchers.token.PatternParser;
+import org.sonatype.nexus.repository.view.matchers.token.Token;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import com.google.common.annotations.VisibleForTesting;
+
+import static java.util.stream.Collectors.toList;
+
+/**
+ * Dispatch index for {@link Router}, narrowing the routes that have to be evaluated for a request.
+ *
+ * Routes are bucketed by the actions allowed by their {@link ActionMatcher}s and by the first path segment of any
+ * literal or prefix they require ({@link LiteralMatcher}, {@link PrefixMatcher}, or the leading {@link LiteralToken}
+ * of a {@link TokenMatcher} pattern). Required literals, prefixes and suffixes are also checked with plain string
+ * comparisons before the route's matcher runs.
+ *
+ * Requirements are only taken from matchers that would be evaluated before any matcher with side effects (such as
+ * storing tokens in the context), so skipping a route is never observable. Candidates keep their original order,
+ * preserving first-match semantics. Routes with matchers the index does not understand are always candidates.
+ *
+ * @since 3.77
+ */
+final class RouteIndex
+{
+  private final List<Route> routes;
+
+  private final Guard[] guards;
+
+  private final int[] all;
+
+  /**
+   * Candidate routes keyed by action, then by first path segment; {@code null} keys hold the candidates for actions
+   * or segments that no route asks for.
+   */
+  private final Map<String, Map<String, int[]>> candidates = new HashMap<>();
+
+  RouteIndex(final List<Route> routes) {
+    this.routes = new ArrayList<>(routes);
+    this.guards = new Guard[this.routes.size()];
+    this.all = new int[this.routes.size()];
+
+    Set<String> actions = new LinkedHashSet<>();
+    Set<String> segments = new LinkedHashSet<>();
+    for (int i = 0; i < guards.length; i++) {
+      Guard guard = new Guard();
+      collect(this.routes.get(i).getMatcher(), guard);
+      guards[i] = guard;
+      all[i] = i;
+      if (guard.actions != null) {
+        actions.addAll(guard.actions);
+      }
+      if (guard.segment != null) {
+        segments.add(guard.segment);
+      }
+    }
+    actions.add(null);
+    segments.add(null);
+
+    for (String action : actions) {
+      Map<String, int[]> bySegment = new HashMap<>();
+      for (String segment : segments) {
+        bySegment.put(segment, select(action, segment));
+      }
+      candidates.put(action, bySegment);
+    }
+  }
+
+  /**
+   * Find the first matching route for the given context, or {@code null} if none match.
+   */
+  @Nullable
+  Route findRoute(final Context context) {
+    Request request = context.getRequest();
+    String path = request.getPath();
+    for (int i : candidates(request.getAction(), path)) {
+      if (path == null || guards[i].test(path)) {
+        Route route = routes.get(i);
+        if (route.getMatcher().matches(context)) {
+          return route;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Returns the routes which may match a request with the given action and path, in their original order.
+   */
+  @VisibleForTesting
+  List<Route> candidateRoutes(@Nullable final String action, @Nullable final String path) {
+    return Arrays.stream(candidates(action, path)).mapToObj(routes::get).collect(toList());
+  }
+
+  private int[] candidates(@Nullable final String action, @Nullable final String path) {
+    if (action == null || path == null) {
+      return all;
+    }
+    Map<String, int[]> bySegment = candidates.get(action);
+    if (bySegment == null) {
+      bySegment = candidates.get(null);
+    }
+    int[] selected = bySegment.get(firstSegment(path));
+    return selected != null ? selected : bySegment.get(null);
+  }
+
+  private int[] select(@Nullable final String action, @Nullable final String segment) {
+    List<Integer> selected = new ArrayList<>();
+    for (int i = 0; i < guards.length; i++) {
+      Guard guard = guards[i];
+      boolean actionAllowed = guard.actions == null || (action != null && guard.actions.contains(action));
+      boolean segmentAllowed = guard.segment == null || guard.segment.equals(segment);
+      if (actionAllowed && segmentAllowed) {
+        selected.add(i);
+      }
+    }
+    return selected.stream().mapToInt(Integer::intValue).toArray();
+  }
+
+  /**
+   * Adds the requirements of the given matcher to the guard.
+   */
+  private static void collect(@Nullable final Matcher matcher, final Guard guard) {
+    if (matcher instanceof ActionMatcher) {
+      guard.restrictActions(new LinkedHashSet<>(((ActionMatcher) matcher).getAllowedActions()));
+    }
+    else if (matcher instanceof LiteralMatcher) {
+      LiteralMatcher literalMatcher = (LiteralMatcher) matcher;
+      String literal = literalMatcher.getLiteral();
+      if (literalMatcher.isIgnoreCase()) {
+        guard.check(path -> path.equalsIgnoreCase(literal));
+      }
+      else {
+        guard.check(path -> path.equals(literal));
+        guard.segment(literal);
+      }
+    }
+    else if (matcher instanceof PrefixMatcher) {
+      PrefixMatcher prefixMatcher = (PrefixMatcher) matcher;
+      if (prefixMatcher.isIgnoreCase()) {
+        String prefix = Strings2.lower(prefixMatcher.getPrefix());
+        guard.check(path -> Strings2.lower(path).startsWith(prefix));
+      }
+      else {
+        String prefix = prefixMatcher.getPrefix();
+        guard.check(path -> path.startsWith(prefix));
+        guard.segment(prefix);
+      }
+    }
+    else if (matcher instanceof SuffixMatcher) {
+      SuffixMatcher suffixMatcher = (SuffixMatcher) matcher;
+      if (suffixMatcher.isIgnoreCase()) {
+        String suffix = Strings2.lower(suffixMatcher.getSuffix());
+        guard.check(path -> Strings2.lower(path).endsWith(suffix));
+      }
+      else {
+        String suffix = suffixMatcher.getSuffix();
+        guard.check(path -> path.endsWith(suffix));
+      }
+    }
+    else if (matcher instanceof TokenMatcher) {
+      List<Token> tokens = new PatternParser(((TokenMatcher) matcher).getPattern()).getTokens();
+      if (!tokens.isEmpty() && tokens.get(0) instanceof LiteralToken) {
+        String prefix = tokens.get(0).getValue();
+        guard.check(path -> path.startsWith(prefix));
+        guard.segment(prefix);
+      }
+    }
+    else if (matcher instanceof AndMatcher) {
+      for (Matcher child : ((AndMatcher) matcher).getMatchers()) {
+        collect(child, guard);
+        if (!isSideEffectFree(child)) {
+          // later matchers only run once this one has matched, and possibly updated the context
+          break;
+        }
+      }
+    }
+    else if (matcher instanceof OrMatcher) {
+      Set<String> actions = new LinkedHashSet<>();
+      for (Matcher child : ((OrMatcher) matcher).getMatchers()) {
+        Guard childGuard = new Guard();
+        collect(child, childGuard);
+        if (childGuard.actions == null || !childGuard.checks.isEmpty()) {
+          return;
+        }
+        actions.addAll(childGuard.actions);
+      }
+      guard.restrictActions(actions);
+    }
+  }
+
+  private static boolean isSideEffectFree(final Matcher matcher) {
+    if (matcher instanceof AndMatcher) {
+      return ((AndMatcher) matcher).getMatchers().stream().allMatch(RouteIndex::isSideEffectFree);
+    }
+    if (matcher instanceof OrMatcher) {
+      return ((OrMatcher) matcher).getMatchers().stream().allMatch(RouteIndex::isSideEffectFree);
+    }
+    return matcher instanceof ActionMatcher ||
+        matcher instanceof LiteralMatcher ||
+        matcher instanceof PrefixMatcher ||
+        matcher instanceof SuffixMatcher ||
+        matcher instanceof AlwaysMatcher ||
+        matcher instanceof NeverMatcher;
+  }
+
+  /**
+   * Returns the first segment of a path which has at least two segments, e.g. {@code "foo"} for {@code "/foo/bar"}.
+   */
+  @Nullable
+  private static String firstSegment(final String path) {
+    if (path.length() > 1 && path.charAt(0) == '/') {
+      int end = path.indexOf('/', 1);
+      if (end > 1) {
+        return path.substring(1, end);
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Requirements a request must meet for a route to possibly match.
+   */
+  private static final class Guard
+  {
+    @Nullable
+    private Set<String> actions;
+
+    @Nullable
+    private String segment;
+
+    private final List<Predicate<String>> checks = new ArrayList<>();
+
+    void restrictActions(final Set<String> allowed) {
+      if (actions == null) {
+        actions = allowed;
+      }
+      else {
+        actions.retainAll(allowed);
+      }
+    }
+
+    void check(final Predicate<String> check) {
+      checks.add(check);
+    }
+
+    void segment(final String pathOrPrefix) {
+      if (segment == null) {
+        segment = firstSegment(pathOrPrefix);
+      }
+    }
+
+    boolean test(final String path) {
+      for (Predicate<String> check : checks) {
+        if (!check.test(path)) {
+          return false;
+        }
+      }
+      return true;
+    }
+  }
+}
@@ -37,14 +37,14 @@ import static org.sonatype.nexus.repository.view.ViewUtils.copyLocalContextAttri
 public class Router
     extends ComponentSupport
 {
-  private final List<Route> routes;
+  private final RouteIndex routeIndex;
 
   private final DefaultRoute defaultRoute;
 
   public static final String LOCAL_ATTRIBUTE_PREFIX = "local.attribute.";
 
   public Router(final List<Route> routes, final DefaultRoute defaultRoute) {
-    this.routes = checkNotNull(routes, "Missing routes");
+    this.routeIndex = new RouteIndex(checkNotNull(routes, "Missing routes"));
     this.defaultRoute = checkNotNull(defaultRoute, "Missing default route");
   }
 
@@ -141,12 +141,8 @@ public class Router
    * Find the first matching route for the given context.
    */
   private Route findRoute(final Context context) {
-    for (Route route : routes) {
-      if (route.getMatcher().matches(context)) {
-        return route;
-      }
-    }
-    return defaultRoute;
+    Route route = routeIndex.findRoute(context);
+    return route != null ? route : defaultRoute;
   }
 
   //
@@ -46,6 +46,13 @@ public class ActionMatcher
     return allowedActions.contains(action);
   }
 
+  /**
+   * @since 3.77
+   */
+  public List<String> getAllowedActions() {
+    return allowedActions;
+  }
+
   @Override
   public String toString() {
     return "ActionMatcher [allowedActions=" + allowedActions + "]";
@@ -56,6 +56,13 @@ public class OrMatcher
     return false;
   }
 
+  /**
+   * @since 3.77
+   */
+  public List<Matcher> getMatchers() {
+    return matchers;
+  }
+
   @Override
   public String toString() {
     return getClass().getSimpleName() + "{" +
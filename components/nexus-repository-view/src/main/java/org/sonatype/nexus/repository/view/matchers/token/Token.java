@@ -32,6 +32,13 @@ public abstract class Token
 
   public abstract String toRegexp();
 
+  /**
+   * @since 3.77
+   */
+  public String getValue() {
+    return value;
+  }
+
   private static final List<Character> REGEXP_CHARS = Arrays.asList('[', ']', '{', '}', '(', ')', '\\', '.');
 
   @Override
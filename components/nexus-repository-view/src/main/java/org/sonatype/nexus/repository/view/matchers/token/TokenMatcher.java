@@ -77,6 +77,13 @@ public class TokenMatcher
     return true;
   }
 
+  /**
+   * @since 3.77
+   */
+  public String getPattern() {
+    return pattern;
+  }
+
   @Override
   public String toString() {
     return "TokenMatcher [pattern=" + pattern + "]";
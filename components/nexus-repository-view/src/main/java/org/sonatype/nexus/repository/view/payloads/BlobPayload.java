@@ -14,10 +14,12 @@ package org.sonatype.nexus.repository.view.payloads;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 
 import javax.annotation.Nullable;
 
 import org.sonatype.nexus.blobstore.api.Blob;
+import org.sonatype.nexus.blobstore.api.FileChannelBlob;
 import org.sonatype.nexus.repository.view.Payload;
 
 import static com.google.common.base.Preconditions.checkNotNull;
@@ -44,6 +46,31 @@ public class BlobPayload
     return blob.getInputStream();
   }
 
+  /**
+   * Reads only the requested range from the blob store.
+   */
+  @Override
+  public InputStream openInputStream(final long offset, final long length) {
+    return blob.getInputStream(offset, length);
+  }
+
+  @Override
+  public boolean supportsRangedReads() {
+    return true;
+  }
+
+  /**
+   * Returns a channel to the blob's content when the blob is stored verbatim in a local file, otherwise {@code null}.
+   */
+  @Nullable
+  @Override
+  public FileChannel openFileChannel() {
+    if (blob instanceof FileChannelBlob) {
+      return ((FileChannelBlob) blob).openFileChannel();
+    }
+    return null;
+  }
+
   @Override
   public long getSize() {
     return blob.getMetrics().getContentSize();
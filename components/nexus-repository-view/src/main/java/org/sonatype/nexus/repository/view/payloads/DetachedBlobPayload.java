@@ -48,6 +48,19 @@ public class DetachedBlobPayload
     return blob.getInputStream();
   }
 
+  /**
+   * Reads only the requested range from the blob store.
+   */
+  @Override
+  public InputStream openInputStream(final long offset, final long length) {
+    return blob.getInputStream(offset, length);
+  }
+
+  @Override
+  public boolean supportsRangedReads() {
+    return true;
+  }
+
   @Override
   public long getSize() {
     return blob.getMetrics().getContentSize();
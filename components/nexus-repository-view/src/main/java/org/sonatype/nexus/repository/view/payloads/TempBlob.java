@@ -16,6 +16,8 @@ import java.io.Closeable;
 import java.io.InputStream;
 import java.util.Map;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.nexus.blobstore.api.Blob;
 import org.sonatype.nexus.blobstore.api.BlobRef;
 import org.sonatype.nexus.blobstore.api.BlobStore;
@@ -48,17 +50,34 @@ public class TempBlob
 
   protected final BlobStore blobStore;
 
+  @Nullable
+  protected final InputStreamSupplier detectionContent;
+
   protected boolean deleted = false;
 
   public TempBlob(final Blob blob,
                   final Map<HashAlgorithm, HashCode> hashes,
                   final boolean hashesVerified,
                   final BlobStore blobStore)
+  {
+    this(blob, hashes, hashesVerified, blobStore, null);
+  }
+
+  /**
+   * @param detectionContent the leading bytes of the blob captured while it was written, if any
+   * @since 3.77
+   */
+  public TempBlob(final Blob blob,
+                  final Map<HashAlgorithm, HashCode> hashes,
+                  final boolean hashesVerified,
+                  final BlobStore blobStore,
+                  @Nullable final InputStreamSupplier detectionContent)
   {
     this.blob = checkNotNull(blob);
     this.hashes = checkNotNull(hashes);
     this.hashesVerified = hashesVerified;
     this.blobStore = checkNotNull(blobStore);
+    this.detectionContent = detectionContent;
   }
 
   /**
@@ -90,6 +109,16 @@ public class TempBlob
     return hashesVerified;
   }
 
+  /**
+   * Content to use for content type detection. This is the leading part of the blob captured while it was ingested
+   * when available, so detection doesn't have to read the blob back from the blob store, otherwise the blob itself.
+   *
+   * @since 3.77
+   */
+  public InputStreamSupplier getDetectionContent() {
+    return detectionContent != null ? detectionContent : this;
+  }
+
   @Override
   public void close() {
     if (deleted) {
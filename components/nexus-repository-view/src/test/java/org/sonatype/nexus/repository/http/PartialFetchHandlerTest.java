@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.http;
 
+import java.io.InputStream;
 import java.util.List;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -23,6 +24,7 @@ import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
+import com.codahale.metrics.MetricRegistry;
 import com.google.common.collect.Range;
 import org.junit.Before;
 import org.junit.Test;
@@ -35,19 +37,24 @@ import static com.google.common.net.HttpHeaders.IF_RANGE;
 import static com.google.common.net.HttpHeaders.LAST_MODIFIED;
 import static com.google.common.net.HttpHeaders.RANGE;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.US_ASCII;
 import static java.util.Arrays.asList;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static org.apache.commons.lang.ArrayUtils.subarray;
 import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.core.IsSame.sameInstance;
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.mockito.ArgumentMatchers.anyLong;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.spy;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
 import static org.sonatype.nexus.repository.http.HttpMethods.POST;
 import static org.sonatype.nexus.repository.http.HttpStatus.INTERNAL_SERVER_ERROR;
-import static org.sonatype.nexus.repository.http.HttpStatus.NOT_IMPLEMENTED;
 import static org.sonatype.nexus.repository.http.HttpStatus.OK;
 import static org.sonatype.nexus.repository.http.HttpStatus.PARTIAL_CONTENT;
 import static org.sonatype.nexus.repository.http.HttpStatus.REQUESTED_RANGE_NOT_SATISFIABLE;
@@ -78,7 +85,7 @@ public class PartialFetchHandlerTest
 
   @Before
   public void setup() {
-    underTest = new PartialFetchHandler(rangeParser);
+    underTest = new PartialFetchHandler(rangeParser, new MetricRegistry());
   }
 
   @Test
@@ -146,13 +153,44 @@ public class PartialFetchHandlerTest
   public void testHandleWhenRangeParserReturnsMultipleRanges() throws Exception {
     Request request = createGetRequestBuilder().header(RANGE, RANGE_HEADER).build();
     Response response = createOkResponseBuilder().payload(PAYLOAD).build();
-    List<Range<Long>> multipleRanges = asList(ZERO_TO_TWO_RANGE, ZERO_TO_TWO_RANGE);
+    List<Range<Long>> multipleRanges = asList(ZERO_TO_TWO_RANGE, Range.closed(7L, 9L));
     when(rangeParser.parseRangeSpec(RANGE_HEADER, PAYLOAD.getSize())).thenReturn(multipleRanges);
 
     Response actualResponse = doHandle(request, response);
 
-    assertThat(actualResponse.getStatus().getCode(), is(NOT_IMPLEMENTED));
-    assertThat(actualResponse.getStatus().getMessage(), is("Multiple ranges not supported."));
+    assertThat(actualResponse.getStatus().getCode(), is(PARTIAL_CONTENT));
+    Payload payload = actualResponse.getPayload();
+    String boundary = payload.getContentType().substring("multipart/byteranges; boundary=".length());
+    String expectedBody = "--" + boundary + "\r\n" +
+        "Content-Type: text/plain\r\n" +
+        "Content-Range: bytes 0-2/10\r\n" +
+        "\r\n" +
+        "the\r\n" +
+        "--" + boundary + "\r\n" +
+        "Content-Type: text/plain\r\n" +
+        "Content-Range: bytes 7-9/10\r\n" +
+        "\r\n" +
+        "oad\r\n" +
+        "--" + boundary + "--\r\n";
+    assertThat(new String(bytesFromPayload(payload), US_ASCII), is(expectedBody));
+    assertThat(payload.getSize(), is((long) expectedBody.length()));
+    assertThat(actualResponse.getHeaders().get(CONTENT_RANGE), is(nullValue()));
+  }
+
+  @Test
+  public void testClosingMultipartBodyEarlyDoesNotOpenUnreadRanges() throws Exception {
+    Payload spied = spy(PAYLOAD);
+    Request request = createGetRequestBuilder().header(RANGE, RANGE_HEADER).build();
+    Response response = createOkResponseBuilder().payload(spied).build();
+    List<Range<Long>> multipleRanges = asList(ZERO_TO_TWO_RANGE, Range.closed(7L, 9L));
+    when(rangeParser.parseRangeSpec(RANGE_HEADER, PAYLOAD.getSize())).thenReturn(multipleRanges);
+
+    try (InputStream in = doHandle(request, response).getPayload().openInputStream()) {
+      // the first part header
+      assertThat(in.read(), is((int) '-'));
+    }
+
+    verify(spied, never()).openInputStream(anyLong(), anyLong());
   }
 
   @Test
@@ -12,11 +12,15 @@
  */
 package org.sonatype.nexus.repository.http;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
+import java.io.InputStream;
 
 import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.view.Payload;
 import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 
+import com.codahale.metrics.Meter;
 import com.google.common.collect.Range;
 import com.google.common.io.ByteStreams;
 import com.google.common.primitives.Bytes;
@@ -57,6 +61,38 @@ public class PartialPayloadTest
     assertThat(output, is(input));
   }
 
+  @Test
+  public void rangedReadsSkipThePrefix() throws IOException {
+    Meter bytesSaved = new Meter();
+    Payload rangeReadable = new BytesPayload(input, "n/a")
+    {
+      @Override
+      public InputStream openInputStream(final long offset, final long length) {
+        return new ByteArrayInputStream(input, (int) offset, (int) length);
+      }
+
+      @Override
+      public boolean supportsRangedReads() {
+        return true;
+      }
+    };
+
+    try (PartialPayload partial = new PartialPayload(rangeReadable, Range.closed(4L, 6L), bytesSaved)) {
+      assertThat(ByteStreams.toByteArray(partial.openInputStream()), is(Bytes.toArray(asList(4, 5, 6))));
+    }
+    assertThat(bytesSaved.getCount(), is(4L));
+  }
+
+  @Test
+  public void skippedReadsSaveNothing() throws IOException {
+    Meter bytesSaved = new Meter();
+
+    try (PartialPayload partial = new PartialPayload(bytesPayload, Range.closed(4L, 6L), bytesSaved)) {
+      assertThat(ByteStreams.toByteArray(partial.openInputStream()), is(Bytes.toArray(asList(4, 5, 6))));
+    }
+    assertThat(bytesSaved.getCount(), is(0L));
+  }
+
   private byte[] partial(final BytesPayload bytes, final Range<Long> closed) throws IOException {
     try (final PartialPayload partial = new PartialPayload(bytes, closed)) {
       return ByteStreams.toByteArray(partial.openInputStream());
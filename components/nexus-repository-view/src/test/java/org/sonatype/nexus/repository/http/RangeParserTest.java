@@ -12,6 +12,7 @@
  */
 package org.sonatype.nexus.repository.http;
 
+import java.util.Collections;
 import java.util.List;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -19,6 +20,8 @@ import org.sonatype.goodies.testsupport.TestSupport;
 import com.google.common.collect.Range;
 import org.junit.Test;
 
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.empty;
 import static org.hamcrest.Matchers.is;
 import static org.hamcrest.Matchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
@@ -86,4 +89,32 @@ public class RangeParserTest
     final List<Range<Long>> ranges = parser.parseRangeSpec("bytes=5-100", 10L);
     assertThat(ranges.get(0), is(Range.closed(5L, 9L)));
   }
-}
\ No newline at end of file
+
+  @Test
+  public void multipleRanges() {
+    final List<Range<Long>> ranges = parser.parseRangeSpec("bytes=0-1, 5-, -2", 10L);
+    assertThat(ranges, contains(Range.closed(0L, 1L), Range.closed(5L, 9L), Range.closed(8L, 9L)));
+  }
+
+  @Test
+  public void unsatisfiableRangesAreLeftOut() {
+    final List<Range<Long>> ranges = parser.parseRangeSpec("bytes=20-30,0-1", 10L);
+    assertThat(ranges, contains(Range.closed(0L, 1L)));
+  }
+
+  @Test
+  public void multipleUnsatisfiableRanges() {
+    assertThat(parser.parseRangeSpec("bytes=20-30,40-", 10L), is(nullValue()));
+  }
+
+  @Test
+  public void malformedRangeAmongMultipleRanges() {
+    assertThat(parser.parseRangeSpec("bytes=0-1,x", 10L), is(empty()));
+  }
+
+  @Test
+  public void tooManyRanges() {
+    String rangeHeader = "bytes=" + String.join(",", Collections.nCopies(RangeParser.MAX_RANGES + 1, "0-1"));
+    assertThat(parser.parseRangeSpec(rangeHeader, 10L), is(empty()));
+  }
+}
@@ -46,6 +46,7 @@ import static org.hamcrest.CoreMatchers.nullValue;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.mockito.ArgumentMatchers.any;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.httpclient.internal.HttpClientFacetImpl.CONFIG_KEY;
@@ -192,6 +193,17 @@ public class HttpClientFacetImplTest
     assertDisableCompressionPassedToCustomizer(npmFormat, false);
   }
 
+  @Test
+  public void createsAsyncClientWhenAsyncEngineIsConfigured() throws Exception {
+    config.engine = HttpClientFacetImpl.ASYNC_ENGINE;
+    when(httpClientManager.createAsync(httpClientConfiguration)).thenReturn(closeableHttpClient);
+
+    assertConfigurationPassedToBlockingClient(npmFormat, npmAutoBlockConfiguration);
+
+    verify(httpClientManager).createAsync(httpClientConfiguration);
+    verify(httpClientManager, never()).create(any());
+  }
+
   private void assertConfigurationPassedToBlockingClient(final Format format,
                                                          final AutoBlockConfiguration autoBlockConfiguration)
       throws Exception
@@ -0,0 +1,138 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+import org.sonatype.nexus.repository.view.matchers.AlwaysMatcher;
+import org.sonatype.nexus.repository.view.matchers.LiteralMatcher;
+import org.sonatype.nexus.repository.view.matchers.PrefixMatcher;
+import org.sonatype.nexus.repository.view.matchers.RegexMatcher;
+import org.sonatype.nexus.repository.view.matchers.SuffixMatcher;
+import org.sonatype.nexus.repository.view.matchers.token.TokenMatcher;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.sonatype.nexus.repository.http.HttpMethods.DELETE;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
+import static org.sonatype.nexus.repository.http.HttpMethods.PUT;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.or;
+
+/**
+ * Tests for {@link RouteIndex}.
+ */
+public class RouteIndexTest
+    extends TestSupport
+{
+  @Mock
+  private Repository repository;
+
+  private final Route metadata = route(and(new ActionMatcher(GET, HEAD), new SuffixMatcher("/metadata.xml")));
+
+  private final Route index = route(and(new PrefixMatcher("/.index/"), or(new ActionMatcher(GET), new ActionMatcher(HEAD))));
+
+  private final Route upload = route(and(new ActionMatcher(PUT), new TokenMatcher("/packages/{name}/{version}")));
+
+  private final Route download = route(and(new ActionMatcher(GET, HEAD), new TokenMatcher("/packages/{name}/{version}")));
+
+  private final Route search = route(and(new ActionMatcher(GET), new LiteralMatcher("/-/search")));
+
+  private final Route regex = route(new RegexMatcher(".*\\.(tgz|zip)"));
+
+  private final Route fallback = route(new AlwaysMatcher());
+
+  private final RouteIndex underTest =
+      new RouteIndex(ImmutableList.of(metadata, index, upload, download, search, regex, fallback));
+
+  @Test
+  public void candidatesAreBucketedByActionAndSegment() {
+    assertThat(underTest.candidateRoutes(GET, "/packages/foo/1.0"), contains(metadata, download, search, regex, fallback));
+    assertThat(underTest.candidateRoutes(PUT, "/packages/foo/1.0"), contains(upload, regex, fallback));
+    assertThat(underTest.candidateRoutes(GET, "/.index/main.gz"), contains(metadata, index, search, regex, fallback));
+    assertThat(underTest.candidateRoutes(DELETE, "/packages/foo/1.0"), contains(regex, fallback));
+    assertThat(underTest.candidateRoutes("PATCH", "/other/foo"), contains(regex, fallback));
+    assertThat(underTest.candidateRoutes(GET, "/top-level"), contains(metadata, search, regex, fallback));
+  }
+
+  @Test
+  public void firstMatchingRouteWins() {
+    assertThat(findRoute(GET, "/packages/foo/1.0"), is(sameInstance(download)));
+    assertThat(findRoute(PUT, "/packages/foo/1.0"), is(sameInstance(upload)));
+    assertThat(findRoute(GET, "/packages/foo/metadata.xml"), is(sameInstance(metadata)));
+    assertThat(findRoute(GET, "/.index/main.gz"), is(sameInstance(index)));
+    assertThat(findRoute(GET, "/-/search"), is(sameInstance(search)));
+    assertThat(findRoute(GET, "/-/SEARCH"), is(sameInstance(search)));
+    assertThat(findRoute(DELETE, "/packages/foo/foo.tgz"), is(sameInstance(regex)));
+    assertThat(findRoute(DELETE, "/packages/foo/1.0"), is(sameInstance(fallback)));
+  }
+
+  @Test
+  public void noMatchReturnsNull() {
+    RouteIndex onlyUploads = new RouteIndex(singletonList(upload));
+
+    assertThat(findRoute(onlyUploads, GET, "/packages/foo/1.0"), is(nullValue()));
+  }
+
+  @Test
+  public void matchersWithSideEffectsAreStillEvaluated() {
+    // the token matcher runs before the action check, so it leaves its state behind even though the route fails
+    Route tokenFirst = route(and(new TokenMatcher("/packages/{name}/{version}"), new ActionMatcher(PUT)));
+    RouteIndex sideEffects = new RouteIndex(ImmutableList.of(tokenFirst, fallback));
+
+    Context context = context(GET, "/packages/foo/1.0");
+
+    assertThat(sideEffects.findRoute(context), is(sameInstance(fallback)));
+    assertThat(context.getAttributes().get(TokenMatcher.State.class), is(notNullValue()));
+  }
+
+  @Test
+  public void unknownMatchersAreAlwaysCandidates() {
+    Route custom = route(mock(Matcher.class));
+    RouteIndex withCustom = new RouteIndex(ImmutableList.of(upload, custom));
+
+    List<Route> candidates = withCustom.candidateRoutes(GET, "/anything");
+
+    assertThat(candidates, contains(custom));
+  }
+
+  private Route findRoute(final String action, final String path) {
+    return findRoute(underTest, action, path);
+  }
+
+  private Route findRoute(final RouteIndex routeIndex, final String action, final String path) {
+    return routeIndex.findRoute(context(action, path));
+  }
+
+  private Context context(final String action, final String path) {
+    return new Context(repository, new Request.Builder().action(action).path(path).build());
+  }
+
+  private static Route route(final Matcher matcher) {
+    return new Route(matcher, singletonList(mock(Handler.class)));
+  }
+}
@@ -0,0 +1,209 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authz;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+
+/**
+ * Index over a collection of held permissions, answering {@link Permission#implies} for the whole collection without
+ * scanning it.
+ *
+ * {@link WildcardPermission2}s using the standard wildcard semantics are stored in a trie keyed on their parts (for
+ * example {@code nexus:repository-view:maven2:central:read}), so a check only follows the branches whose part is a
+ * wildcard or contains the requested part. Any other permission is checked linearly, as before.
+ *
+ * Instances are immutable and safe to share between threads.
+ *
+ * @since 3.77
+ */
+public class PermissionIndex
+{
+  private static final String WILDCARD = "*";
+
+  private static final ClassValue<Boolean> STANDARD_IMPLIES = new ClassValue<Boolean>()
+  {
+    @Override
+    protected Boolean computeValue(final Class<?> type) {
+      try {
+        return type.getMethod("implies", Permission.class).getDeclaringClass() == WildcardPermission.class;
+      }
+      catch (NoSuchMethodException e) {
+        return false;
+      }
+    }
+  };
+
+  private final Node root = new Node();
+
+  private final List<WildcardPermission2> indexed = new ArrayList<>();
+
+  private final List<Permission> unindexed = new ArrayList<>();
+
+  private final int size;
+
+  public PermissionIndex(final Collection<? extends Permission> permissions) {
+    checkNotNull(permissions);
+    for (Permission permission : permissions) {
+      if (isIndexable(permission)) {
+        indexed.add((WildcardPermission2) permission);
+        root.add(((WildcardPermission2) permission).getParts(), 0);
+      }
+      else {
+        unindexed.add(permission);
+      }
+    }
+    root.seal();
+    this.size = permissions.size();
+  }
+
+  /**
+   * Returns {@code true} if any of the indexed permissions implies the given permission.
+   */
+  public boolean implies(final Permission permission) {
+    checkNotNull(permission);
+    if (permission instanceof WildcardPermission2) {
+      if (root.implies(((WildcardPermission2) permission).getParts(), 0)) {
+        return true;
+      }
+    }
+    else if (permission instanceof WildcardPermission) {
+      // parts of other wildcard permissions are not accessible, so fall back to checking every indexed entry
+      for (Permission held : indexed) {
+        if (held.implies(permission)) {
+          return true;
+        }
+      }
+    }
+    for (Permission held : unindexed) {
+      if (held.implies(permission)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * Number of permissions in the index.
+   */
+  public int size() {
+    return size;
+  }
+
+  private static boolean isIndexable(final Permission permission) {
+    return permission instanceof WildcardPermission2 && STANDARD_IMPLIES.get(permission.getClass());
+  }
+
+  /**
+   * Trie node; the path from the root to a node is a sequence of permission parts.
+   */
+  private static final class Node
+  {
+    /**
+     * Children keyed by their (set-valued) part.
+     */
+    private final Map<Set<String>, Node> children = new LinkedHashMap<>();
+
+    /**
+     * Children whose part contains a given token.
+     */
+    private final Map<String, List<Map.Entry<Set<String>, Node>>> byToken = new HashMap<>();
+
+    /**
+     * Children whose part contains the wildcard token.
+     */
+    private final List<Node> wildcards = new ArrayList<>();
+
+    /**
+     * A held permission ends at this node, so it implies anything that matched the path so far.
+     */
+    private boolean terminal;
+
+    /**
+     * Some held permission through this node has only wildcard parts from here on.
+     */
+    private boolean wildcardTail;
+
+    void add(final List<Set<String>> parts, final int depth) {
+      if (depth == parts.size()) {
+        terminal = true;
+        return;
+      }
+      children.computeIfAbsent(parts.get(depth), part -> new Node()).add(parts, depth + 1);
+    }
+
+    void seal() {
+      wildcardTail = terminal;
+      for (Map.Entry<Set<String>, Node> child : children.entrySet()) {
+        child.getValue().seal();
+        if (child.getKey().contains(WILDCARD)) {
+          wildcards.add(child.getValue());
+          wildcardTail |= child.getValue().wildcardTail;
+        }
+        for (String token : child.getKey()) {
+          byToken.computeIfAbsent(token, t -> new ArrayList<>(1)).add(child);
+        }
+      }
+    }
+
+    /**
+     * Mirrors {@link WildcardPermission#implies}: each held part must be a wildcard or contain the requested part,
+     * held parts beyond the requested ones must be wildcards, and requested parts beyond the held ones are implied.
+     */
+    boolean implies(final List<Set<String>> requested, final int depth) {
+      if (terminal) {
+        return true;
+      }
+      if (depth == requested.size()) {
+        return wildcardTail;
+      }
+      for (Node child : wildcards) {
+        if (child.implies(requested, depth + 1)) {
+          return true;
+        }
+      }
+      Set<String> part = requested.get(depth);
+      Iterator<String> tokens = part.iterator();
+      if (!tokens.hasNext()) {
+        // an empty requested part is contained in every held part
+        for (Node child : children.values()) {
+          if (child.implies(requested, depth + 1)) {
+            return true;
+          }
+        }
+        return false;
+      }
+      List<Map.Entry<Set<String>, Node>> candidates = byToken.get(tokens.next());
+      if (candidates != null) {
+        for (Map.Entry<Set<String>, Node> candidate : candidates) {
+          Set<String> held = candidate.getKey();
+          if (!held.contains(WILDCARD) && held.containsAll(part) && candidate.getValue().implies(requested, depth + 1)) {
+            return true;
+          }
+        }
+      }
+      return false;
+    }
+  }
+}
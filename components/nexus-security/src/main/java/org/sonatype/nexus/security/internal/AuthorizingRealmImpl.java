@@ -12,15 +12,19 @@
  */
 package org.sonatype.nexus.security.internal;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 import javax.inject.Singleton;
 
+import org.sonatype.nexus.security.authz.PermissionIndex;
 import org.sonatype.nexus.security.role.RoleIdentifier;
 import org.sonatype.nexus.security.user.RoleMappingUserManager;
 import org.sonatype.nexus.security.user.UserManager;
@@ -31,7 +35,9 @@ import org.apache.shiro.authc.AuthenticationToken;
 import org.apache.shiro.authc.credential.HashedCredentialsMatcher;
 import org.apache.shiro.authz.AuthorizationException;
 import org.apache.shiro.authz.AuthorizationInfo;
+import org.apache.shiro.authz.Permission;
 import org.apache.shiro.authz.SimpleAuthorizationInfo;
+import org.apache.shiro.authz.permission.RolePermissionResolver;
 import org.apache.shiro.crypto.hash.Sha1Hash;
 import org.apache.shiro.mgt.RealmSecurityManager;
 import org.apache.shiro.realm.AuthorizingRealm;
@@ -153,7 +159,83 @@ public class AuthorizingRealmImpl
           + " not manged by Nexus realm.");
     }
 
-    return new SimpleAuthorizationInfo(roles);
+    return new IndexedAuthorizationInfo(roles);
+  }
+
+  /**
+   * Checks the permission against an index of the user's permissions, kept with the cached authorization info,
+   * instead of collecting and scanning every permission for each check.
+   */
+  @Override
+  protected boolean isPermitted(final Permission permission, final AuthorizationInfo info) {
+    RolePermissionResolver resolver = getRolePermissionResolver();
+    if (resolver == null || !(info instanceof IndexedAuthorizationInfo)) {
+      return super.isPermitted(permission, info);
+    }
+
+    // role permissions are cached by the resolver; new instances mean its caches were invalidated
+    List<Collection<Permission>> rolePermissions = new ArrayList<>();
+    for (String role : info.getRoles()) {
+      rolePermissions.add(resolver.resolvePermissionsInRole(role));
+    }
+
+    IndexedAuthorizationInfo indexedInfo = (IndexedAuthorizationInfo) info;
+    PermissionIndex index = indexedInfo.getIndex(rolePermissions);
+    if (index == null) {
+      index = new PermissionIndex(getPermissions(info));
+      indexedInfo.setIndex(rolePermissions, index);
+    }
+    return index.implies(permission);
+  }
+
+  /**
+   * Authorization info which carries an index of its permissions.
+   */
+  private static class IndexedAuthorizationInfo
+      extends SimpleAuthorizationInfo
+  {
+    private transient volatile IndexedPermissions indexed;
+
+    IndexedAuthorizationInfo(final Set<String> roles) {
+      super(roles);
+    }
+
+    /**
+     * Returns the index if it was built from the given role permissions, otherwise {@code null}.
+     */
+    @Nullable
+    PermissionIndex getIndex(final List<Collection<Permission>> rolePermissions) {
+      IndexedPermissions current = indexed;
+      return current != null && current.builtFrom(rolePermissions) ? current.index : null;
+    }
+
+    void setIndex(final List<Collection<Permission>> rolePermissions, final PermissionIndex index) {
+      indexed = new IndexedPermissions(rolePermissions, index);
+    }
+  }
+
+  private static class IndexedPermissions
+  {
+    private final List<Collection<Permission>> rolePermissions;
+
+    private final PermissionIndex index;
+
+    IndexedPermissions(final List<Collection<Permission>> rolePermissions, final PermissionIndex index) {
+      this.rolePermissions = rolePermissions;
+      this.index = index;
+    }
+
+    boolean builtFrom(final List<Collection<Permission>> candidates) {
+      if (candidates.size() != rolePermissions.size()) {
+        return false;
+      }
+      for (int i = 0; i < candidates.size(); i++) {
+        if (candidates.get(i) != rolePermissions.get(i)) {
+          return false;
+        }
+      }
+      return true;
+    }
   }
 
   private void cleanUpRealmList(final Set<String> realmNames) {
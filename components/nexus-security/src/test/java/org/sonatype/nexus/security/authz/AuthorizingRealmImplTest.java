@@ -15,6 +15,7 @@ package org.sonatype.nexus.security.authz;
 import java.util.HashSet;
 import java.util.Set;
 
+import org.sonatype.nexus.common.event.EventManager;
 import org.sonatype.nexus.security.AbstractSecurityTest;
 import org.sonatype.nexus.security.config.CPrivilege;
 import org.sonatype.nexus.security.config.CRole;
@@ -76,6 +77,27 @@ public class AuthorizingRealmImplTest
     Assert.assertFalse(realm.isPermitted(principal, new WildcardPermission("app:ui:delete")));
   }
 
+  @Test
+  public void testAuthorizationFollowsRoleChanges() throws Exception {
+    buildTestAuthorizationConfig();
+
+    SimplePrincipalCollection principal = new SimplePrincipalCollection("username", realm.getName());
+
+    Assert.assertTrue(realm.isPermitted(principal, new WildcardPermission2("app:config:read")));
+    Assert.assertFalse(realm.isPermitted(principal, new WildcardPermission2("app:ui:read")));
+
+    CPrivilege priv = WildcardPrivilegeDescriptor.privilege("app:ui:*");
+    configurationManager.createPrivilege(priv);
+    CRole role = configurationManager.readRole("role");
+    role.addPrivilege(priv.getId());
+    configurationManager.updateRole(role);
+    lookup(EventManager.class).post(new AuthorizationConfigurationChanged());
+
+    Assert.assertTrue(realm.isPermitted(principal, new WildcardPermission2("app:config:read")));
+    Assert.assertTrue(realm.isPermitted(principal, new WildcardPermission2("app:ui:read")));
+    Assert.assertFalse(realm.isPermitted(principal, new WildcardPermission2("app:settings:read")));
+  }
+
   private void buildTestAuthorizationConfig() throws Exception {
     buildTestAuthorizationConfig("username");
   }
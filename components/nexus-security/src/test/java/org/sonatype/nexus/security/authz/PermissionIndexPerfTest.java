@@ -0,0 +1,124 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authz;
+
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+import java.util.function.Predicate;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.shiro.authz.Permission;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Compares {@link PermissionIndex} with the linear scan done by Shiro, for a user whose roles grant several hundred
+ * repository-view permissions.
+ */
+@Category(Perf.class)
+public class PermissionIndexPerfTest
+    extends TestSupport
+{
+  private static final List<String> FORMATS = ImmutableList.of("maven2", "npm", "nuget", "docker", "pypi", "raw",
+      "rubygems", "helm", "yum", "apt");
+
+  private static final List<String> ACTIONS = ImmutableList.of("read", "browse", "edit", "add", "delete");
+
+  private static final int TEAMS = 40;
+
+  private static final int REPOSITORIES_PER_TEAM = 10;
+
+  private static final int WARMUP_ROUNDS = 20_000;
+
+  private static final int MEASURED_ROUNDS = 200_000;
+
+  private final Set<Permission> held = new LinkedHashSet<>();
+
+  private final List<Permission> requested = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    Random random = new Random(0);
+
+    // every team role grants read/browse on its own repositories, and nests a shared role with a few app privileges
+    for (int team = 0; team < TEAMS; team++) {
+      for (int repo = 0; repo < REPOSITORIES_PER_TEAM; repo++) {
+        String format = FORMATS.get(random.nextInt(FORMATS.size()));
+        held.add(new WildcardPermission2(viewPermission(format, "team" + team + "-" + repo, "read,browse")));
+        if (repo % 3 == 0) {
+          held.add(new WildcardPermission2(viewPermission(format, "team" + team + "-" + repo, "edit,add")));
+        }
+      }
+    }
+    held.add(new WildcardPermission2("nexus:search:read"));
+    held.add(new WildcardPermission2("nexus:healthcheck:read"));
+    held.add(new WildcardPermission2("nexus:repository-view:raw:shared-site:*"));
+    held.add(new WildcardPermission2("nexus:repository-view:npm:*:read"));
+
+    for (int i = 0; i < 1_000; i++) {
+      String format = FORMATS.get(random.nextInt(FORMATS.size()));
+      String repository = "team" + random.nextInt(TEAMS * 2) + "-" + random.nextInt(REPOSITORIES_PER_TEAM);
+      requested.add(new WildcardPermission2(viewPermission(format, repository, ACTIONS.get(random.nextInt(2)))));
+    }
+  }
+
+  @Test
+  public void compareIndexAndLinearScan() {
+    PermissionIndex index = new PermissionIndex(held);
+
+    Predicate<Permission> linear = permission -> {
+      for (Permission granted : held) {
+        if (granted.implies(permission)) {
+          return true;
+        }
+      }
+      return false;
+    };
+
+    for (Permission permission : requested) {
+      assertThat(permission.toString(), index.implies(permission), is(linear.test(permission)));
+    }
+
+    double linearPerSecond = measure(linear);
+    double indexPerSecond = measure(index::implies);
+
+    log("{} held permissions -> linear: {} checks/s, index: {} checks/s", held.size(),
+        String.format("%.0f", linearPerSecond), String.format("%.0f", indexPerSecond));
+  }
+
+  private double measure(final Predicate<Permission> check) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      check.test(requested.get(i % requested.size()));
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      check.test(requested.get(i % requested.size()));
+    }
+    long elapsed = System.nanoTime() - start;
+    return MEASURED_ROUNDS / (elapsed / 1e9d);
+  }
+
+  private static String viewPermission(final String format, final String repository, final String actions) {
+    return "nexus:repository-view:" + format + ":" + repository + ":" + actions;
+  }
+}
@@ -0,0 +1,122 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.security.authz;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableList;
+import org.apache.shiro.authz.Permission;
+import org.apache.shiro.authz.permission.AllPermission;
+import org.apache.shiro.authz.permission.WildcardPermission;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+
+/**
+ * Tests for {@link PermissionIndex}.
+ */
+public class PermissionIndexTest
+    extends TestSupport
+{
+  private static final List<String> TOKENS = ImmutableList.of("nexus", "repository-view", "maven2", "npm", "central",
+      "releases", "read", "browse", "edit", "*");
+
+  @Test
+  public void matchesWildcardSemantics() {
+    PermissionIndex underTest = new PermissionIndex(ImmutableList.of(
+        perm("nexus:repository-view:maven2:central:read,browse"),
+        perm("nexus:repository-view:npm:*:*"),
+        perm("nexus:settings"),
+        perm("nexus:blobstores:*")));
+
+    assertThat(underTest.implies(perm("nexus:repository-view:maven2:central:read")), is(true));
+    assertThat(underTest.implies(perm("nexus:repository-view:maven2:central:read,browse")), is(true));
+    assertThat(underTest.implies(perm("nexus:repository-view:maven2:central:read,edit")), is(false));
+    assertThat(underTest.implies(perm("nexus:repository-view:maven2:releases:read")), is(false));
+    assertThat(underTest.implies(perm("nexus:repository-view:npm:anything:edit")), is(true));
+    assertThat(underTest.implies(perm("nexus:repository-view:npm")), is(true));
+    assertThat(underTest.implies(perm("nexus:repository-view:maven2")), is(false));
+    assertThat(underTest.implies(perm("nexus:settings:read:more:parts")), is(true));
+    assertThat(underTest.implies(perm("nexus:blobstores")), is(true));
+    assertThat(underTest.implies(perm("nexus")), is(false));
+  }
+
+  @Test
+  public void matchesLinearScanForRandomPermissions() {
+    Random random = new Random(42);
+    for (int round = 0; round < 200; round++) {
+      List<Permission> held = new ArrayList<>();
+      for (int i = 0; i < 20; i++) {
+        held.add(perm(randomWildcard(random)));
+      }
+      PermissionIndex underTest = new PermissionIndex(held);
+
+      for (int i = 0; i < 50; i++) {
+        WildcardPermission2 requested = perm(randomWildcard(random));
+        assertThat(held + " implies " + requested, underTest.implies(requested), is(impliesLinear(held, requested)));
+      }
+    }
+  }
+
+  @Test
+  public void checksPlainWildcardPermissions() {
+    PermissionIndex underTest = new PermissionIndex(ImmutableList.of(perm("nexus:repository-view:*")));
+
+    assertThat(underTest.implies(new WildcardPermission("nexus:repository-view:maven2:central:read")), is(true));
+    assertThat(underTest.implies(new WildcardPermission("nexus:settings:read")), is(false));
+  }
+
+  @Test
+  public void checksPermissionsWhichCannotBeIndexed() {
+    PermissionIndex underTest = new PermissionIndex(ImmutableList.of(new WildcardPermission("nexus:settings:*")));
+
+    assertThat(underTest.implies(perm("nexus:settings:read")), is(true));
+    assertThat(underTest.implies(perm("nexus:blobstores:read")), is(false));
+
+    underTest = new PermissionIndex(ImmutableList.of(new AllPermission()));
+
+    assertThat(underTest.implies(perm("nexus:blobstores:read")), is(true));
+  }
+
+  private static WildcardPermission2 perm(final String wildcard) {
+    return new WildcardPermission2(wildcard);
+  }
+
+  private static boolean impliesLinear(final List<Permission> held, final Permission requested) {
+    return held.stream().anyMatch(permission -> permission.implies(requested));
+  }
+
+  private static String randomWildcard(final Random random) {
+    StringBuilder buff = new StringBuilder();
+    int parts = 1 + random.nextInt(5);
+    for (int i = 0; i < parts; i++) {
+      if (i > 0) {
+        buff.append(':');
+      }
+      int tokens = random.nextInt(6) == 0 ? 2 : 1;
+      for (int j = 0; j < tokens; j++) {
+        if (j > 0) {
+          buff.append(',');
+        }
+        // keep the leading parts mostly fixed, like real permissions
+        buff.append(TOKENS.get(random.nextInt(i < 2 && random.nextBoolean() ? 2 : TOKENS.size())));
+      }
+    }
+    return buff.toString();
+  }
+}
@@ -0,0 +1,303 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.selector;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+import org.apache.commons.jexl3.parser.ASTAndNode;
+import org.apache.commons.jexl3.parser.ASTEQNode;
+import org.apache.commons.jexl3.parser.ASTERNode;
+import org.apache.commons.jexl3.parser.ASTIdentifier;
+import org.apache.commons.jexl3.parser.ASTJexlScript;
+import org.apache.commons.jexl3.parser.ASTNENode;
+import org.apache.commons.jexl3.parser.ASTOrNode;
+import org.apache.commons.jexl3.parser.ASTReferenceExpression;
+import org.apache.commons.jexl3.parser.ASTSWNode;
+import org.apache.commons.jexl3.parser.ASTStringLiteral;
+import org.apache.commons.jexl3.parser.JexlNode;
+
+/**
+ * Compiles a validated CSEL expression (in script form) into a closed predicate over {@link VariableSource}, so it
+ * can be evaluated without walking the syntax tree or going through the JEXL interpreter.
+ *
+ * Regular expressions are compiled once up front and {@code =^} against a literal becomes a plain prefix check.
+ * Expressions that are not in the boolean/comparison form handled here are left to the interpreter.
+ *
+ * @since 3.77
+ */
+class CselCompiler
+    extends ParserVisitorSupport
+{
+  private static final Object UNRESOLVED = new Object();
+
+  /**
+   * Compiles the given CSEL script; returns {@link Optional#empty()} if it should be interpreted instead.
+   */
+  public static Optional<CompiledCsel> compile(final ASTJexlScript script) {
+    if (script.jjtGetNumChildren() != 1) {
+      return Optional.empty();
+    }
+    CselCompiler compiler = new CselCompiler();
+    try {
+      Object root = script.jjtGetChild(0).jjtAccept(compiler, null);
+      if (root instanceof Condition) {
+        return Optional.of(new CompiledCsel((Condition) root, compiler.identifiers.toArray(new String[0])));
+      }
+    }
+    catch (UnsupportedOperationException e) {
+      compiler.log.debug("Expression will be interpreted: {}", e.getMessage());
+    }
+    return Optional.empty();
+  }
+
+  private final List<String> identifiers = new ArrayList<>();
+
+  private CselCompiler() {
+    // single-use, see compile
+  }
+
+  @Override
+  protected Object doVisit(final JexlNode node, final Object data) {
+    throw new UnsupportedOperationException(node.getClass().getSimpleName());
+  }
+
+  /**
+   * Compile `a || b`
+   */
+  @Override
+  protected Object visit(final ASTOrNode node, final Object data) {
+    Condition[] conditions = conditions(node);
+    return (Condition) values -> {
+      for (Condition condition : conditions) {
+        if (condition.test(values)) {
+          return true;
+        }
+      }
+      return false;
+    };
+  }
+
+  /**
+   * Compile `a && b`
+   */
+  @Override
+  protected Object visit(final ASTAndNode node, final Object data) {
+    Condition[] conditions = conditions(node);
+    return (Condition) values -> {
+      for (Condition condition : conditions) {
+        if (!condition.test(values)) {
+          return false;
+        }
+      }
+      return true;
+    };
+  }
+
+  /**
+   * Compile `a == b`
+   */
+  @Override
+  protected Object visit(final ASTEQNode node, final Object data) {
+    Operand left = operand(node, LEFT);
+    Operand right = operand(node, RIGHT);
+    return (Condition) values -> equal(left.get(values), right.get(values));
+  }
+
+  /**
+   * Compile `a != b`
+   */
+  @Override
+  protected Object visit(final ASTNENode node, final Object data) {
+    Operand left = operand(node, LEFT);
+    Operand right = operand(node, RIGHT);
+    return (Condition) values -> !equal(left.get(values), right.get(values));
+  }
+
+  /**
+   * Compile `a =~ "regex"`, compiling the pattern once.
+   */
+  @Override
+  protected Object visit(final ASTERNode node, final Object data) {
+    Operand left = operand(node, LEFT);
+    JexlNode regex = node.jjtGetChild(RIGHT);
+    if (!(regex instanceof ASTStringLiteral)) {
+      throw new UnsupportedOperationException("non-literal regex");
+    }
+    Pattern pattern = Pattern.compile(((ASTStringLiteral) regex).getLiteral());
+    return (Condition) values -> {
+      Object value = left.get(values);
+      return value != null && pattern.matcher(value.toString()).matches();
+    };
+  }
+
+  /**
+   * Compile `a =^ "something"`, using a plain prefix check when the prefix is a literal.
+   */
+  @Override
+  protected Object visit(final ASTSWNode node, final Object data) {
+    Operand left = operand(node, LEFT);
+    JexlNode right = node.jjtGetChild(RIGHT);
+    if (right instanceof ASTStringLiteral) {
+      String prefix = ((ASTStringLiteral) right).getLiteral();
+      return (Condition) values -> {
+        Object value = left.get(values);
+        return value != null && value.toString().startsWith(prefix);
+      };
+    }
+    Operand prefix = operand(node, RIGHT);
+    return (Condition) values -> {
+      Object value = left.get(values);
+      Object prefixValue = prefix.get(values);
+      if (value == null || prefixValue == null) {
+        return value == prefixValue;
+      }
+      return value.toString().startsWith(prefixValue.toString());
+    };
+  }
+
+  /**
+   * Compile `( expression )`
+   */
+  @Override
+  protected Object visit(final ASTReferenceExpression node, final Object data) {
+    if (node.jjtGetNumChildren() != 1) {
+      throw new UnsupportedOperationException("compound reference");
+    }
+    return node.jjtGetChild(0).jjtAccept(this, data);
+  }
+
+  @Override
+  protected Object visit(final ASTStringLiteral node, final Object data) {
+    String literal = node.getLiteral();
+    return (Operand) values -> literal;
+  }
+
+  @Override
+  protected Object visit(final ASTIdentifier node, final Object data) {
+    String name = node.getName();
+    int index = identifiers.indexOf(name);
+    if (index < 0) {
+      index = identifiers.size();
+      identifiers.add(name);
+    }
+    int slot = index;
+    return (Operand) values -> values.get(slot);
+  }
+
+  private Condition[] conditions(final JexlNode node) {
+    Condition[] conditions = new Condition[node.jjtGetNumChildren()];
+    for (int i = 0; i < conditions.length; i++) {
+      Object compiled = node.jjtGetChild(i).jjtAccept(this, null);
+      if (!(compiled instanceof Condition)) {
+        throw new UnsupportedOperationException("non-boolean operand");
+      }
+      conditions[i] = (Condition) compiled;
+    }
+    return conditions;
+  }
+
+  private Operand operand(final JexlNode node, final int index) {
+    Object compiled = node.jjtGetChild(index).jjtAccept(this, null);
+    if (!(compiled instanceof Operand)) {
+      throw new UnsupportedOperationException("non-value operand");
+    }
+    return (Operand) compiled;
+  }
+
+  /**
+   * Same outcome as JEXL equality for the string values CSEL works with.
+   */
+  private static boolean equal(final Object left, final Object right) {
+    if (left == null || right == null) {
+      return left == right;
+    }
+    return Objects.equals(left.toString(), right.toString());
+  }
+
+  @FunctionalInterface
+  private interface Condition
+  {
+    boolean test(Values values);
+  }
+
+  @FunctionalInterface
+  private interface Operand
+  {
+    Object get(Values values);
+  }
+
+  /**
+   * Per-evaluation view of the variable source, resolving each identifier at most once.
+   */
+  private static final class Values
+  {
+    private final VariableSource source;
+
+    private final String[] identifiers;
+
+    private final Object[] resolved;
+
+    Values(final VariableSource source, final String[] identifiers) {
+      this.source = source;
+      this.identifiers = identifiers;
+      this.resolved = new Object[identifiers.length];
+      Arrays.fill(resolved, UNRESOLVED);
+    }
+
+    Object get(final int slot) {
+      Object value = resolved[slot];
+      if (value == UNRESOLVED) {
+        value = source.get(identifiers[slot]).orElse(null);
+        resolved[slot] = value;
+      }
+      return value;
+    }
+  }
+
+  /**
+   * Compiled form of a CSEL expression.
+   */
+  static final class CompiledCsel
+  {
+    private final Condition condition;
+
+    private final String[] identifiers;
+
+    private CompiledCsel(final Condition condition, final String[] identifiers) {
+      this.condition = condition;
+      this.identifiers = identifiers;
+    }
+
+    /**
+     * Returns {@code true} if the source defines every variable the expression refers to; undefined variables are
+     * left to the interpreter so its handling of them is preserved.
+     */
+    boolean canEvaluate(final VariableSource source) {
+      for (String identifier : identifiers) {
+        if (!source.getVariableSet().contains(identifier)) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    boolean evaluate(final VariableSource source) {
+      return condition.test(new Values(source, identifiers));
+    }
+  }
+}
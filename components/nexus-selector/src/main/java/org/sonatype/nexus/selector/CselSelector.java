@@ -12,6 +12,8 @@
  */
 package org.sonatype.nexus.selector;
 
+import org.sonatype.nexus.selector.CselCompiler.CompiledCsel;
+
 import static com.google.common.base.Preconditions.checkNotNull;
 
 /**
@@ -26,10 +28,20 @@ public class CselSelector
 
   private final CselToSql cselToSql;
 
+  private final CompiledCsel compiled;
+
   public CselSelector(final CselToSql cselToSql, final JexlExpression expression) {
     super(expression);
     this.cselToSql = checkNotNull(cselToSql);
+    this.compiled = CselCompiler.compile(expression.getSyntaxTree()).orElse(null);
+  }
 
+  @Override
+  public boolean evaluate(final VariableSource source) {
+    if (compiled != null && compiled.canEvaluate(source)) {
+      return compiled.evaluate(source);
+    }
+    return super.evaluate(source);
   }
 
   @Override
@@ -0,0 +1,94 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.selector;
+
+import java.net.URL;
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+
+import static com.google.common.collect.Streams.stream;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+
+public class CselCompilerTest
+    extends TestSupport
+{
+  private final JexlEngine engine = new JexlEngine();
+
+  private final List<VariableSource> sources = ImmutableList.of(
+      source("maven2", "/org/apache/maven/foo/1.0/foo-1.0.jar"),
+      source("maven2", "/org/apache/maven/foo/1.0/foo-1.0-sources.jar"),
+      source("maven2", "/org/apache/maven/foo/maven-metadata.xml"),
+      source("npm", "/@types/node/-/node-1.0.0.tgz"),
+      source("raw", "/some/raw/file.txt"),
+      source("nuget", "Newtonsoft.Json/12.0.1"),
+      source("docker", "v2/library/alpine/manifests/latest"));
+
+  @Test
+  public void compiledSelectorsMatchInterpretedSelectors() throws Exception {
+    URL jsonFile = getClass().getResource("/validJexlContentSelectors.json");
+    stream(new ObjectMapper().readTree(jsonFile)).map(JsonNode::asText).forEach(this::assertSameResults);
+  }
+
+  @Test
+  public void compiledOperatorsMatchInterpretedOperators() {
+    assertSameResults("format == 'maven2'");
+    assertSameResults("format != 'maven2'");
+    assertSameResults("'maven2' == format");
+    assertSameResults("path =^ '/org/apache'");
+    assertSameResults("path =^ '/org/apache' || path =^ '/@types'");
+    assertSameResults("path =^ format");
+    assertSameResults("path =~ '.*\\.jar' && format != 'npm'");
+    assertSameResults("(format == 'maven2' || format == 'npm') && path =~ '.*-sources.*'");
+    assertSameResults("format == path");
+  }
+
+  @Test
+  public void unsupportedExpressionsAreLeftToTheInterpreter() {
+    assertThat(CselCompiler.compile(engine.parseExpression("format")).isPresent(), is(false));
+    assertThat(CselCompiler.compile(engine.parseExpression("path =~ format")).isPresent(), is(false));
+    assertThat(CselCompiler.compile(engine.parseExpression("!(format == 'npm')")).isPresent(), is(false));
+  }
+
+  @Test
+  public void undefinedVariablesAreLeftToTheInterpreter() {
+    CselCompiler.CompiledCsel compiled = CselCompiler.compile(engine.parseExpression("format == 'maven2'")).get();
+
+    assertThat(compiled.canEvaluate(source("maven2", "/foo")), is(true));
+    assertThat(compiled.canEvaluate(new VariableSourceBuilder().build()), is(false));
+  }
+
+  private void assertSameResults(final String expression) {
+    JexlExpression jexlExpression = engine.buildExpression(expression, false);
+    JexlSelector interpreted = new JexlSelector(jexlExpression);
+    CselSelector compiled = new CselSelector(mock(CselToSql.class), jexlExpression);
+    for (VariableSource source : sources) {
+      assertThat(expression + " against " + source.get("path"), compiled.evaluate(source),
+          is(interpreted.evaluate(source)));
+    }
+  }
+
+  static VariableSource source(final String format, final String path) {
+    return new VariableSourceBuilder()
+        .addResolver(new ConstantVariableResolver(format, "format"))
+        .addResolver(new ConstantVariableResolver(path, "path"))
+        .build();
+  }
+}
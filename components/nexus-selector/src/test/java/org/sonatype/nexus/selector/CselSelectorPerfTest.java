@@ -0,0 +1,96 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.selector;
+
+import java.util.List;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.mock;
+import static org.sonatype.nexus.selector.CselCompilerTest.source;
+
+/**
+ * Throughput comparison of compiled and interpreted CSEL evaluation.
+ */
+@Category(Perf.class)
+public class CselSelectorPerfTest
+    extends TestSupport
+{
+  private static final int WARMUP_ROUNDS = 200_000;
+
+  private static final int MEASURED_ROUNDS = 1_000_000;
+
+  private static final List<String> EXPRESSIONS = ImmutableList.of(
+      "format == \"maven2\" && path =^ \"/org/apache/\"",
+      "format == \"maven2\" && path =~ \"(?!.*-sources.*).*\"",
+      "format == \"npm\" || (format == \"maven2\" && path =~ \".*maven-metadata\\.xml.*\")",
+      "path =^ \"/com/example/\" || path =^ \"/org/example/\" || path =^ \"/net/example/\"");
+
+  private final JexlEngine engine = new JexlEngine();
+
+  private final List<VariableSource> sources = ImmutableList.of(
+      source("maven2", "/org/apache/maven/foo/1.0/foo-1.0.jar"),
+      source("maven2", "/org/example/foo/1.0/foo-1.0-sources.jar"),
+      source("npm", "/@types/node/-/node-1.0.0.tgz"));
+
+  @Test
+  public void compareCompiledAndInterpretedThroughput() {
+    for (String expression : EXPRESSIONS) {
+      JexlExpression jexlExpression = engine.buildExpression(expression, false);
+      Selector interpreted = new JexlSelector(jexlExpression);
+      Selector compiled = new CselSelector(mock(CselToSql.class), jexlExpression);
+
+      assertThat(measure(compiled).matches, is(measure(interpreted).matches));
+
+      double interpretedPerSecond = measure(interpreted).perSecond;
+      double compiledPerSecond = measure(compiled).perSecond;
+
+      log("{} -> interpreted: {} evals/s, compiled: {} evals/s", expression,
+          String.format("%.0f", interpretedPerSecond), String.format("%.0f", compiledPerSecond));
+    }
+  }
+
+  private Result measure(final Selector selector) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      selector.evaluate(sources.get(i % sources.size()));
+    }
+    long matches = 0;
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      if (selector.evaluate(sources.get(i % sources.size()))) {
+        matches++;
+      }
+    }
+    long elapsed = System.nanoTime() - start;
+    return new Result(matches, MEASURED_ROUNDS / (elapsed / 1e9d));
+  }
+
+  private static class Result
+  {
+    private final long matches;
+
+    private final double perSecond;
+
+    Result(final long matches, final double perSecond) {
+      this.matches = matches;
+      this.perSecond = perSecond;
+    }
+  }
+}
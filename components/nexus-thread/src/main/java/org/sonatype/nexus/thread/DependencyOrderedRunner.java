@@ -0,0 +1,235 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.thread;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.function.Function;
+
+import org.sonatype.goodies.common.ComponentSupport;
+
+import com.google.common.base.Throwables;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Runs an action over a set of nodes on a bounded pool, where a node is only handed to the pool once every node it
+ * depends on has finished. Independent nodes run in parallel; with a parallelism of one every node runs on the calling
+ * thread, in the given order except where a dependency has to go first.
+ *
+ * The first failure stops any further nodes from being handed out. Once the nodes already running have finished it is
+ * rethrown, with any later failures attached as suppressed exceptions.
+ *
+ * @since 3.77
+ */
+public class DependencyOrderedRunner
+    extends ComponentSupport
+{
+  /**
+   * The work done for each node.
+   */
+  @FunctionalInterface
+  public interface Action<T>
+  {
+    void run(T node) throws Exception;
+  }
+
+  private final String name;
+
+  private final int parallelism;
+
+  public DependencyOrderedRunner(final String name, final int parallelism) {
+    this.name = checkNotNull(name);
+    checkArgument(parallelism > 0, "parallelism must be positive");
+    this.parallelism = parallelism;
+  }
+
+  /**
+   * Runs the action for every node.
+   *
+   * @param nodes        the nodes, in the order they should be run when nothing else decides it
+   * @param dependencies the nodes which must finish before the given node is run; nodes outside {@code nodes} are
+   *                     ignored
+   * @param action       the work done for each node
+   * @return the time in milliseconds taken by each node, in the order the nodes finished
+   */
+  public <T> Map<T, Long> run(
+      final Collection<T> nodes,
+      final Function<T, Collection<T>> dependencies,
+      final Action<T> action) throws Exception
+  {
+    Set<T> pending = new LinkedHashSet<>(nodes);
+    Map<T, List<T>> dependenciesOf = new HashMap<>();
+    Map<T, Integer> unfinishedDependencies = new HashMap<>();
+    Map<T, List<T>> dependents = new HashMap<>();
+    Deque<T> ready = new ArrayDeque<>();
+
+    for (T node : pending) {
+      List<T> nodeDependencies = new ArrayList<>();
+      for (T dependency : new LinkedHashSet<>(dependencies.apply(node))) {
+        if (!dependency.equals(node) && pending.contains(dependency)) {
+          dependents.computeIfAbsent(dependency, k -> new ArrayList<>()).add(node);
+          nodeDependencies.add(dependency);
+        }
+      }
+      if (nodeDependencies.isEmpty()) {
+        ready.add(node);
+      }
+      else {
+        dependenciesOf.put(node, nodeDependencies);
+        unfinishedDependencies.put(node, nodeDependencies.size());
+      }
+    }
+
+    Map<T, Long> timings = new LinkedHashMap<>();
+    int threads = Math.min(parallelism, Math.max(1, pending.size()));
+    ExecutorService executor = createExecutor(threads);
+    try {
+      CompletionService<Result<T>> completionService = new ExecutorCompletionService<>(executor);
+      Exception failure = null;
+      int running = 0;
+
+      while (true) {
+        while (failure == null && running < threads && !ready.isEmpty()) {
+          T node = ready.poll();
+          completionService.submit(() -> runAction(node, action));
+          running++;
+        }
+
+        if (running == 0) {
+          if (failure != null || unfinishedDependencies.isEmpty()) {
+            break;
+          }
+          // only a dependency cycle leaves nodes waiting with nothing running, so break it
+          T node = findCycle(pending, dependenciesOf, unfinishedDependencies);
+          log.warn("{}: {} is part of a dependency cycle, running it before its dependencies", name, node);
+          unfinishedDependencies.remove(node);
+          ready.add(node);
+          continue;
+        }
+
+        Result<T> result = take(completionService);
+        running--;
+        timings.put(result.node, result.millis);
+
+        if (result.failure != null) {
+          if (failure == null) {
+            failure = result.failure;
+          }
+          else {
+            failure.addSuppressed(result.failure);
+          }
+        }
+
+        for (T dependent : dependents.getOrDefault(result.node, List.of())) {
+          Integer remaining = unfinishedDependencies.computeIfPresent(dependent, (k, count) -> count - 1);
+          if (remaining != null && remaining == 0) {
+            unfinishedDependencies.remove(dependent);
+            ready.add(dependent);
+          }
+        }
+      }
+
+      if (failure != null) {
+        throw failure;
+      }
+      return timings;
+    }
+    finally {
+      executor.shutdownNow();
+    }
+  }
+
+  /**
+   * Walks from the first waiting node through its waiting dependencies until a node repeats, which must be on a cycle.
+   */
+  private static <T> T findCycle(
+      final Set<T> pending,
+      final Map<T, List<T>> dependenciesOf,
+      final Map<T, Integer> waiting)
+  {
+    T node = pending.stream().filter(waiting::containsKey).findFirst().orElseThrow();
+    Set<T> visited = new HashSet<>();
+    while (visited.add(node)) {
+      node = dependenciesOf.get(node).stream().filter(waiting::containsKey).findFirst().orElseThrow();
+    }
+    return node;
+  }
+
+  private ExecutorService createExecutor(final int threads) {
+    if (threads == 1) {
+      return MoreExecutors.newDirectExecutorService();
+    }
+    return new ThreadPoolExecutor(threads, threads, 0L, MILLISECONDS, new LinkedBlockingQueue<>(),
+        new NexusThreadFactory(name, name));
+  }
+
+  private static <T> Result<T> runAction(final T node, final Action<T> action) {
+    long start = System.nanoTime();
+    Exception failure = null;
+    try {
+      action.run(node);
+    }
+    catch (Exception e) {
+      failure = e;
+    }
+    return new Result<>(node, NANOSECONDS.toMillis(System.nanoTime() - start), failure);
+  }
+
+  private static <T> Result<T> take(final CompletionService<Result<T>> completionService)
+      throws InterruptedException
+  {
+    try {
+      return completionService.take().get();
+    }
+    catch (ExecutionException e) {
+      // runAction catches every Exception, so only an Error can get here
+      Throwables.throwIfUnchecked(e.getCause());
+      throw new IllegalStateException(e.getCause());
+    }
+  }
+
+  private static class Result<T>
+  {
+    private final T node;
+
+    private final long millis;
+
+    private final Exception failure;
+
+    private Result(final T node, final long millis, final Exception failure) {
+      this.node = node;
+      this.millis = millis;
+      this.failure = failure;
+    }
+  }
+}
@@ -27,9 +27,16 @@ public class NexusForkJoinPoolFactory
   private static final int MAX_CAP = 0x7fff;
 
   public static ForkJoinPool createForkJoinPool(final String threadNamePrefix) {
+    return createForkJoinPool(threadNamePrefix, Runtime.getRuntime().availableProcessors());
+  }
+
+  /**
+   * @since 3.77
+   */
+  public static ForkJoinPool createForkJoinPool(final String threadNamePrefix, final int parallelism) {
     NexusForkJoinWorkerThreadFactory nexusForkJoinWorkerThreadFactory =
         new NexusForkJoinWorkerThreadFactory(threadNamePrefix);
-    return new ForkJoinPool(Math.min(MAX_CAP, Runtime.getRuntime().availableProcessors()),
-        nexusForkJoinWorkerThreadFactory, null, false);
+    return new ForkJoinPool(Math.min(MAX_CAP, Math.max(1, parallelism)), nexusForkJoinWorkerThreadFactory, null,
+        false);
   }
 }
@@ -0,0 +1,111 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.thread;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.function.Function;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import com.google.common.collect.ImmutableMap;
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.lessThan;
+import static org.junit.Assert.fail;
+
+public class DependencyOrderedRunnerTest
+    extends TestSupport
+{
+  // groups depend on their members, "all" depends on both groups
+  private static final Map<String, List<String>> DEPENDENCIES = ImmutableMap.of(
+      "all", List.of("group-a", "group-b"),
+      "group-a", List.of("hosted", "proxy"),
+      "group-b", List.of("proxy", "missing"));
+
+  private static final List<String> NODES = List.of("all", "group-a", "group-b", "hosted", "proxy", "other");
+
+  private static final Function<String, Collection<String>> DEPENDS_ON =
+      node -> DEPENDENCIES.getOrDefault(node, List.of());
+
+  @Test
+  public void sequentialRunKeepsOrderExceptForDependencies() throws Exception {
+    Queue<String> ran = new ConcurrentLinkedQueue<>();
+
+    Map<String, Long> timings = new DependencyOrderedRunner("test", 1).run(NODES, DEPENDS_ON, ran::add);
+
+    assertThat(ran, contains("hosted", "proxy", "other", "group-a", "group-b", "all"));
+    assertThat(timings.keySet(), contains("hosted", "proxy", "other", "group-a", "group-b", "all"));
+  }
+
+  @Test
+  public void parallelRunStartsNodesAfterTheirDependencies() throws Exception {
+    Queue<String> ran = new ConcurrentLinkedQueue<>();
+    // the three independent nodes only get past the latch when they run at the same time
+    CountDownLatch independent = new CountDownLatch(3);
+
+    new DependencyOrderedRunner("test", 4).run(NODES, DEPENDS_ON, node -> {
+      if (!DEPENDENCIES.containsKey(node)) {
+        independent.countDown();
+        assertThat(independent.await(5, SECONDS), is(true));
+      }
+      ran.add(node);
+    });
+
+    List<String> order = List.copyOf(ran);
+    assertThat(order, containsInAnyOrder(NODES.toArray()));
+    DEPENDENCIES.forEach((node, members) -> members.stream()
+        .filter(order::contains)
+        .forEach(member -> assertThat(order.indexOf(member), lessThan(order.indexOf(node)))));
+  }
+
+  @Test
+  public void failureStopsFurtherNodesAndIsRethrown() throws Exception {
+    Queue<String> ran = new ConcurrentLinkedQueue<>();
+
+    try {
+      new DependencyOrderedRunner("test", 1).run(NODES, DEPENDS_ON, node -> {
+        if ("proxy".equals(node)) {
+          throw new IllegalStateException(node);
+        }
+        ran.add(node);
+      });
+      fail("expected failure");
+    }
+    catch (IllegalStateException e) {
+      assertThat(e.getMessage(), is("proxy"));
+    }
+
+    assertThat(ran, contains("hosted"));
+  }
+
+  @Test
+  public void cyclesAreBrokenOnANodeInTheCycle() throws Exception {
+    Queue<String> ran = new ConcurrentLinkedQueue<>();
+    Map<String, List<String>> cycle = ImmutableMap.of("a", List.of("b"), "b", List.of("a"), "c", List.of("a"));
+
+    new DependencyOrderedRunner("test", 1).run(List.of("c", "b", "a"), cycle::get, ran::add);
+
+    // "c" only depends on the cycle, so it still waits for "a"
+    assertThat(ran, contains("a", "c", "b"));
+  }
+}
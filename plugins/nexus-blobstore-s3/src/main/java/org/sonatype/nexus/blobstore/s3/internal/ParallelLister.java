@@ -0,0 +1,333 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutorService;
+import java.util.function.Function;
+import java.util.function.Predicate;
+import java.util.stream.Stream;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.BlobStoreException;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.ListObjectsRequest;
+import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.S3ObjectSummary;
+import com.codahale.metrics.Meter;
+import com.google.common.collect.AbstractIterator;
+import com.google.common.collect.Iterators;
+
+import static com.google.common.base.Preconditions.checkNotNull;
+import static java.lang.Math.min;
+import static java.util.Collections.emptyIterator;
+import static java.util.Spliterator.NONNULL;
+import static java.util.Spliterator.ORDERED;
+import static java.util.Spliterators.spliteratorUnknownSize;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MINUTES;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static java.util.stream.StreamSupport.stream;
+
+/**
+ * Lists the objects under a prefix by splitting it on the {@code /} delimiter into partitions, e.g. the volumes of a
+ * blob store or the years and months of a date-based layout, and listing those partitions concurrently.
+ *
+ * Objects are streamed lazily, partition by partition, in the same order on every listing. Each partition only
+ * buffers a bounded number of results ahead of the consumer, and the mapper given to
+ * {@link #list(String, Predicate, Function)} runs on the listing threads so any per-object work is parallelised too.
+ *
+ * @since 3.77
+ */
+class ParallelLister
+    extends ComponentSupport
+{
+  private static final String DELIMITER = "/";
+
+  private static final int PARTITIONS_PER_THREAD = 4;
+
+  private static final int MAX_PARTITION_DEPTH = 3;
+
+  private static final int BUFFER_SIZE = 2000;
+
+  private static final long ABANDON_AFTER_MINUTES = 15;
+
+  private static final Object END = new Object();
+
+  private final AmazonS3 s3;
+
+  private final String bucket;
+
+  private final int parallelism;
+
+  private final Meter listRequests;
+
+  ParallelLister(final AmazonS3 s3, final String bucket, final int parallelism, final Meter listRequests) {
+    this.s3 = checkNotNull(s3);
+    this.bucket = checkNotNull(bucket);
+    this.parallelism = parallelism;
+    this.listRequests = checkNotNull(listRequests);
+  }
+
+  /**
+   * Lists the objects under the prefix, mapping each of them to a result.
+   *
+   * @param prefix          the prefix to list
+   * @param partitionFilter decides which of the prefixes directly below {@code prefix} are listed at all
+   * @param mapper          maps an object to its result, or to null to leave it out; runs on the listing threads
+   */
+  <T> Stream<T> list(
+      final String prefix,
+      final Predicate<String> partitionFilter,
+      final Function<S3ObjectSummary, T> mapper)
+  {
+    if (parallelism <= 1) {
+      Iterator<T> results =
+          Iterators.filter(Iterators.transform(objects(prefix, false), mapper::apply), Objects::nonNull);
+      return stream(spliteratorUnknownSize(results, ORDERED | NONNULL), false);
+    }
+    PartitionIterator<T> results = new PartitionIterator<>(partition(prefix, partitionFilter), mapper);
+    return stream(spliteratorUnknownSize(results, ORDERED | NONNULL), false).onClose(results::close);
+  }
+
+  /**
+   * Splits the prefix into sorted partitions, descending a level at a time until there are enough of them to keep
+   * every thread busy. Objects found directly at a level get a partition of their own so nothing is held in memory.
+   */
+  private List<Partition> partition(final String prefix, final Predicate<String> partitionFilter) {
+    List<Partition> partitions = expand(prefix, partitionFilter);
+    for (int depth = 1; depth < MAX_PARTITION_DEPTH && partitions.size() < parallelism * PARTITIONS_PER_THREAD;
+        depth++) {
+      List<Partition> expanded = new ArrayList<>();
+      boolean descended = false;
+      for (Partition partition : partitions) {
+        if (partition.direct) {
+          expanded.add(partition);
+        }
+        else {
+          expanded.addAll(expand(partition.prefix, p -> true));
+          descended = true;
+        }
+      }
+      partitions = expanded;
+      if (!descended) {
+        break;
+      }
+    }
+    log.debug("Listing {} in {} partitions", prefix, partitions.size());
+    return partitions;
+  }
+
+  private List<Partition> expand(final String prefix, final Predicate<String> partitionFilter) {
+    List<Partition> children = new ArrayList<>();
+    boolean hasObjects = false;
+    ObjectListing listing = s3.listObjects(request(prefix, true));
+    listRequests.mark();
+    while (true) {
+      hasObjects |= !listing.getObjectSummaries().isEmpty();
+      listing.getCommonPrefixes()
+          .stream()
+          .filter(partitionFilter)
+          .forEach(child -> children.add(new Partition(child, false)));
+      if (!listing.isTruncated()) {
+        break;
+      }
+      listing = s3.listNextBatchOfObjects(listing);
+      listRequests.mark();
+    }
+    if (hasObjects) {
+      children.add(0, new Partition(prefix, true));
+    }
+    return children;
+  }
+
+  private ListObjectsRequest request(final String prefix, final boolean delimited) {
+    ListObjectsRequest request = new ListObjectsRequest().withBucketName(bucket).withPrefix(prefix);
+    return delimited ? request.withDelimiter(DELIMITER) : request;
+  }
+
+  /**
+   * Pages through the objects under the prefix; only those directly at that level when {@code direct} is set.
+   */
+  private Iterator<S3ObjectSummary> objects(final String prefix, final boolean direct) {
+    return new AbstractIterator<>()
+    {
+      private ObjectListing listing;
+
+      private Iterator<S3ObjectSummary> page = emptyIterator();
+
+      @Override
+      protected S3ObjectSummary computeNext() {
+        while (!page.hasNext()) {
+          if (listing != null && !listing.isTruncated()) {
+            return endOfData();
+          }
+          listing = listing == null ? s3.listObjects(request(prefix, direct)) : s3.listNextBatchOfObjects(listing);
+          listRequests.mark();
+          page = listing.getObjectSummaries().iterator();
+        }
+        return page.next();
+      }
+    };
+  }
+
+  private static class Partition
+  {
+    private final String prefix;
+
+    private final boolean direct;
+
+    private Partition(final String prefix, final boolean direct) {
+      this.prefix = prefix;
+      this.direct = direct;
+    }
+  }
+
+  /**
+   * Lists every partition on its own thread into a bounded buffer and drains the buffers in partition order.
+   * Partitions are queued in order, so the one being drained has always been started.
+   */
+  private class PartitionIterator<T>
+      extends AbstractIterator<T>
+      implements AutoCloseable
+  {
+    private final List<Partition> partitions;
+
+    private final Function<S3ObjectSummary, T> mapper;
+
+    private final List<BlockingQueue<Object>> buffers = new ArrayList<>();
+
+    private ExecutorService executor;
+
+    private int current;
+
+    private volatile boolean closed;
+
+    // when the consumer last took or waited for a result, shared by all partitions
+    private volatile long lastTaken = System.nanoTime();
+
+    private PartitionIterator(final List<Partition> partitions, final Function<S3ObjectSummary, T> mapper) {
+      this.partitions = partitions;
+      this.mapper = mapper;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    protected T computeNext() {
+      if (executor == null && !partitions.isEmpty()) {
+        start();
+      }
+      while (current < partitions.size()) {
+        Object next = take(buffers.get(current));
+        if (next == END) {
+          buffers.set(current++, null);
+        }
+        else if (next instanceof RuntimeException) {
+          close();
+          throw (RuntimeException) next;
+        }
+        else {
+          return (T) next;
+        }
+      }
+      close();
+      return endOfData();
+    }
+
+    private void start() {
+      executor = newFixedThreadPool(min(parallelism, partitions.size()),
+          new NexusThreadFactory("s3-blobstore", "listing"));
+      for (Partition partition : partitions) {
+        BlockingQueue<Object> buffer = new ArrayBlockingQueue<>(BUFFER_SIZE);
+        buffers.add(buffer);
+        executor.execute(() -> fill(partition, buffer));
+      }
+    }
+
+    private void fill(final Partition partition, final BlockingQueue<Object> buffer) {
+      try {
+        Iterator<S3ObjectSummary> objects = objects(partition.prefix, partition.direct);
+        while (!closed && objects.hasNext()) {
+          T result = mapper.apply(objects.next());
+          if (result != null) {
+            put(buffer, result);
+          }
+        }
+        put(buffer, END);
+      }
+      catch (InterruptedException e) { // NOSONAR
+        log.debug("Listing of {} interrupted", partition.prefix);
+      }
+      catch (RuntimeException e) {
+        try {
+          put(buffer, e);
+        }
+        catch (InterruptedException ie) { // NOSONAR
+          log.debug("Listing of {} interrupted", partition.prefix, e);
+        }
+      }
+    }
+
+    /**
+     * Waits for the consumer to make room; gives up on the whole listing when the stream was left unclosed, i.e. the
+     * consumer hasn't taken anything from any partition for a long time. Partitions ahead of the one being drained
+     * stay full for as long as it takes to drain it, so how long this put has waited says nothing.
+     */
+    private void put(final BlockingQueue<Object> buffer, final Object item) throws InterruptedException {
+      while (!closed) {
+        if (buffer.offer(item, 1, SECONDS)) {
+          return;
+        }
+        if (System.nanoTime() - lastTaken > MINUTES.toNanos(ABANDON_AFTER_MINUTES)) {
+          log.debug("Abandoning listing, nothing was consumed for {} minutes", ABANDON_AFTER_MINUTES);
+          close();
+        }
+      }
+    }
+
+    private Object take(final BlockingQueue<Object> buffer) {
+      try {
+        while (true) {
+          lastTaken = System.nanoTime();
+          Object next = buffer.poll(1, SECONDS);
+          if (next != null) {
+            return next;
+          }
+          if (closed) {
+            throw new BlobStoreException("Listing of " + partitions.get(current).prefix + " was abandoned", null);
+          }
+        }
+      }
+      catch (InterruptedException e) {
+        close();
+        Thread.currentThread().interrupt();
+        throw new BlobStoreException("Interrupted while listing " + partitions.get(current).prefix, e, null);
+      }
+    }
+
+    @Override
+    public void close() {
+      closed = true;
+      if (executor != null) {
+        executor.shutdownNow();
+      }
+    }
+  }
+}
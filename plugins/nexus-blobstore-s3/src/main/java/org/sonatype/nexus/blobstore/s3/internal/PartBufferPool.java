@@ -0,0 +1,150 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static com.google.common.base.Preconditions.checkArgument;
+
+/**
+ * A bounded pool of reusable, fixed size part buffers shared by all uploads. Buffers are allocated on first use, up to
+ * the capacity of the pool, after which {@link #acquire()} blocks until another upload releases one.
+ *
+ * @since 3.77
+ */
+class PartBufferPool
+{
+  private final int bufferSize;
+
+  private final int capacity;
+
+  private final boolean direct;
+
+  private final Semaphore permits;
+
+  private final Queue<ByteBuffer> free = new ConcurrentLinkedQueue<>();
+
+  private final AtomicInteger allocated = new AtomicInteger();
+
+  PartBufferPool(final int bufferSize, final int capacity, final boolean direct) {
+    checkArgument(bufferSize > 0, "Must use a positive buffer size");
+    checkArgument(capacity > 0, "Must use a positive capacity");
+    this.bufferSize = bufferSize;
+    this.capacity = capacity;
+    this.direct = direct;
+    this.permits = new Semaphore(capacity, true);
+  }
+
+  /**
+   * Takes an empty buffer from the pool, waiting for one to be released if all are in use.
+   */
+  ByteBuffer acquire() throws InterruptedException {
+    permits.acquire();
+    ByteBuffer buffer = free.poll();
+    if (buffer == null) {
+      allocated.incrementAndGet();
+      buffer = direct ? ByteBuffer.allocateDirect(bufferSize) : ByteBuffer.allocate(bufferSize);
+    }
+    return buffer;
+  }
+
+  /**
+   * Returns a buffer taken by {@link #acquire()} to the pool.
+   */
+  void release(final ByteBuffer buffer) {
+    buffer.clear();
+    free.offer(buffer);
+    permits.release();
+  }
+
+  int getBufferSize() {
+    return bufferSize;
+  }
+
+  int getCapacity() {
+    return capacity;
+  }
+
+  int getInUse() {
+    return capacity - permits.availablePermits();
+  }
+
+  int getAllocated() {
+    return allocated.get();
+  }
+
+  /**
+   * Streams the readable bytes of a buffer without consuming it, supporting mark and reset so the S3 client can
+   * retry a part.
+   */
+  static class BufferInputStream
+      extends InputStream
+  {
+    private final ByteBuffer buffer;
+
+    BufferInputStream(final ByteBuffer buffer) {
+      this.buffer = buffer.duplicate();
+      this.buffer.mark();
+    }
+
+    @Override
+    public int read() {
+      return buffer.hasRemaining() ? buffer.get() & 0xFF : -1;
+    }
+
+    @Override
+    public int read(final byte[] bytes, final int off, final int len) {
+      if (len == 0) {
+        return 0;
+      }
+      if (!buffer.hasRemaining()) {
+        return -1;
+      }
+      int count = Math.min(len, buffer.remaining());
+      buffer.get(bytes, off, count);
+      return count;
+    }
+
+    @Override
+    public long skip(final long n) {
+      int count = (int) Math.max(0, Math.min(n, buffer.remaining()));
+      buffer.position(buffer.position() + count);
+      return count;
+    }
+
+    @Override
+    public int available() {
+      return buffer.remaining();
+    }
+
+    @Override
+    public boolean markSupported() {
+      return true;
+    }
+
+    @Override
+    public synchronized void mark(final int readLimit) {
+      buffer.mark();
+    }
+
+    @Override
+    public synchronized void reset() {
+      buffer.reset();
+    }
+  }
+}
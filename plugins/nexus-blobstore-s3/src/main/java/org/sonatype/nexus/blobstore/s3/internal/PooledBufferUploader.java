@@ -0,0 +1,329 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import javax.annotation.Nullable;
+import javax.inject.Inject;
+import javax.inject.Named;
+import javax.inject.Singleton;
+
+import org.sonatype.nexus.blobstore.api.BlobStoreException;
+import org.sonatype.nexus.blobstore.s3.internal.PartBufferPool.BufferInputStream;
+import org.sonatype.nexus.common.app.ManagedLifecycle;
+import org.sonatype.nexus.common.stateguard.Guarded;
+import org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport;
+import org.sonatype.nexus.thread.NexusThreadFactory;
+
+import com.amazonaws.SdkBaseException;
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.AbortMultipartUploadRequest;
+import com.amazonaws.services.s3.model.CompleteMultipartUploadRequest;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadRequest;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.PartETag;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.codahale.metrics.annotation.Timed;
+
+import static com.google.common.base.Preconditions.checkArgument;
+import static java.lang.String.format;
+import static java.util.concurrent.Executors.newFixedThreadPool;
+import static org.sonatype.nexus.common.app.ManagedLifecycle.Phase.STORAGE;
+import static org.sonatype.nexus.common.stateguard.StateGuardLifecycleSupport.State.STARTED;
+
+/**
+ * Uploads an InputStream by filling part buffers taken from a {@link PartBufferPool} shared by all uploads, and
+ * handing the filled buffers to a pool of threads that upload them as parts of a multipart upload. The calling thread
+ * blocks when the pool is exhausted, which bounds the memory held by concurrent uploads to the size of the pool.
+ * A normal putObject request is used instead if the content fits in a single part. Content that ends within the first
+ * {@value #SMALL_UPLOAD_SIZE} bytes is read into a buffer of its own, so small uploads never wait for the pool.
+ *
+ * @since 3.77
+ */
+@Singleton
+@ManagedLifecycle(phase = STORAGE)
+@Named("pooledBufferUploader")
+public class PooledBufferUploader
+    extends StateGuardLifecycleSupport
+    implements S3Uploader
+{
+  private static final String METRIC_NAME = "pooledBufferUploader";
+
+  private static final int SMALL_UPLOAD_SIZE = 1024 * 1024;
+
+  private final int threadCount;
+
+  private final int smallUploadSize;
+
+  private final PartBufferPool bufferPool;
+
+  private final Timer acquireBuffer;
+
+  private final Timer uploadPart;
+
+  private final Timer multipartUpload;
+
+  private ExecutorService executorService;
+
+  /**
+   * @param chunkSize       - the size of each part buffer
+   * @param numberOfThreads - 0 to use one thread per processor, or a fixed number of threads uploading parts
+   * @param bufferCount     - 0 to use two buffers per thread, or a fixed number of buffers shared by all uploads
+   * @param direct          - whether to allocate the buffers outside of the heap
+   */
+  @Inject
+  public PooledBufferUploader(
+      @Named("${nexus.s3.pooledBufferUploader.chunksize:-10485760}") final int chunkSize,
+      @Named("${nexus.s3.pooledBufferUploader.parallelism:-0}") final int numberOfThreads,
+      @Named("${nexus.s3.pooledBufferUploader.buffers:-0}") final int bufferCount,
+      @Named("${nexus.s3.pooledBufferUploader.direct:-false}") final boolean direct,
+      final MetricRegistry registry)
+  {
+    checkArgument(numberOfThreads >= 0, "Must use a non-negative parallelism");
+    checkArgument(bufferCount >= 0, "Must use a non-negative buffer count");
+    this.threadCount = (numberOfThreads > 0) ? numberOfThreads : Runtime.getRuntime().availableProcessors();
+    this.smallUploadSize = Math.min(chunkSize, SMALL_UPLOAD_SIZE);
+    this.bufferPool = new PartBufferPool(chunkSize, (bufferCount > 0) ? bufferCount : 2 * threadCount, direct);
+
+    acquireBuffer = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "acquireBuffer"));
+    uploadPart = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "uploadPart"));
+    multipartUpload = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "multiPartUpload"));
+    registry.gauge(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "buffersInUse"),
+        () -> (Gauge<Integer>) bufferPool::getInUse);
+    registry.gauge(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "buffersAllocated"),
+        () -> (Gauge<Integer>) bufferPool::getAllocated);
+    registry.gauge(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "buffersCapacity"),
+        () -> (Gauge<Integer>) bufferPool::getCapacity);
+  }
+
+  @Override
+  protected void doStart() {
+    executorService = newFixedThreadPool(threadCount, new NexusThreadFactory("s3-parallel", "pooledBufferThreads"));
+  }
+
+  @Override
+  protected void doStop() {
+    if (executorService != null) {
+      executorService.shutdownNow();
+      executorService = null;
+    }
+  }
+
+  @Override
+  @Guarded(by = STARTED)
+  @Timed
+  public void upload(final AmazonS3 s3, final String bucket, final String key, final InputStream contents) {
+    log.debug("Starting upload to key {} in bucket {}", key, bucket);
+    try (ReadableByteChannel input = Channels.newChannel(contents)) {
+      byte[] head = contents.readNBytes(smallUploadSize);
+      if (head.length < smallUploadSize) {
+        putObject(s3, bucket, key, new ByteArrayInputStream(head), head.length);
+      }
+      else {
+        ByteBuffer first = fill(input, head);
+        if (first.hasRemaining() && first.limit() == first.capacity()) {
+          uploadMultipart(s3, bucket, key, input, first);
+        }
+        else {
+          try {
+            putObject(s3, bucket, key, new BufferInputStream(first), first.remaining());
+          }
+          finally {
+            bufferPool.release(first);
+          }
+        }
+      }
+      log.debug("Finished upload to key {} in bucket {}", key, bucket);
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new BlobStoreException(format("Interrupted uploading blob to bucket:%s key:%s", bucket, key), e, null);
+    }
+    catch (IOException | SdkClientException e) { // NOSONAR
+      throw new BlobStoreException(format("Error uploading blob to bucket:%s key:%s", bucket, key), e, null);
+    }
+  }
+
+  private static void putObject(
+      final AmazonS3 s3,
+      final String bucket,
+      final String key,
+      final InputStream content,
+      final long length)
+  {
+    ObjectMetadata metadata = new ObjectMetadata();
+    metadata.setContentLength(length);
+    s3.putObject(bucket, key, content, metadata);
+  }
+
+  private void uploadMultipart(
+      final AmazonS3 s3,
+      final String bucket,
+      final String key,
+      final ReadableByteChannel input,
+      final ByteBuffer first) throws IOException, InterruptedException
+  {
+    String uploadId;
+    try {
+      uploadId = s3.initiateMultipartUpload(new InitiateMultipartUploadRequest(bucket, key)).getUploadId();
+    }
+    catch (RuntimeException e) {
+      bufferPool.release(first);
+      throw e;
+    }
+
+    AtomicBoolean failed = new AtomicBoolean();
+    List<Future<PartETag>> parts = new ArrayList<>();
+    try (Timer.Context uploadContext = multipartUpload.time()) {
+      ByteBuffer buffer = first;
+      while (buffer != null) {
+        parts.add(submitPart(s3, bucket, key, uploadId, parts.size() + 1, buffer, failed));
+        // stop reading as soon as a part failed, the upload is going to be aborted
+        buffer = failed.get() ? null : fill(input, null);
+        if (buffer != null && !buffer.hasRemaining()) {
+          bufferPool.release(buffer);
+          buffer = null;
+        }
+      }
+
+      List<PartETag> partETags = new ArrayList<>(parts.size());
+      for (Future<PartETag> part : parts) {
+        partETags.add(part.get());
+      }
+
+      s3.completeMultipartUpload(new CompleteMultipartUploadRequest()
+          .withBucketName(bucket)
+          .withKey(key)
+          .withUploadId(uploadId)
+          .withPartETags(partETags));
+    }
+    catch (InterruptedException interrupted) {
+      failed.set(true);
+      s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+      throw interrupted;
+    }
+    catch (IOException | CancellationException | ExecutionException | SdkBaseException ex) {
+      failed.set(true);
+      awaitQuietly(parts);
+      s3.abortMultipartUpload(new AbortMultipartUploadRequest(bucket, key, uploadId));
+      throw new BlobStoreException(
+          format("Error executing parallel requests for bucket:%s key:%s with uploadId:%s", bucket, key, uploadId),
+          ex,
+          null);
+    }
+  }
+
+  /**
+   * Waits for the parts still in flight, so they neither hold buffers nor complete after the upload is aborted.
+   */
+  private void awaitQuietly(final List<Future<PartETag>> parts) {
+    for (Future<PartETag> part : parts) {
+      try {
+        part.get();
+      }
+      catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+        return;
+      }
+      catch (ExecutionException | CancellationException e) { // NOSONAR
+        // already reported by the part upload
+      }
+    }
+  }
+
+  private Future<PartETag> submitPart(
+      final AmazonS3 s3,
+      final String bucket,
+      final String key,
+      final String uploadId,
+      final int partNumber,
+      final ByteBuffer buffer,
+      final AtomicBoolean failed)
+  {
+    UploadPartRequest request = new UploadPartRequest()
+        .withBucketName(bucket)
+        .withKey(key)
+        .withUploadId(uploadId)
+        .withPartNumber(partNumber)
+        .withInputStream(new BufferInputStream(buffer))
+        .withPartSize(buffer.remaining());
+    try {
+      // parts are never cancelled, so every buffer is released by the task that owns it
+      return executorService.submit(() -> {
+        if (failed.get()) {
+          bufferPool.release(buffer);
+          throw new CancellationException("Multipart upload failed");
+        }
+        try (Timer.Context partContext = uploadPart.time()) {
+          return s3.uploadPart(request).getPartETag();
+        }
+        catch (RuntimeException e) {
+          failed.set(true);
+          log.error("Error uploading part {} of multipart upload to key {} in bucket {}", partNumber, key, bucket, e);
+          throw e;
+        }
+        finally {
+          bufferPool.release(buffer);
+        }
+      });
+    }
+    catch (RuntimeException e) {
+      bufferPool.release(buffer);
+      throw e;
+    }
+  }
+
+  /**
+   * Takes a buffer from the pool, blocking while all buffers are in use, and fills it with the given bytes already
+   * read, if any, followed by the input. The buffer is returned flipped, ready to be read; it is empty once the input
+   * is exhausted.
+   */
+  private ByteBuffer fill(final ReadableByteChannel input, @Nullable final byte[] head)
+      throws IOException, InterruptedException
+  {
+    ByteBuffer buffer;
+    try (Timer.Context acquireContext = acquireBuffer.time()) {
+      buffer = bufferPool.acquire();
+    }
+    try {
+      if (head != null) {
+        buffer.put(head);
+      }
+      while (buffer.hasRemaining() && input.read(buffer) >= 0) {
+        // keep filling
+      }
+      return buffer.flip();
+    }
+    catch (IOException | RuntimeException e) {
+      bufferPool.release(buffer);
+      throw e;
+    }
+  }
+}
@@ -12,12 +12,14 @@
  */
 package org.sonatype.nexus.blobstore.s3.internal;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.nio.file.Path;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.time.ZoneOffset;
+import java.util.Date;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
@@ -33,6 +35,7 @@ import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.nexus.blobstore.BlobIdLocationResolver;
 import org.sonatype.nexus.blobstore.BlobSupport;
 import org.sonatype.nexus.blobstore.CloudBlobStoreSupport;
@@ -66,6 +69,7 @@ import com.amazonaws.services.s3.iterable.S3Objects;
 import com.amazonaws.services.s3.model.AmazonS3Exception;
 import com.amazonaws.services.s3.model.DeleteObjectsRequest;
 import com.amazonaws.services.s3.model.GetObjectMetadataRequest;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ListObjectsV2Request;
 import com.amazonaws.services.s3.model.ListObjectsV2Result;
 import com.amazonaws.services.s3.model.ObjectMetadata;
@@ -74,15 +78,18 @@ import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectSummary;
 import com.amazonaws.services.s3.model.SetObjectTaggingRequest;
 import com.amazonaws.services.s3.model.Tag;
+import com.codahale.metrics.Meter;
 import com.codahale.metrics.MetricRegistry;
 import com.codahale.metrics.SharedMetricRegistries;
 import com.codahale.metrics.Timer;
 import com.codahale.metrics.annotation.Timed;
 import com.google.common.annotations.VisibleForTesting;
+import com.google.common.cache.Cache;
 import com.google.common.cache.CacheBuilder;
 import com.google.common.cache.LoadingCache;
 import com.google.common.collect.ImmutableMap;
 import com.google.common.hash.HashCode;
+import com.google.common.hash.Hashing;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -91,9 +98,11 @@ import static com.google.common.base.Preconditions.checkState;
 import static com.google.common.base.Strings.isNullOrEmpty;
 import static com.google.common.cache.CacheLoader.from;
 import static java.lang.String.format;
+import static java.nio.charset.StandardCharsets.UTF_8;
 import static java.util.Collections.emptyList;
 import static java.util.Collections.singletonList;
 import static java.util.concurrent.Executors.newFixedThreadPool;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
 import static java.util.stream.StreamSupport.stream;
 import static org.sonatype.nexus.blobstore.DirectPathLocationStrategy.DIRECT_PATH_ROOT;
 import static org.sonatype.nexus.blobstore.api.OperationType.DOWNLOAD;
@@ -160,6 +169,8 @@ public class S3BlobStore
 
   private static final String FILE_V1 = "file/1";
 
+  private static final String TEMPORARY_PREFIX = "tmp/";
+
   private final AmazonS3Factory amazonS3Factory;
 
   private final BucketManager bucketManager;
@@ -174,6 +185,12 @@ public class S3BlobStore
 
   private boolean preferAsyncCleanup;
 
+  private final int listingParallelism;
+
+  private final long tempBlobMaxAgeMillis;
+
+  private final Cache<HashCode, Boolean> tempBlobVerdicts;
+
   private BlobStoreMetricsService<S3BlobStore> metricsService;
 
   private BlobStoreQuotaUsageChecker blobStoreQuotaUsageChecker;
@@ -192,6 +209,14 @@ public class S3BlobStore
 
   private final Timer hardDeleteTimer;
 
+  private final Meter listRequests;
+
+  private final Meter tempBlobChecks;
+
+  private final Meter tempBlobCheckCacheHits;
+
+  private final Meter tempBlobChecksSkipped;
+
   private RawObjectAccess rawObjectAccess;
 
   @Inject
@@ -203,6 +228,9 @@ public class S3BlobStore
       @Named("${nexus.s3.preferExpire:-false}") final boolean preferExpire,
       @Named("${nexus.s3.forceHardDelete:-false}") final boolean forceHardDelete,
       @Named("${nexus.s3.preferAsyncCleanup:-true}") final boolean preferAsyncCleanup,
+      @Named("${nexus.s3.listing.parallelism:-8}") final int listingParallelism,
+      @Named("${nexus.s3.listing.tempBlobCacheSize:-200000}") final int tempBlobCacheSize,
+      @Named("${nexus.s3.listing.tempBlobMaxAge:-0s}") final Time tempBlobMaxAge,
       @Named(S3BlobStore.TYPE) final BlobStoreMetricsService<S3BlobStore> metricsService,
       final DryRunPrefix dryRunPrefix,
       final BucketManager bucketManager,
@@ -219,12 +247,26 @@ public class S3BlobStore
 
     this.forceHardDelete = forceHardDelete;
     this.preferAsyncCleanup = preferAsyncCleanup;
+    this.listingParallelism = listingParallelism;
+    this.tempBlobMaxAgeMillis = tempBlobMaxAge.toMillis();
+    CacheBuilder<Object, Object> verdicts = CacheBuilder.newBuilder().maximumSize(tempBlobCacheSize);
+    if (tempBlobMaxAgeMillis > 0) {
+      // only keys younger than the max age are checked, so their verdicts are of no use once they are older
+      verdicts.expireAfterWrite(tempBlobMaxAgeMillis, MILLISECONDS);
+    }
+    this.tempBlobVerdicts = verdicts.build();
 
     MetricRegistry registry = SharedMetricRegistries.getOrCreate("nexus");
 
     existsTimer = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "exists"));
     expireTimer = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "expire"));
     hardDeleteTimer = registry.timer(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "hardDelete"));
+    listRequests = registry.meter(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "listRequests"));
+    tempBlobChecks = registry.meter(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "tempBlobChecks"));
+    tempBlobCheckCacheHits =
+        registry.meter(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "tempBlobCheckCacheHits"));
+    tempBlobChecksSkipped =
+        registry.meter(MetricRegistry.name(S3BlobStore.class, METRIC_NAME, "tempBlobChecksSkipped"));
   }
 
   @Override
@@ -776,6 +818,17 @@ public class S3BlobStore
       S3Object object = s3.getObject(getConfiguredBucket(), contentPath(getId()));
       return performanceLogger.maybeWrapForPerformanceLogging(object.getObjectContent());
     }
+
+    @Override
+    protected InputStream doGetInputStream(final long offset, final long length) {
+      if (length <= 0) {
+        // a ranged request has to ask for at least one byte
+        return new ByteArrayInputStream(new byte[0]);
+      }
+      S3Object object = s3.getObject(new GetObjectRequest(getConfiguredBucket(), contentPath(getId()))
+          .withRange(offset, offset + length - 1));
+      return performanceLogger.maybeWrapForPerformanceLogging(object.getObjectContent());
+    }
   }
 
   private interface BlobIngester
@@ -786,8 +839,8 @@ public class S3BlobStore
   @Override
   @Timed
   public Stream<BlobId> getBlobIdStream() {
-    Iterable<S3ObjectSummary> summaries = S3Objects.withPrefix(s3, getConfiguredBucket(), getContentPrefix());
-    return blobIdStream(stream(summaries.spliterator(), false));
+    String tempPrefix = getContentPrefix() + TEMPORARY_PREFIX;
+    return lister().list(getContentPrefix(), partition -> !partition.equals(tempPrefix), this::permanentBlobId);
   }
 
   @Override
@@ -831,12 +884,9 @@ public class S3BlobStore
     ListObjectsV2Result result = s3.listObjectsV2(request);
     List<BlobId> blobIds = result.getObjectSummaries()
         .stream()
-        .filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX) || o.getKey().endsWith(BLOB_FILE_CONTENT_SUFFIX))
-        .filter(this::isNotTempBlob)
         .filter(s3Obj -> s3Obj.getLastModified().toInstant().atOffset(ZoneOffset.UTC).isAfter(fromDateTime) &&
             s3Obj.getLastModified().toInstant().atOffset(ZoneOffset.UTC).isBefore(toDateTime))
-        .map(S3AttributesLocation::new)
-        .map(this::getBlobIdFromAttributeFilePath)
+        .map(this::permanentBlobId)
         .filter(Objects::nonNull)
         .distinct()
         .collect(Collectors.toList());
@@ -845,14 +895,10 @@ public class S3BlobStore
   }
 
   private Stream<BlobId> getBlobIdStream(final String prefix, OffsetDateTime fromDateTime) {
-    Iterable<S3ObjectSummary> summaries = S3Objects.withPrefix(s3, getConfiguredBucket(), prefix);
-    return stream(summaries.spliterator(), false)
-        .filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX) || o.getKey().endsWith(BLOB_FILE_CONTENT_SUFFIX))
-        .filter(this::isNotTempBlob)
-        .filter(s3Obj -> s3Obj.getLastModified().toInstant().atOffset(ZoneOffset.UTC).isAfter(fromDateTime))
-        .map(S3AttributesLocation::new)
-        .map(this::getBlobIdFromAttributeFilePath)
-        .filter(Objects::nonNull);
+    return lister().list(prefix, partition -> true,
+        s3Obj -> s3Obj.getLastModified().toInstant().atOffset(ZoneOffset.UTC).isAfter(fromDateTime)
+            ? permanentBlobId(s3Obj)
+            : null);
   }
 
   @Override
@@ -866,17 +912,57 @@ public class S3BlobStore
         .map(this::attributePathToDirectPathBlobId);
   }
 
-  private Stream<S3ObjectSummary> nonTempBlobPropertiesFileStream(final Stream<S3ObjectSummary> summaries) {
-    return summaries
-        .filter(o -> o.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX))
-        .filter(this::isNotTempBlob);
+  private ParallelLister lister() {
+    return new ParallelLister(s3, getConfiguredBucket(), listingParallelism, listRequests);
+  }
+
+  /**
+   * Returns the id of the blob whose attributes file this is, or null when it is not the attributes file of a permanent
+   * blob. Content files are skipped without any request: the attributes file is written after the content and is
+   * rewritten whenever the blob changes, so it alone tells whether and when the blob was updated.
+   */
+  @Nullable
+  private BlobId permanentBlobId(final S3ObjectSummary object) {
+    if (!object.getKey().endsWith(BLOB_FILE_ATTRIBUTES_SUFFIX) || !isNotTempBlob(object)) {
+      return null;
+    }
+    return getBlobIdFromAttributeFilePath(new S3AttributesLocation(object));
   }
 
+  /**
+   * Temporary blobs share the layout of permanent ones and are only marked by the metadata of their attributes file,
+   * so the answer is cached by key and ETag; making a blob permanent rewrites that file, which changes the ETag.
+   *
+   * Setting {@code nexus.s3.listing.tempBlobMaxAge} opts in to trusting attributes files last written longer ago than
+   * that as permanent without a request. Temporary blobs left behind by a crash or a failed delete are then listed as
+   * permanent once they are older, so this is off by default.
+   */
   private boolean isNotTempBlob(final S3ObjectSummary object) {
+    Date lastModified = object.getLastModified();
+    if (tempBlobMaxAgeMillis > 0 && lastModified != null
+        && System.currentTimeMillis() - lastModified.getTime() > tempBlobMaxAgeMillis) {
+      tempBlobChecksSkipped.mark();
+      return true;
+    }
+    HashCode cacheKey = object.getETag() != null
+        ? Hashing.murmur3_128().hashString(object.getKey() + '@' + object.getETag(), UTF_8)
+        : null;
+    if (cacheKey != null) {
+      Boolean temporary = tempBlobVerdicts.getIfPresent(cacheKey);
+      if (temporary != null) {
+        tempBlobCheckCacheHits.mark();
+        return !temporary;
+      }
+    }
     try {
+      tempBlobChecks.mark();
       ObjectMetadata objectMetadata = s3.getObjectMetadata(getConfiguredBucket(), object.getKey());
       Map<String, String> userMetadata = objectMetadata.getUserMetadata();
-      return !userMetadata.containsKey(TEMPORARY_BLOB_HEADER);
+      boolean temporary = userMetadata.containsKey(TEMPORARY_BLOB_HEADER);
+      if (cacheKey != null) {
+        tempBlobVerdicts.put(cacheKey, temporary);
+      }
+      return !temporary;
     }
     catch (Exception e) {
       // On occasion a blob might be deleted between our retrieving the summary and asking for the metadata
@@ -885,13 +971,6 @@ public class S3BlobStore
     }
   }
 
-  private Stream<BlobId> blobIdStream(final Stream<S3ObjectSummary> summaries) {
-    return nonTempBlobPropertiesFileStream(summaries)
-        .map(S3AttributesLocation::new)
-        .map(this::getBlobIdFromAttributeFilePath)
-        .filter(Objects::nonNull);
-  }
-
   @Nullable
   @Override
   @Timed
@@ -0,0 +1,84 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.s3.internal.PartBufferPool.BufferInputStream;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.junit.Assert.assertThrows;
+
+public class PartBufferPoolTest
+    extends TestSupport
+{
+  @Test
+  public void acquireBlocksUntilABufferIsReleased() throws Exception {
+    PartBufferPool underTest = new PartBufferPool(16, 1, false);
+    ByteBuffer buffer = underTest.acquire();
+    assertThat(underTest.getInUse(), is(1));
+
+    CompletableFuture<ByteBuffer> waiting = CompletableFuture.supplyAsync(() -> {
+      try {
+        return underTest.acquire();
+      }
+      catch (InterruptedException e) {
+        throw new IllegalStateException(e);
+      }
+    });
+    assertThrows(TimeoutException.class, () -> waiting.get(100, TimeUnit.MILLISECONDS));
+
+    buffer.put((byte) 1);
+    underTest.release(buffer);
+
+    ByteBuffer reused = waiting.get(5, TimeUnit.SECONDS);
+    assertThat(reused, sameInstance(buffer));
+    assertThat(reused.position(), is(0));
+    assertThat(underTest.getAllocated(), is(1));
+  }
+
+  @Test
+  public void allocatesDirectBuffersOnDemand() throws Exception {
+    PartBufferPool underTest = new PartBufferPool(16, 4, true);
+    assertThat(underTest.getAllocated(), is(0));
+
+    ByteBuffer buffer = underTest.acquire();
+
+    assertThat(buffer.isDirect(), is(true));
+    assertThat(buffer.capacity(), is(16));
+    assertThat(underTest.getAllocated(), is(1));
+  }
+
+  @Test
+  public void bufferInputStreamCanBeResetForRetries() throws Exception {
+    ByteBuffer buffer = ByteBuffer.allocateDirect(16).put("content".getBytes(UTF_8)).flip();
+    InputStream input = new BufferInputStream(buffer);
+    input.mark(16);
+
+    assertThat(new String(ByteStreams.toByteArray(input), UTF_8), is("content"));
+    input.reset();
+    assertThat(new String(ByteStreams.toByteArray(input), UTF_8), is("content"));
+    assertThat(buffer.remaining(), is(7));
+  }
+}
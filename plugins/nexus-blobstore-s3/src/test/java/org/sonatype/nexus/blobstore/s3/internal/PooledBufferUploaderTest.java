@@ -0,0 +1,164 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.s3.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobStoreException;
+
+import com.amazonaws.SdkClientException;
+import com.amazonaws.services.s3.AmazonS3;
+import com.amazonaws.services.s3.model.InitiateMultipartUploadResult;
+import com.amazonaws.services.s3.model.ObjectMetadata;
+import com.amazonaws.services.s3.model.UploadPartRequest;
+import com.amazonaws.services.s3.model.UploadPartResult;
+import com.codahale.metrics.MetricRegistry;
+import com.google.common.io.ByteStreams;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.ArgumentCaptor;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.junit.Assert.assertThrows;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class PooledBufferUploaderTest
+    extends TestSupport
+{
+  private static final int CHUNK_SIZE = 100;
+
+  @Mock
+  private AmazonS3 s3;
+
+  @Mock
+  private InitiateMultipartUploadResult initiateMultipartUploadResult;
+
+  private final MetricRegistry registry = new MetricRegistry();
+
+  private final Map<Integer, byte[]> uploadedParts = new ConcurrentHashMap<>();
+
+  private PooledBufferUploader underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(initiateMultipartUploadResult.getUploadId()).thenReturn("uploadId");
+    when(s3.initiateMultipartUpload(any())).thenReturn(initiateMultipartUploadResult);
+    when(s3.uploadPart(any())).thenAnswer(invocation -> {
+      UploadPartRequest request = invocation.getArgument(0);
+      // buffers are reused once the part is uploaded, so the content has to be read now
+      uploadedParts.put(request.getPartNumber(), ByteStreams.toByteArray(request.getInputStream()));
+      return new UploadPartResult();
+    });
+
+    underTest = new PooledBufferUploader(CHUNK_SIZE, 4, 2, false, registry);
+    underTest.start();
+  }
+
+  @After
+  public void tearDown() throws Exception {
+    underTest.stop();
+  }
+
+  @Test
+  public void testEmptyStreamCausesUpload() {
+    underTest.upload(s3, "bucketName", "key", new ByteArrayInputStream(new byte[0]));
+
+    ArgumentCaptor<ObjectMetadata> metadata = ArgumentCaptor.forClass(ObjectMetadata.class);
+    verify(s3).putObject(eq("bucketName"), eq("key"), any(InputStream.class), metadata.capture());
+    assertThat(metadata.getValue().getContentLength(), is(0L));
+    verify(s3, never()).initiateMultipartUpload(any());
+  }
+
+  @Test
+  public void testUploadUsesPutObjectForSmallUploads() {
+    underTest.upload(s3, "bucketName", "key", new ByteArrayInputStream(new byte[50]));
+
+    ArgumentCaptor<ObjectMetadata> metadata = ArgumentCaptor.forClass(ObjectMetadata.class);
+    verify(s3).putObject(eq("bucketName"), eq("key"), any(InputStream.class), metadata.capture());
+    assertThat(metadata.getValue().getContentLength(), is(50L));
+    verify(s3, never()).initiateMultipartUpload(any());
+    // small uploads don't take a buffer from the pool at all
+    assertThat(gauge("buffersAllocated"), is(0));
+  }
+
+  @Test
+  public void testUploadOfExactlyOneChunkUsesAPooledBuffer() throws Exception {
+    byte[] content = new byte[CHUNK_SIZE];
+    new Random(1).nextBytes(content);
+
+    underTest.upload(s3, "bucketName", "key", new ByteArrayInputStream(content));
+
+    verify(s3).uploadPart(any());
+    verify(s3).completeMultipartUpload(any());
+    assertThat(uploadedParts.get(1), is(content));
+    assertThat(gauge("buffersInUse"), is(0));
+  }
+
+  @Test
+  public void testUploadWithMultipartApiReusesPooledBuffers() throws Exception {
+    byte[] content = new byte[1050];
+    new Random(1).nextBytes(content);
+
+    underTest.upload(s3, "bucketName", "key", new ByteArrayInputStream(content));
+
+    verify(s3).initiateMultipartUpload(any());
+    verify(s3, times(11)).uploadPart(any());
+    verify(s3).completeMultipartUpload(any());
+    verify(s3, never()).abortMultipartUpload(any());
+
+    ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+    for (int part = 1; part <= 11; part++) {
+      uploaded.write(uploadedParts.get(part));
+    }
+    assertThat(uploaded.toByteArray(), is(content));
+
+    // two buffers served all the parts and went back to the pool
+    assertThat(gauge("buffersAllocated"), is(2));
+    assertThat(gauge("buffersInUse"), is(0));
+    assertThat(registry.timer(MetricRegistry.name(S3BlobStore.class, "pooledBufferUploader", "uploadPart"))
+        .getCount(), is(11L));
+  }
+
+  @Test
+  public void testUploadAbortsMultipartOnError() {
+    doThrow(new SdkClientException("")).when(s3).uploadPart(any());
+
+    assertThrows(BlobStoreException.class,
+        () -> underTest.upload(s3, "bucketName", "key", new ByteArrayInputStream(new byte[1000])));
+
+    verify(s3).initiateMultipartUpload(any());
+    verify(s3).abortMultipartUpload(any());
+    verify(s3, never()).completeMultipartUpload(any());
+    assertThat(gauge("buffersInUse"), is(0));
+  }
+
+  private int gauge(final String name) {
+    return (Integer) registry.getGauges().get(MetricRegistry.name(S3BlobStore.class, "pooledBufferUploader", name))
+        .getValue();
+  }
+}
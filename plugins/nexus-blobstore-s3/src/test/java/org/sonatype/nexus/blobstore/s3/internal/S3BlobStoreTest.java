@@ -24,6 +24,7 @@ import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 
+import org.sonatype.goodies.common.Time;
 import org.sonatype.goodies.testsupport.TestSupport;
 import org.sonatype.nexus.blobstore.DefaultBlobIdLocationResolver;
 import org.sonatype.nexus.blobstore.MockBlobStoreConfiguration;
@@ -47,6 +48,7 @@ import com.amazonaws.services.s3.model.DeleteObjectsResult;
 import com.amazonaws.services.s3.model.DeleteObjectsResult.DeletedObject;
 import com.amazonaws.services.s3.model.ListObjectsRequest;
 import com.amazonaws.services.s3.model.ObjectListing;
+import com.amazonaws.services.s3.model.GetObjectRequest;
 import com.amazonaws.services.s3.model.ObjectMetadata;
 import com.amazonaws.services.s3.model.S3Object;
 import com.amazonaws.services.s3.model.S3ObjectInputStream;
@@ -61,6 +63,7 @@ import org.mockito.Mock;
 import org.mockito.MockedStatic;
 
 import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.contains;
 import static org.hamcrest.Matchers.hasEntry;
 import static org.hamcrest.Matchers.hasItem;
 import static org.hamcrest.Matchers.hasKey;
@@ -134,7 +137,7 @@ public class S3BlobStoreTest
     when(region.getName()).thenReturn("us-east-1");
     regionsMockedStatic.when(Regions::getCurrentRegion).thenReturn(region);
     blobStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(true), uploader, copier, false,
-        false, false, storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
+        false, false, 8, 1000, Time.seconds(0), storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
     config = new MockBlobStoreConfiguration();
     attributesContents =
         "#Thu Jun 01 23:10:55 UTC 2017\n@BlobStore.created-by=admin\nsize=11\n@Bucket.repo-name=test\ncreationTime=1496358655289\n@BlobStore.content-type=text/plain\n@BlobStore.blob-name=test\nsha1=eb4c2a5a1c04ca2d504c5e57e1f88cef08c75707";
@@ -233,6 +236,112 @@ public class S3BlobStoreTest
     assertThat(blobIds.size(), is(1));
   }
 
+  @Test
+  public void testGetBlobIdStreamListsVolumesInParallelAndInOrder() throws Exception {
+    blobStore.init(config);
+    blobStore.doStart();
+
+    when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ListObjectsRequest request = invocation.getArgument(0);
+      ObjectListing listing = new ObjectListing();
+      if (request.getPrefix().equals("myPrefix/content/")) {
+        listing.getCommonPrefixes().addAll(List.of("myPrefix/content/tmp/", "myPrefix/content/vol-01/",
+            "myPrefix/content/vol-02/", "myPrefix/content/vol-03/"));
+      }
+      else if (!request.getPrefix().contains("chap-")) {
+        listing.getCommonPrefixes().add(request.getPrefix() + "chap-01/");
+      }
+      else {
+        for (String id : List.of("1", "2")) {
+          String path = request.getPrefix() + "12345678-1234-1234-1234-12345678900" + id;
+          listing.getObjectSummaries().add(summary(path + BLOB_FILE_ATTRIBUTES_SUFFIX));
+          listing.getObjectSummaries().add(summary(path + BLOB_FILE_CONTENT_SUFFIX));
+        }
+      }
+      return listing;
+    });
+    when(s3.getObjectMetadata(anyString(), anyString())).thenReturn(new ObjectMetadata());
+    when(s3.getObjectMetadata("mybucket",
+        "myPrefix/content/vol-02/chap-01/12345678-1234-1234-1234-123456789002.properties"))
+        .thenReturn(getTempBlobMetadata());
+
+    List<String> blobIds = blobStore.getBlobIdStream().map(BlobId::asUniqueString).toList();
+
+    assertThat(blobIds, contains("12345678-1234-1234-1234-123456789001", "12345678-1234-1234-1234-123456789002",
+        "12345678-1234-1234-1234-123456789001", "12345678-1234-1234-1234-123456789001",
+        "12345678-1234-1234-1234-123456789002"));
+    verify(s3, never()).listObjects(ArgumentMatchers.<ListObjectsRequest>argThat(
+        request -> request.getPrefix().equals("myPrefix/content/tmp/")));
+    verify(s3, never()).getObjectMetadata(anyString(), endsWith(BLOB_FILE_CONTENT_SUFFIX));
+  }
+
+  @Test
+  public void testTempBlobChecksAreCachedUntilTheAttributesChange() throws Exception {
+    blobStore.init(config);
+    blobStore.doStart();
+
+    String key = "myPrefix/content/vol-01/chap-01/12345678-1234-1234-1234-123456789abc.properties";
+    S3ObjectSummary summary = summary(key);
+    when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ObjectListing listing = new ObjectListing();
+      listing.getObjectSummaries().add(summary);
+      return listing;
+    });
+    when(s3.getObjectMetadata("mybucket", key)).thenReturn(getTempBlobMetadata(), new ObjectMetadata());
+
+    assertThat(blobStore.getBlobIdStream().count(), is(0L));
+    assertThat(blobStore.getBlobIdStream().count(), is(0L));
+    verify(s3, times(1)).getObjectMetadata("mybucket", key);
+
+    // making the blob permanent rewrites its attributes
+    summary.setETag("permanent");
+
+    assertThat(blobStore.getBlobIdStream().count(), is(1L));
+    assertThat(blobStore.getBlobIdStream().count(), is(1L));
+    verify(s3, times(2)).getObjectMetadata("mybucket", key);
+  }
+
+  @Test
+  public void testOldTempBlobsAreNotListedByDefault() throws Exception {
+    blobStore.init(config);
+    blobStore.doStart();
+
+    String key = "myPrefix/content/vol-01/chap-01/12345678-1234-1234-1234-123456789abc.properties";
+    S3ObjectSummary summary = summary(key);
+    // left behind by a request that failed to delete it
+    summary.setLastModified(new Date(System.currentTimeMillis() - Duration.ofDays(30).toMillis()));
+    when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ObjectListing listing = new ObjectListing();
+      listing.getObjectSummaries().add(summary);
+      return listing;
+    });
+    when(s3.getObjectMetadata("mybucket", key)).thenReturn(getTempBlobMetadata());
+
+    assertThat(blobStore.getBlobIdStream().count(), is(0L));
+    verify(s3).getObjectMetadata("mybucket", key);
+  }
+
+  @Test
+  public void testTempBlobChecksAreSkippedForOldAttributesWhenAMaxAgeIsSet() throws Exception {
+    blobStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(true), uploader, copier, false,
+        false, false, 8, 1000, Time.days(1), storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
+    blobStore.init(config);
+    blobStore.doStart();
+
+    String key = "myPrefix/content/vol-01/chap-01/12345678-1234-1234-1234-123456789abc.properties";
+    S3ObjectSummary summary = summary(key);
+    summary.setLastModified(new Date(System.currentTimeMillis() - Duration.ofDays(2).toMillis()));
+    when(s3.listObjects(any(ListObjectsRequest.class))).thenAnswer(invocation -> {
+      ObjectListing listing = new ObjectListing();
+      listing.getObjectSummaries().add(summary);
+      return listing;
+    });
+
+    assertThat(blobStore.getBlobIdStream().count(), is(1L));
+    assertThat(blobStore.getBlobIdUpdatedSinceStream(Duration.ofDays(3)).count(), is(1L));
+    verify(s3, never()).getObjectMetadata(anyString(), anyString());
+  }
+
   @Test(expected = IllegalArgumentException.class)
   public void testGetBlobIdUpdatedSinceStreamThrowsExceptionIfNegativeSinceDaysIsPassedIn() throws Exception {
     blobStore.init(config);
@@ -269,6 +378,31 @@ public class S3BlobStoreTest
     verify(s3).getObject("mybucket", "prefix/" + bytesLocation(blobId));
   }
 
+  @Test
+  public void testGetBlobRangeUsesRangedRequest() throws Exception {
+    MockBlobStoreConfiguration cfg = new MockBlobStoreConfiguration();
+    cfg.setAttributes(new HashMap<>(Map.of("s3", new HashMap<>(Map.of("bucket", "mybucket", "prefix", "prefix")))));
+
+    BlobId blobId = new BlobId("test");
+    S3Object attributesS3Object = mockS3Object(attributesContents);
+    S3Object contentS3Object = mockS3Object("world");
+
+    when(s3.getObject("mybucket", "prefix/" + propertiesLocation(blobId))).thenReturn(attributesS3Object);
+    when(s3.getObject(any(GetObjectRequest.class))).thenReturn(contentS3Object);
+
+    blobStore.init(cfg);
+    blobStore.doStart();
+    Blob blob = blobStore.get(blobId);
+
+    assertThat(new String(blob.getInputStream(6, 5).readAllBytes()), is("world"));
+
+    ArgumentCaptor<GetObjectRequest> request = ArgumentCaptor.forClass(GetObjectRequest.class);
+    verify(s3).getObject(request.capture());
+    assertThat(request.getValue().getKey(), is("prefix/" + bytesLocation(blobId)));
+    assertThat(request.getValue().getRange(), is(new long[]{6, 10}));
+    verify(s3, never()).getObject("mybucket", "prefix/" + bytesLocation(blobId));
+  }
+
   @Test
   public void testSoftDeleteSuccessfulWithBucketPrefix() throws Exception {
     BlobId blobId = new BlobId("soft-delete-success");
@@ -484,7 +618,8 @@ public class S3BlobStoreTest
   @Test
   public void testExpiry() throws Exception {
     S3BlobStore expiryPreferredBlobStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(true),
-        uploader, copier, true, false, false, storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
+        uploader, copier, true, false, false, 8, 1000, Time.seconds(0), storeMetrics, dryRunPrefix, bucketManager,
+        blobStoreQuotaUsageChecker);
     BlobId blobId = new BlobId("soft-delete-success");
     MockBlobStoreConfiguration cfg = new MockBlobStoreConfiguration();
     cfg.setAttributes(new HashMap<>(Map.of("s3", new HashMap<>(Map.of("bucket", "mybucket", "prefix", "myPrefix")))));
@@ -503,7 +638,8 @@ public class S3BlobStoreTest
   @Test
   public void testHardDeleteHardDeletesWhenPreferred() throws Exception {
     S3BlobStore hardDeleteStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(true), uploader,
-        copier, true, true, false, storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
+        copier, true, true, false, 8, 1000, Time.seconds(0), storeMetrics, dryRunPrefix, bucketManager,
+        blobStoreQuotaUsageChecker);
     BlobId blobId = new BlobId("soft-delete-success");
     MockBlobStoreConfiguration cfg = new MockBlobStoreConfiguration();
     cfg.setAttributes(new HashMap<>(Map.of("s3", new HashMap<>(Map.of("bucket", "mybucket", "prefix", "myPrefix")))));
@@ -526,7 +662,8 @@ public class S3BlobStoreTest
   @Test
   public void testRegularDeleteHardDeletesWhenPreferred() throws Exception {
     S3BlobStore hardDeleteStore = new S3BlobStore(amazonS3Factory, new DefaultBlobIdLocationResolver(true), uploader,
-        copier, true, true, false, storeMetrics, dryRunPrefix, bucketManager, blobStoreQuotaUsageChecker);
+        copier, true, true, false, 8, 1000, Time.seconds(0), storeMetrics, dryRunPrefix, bucketManager,
+        blobStoreQuotaUsageChecker);
     BlobId blobId = new BlobId("soft-delete-success");
     MockBlobStoreConfiguration cfg = new MockBlobStoreConfiguration();
     cfg.setAttributes(new HashMap<>(Map.of("s3", new HashMap<>(Map.of("bucket", "mybucket", "prefix", "myPrefix")))));
@@ -660,6 +797,15 @@ public class S3BlobStoreTest
     return "content/" + new VolumeChapterLocationStrategy().location(blobId) + ".bytes";
   }
 
+  private static S3ObjectSummary summary(final String key) {
+    S3ObjectSummary summary = new S3ObjectSummary();
+    summary.setBucketName("mybucket");
+    summary.setKey(key);
+    summary.setETag("etag");
+    summary.setLastModified(new Date());
+    return summary;
+  }
+
   private static ObjectMetadata getTempBlobMetadata() {
     ObjectMetadata tempBlobMetaData = new ObjectMetadata();
     tempBlobMetaData.addUserMetadata(TEMPORARY_BLOB_HEADER, "true");
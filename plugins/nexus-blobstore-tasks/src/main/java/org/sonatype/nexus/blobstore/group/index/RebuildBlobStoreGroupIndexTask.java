@@ -0,0 +1,53 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.index;
+
+import javax.inject.Inject;
+import javax.inject.Named;
+
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.blobstore.common.BlobStoreTaskSupport;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.scheduling.Cancelable;
+
+/**
+ * Task to rebuild the index of which member of a blob store group holds each blob.
+ *
+ * @since 3.77
+ */
+@Named
+public class RebuildBlobStoreGroupIndexTask
+    extends BlobStoreTaskSupport
+    implements Cancelable
+{
+  @Inject
+  public RebuildBlobStoreGroupIndexTask(final BlobStoreManager blobStoreManager) {
+    super(blobStoreManager);
+  }
+
+  @Override
+  public String getMessage() {
+    return String.format("rebuild blob store group location index for '%s'", getBlobStoreField());
+  }
+
+  @Override
+  protected void execute(final BlobStore blobStore) {
+    ((BlobStoreGroup) blobStore).rebuildLocationIndex();
+  }
+
+  @Override
+  protected boolean appliesTo(final BlobStore blobStore) {
+    return blobStore instanceof BlobStoreGroup;
+  }
+}
@@ -0,0 +1,169 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.restore.datastore;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import javax.annotation.Nullable;
+
+import org.sonatype.goodies.common.ComponentSupport;
+import org.sonatype.nexus.blobstore.api.BlobId;
+
+import static java.nio.charset.StandardCharsets.UTF_8;
+import static java.nio.file.StandardCopyOption.ATOMIC_MOVE;
+import static java.nio.file.StandardCopyOption.REPLACE_EXISTING;
+import static java.util.Arrays.asList;
+
+/**
+ * Records how far a restore got through the blob listing so a cancelled restore can pick up where it stopped.
+ *
+ * Blobs are numbered in listing order and may finish out of order; the checkpoint only moves past a blob once every
+ * blob listed before it has finished as well. The id of the last of those blobs is kept alongside the count so a
+ * listing that changed since the checkpoint was written can be detected.
+ *
+ * @since 3.77
+ */
+class RestoreMetadataCheckpoint
+    extends ComponentSupport
+{
+  @Nullable
+  private final Path file;
+
+  private final Map<Long, String> finishedOutOfOrder = new TreeMap<>();
+
+  private long resumeFrom;
+
+  @Nullable
+  private String resumeBlobId;
+
+  private long finished;
+
+  @Nullable
+  private String lastFinishedBlobId;
+
+  private RestoreMetadataCheckpoint(@Nullable final Path file) {
+    this.file = file;
+  }
+
+  /**
+   * Returns a checkpoint that is never saved, so every restore starts from the beginning.
+   */
+  static RestoreMetadataCheckpoint none() {
+    return new RestoreMetadataCheckpoint(null);
+  }
+
+  /**
+   * Loads the checkpoint saved in the given file, if any.
+   */
+  static RestoreMetadataCheckpoint load(final Path file) {
+    RestoreMetadataCheckpoint checkpoint = new RestoreMetadataCheckpoint(file);
+    try {
+      if (Files.exists(file)) {
+        List<String> lines = Files.readAllLines(file, UTF_8);
+        if (lines.size() == 2) {
+          checkpoint.resumeFrom = Long.parseLong(lines.get(0));
+          checkpoint.resumeBlobId = lines.get(1);
+          checkpoint.finished = checkpoint.resumeFrom;
+          checkpoint.lastFinishedBlobId = checkpoint.resumeBlobId;
+        }
+      }
+    }
+    catch (IOException | NumberFormatException e) {
+      checkpoint.log.warn("Ignoring unreadable restore checkpoint {}", file, e);
+    }
+    return checkpoint;
+  }
+
+  /**
+   * The number of blobs at the start of the listing that an earlier restore already finished.
+   */
+  synchronized long resumeFrom() {
+    return resumeFrom;
+  }
+
+  /**
+   * Whether the blob at position {@code resumeFrom() - 1} of the listing is the one the checkpoint was written after.
+   */
+  synchronized boolean isResumePoint(final BlobId blobId) {
+    return blobId.toString().equals(resumeBlobId);
+  }
+
+  /**
+   * Forgets the earlier progress, so the restore starts from the beginning.
+   */
+  synchronized void reset() {
+    resumeFrom = 0;
+    resumeBlobId = null;
+    finished = 0;
+    lastFinishedBlobId = null;
+    finishedOutOfOrder.clear();
+  }
+
+  /**
+   * Marks the blob at the given position of the listing as finished.
+   */
+  synchronized void finished(final long position, final BlobId blobId) {
+    finishedOutOfOrder.put(position, blobId.toString());
+    String next;
+    while ((next = finishedOutOfOrder.remove(finished)) != null) {
+      lastFinishedBlobId = next;
+      finished++;
+    }
+  }
+
+  /**
+   * Saves the progress made so far.
+   */
+  void save() {
+    if (file == null) {
+      return;
+    }
+    long count;
+    String blobId;
+    synchronized (this) {
+      count = finished;
+      blobId = lastFinishedBlobId;
+    }
+    if (blobId == null) {
+      return;
+    }
+    try {
+      Files.createDirectories(file.getParent());
+      Path tmp = file.resolveSibling(file.getFileName() + ".tmp");
+      Files.write(tmp, asList(Long.toString(count), blobId), UTF_8);
+      Files.move(tmp, file, REPLACE_EXISTING, ATOMIC_MOVE);
+    }
+    catch (IOException e) {
+      log.warn("Unable to save restore checkpoint {}", file, e);
+    }
+  }
+
+  /**
+   * Removes the saved checkpoint once the restore completed.
+   */
+  void delete() {
+    if (file == null) {
+      return;
+    }
+    try {
+      Files.deleteIfExists(file);
+    }
+    catch (IOException e) {
+      log.warn("Unable to delete restore checkpoint {}", file, e);
+    }
+  }
+}
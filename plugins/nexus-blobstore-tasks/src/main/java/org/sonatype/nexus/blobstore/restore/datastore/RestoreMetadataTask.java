@@ -12,16 +12,21 @@
  */
 package org.sonatype.nexus.blobstore.restore.datastore;
 
+import java.nio.file.Path;
 import java.time.Duration;
 import java.util.Collections;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Properties;
 import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.stream.Collectors;
 import java.util.stream.StreamSupport;
 
@@ -36,6 +41,7 @@ import org.sonatype.nexus.blobstore.api.BlobStore;
 import org.sonatype.nexus.blobstore.api.BlobStoreManager;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
 import org.sonatype.nexus.blobstore.restore.RestoreBlobStrategy;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 import org.sonatype.nexus.logging.task.ProgressLogIntervalHelper;
 import org.sonatype.nexus.repository.Repository;
@@ -48,6 +54,8 @@ import org.sonatype.nexus.repository.types.GroupType;
 import org.sonatype.nexus.scheduling.Cancelable;
 import org.sonatype.nexus.scheduling.TaskSupport;
 import org.sonatype.nexus.scheduling.TaskUtils;
+import org.sonatype.nexus.thread.NexusExecutorService;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.collect.ImmutableMap;
@@ -57,6 +65,8 @@ import static java.lang.String.format;
 import static java.util.Arrays.asList;
 import static java.util.Objects.isNull;
 import static java.util.Optional.ofNullable;
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.sonatype.nexus.blobstore.api.BlobAttributesConstants.HEADER_PREFIX;
 import static org.sonatype.nexus.blobstore.api.BlobStore.REPO_NAME_HEADER;
 import static org.sonatype.nexus.blobstore.restore.BaseRestoreMetadataTaskDescriptor.BLOB_STORE_NAME_FIELD_ID;
@@ -76,6 +86,8 @@ public class RestoreMetadataTask
     extends TaskSupport
     implements Cancelable
 {
+  private static final long CHECKPOINT_INTERVAL = 10_000;
+
   private final BlobStoreManager blobStoreManager;
 
   private final Optional<ChangeRepositoryBlobStoreStore> changeBlobstoreStore;
@@ -98,6 +110,10 @@ public class RestoreMetadataTask
 
   private final TaskUtils taskUtils;
 
+  private final ApplicationDirectories applicationDirectories;
+
+  private final int parallelism;
+
   private final Map<String, Boolean> formatAssetBlobRefMigrated;
 
   @Inject
@@ -111,7 +127,9 @@ public class RestoreMetadataTask
       final Map<String, IntegrityCheckStrategy> integrityCheckStrategies,
       final MaintenanceService maintenanceService,
       final AssetBlobRefFormatCheck assetBlobRefFormatCheck,
-      final TaskUtils taskUtils)
+      final TaskUtils taskUtils,
+      final ApplicationDirectories applicationDirectories,
+      @Named("${nexus.restore.metadata.parallelism:-1}") final int parallelism)
   {
     this.blobStoreManager = checkNotNull(blobStoreManager);
     this.changeBlobstoreStore = Optional.ofNullable(changeBlobstoreStore);
@@ -124,7 +142,9 @@ public class RestoreMetadataTask
     this.maintenanceService = checkNotNull(maintenanceService);
     this.assetBlobRefFormatCheck = checkNotNull(assetBlobRefFormatCheck);
     this.taskUtils = checkNotNull(taskUtils);
-    formatAssetBlobRefMigrated = new HashMap<>();
+    this.applicationDirectories = checkNotNull(applicationDirectories);
+    this.parallelism = Math.max(parallelism, 1);
+    formatAssetBlobRefMigrated = new ConcurrentHashMap<>();
   }
 
   @Override
@@ -188,61 +208,127 @@ public class RestoreMetadataTask
       return;
     }
 
-    String logPrefix = dryRun ? dryRunPrefix.get() : "";
-    long processed = 0;
-    long undeleted = 0;
-    boolean updateAssets = !dryRun && restore;
-    Set<Repository> touchedRepositories = new HashSet<>();
+    RestoreRun run = new RestoreRun(blobStore, restore, undelete, dryRun);
 
     if (dryRun) {
-      log.info("{}Actions will be logged, but no changes will be made.", logPrefix);
+      log.info("{}Actions will be logged, but no changes will be made.", run.logPrefix);
     }
 
+    // dry runs always start from the beginning so they report every action
+    RestoreMetadataCheckpoint checkpoint = dryRun ? RestoreMetadataCheckpoint.none() :
+        RestoreMetadataCheckpoint.load(checkpointFile());
+
     formatAssetBlobRefMigrated.clear();
     try (ProgressLogIntervalHelper progressLogger = new ProgressLogIntervalHelper(log, 60)) {
-      for (BlobId blobId : getBlobIdStream(blobStore, sinceDays)) {
-        try {
-          if (isCanceled()) {
-            log.info("Restore metadata task for {} was canceled", blobStore.getBlobStoreConfiguration().getName());
-            break;
-          }
+      Outcome outcome = restoreFrom(run, checkpoint, sinceDays, progressLogger);
+      if (outcome == Outcome.RESUME_POINT_MISSING) {
+        log.warn("Blob store {} changed since the restore was last checkpointed, restoring from the beginning",
+            blobStore.getBlobStoreConfiguration().getName());
+        checkpoint.reset();
+        outcome = restoreFrom(run, checkpoint, sinceDays, progressLogger);
+      }
 
-          Optional<Context> optionalContext = buildContext(blobStore, blobId);
-          if (optionalContext.isPresent()) {
-            Context context = optionalContext.get();
+      if (outcome == Outcome.COMPLETED) {
+        checkpoint.delete();
+      }
+      else {
+        checkpoint.save();
+      }
 
-            if (isAssetBlobRefNotMigrated(context.repository)) {
-              continue;
-            }
+      updateAssets(run.touchedRepositories, run.updateAssets);
+    }
+  }
 
-            if (restore && context.restoreBlobStrategy != null && !context.blobAttributes.isDeleted()) {
-              context.restoreBlobStrategy.restore(context.properties, context.blob, context.blobStore, dryRun);
-            }
-            if (undelete &&
-                blobStore.undelete(blobStoreUsageChecker, context.blobId, context.blobAttributes, dryRun)) {
-              undeleted++;
-            }
+  /**
+   * Restores the blobs listed after the checkpoint. With a parallelism above one the task thread only lists blob ids
+   * while a bounded pool loads their attributes and restores them.
+   */
+  private Outcome restoreFrom(
+      final RestoreRun run,
+      final RestoreMetadataCheckpoint checkpoint,
+      final Integer sinceDays,
+      final ProgressLogIntervalHelper progressLogger)
+  {
+    long resumeFrom = checkpoint.resumeFrom();
+    if (resumeFrom > 0) {
+      log.info("Resuming restore after the first {} blobs", resumeFrom);
+    }
 
-            if (updateAssets) {
-              touchedRepositories.add(context.repository);
-            }
-          }
+    ExecutorService executor = parallelism > 1 ? newExecutor() : null;
+    Semaphore inFlight = new Semaphore(parallelism * 2);
+    long position = 0;
+    try {
+      for (BlobId blobId : getBlobIdStream(run.blobStore, sinceDays)) {
+        if (isCanceled()) {
+          log.info("Restore metadata task for {} was canceled", run.blobStore.getBlobStoreConfiguration().getName());
+          return Outcome.CANCELED;
+        }
 
-          processed++;
+        long current = position++;
+        if (current < resumeFrom) {
+          if (current == resumeFrom - 1 && !checkpoint.isResumePoint(blobId)) {
+            return Outcome.RESUME_POINT_MISSING;
+          }
+          continue;
+        }
 
-          progressLogger
-              .info("{}Elapsed time: {}, processed: {}, un-deleted: {}", logPrefix, progressLogger.getElapsed(),
-                  processed, undeleted);
+        if (executor == null) {
+          run.restoreBlob(blobId);
+          checkpoint.finished(current, blobId);
         }
-        catch (Exception e) {
-          log.error("Error restoring blob {}", blobId, e);
+        else {
+          inFlight.acquireUninterruptibly();
+          executor.execute(() -> {
+            try {
+              run.restoreBlob(blobId);
+              checkpoint.finished(current, blobId);
+            }
+            finally {
+              inFlight.release();
+            }
+          });
+        }
+
+        if (current % CHECKPOINT_INTERVAL == 0) {
+          checkpoint.save();
         }
+
+        progressLogger
+            .info("{}Elapsed time: {}, processed: {}, un-deleted: {}", run.logPrefix, progressLogger.getElapsed(),
+                run.processed.get(), run.undeleted.get());
+      }
+    }
+    finally {
+      if (executor != null) {
+        awaitTermination(executor);
       }
+    }
+    return position < resumeFrom ? Outcome.RESUME_POINT_MISSING : Outcome.COMPLETED;
+  }
+
+  private ExecutorService newExecutor() {
+    ThreadPoolExecutor executor = new ThreadPoolExecutor(parallelism, parallelism, 60L, SECONDS,
+        new LinkedBlockingQueue<>(), new NexusThreadFactory("restore-metadata", "restore-metadata"));
+    return NexusExecutorService.forCurrentSubject(executor);
+  }
 
-      updateAssets(touchedRepositories, updateAssets);
+  private void awaitTermination(final ExecutorService executor) {
+    executor.shutdown();
+    try {
+      while (!executor.awaitTermination(500, MILLISECONDS)) {
+        log.debug("Waiting for blobs being restored to finish");
+      }
+    }
+    catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      executor.shutdownNow();
     }
   }
 
+  private Path checkpointFile() {
+    return applicationDirectories.getWorkDirectory("restore-metadata").toPath().resolve(getId() + ".checkpoint");
+  }
+
   private boolean isAssetBlobRefNotMigrated(final Repository repository) {
     try {
       return formatAssetBlobRefMigrated.computeIfAbsent(repository.getFormat().getValue(),
@@ -329,6 +415,74 @@ public class RestoreMetadataTask
         .map(c -> c.restoreBlobStrategy(restoreBlobStrategies.get(c.repository.getFormat().getValue())));
   }
 
+  private enum Outcome
+  {
+    COMPLETED, CANCELED, RESUME_POINT_MISSING
+  }
+
+  /**
+   * The settings and counters of one restore, shared by the threads restoring blobs.
+   */
+  private class RestoreRun
+  {
+    final BlobStore blobStore;
+
+    final boolean restore;
+
+    final boolean undelete;
+
+    final boolean dryRun;
+
+    final boolean updateAssets;
+
+    final String logPrefix;
+
+    final Set<Repository> touchedRepositories = ConcurrentHashMap.newKeySet();
+
+    final AtomicLong processed = new AtomicLong();
+
+    final AtomicLong undeleted = new AtomicLong();
+
+    RestoreRun(final BlobStore blobStore, final boolean restore, final boolean undelete, final boolean dryRun) {
+      this.blobStore = blobStore;
+      this.restore = restore;
+      this.undelete = undelete;
+      this.dryRun = dryRun;
+      this.updateAssets = !dryRun && restore;
+      this.logPrefix = dryRun ? dryRunPrefix.get() : "";
+    }
+
+    void restoreBlob(final BlobId blobId) {
+      try {
+        Optional<Context> optionalContext = buildContext(blobStore, blobId);
+        if (optionalContext.isPresent()) {
+          Context context = optionalContext.get();
+
+          if (isAssetBlobRefNotMigrated(context.repository)) {
+            return;
+          }
+
+          if (restore && context.restoreBlobStrategy != null && !context.blobAttributes.isDeleted()) {
+            context.restoreBlobStrategy.restore(context.properties, context.blob, context.blobStore, dryRun);
+          }
+          if (undelete &&
+              blobStore.undelete(blobStoreUsageChecker, context.blobId, context.blobAttributes, dryRun)) {
+            undeleted.incrementAndGet();
+          }
+
+          if (updateAssets) {
+            touchedRepositories.add(context.repository);
+          }
+        }
+
+        processed.incrementAndGet();
+      }
+      catch (Exception e) {
+        log.error("Error restoring blob {}", blobId, e);
+      }
+    }
+  }
+
   private static class Context
   {
     final BlobStore blobStore;
@@ -0,0 +1,70 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.blobstore.group.index;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.blobstore.api.BlobStore;
+import org.sonatype.nexus.blobstore.api.BlobStoreConfiguration;
+import org.sonatype.nexus.blobstore.api.BlobStoreManager;
+import org.sonatype.nexus.blobstore.group.BlobStoreGroup;
+import org.sonatype.nexus.scheduling.TaskConfiguration;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.sonatype.nexus.blobstore.common.BlobStoreTaskSupport.ALL;
+import static org.sonatype.nexus.blobstore.common.BlobStoreTaskSupport.BLOBSTORE_NAME_FIELD_ID;
+
+public class RebuildBlobStoreGroupIndexTaskTest
+    extends TestSupport
+{
+  @Mock
+  private BlobStoreManager blobStoreManager;
+
+  @Mock
+  private BlobStoreGroup group;
+
+  @Mock
+  private BlobStore member;
+
+  private RebuildBlobStoreGroupIndexTask underTest;
+
+  @Before
+  public void setUp() {
+    underTest = new RebuildBlobStoreGroupIndexTask(blobStoreManager);
+  }
+
+  @Test
+  public void rebuildsTheIndexOfGroupsOnly() throws Exception {
+    when(blobStoreManager.browse()).thenReturn(asList(group, member));
+    BlobStoreConfiguration blobStoreConfiguration = mock(BlobStoreConfiguration.class);
+    when(blobStoreConfiguration.getName()).thenReturn("group");
+    when(group.getBlobStoreConfiguration()).thenReturn(blobStoreConfiguration);
+
+    TaskConfiguration configuration = new TaskConfiguration();
+    configuration.setId("rebuild-index");
+    configuration.setTypeId(RebuildBlobStoreGroupIndexTaskDescriptor.TYPE_ID);
+    configuration.setString(".name", "rebuild-index");
+    configuration.setString(BLOBSTORE_NAME_FIELD_ID, ALL);
+    underTest.configure(configuration);
+
+    underTest.call();
+
+    verify(group).rebuildLocationIndex();
+  }
+}
@@ -21,6 +21,9 @@ import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 import java.util.stream.Stream;
 
 import org.sonatype.goodies.testsupport.TestSupport;
@@ -33,6 +36,7 @@ import org.sonatype.nexus.blobstore.api.BlobStoreManager;
 import org.sonatype.nexus.blobstore.api.BlobStoreUsageChecker;
 import org.sonatype.nexus.blobstore.file.FileBlobAttributes;
 import org.sonatype.nexus.blobstore.restore.RestoreBlobStrategy;
+import org.sonatype.nexus.common.app.ApplicationDirectories;
 import org.sonatype.nexus.common.log.DryRunPrefix;
 import org.sonatype.nexus.repository.Format;
 import org.sonatype.nexus.repository.Repository;
@@ -46,6 +50,9 @@ import org.sonatype.nexus.scheduling.TaskUtils;
 
 import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Resources;
+import org.apache.shiro.subject.Subject;
+import org.apache.shiro.util.ThreadContext;
+import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 import org.mockito.ArgumentCaptor;
@@ -120,6 +127,9 @@ public class RestoreMetadataTaskTest
   @Mock
   TaskUtils taskUtils;
 
+  @Mock
+  ApplicationDirectories applicationDirectories;
+
   RestoreMetadataTask underTest;
 
   Map<String, IntegrityCheckStrategy> integrityCheckStrategies;
@@ -140,7 +150,7 @@ public class RestoreMetadataTaskTest
         new RestoreMetadataTask(blobStoreManager, changeBlobstoreStore, repositoryManager,
             ImmutableMap.of(MAVEN_2, restoreBlobStrategy),
             blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, maintenanceService, assetBlobRefFormatCheck,
-            taskUtils);
+            taskUtils, applicationDirectories, 1);
 
     reset(integrityCheckStrategies); // reset this mock so we more easily verify calls
 
@@ -168,6 +178,13 @@ public class RestoreMetadataTaskTest
     when(blobStore.getBlobAttributes(blobId)).thenReturn(blobAttributes);
 
     when(dryRunPrefix.get()).thenReturn("");
+
+    when(applicationDirectories.getWorkDirectory("restore-metadata")).thenReturn(util.createTempDir());
+  }
+
+  @After
+  public void tearDown() {
+    ThreadContext.unbindSubject();
   }
 
   @Test
@@ -503,7 +520,7 @@ public class RestoreMetadataTaskTest
         new RestoreMetadataTask(blobStoreManager, changeBlobstoreStore, repositoryManager,
             ImmutableMap.of(MAVEN_2, restoreBlobStrategy),
             blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, maintenanceService, assetBlobRefFormatCheck,
-            taskUtils)
+            taskUtils, applicationDirectories, 1)
         {
           @Override
           public boolean isCanceled() {
@@ -512,6 +529,7 @@ public class RestoreMetadataTaskTest
         };
 
     underTest.configure(configuration);
+    when(blobStore.getBlobStoreConfiguration()).thenReturn(mock(BlobStoreConfiguration.class));
 
     underTest.execute();
 
@@ -648,4 +666,85 @@ public class RestoreMetadataTaskTest
     verify(blobStore).getBlobIdUpdatedSinceStream(Duration.ofDays(2L));
     verify(blobStore, never()).getBlobIdStream();
   }
+
+  @Test
+  public void blobsAreRestoredInParallel() throws Exception {
+    Subject subject = mock(Subject.class);
+    when(subject.associateWith(any(Runnable.class))).thenAnswer(invocation -> invocation.getArgument(0));
+    ThreadContext.bind(subject);
+
+    List<BlobId> blobIds = IntStream.range(0, 50)
+        .mapToObj(i -> new BlobId("blob-" + i))
+        .collect(Collectors.toList());
+    when(blobStore.getBlobIdStream()).thenReturn(blobIds.stream());
+    when(blobStore.get(any(BlobId.class), eq(true))).thenReturn(blob);
+    when(blobStore.getBlobAttributes(any(BlobId.class))).thenReturn(blobAttributes);
+
+    configuration.setBoolean(RESTORE_BLOBS, true);
+    configuration.setBoolean(UNDELETE_BLOBS, true);
+    configuration.setBoolean(INTEGRITY_CHECK, false);
+
+    RestoreMetadataTask underTest =
+        new RestoreMetadataTask(blobStoreManager, changeBlobstoreStore, repositoryManager,
+            ImmutableMap.of(MAVEN_2, restoreBlobStrategy),
+            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, maintenanceService, assetBlobRefFormatCheck,
+            taskUtils, applicationDirectories, 4);
+    underTest.configure(configuration);
+
+    underTest.execute();
+
+    verify(restoreBlobStrategy, times(50)).restore(any(), eq(blob), eq(blobStore), eq(false));
+    for (BlobId id : blobIds) {
+      verify(blobStore).undelete(blobstoreUsageChecker, id, blobAttributes, false);
+    }
+    verify(restoreBlobStrategy).after(true, repository);
+  }
+
+  @Test
+  public void canceledRestoreResumesFromCheckpoint() throws Exception {
+    BlobId first = new BlobId("blob-1");
+    BlobId second = new BlobId("blob-2");
+    BlobId third = new BlobId("blob-3");
+    when(blobStore.getBlobIdStream())
+        .thenReturn(Stream.of(first, second, third))
+        .thenReturn(Stream.of(first, second, third));
+    when(blobStore.get(any(BlobId.class), eq(true))).thenReturn(blob);
+    when(blobStore.getBlobAttributes(any(BlobId.class))).thenReturn(blobAttributes);
+    when(blobStore.getBlobStoreConfiguration()).thenReturn(mock(BlobStoreConfiguration.class));
+
+    configuration.setBoolean(RESTORE_BLOBS, false);
+    configuration.setBoolean(UNDELETE_BLOBS, true);
+    configuration.setBoolean(INTEGRITY_CHECK, false);
+
+    AtomicBoolean canceled = new AtomicBoolean();
+    RestoreMetadataTask underTest =
+        new RestoreMetadataTask(blobStoreManager, changeBlobstoreStore, repositoryManager,
+            ImmutableMap.of(MAVEN_2, restoreBlobStrategy),
+            blobstoreUsageChecker, dryRunPrefix, integrityCheckStrategies, maintenanceService, assetBlobRefFormatCheck,
+            taskUtils, applicationDirectories, 1)
+        {
+          @Override
+          public boolean isCanceled() {
+            return canceled.get();
+          }
+        };
+    underTest.configure(configuration);
+
+    when(blobStore.undelete(blobstoreUsageChecker, second, blobAttributes, false)).thenAnswer(invocation -> {
+      canceled.set(true);
+      return true;
+    });
+    underTest.execute();
+
+    verify(blobStore).undelete(blobstoreUsageChecker, first, blobAttributes, false);
+    verify(blobStore).undelete(blobstoreUsageChecker, second, blobAttributes, false);
+    verify(blobStore, never()).undelete(blobstoreUsageChecker, third, blobAttributes, false);
+
+    canceled.set(false);
+    underTest.execute();
+
+    verify(blobStore).undelete(blobstoreUsageChecker, first, blobAttributes, false);
+    verify(blobStore).undelete(blobstoreUsageChecker, second, blobAttributes, false);
+    verify(blobStore).undelete(blobstoreUsageChecker, third, blobAttributes, false);
+  }
 }
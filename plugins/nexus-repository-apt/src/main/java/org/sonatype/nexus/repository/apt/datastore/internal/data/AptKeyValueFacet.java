@@ -37,6 +37,8 @@ public class AptKeyValueFacet
 
   private final static String CATEGORY = StringUtils.EMPTY;
 
+  private final static String CHANGES_CATEGORY = "changes";
+
   @Inject
   public AptKeyValueFacet(
       @Named("${nexus.apt.paging.size:-100}") final int limit
@@ -86,6 +88,43 @@ public class AptKeyValueFacet
         .map(KeyValue::getValue);
   }
 
+  /**
+   * Store a change to the package indexes which hasn't been applied yet, replacing any earlier one for the same
+   * package.
+   *
+   * @param path   the path of the AptDeb asset
+   * @param change the json of the change
+   * @since 3.77
+   */
+  public void addPackageChange(final String path, final String change) {
+    set(CHANGES_CATEGORY, path, change);
+  }
+
+  /**
+   * Remove a change once it has been applied to the package indexes, unless it was replaced in the meantime.
+   *
+   * @param path   the path of the AptDeb asset
+   * @param change the json of the applied change
+   * @since 3.77
+   */
+  public void removePackageChange(final String path, final String change) {
+    if (get(CHANGES_CATEGORY, path).filter(change::equals).isPresent()) {
+      remove(CHANGES_CATEGORY, path);
+    }
+  }
+
+  /**
+   * Browse the changes which haven't been applied to the package indexes yet.
+   *
+   * @return a stream of key-value objects holding the asset path and the json of the change
+   * @since 3.77
+   */
+  public Stream<KeyValue> browsePackageChanges() {
+    return Continuations
+        .streamOf((browseLimit, continuationToken) -> browseValues(CHANGES_CATEGORY, browseLimit, continuationToken),
+            limit);
+  }
+
   /*
    * Creates a key for componentId. This should only be used for storing AptDeb JSON.
    * Other use cases should avoid overlapping this key structure.
@@ -22,6 +22,7 @@ import org.sonatype.nexus.repository.FacetSupport;
 import org.sonatype.nexus.repository.apt.datastore.AptContentFacet;
 import org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata.AptHostedMetadataFacet;
 import org.sonatype.nexus.repository.apt.internal.debian.PackageInfo;
+import org.sonatype.nexus.repository.apt.internal.hosted.AssetAction;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
 import org.sonatype.nexus.repository.view.Payload;
 
@@ -55,6 +56,7 @@ public class AptHostedFacet
 
     FluentAsset asset = content().put(assetPath, payload, packageInfo);
     metadata().addPackageMetadata(asset);
+    metadata().addPackageChange(new AssetChange(AssetAction.ADDED, asset));
     metadata().removeInReleaseIndex();
     return asset;
   }
@@ -74,6 +76,15 @@ public class AptHostedFacet
     rebuildMetadata(Collections.emptyList());
   }
 
+  /**
+   * Method for triggering Apt metadata recalculation of the package indexes affected by changes since the last one.
+   *
+   * @since 3.77
+   */
+  public void updateMetadata() throws IOException {
+    metadata().updateMetadata();
+  }
+
   /**
    * Method for triggering Apt metadata recalculation with possibility to specify what actually asset was changed
    */
@@ -16,6 +16,7 @@ import java.util.Set;
 import javax.inject.Named;
 
 import org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata.AptHostedMetadataFacet;
+import org.sonatype.nexus.repository.apt.internal.hosted.AssetAction;
 import org.sonatype.nexus.repository.content.Asset;
 import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
@@ -35,12 +36,17 @@ public class AptLastAssetMaintenanceFacet
     final Set<String> deleteAssetPaths = super.deleteAsset(asset);
     final FluentAsset fluentAsset = contentFacet().assets().with(asset);
     metadata().removePackageMetadata(fluentAsset);
+    metadata().addPackageChange(new AssetChange(AssetAction.REMOVED, fluentAsset));
     metadata().removeInReleaseIndex();
     return deleteAssetPaths;
   }
 
   @Override
   public Set<String> deleteComponent(final Component component) {
+    for (FluentAsset asset : contentFacet().components().with(component).assets()) {
+      metadata().removePackageMetadata(asset);
+      metadata().addPackageChange(new AssetChange(AssetAction.REMOVED, asset));
+    }
     Set<String> deleteAssetPaths = super.deleteComponent(component);
     metadata().removeInReleaseIndex();
     return deleteAssetPaths;
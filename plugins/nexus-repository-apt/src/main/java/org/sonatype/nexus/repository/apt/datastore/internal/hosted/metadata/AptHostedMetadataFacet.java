@@ -12,22 +12,34 @@
  */
 package org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata;
 
+import java.io.BufferedReader;
 import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
 import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.time.Duration;
 import java.time.OffsetDateTime;
 import java.util.Arrays;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
 import java.util.OptionalInt;
 import java.util.Set;
+import java.util.SortedSet;
 import java.util.TimeZone;
+import java.util.TreeSet;
+import java.util.UUID;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
+import javax.annotation.Nullable;
 import javax.inject.Inject;
 import javax.inject.Named;
 
@@ -44,6 +56,8 @@ import org.sonatype.nexus.repository.apt.datastore.internal.hosted.AssetChange;
 import org.sonatype.nexus.repository.apt.internal.AptMimeTypes;
 import org.sonatype.nexus.repository.apt.internal.debian.ControlFile;
 import org.sonatype.nexus.repository.apt.internal.debian.ControlFile.Paragraph;
+import org.sonatype.nexus.repository.apt.internal.debian.ControlFileParser;
+import org.sonatype.nexus.repository.apt.internal.debian.Release;
 import org.sonatype.nexus.repository.apt.internal.gpg.AptSigningFacet;
 import org.sonatype.nexus.repository.apt.internal.hosted.AssetAction;
 import org.sonatype.nexus.repository.apt.internal.hosted.CompressingTempFileStore;
@@ -51,11 +65,13 @@ import org.sonatype.nexus.repository.config.Configuration;
 import org.sonatype.nexus.repository.content.Asset;
 import org.sonatype.nexus.repository.content.AssetBlob;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
+import org.sonatype.nexus.repository.content.kv.KeyValue;
 import org.sonatype.nexus.repository.content.store.InternalIds;
 import org.sonatype.nexus.repository.content.utils.FormatAttributesUtils;
 import org.sonatype.nexus.repository.view.Content;
 import org.sonatype.nexus.repository.view.payloads.BytesPayload;
 import org.sonatype.nexus.repository.view.payloads.StreamPayload;
+import org.sonatype.nexus.thread.NexusThreadFactory;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.fasterxml.jackson.core.type.TypeReference;
@@ -64,7 +80,9 @@ import org.apache.commons.io.IOUtils;
 import org.apache.commons.lang3.StringUtils;
 import org.apache.commons.lang3.time.DateFormatUtils;
 
+import static com.google.common.base.Preconditions.checkArgument;
 import static com.google.common.base.Preconditions.checkNotNull;
+import static java.util.concurrent.TimeUnit.SECONDS;
 import static org.apache.http.protocol.HttpDateGenerator.PATTERN_RFC1123;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.MD5;
 import static org.sonatype.nexus.common.hash.HashAlgorithm.SHA256;
@@ -81,12 +99,20 @@ import static org.sonatype.nexus.repository.apt.internal.ReleaseName.RELEASE_GPG
 
 /**
  * Apt metadata facet. Holds the logic for metadata recalculation.
+ *
+ * Package changes are recorded next to the package metadata, so the package indexes of the architectures they affect
+ * can be patched instead of rebuilding every index from the metadata of all packages.
  */
 @Named(AptFormat.NAME)
 @Exposed
 public class AptHostedMetadataFacet
     extends FacetSupport
 {
+  private static final String P_CHANGE_ID = "changeId";
+
+  private static final String P_CHANGE_ACTION = "action";
+
+  private static final String UPDATE_KEY = "update";
 
   private final ObjectMapper mapper;
 
@@ -94,8 +120,12 @@ public class AptHostedMetadataFacet
 
   private final Cooperation2Factory.Builder cooperationBuilder;
 
+  private final int compressionThreads;
+
   private Cooperation2 cooperation;
 
+  private ThreadPoolExecutor compressionExecutor;
+
   @Inject
   public AptHostedMetadataFacet(
       final ObjectMapper mapper,
@@ -104,8 +134,10 @@ public class AptHostedMetadataFacet
       @Named("${nexus.apt.metadata.cooperation.enabled:-true}") final boolean cooperationEnabled,
       @Named("${nexus.apt.metadata.cooperation.majorTimeout:-0s}") final Duration majorTimeout,
       @Named("${nexus.apt.metadata.cooperation.minorTimeout:-30s}") final Duration minorTimeout,
-      @Named("${nexus.apt.metadata.cooperation.threadsPerKey:-100}") final int threadsPerKey)
+      @Named("${nexus.apt.metadata.cooperation.threadsPerKey:-100}") final int threadsPerKey,
+      @Named("${nexus.apt.metadata.compressionThreads:-4}") final int compressionThreads)
   {
+    checkArgument(compressionThreads > 0);
     this.mapper = checkNotNull(mapper);
     this.clock = checkNotNull(clock);
     this.cooperationBuilder = checkNotNull(cooperationFactory).configure()
@@ -113,6 +145,7 @@ public class AptHostedMetadataFacet
         .majorTimeout(majorTimeout)
         .minorTimeout(minorTimeout)
         .threadsPerKey(threadsPerKey);
+    this.compressionThreads = compressionThreads;
   }
 
   @Override
@@ -121,6 +154,22 @@ public class AptHostedMetadataFacet
     this.cooperation = cooperationBuilder.build(getRepository().getName() + ":repomd");
   }
 
+  @Override
+  protected void doStart() throws Exception {
+    super.doStart();
+    String name = "apt-metadata-" + getRepository().getName();
+    compressionExecutor = new ThreadPoolExecutor(compressionThreads, compressionThreads, 60L, SECONDS,
+        new LinkedBlockingQueue<>(), new NexusThreadFactory(name, name));
+    compressionExecutor.allowCoreThreadTimeOut(true);
+  }
+
+  @Override
+  protected void doStop() throws Exception {
+    compressionExecutor.shutdown();
+    compressionExecutor = null;
+    super.doStop();
+  }
+
   public void addPackageMetadata(final FluentAsset asset) {
     checkNotNull(asset);
     log.debug("Storing metadata for repository: {} asset: {}", getRepository().getName(), asset.path());
@@ -141,6 +190,30 @@ public class AptHostedMetadataFacet
     content().deleteAssetsByPrefix(normalizeAssetPath(releaseIndexName(INRELEASE)));
   }
 
+  /**
+   * Records a change to a package, to be applied by the next {@link #updateMetadata()}.
+   *
+   * @since 3.77
+   */
+  public void addPackageChange(final AssetChange change) {
+    FluentAsset asset = change.getAsset();
+    if (!DEB.equals(asset.kind())) {
+      return;
+    }
+    Map<String, Object> formatAttributes = FormatAttributesUtils.getFormatAttributes(asset);
+    Map<String, Object> pending = new HashMap<>();
+    pending.put(P_CHANGE_ID, UUID.randomUUID().toString());
+    pending.put(P_CHANGE_ACTION, change.getAction().name());
+    pending.put(P_ARCHITECTURE, formatAttributes.get(P_ARCHITECTURE));
+    if (change.getAction() == AssetAction.ADDED) {
+      pending.put(P_INDEX_SECTION, formatAttributes.get(P_INDEX_SECTION));
+    }
+    data().addPackageChange(asset.path(), serialize(pending));
+  }
+
+  /**
+   * Rebuilds all the package indexes from the stored package metadata.
+   */
   public Optional<Content> rebuildMetadata(final List<AssetChange> changeList) throws IOException {
     return Optional.ofNullable(
         cooperation.on(() -> doRebuildMetadata(changeList))
@@ -148,6 +221,19 @@ public class AptHostedMetadataFacet
     );
   }
 
+  /**
+   * Applies the package changes recorded since the metadata was last built to the package indexes of the affected
+   * architectures, falling back to {@link #rebuildMetadata(List)} when there is nothing to patch.
+   *
+   * @since 3.77
+   */
+  public Optional<Content> updateMetadata() throws IOException {
+    return Optional.ofNullable(
+        cooperation.on(this::doUpdateMetadata)
+            .cooperate(UPDATE_KEY)
+    );
+  }
+
   /**
    * Removes metadata per architecture
    */
@@ -160,46 +246,122 @@ public class AptHostedMetadataFacet
     log.debug("Starting rebuilding metadata at {}", getRepository().getName());
     OffsetDateTime rebuildStart = clock.clusterTime();
 
-    AptContentFacet aptFacet = content();
-    AptSigningFacet signingFacet = signing();
+    // changes recorded from here on are applied by the next update, even when the rebuild already has them
+    List<KeyValue> appliedChanges = data().browsePackageChanges().collect(Collectors.toList());
 
     removeMetadataPerArchitecture();
 
-    StringBuilder sha256Builder = new StringBuilder();
-    StringBuilder md5Builder = new StringBuilder();
-    String releaseFile;
+    Content releaseFile;
     try (CompressingTempFileStore store = buildPackageIndexes(changeList)) {
-      for (Map.Entry<String, CompressingTempFileStore.FileMetadata> entry : store.getFiles().entrySet()) {
-        FluentAsset metadataAsset = aptFacet.put(
-            packageIndexName(entry.getKey(), StringUtils.EMPTY),
-            new StreamPayload(entry.getValue().plainSupplier(), entry.getValue().plainSize(), AptMimeTypes.TEXT)
-        );
-        addSignatureItem(md5Builder, MD5, metadataAsset, packageRelativeIndexName(entry.getKey(), StringUtils.EMPTY));
-        addSignatureItem(sha256Builder, SHA256, metadataAsset,
-            packageRelativeIndexName(entry.getKey(), StringUtils.EMPTY));
-
-        FluentAsset gzMetadataAsset = aptFacet.put(
-            packageIndexName(entry.getKey(), GZ),
-            new StreamPayload(entry.getValue().gzSupplier(), entry.getValue().bzSize(), AptMimeTypes.GZIP)
-        );
-        addSignatureItem(md5Builder, MD5, gzMetadataAsset, packageRelativeIndexName(entry.getKey(), GZ));
-        addSignatureItem(sha256Builder, SHA256, gzMetadataAsset, packageRelativeIndexName(entry.getKey(), GZ));
-
-        FluentAsset bzMetadataAsset = aptFacet.put(
-            packageIndexName(entry.getKey(), BZ2),
-            new StreamPayload(entry.getValue().bzSupplier(), entry.getValue().bzSize(), AptMimeTypes.BZIP)
-        );
-        addSignatureItem(md5Builder, MD5, bzMetadataAsset, packageRelativeIndexName(entry.getKey(), BZ2));
-        addSignatureItem(sha256Builder, SHA256, bzMetadataAsset, packageRelativeIndexName(entry.getKey(), BZ2));
+      releaseFile = writeReleaseFiles(new TreeSet<>(store.getFiles().keySet()), store);
+    }
+    appliedChanges.forEach(change -> data().removePackageChange(change.getKey(), change.getValue()));
+
+    if (log.isDebugEnabled()) {
+      long finishTime = System.currentTimeMillis();
+      log.debug("Completed metadata rebuild in {}", finishTime - rebuildStart.toInstant().toEpochMilli());
+    }
+
+    return releaseFile;
+  }
+
+  @Nullable
+  private Content doUpdateMetadata() throws IOException {
+    List<KeyValue> appliedChanges = data().browsePackageChanges().collect(Collectors.toList());
+    Optional<Release> release = currentRelease();
+    if (!release.isPresent()) {
+      log.debug("No release file in {}, rebuilding metadata", getRepository().getName());
+      return doRebuildMetadata(Collections.emptyList());
+    }
+
+    Map<String, PackagesIndexPatch> patches = new HashMap<>();
+    for (KeyValue change : appliedChanges) {
+      Map<String, Object> pending = deserialize(change.getValue());
+      PackagesIndexPatch patch =
+          patches.computeIfAbsent(pending.get(P_ARCHITECTURE).toString(), arch -> new PackagesIndexPatch());
+      if (AssetAction.ADDED.name().equals(pending.get(P_CHANGE_ACTION))) {
+        patch.add(change.getKey(), pending.get(P_INDEX_SECTION).toString());
+      }
+      else {
+        patch.remove(change.getKey());
+      }
+    }
+
+    List<String> released = release.get().getArchitectures().stream()
+        .filter(StringUtils::isNotBlank)
+        .collect(Collectors.toList());
+    SortedSet<String> architectures = new TreeSet<>(released);
+    architectures.addAll(patches.keySet());
+    for (String architecture : released) {
+      boolean indexesPresent = Stream.of(StringUtils.EMPTY, GZ, BZ2)
+          .allMatch(ext -> content().getAsset(packageIndexName(architecture, ext)).isPresent());
+      if (!indexesPresent) {
+        log.debug("Package indexes of {} missing in {}, rebuilding metadata", architecture, getRepository().getName());
+        return doRebuildMetadata(Collections.emptyList());
+      }
+    }
+
+    log.debug("Applying {} package changes to {} of {}", appliedChanges.size(), patches.keySet(),
+        getRepository().getName());
+    Content releaseFile;
+    try (CompressingTempFileStore store = new CompressingTempFileStore(compressionExecutor)) {
+      for (Map.Entry<String, PackagesIndexPatch> entry : patches.entrySet()) {
+        Optional<Content> previous = content().get(packageIndexName(entry.getKey(), StringUtils.EMPTY));
+        try (Writer writer = store.openOutput(entry.getKey());
+             BufferedReader reader = previous.isPresent() ? reader(previous.get()) : null) {
+          entry.getValue().apply(reader, writer);
+        }
       }
+      releaseFile = writeReleaseFiles(architectures, store);
+    }
+    appliedChanges.forEach(change -> data().removePackageChange(change.getKey(), change.getValue()));
+    return releaseFile;
+  }
 
-      releaseFile = buildReleaseFile(
-          aptFacet.getDistribution(),
-          store.getFiles().keySet(),
-          md5Builder.toString(),
-          sha256Builder.toString()
-      );
+  private Optional<Release> currentRelease() throws IOException {
+    Optional<Content> content = content().get(releaseIndexName(RELEASE));
+    if (!content.isPresent()) {
+      return Optional.empty();
+    }
+    try (InputStream in = content.get().openInputStream()) {
+      return Optional.of(new Release(new ControlFileParser().parseControlFile(in)));
     }
+  }
+
+  private static BufferedReader reader(final Content content) throws IOException {
+    return new BufferedReader(new InputStreamReader(content.openInputStream(), StandardCharsets.UTF_8));
+  }
+
+  /**
+   * Stores the package indexes held by the store, and signs a release file listing them along with the package
+   * indexes already stored for the remaining architectures.
+   */
+  private Content writeReleaseFiles(
+      final SortedSet<String> architectures,
+      final CompressingTempFileStore store) throws IOException
+  {
+    AptContentFacet aptFacet = content();
+    AptSigningFacet signingFacet = signing();
+
+    StringBuilder sha256Builder = new StringBuilder();
+    StringBuilder md5Builder = new StringBuilder();
+    Map<String, CompressingTempFileStore.FileMetadata> files = store.getFiles();
+    for (String architecture : architectures) {
+      CompressingTempFileStore.FileMetadata file = files.get(architecture);
+      addIndex(md5Builder, sha256Builder, architecture, StringUtils.EMPTY,
+          file == null ? null : new StreamPayload(file.plainSupplier(), file.plainSize(), AptMimeTypes.TEXT));
+      addIndex(md5Builder, sha256Builder, architecture, GZ,
+          file == null ? null : new StreamPayload(file.gzSupplier(), file.gzSize(), AptMimeTypes.GZIP));
+      addIndex(md5Builder, sha256Builder, architecture, BZ2,
+          file == null ? null : new StreamPayload(file.bzSupplier(), file.bzSize(), AptMimeTypes.BZIP));
+    }
+
+    String releaseFile = buildReleaseFile(
+        aptFacet.getDistribution(),
+        architectures,
+        md5Builder.toString(),
+        sha256Builder.toString()
+    );
 
     FluentAsset releaseFileAsset = aptFacet.put(
         releaseIndexName(RELEASE),
@@ -213,55 +375,61 @@ public class AptHostedMetadataFacet
         releaseIndexName(RELEASE_GPG),
         new BytesPayload(signingFacet.signExternal(releaseFile), AptMimeTypes.SIGNATURE)
     );
+    return releaseFileAsset.download();
+  }
 
-    if (log.isDebugEnabled()) {
-      long finishTime = System.currentTimeMillis();
-      log.debug("Completed metadata rebuild in {}", finishTime - rebuildStart.toInstant().toEpochMilli());
+  /**
+   * Stores the package index when given one, otherwise lists the one already stored.
+   */
+  private void addIndex(
+      final StringBuilder md5Builder,
+      final StringBuilder sha256Builder,
+      final String architecture,
+      final String ext,
+      @Nullable final StreamPayload payload) throws IOException
+  {
+    FluentAsset metadataAsset;
+    if (payload != null) {
+      metadataAsset = content().put(packageIndexName(architecture, ext), payload);
     }
-
-    return releaseFileAsset.download();
+    else {
+      metadataAsset = content().getAsset(packageIndexName(architecture, ext))
+          .orElseThrow(() -> new IllegalStateException(
+              "Package index " + packageIndexName(architecture, ext) + " missing in " + getRepository().getName()));
+    }
+    addSignatureItem(md5Builder, MD5, metadataAsset, packageRelativeIndexName(architecture, ext));
+    addSignatureItem(sha256Builder, SHA256, metadataAsset, packageRelativeIndexName(architecture, ext));
   }
 
+  /**
+   * Writes the package indexes of all architectures, streaming the stored package metadata.
+   */
   private CompressingTempFileStore buildPackageIndexes(final List<AssetChange> changes)
       throws IOException
   {
-    CompressingTempFileStore result = new CompressingTempFileStore();
+    CompressingTempFileStore result = new CompressingTempFileStore(compressionExecutor);
     Map<String, Writer> streams = new HashMap<>();
     boolean ok = false;
     try {
-      Set<String> architectures =
-          changes.stream()
-              .map(change -> getArchitecture(change.getAsset()))
-              .collect(Collectors.toSet());
-
-      final List<Map<String, Object>> packagesInfo = data()
-          .browsePackagesMetadata()
-          .map(this::deserialize)
-          .collect(Collectors.toList());
-
-      packagesInfo.stream().map(x -> x.get(P_ARCHITECTURE).toString())
-          .collect(Collectors.toCollection(() -> architectures));
-
-      Map<String, List<Map<String, Object>>> assetsPerArch = new HashMap<>();
-      for (String architecture : architectures) {
-        List<Map<String, Object>> assets = packagesInfo.stream()
-            .filter(x -> x.get(P_ARCHITECTURE).toString().equals(architecture))
-            .collect(Collectors.toList());
-        assetsPerArch.put(architecture, assets);
-      }
-
-      for (List<Map<String, Object>> assets : assetsPerArch.values()) {
-        Optional<AssetChange> removeAssetChange =
-            changes.stream()
-                .filter(change -> change.getAsset().kind().equals(DEB))
-                .filter(change -> change.getAction() == AssetAction.REMOVED)
-                .findAny();
-
-        if (assets.isEmpty() && removeAssetChange.isPresent()) {
-          createEmptyMetadataFile(result, streams, removeAssetChange.get());
-        }
-        else {
-          createMetadataFileWithData(changes, result, streams, assets);
+      // an architecture whose last package was removed still gets an (empty) index
+      changes.stream()
+          .filter(change -> change.getAsset().kind().equals(DEB))
+          .filter(change -> change.getAction() == AssetAction.REMOVED)
+          .forEach(change -> streams.computeIfAbsent(getArchitecture(change.getAsset()), result::openOutput));
+
+      // NOTE:  We exclude added assets as well to account for the case where we are replacing an asset
+      Set<String> excludeNames = changes.stream().map(c -> c.getAsset().path()).collect(Collectors.toSet());
+
+      Iterator<String> packagesMetadata = data().browsePackagesMetadata().iterator();
+      while (packagesMetadata.hasNext()) {
+        Map<String, Object> asset = deserialize(packagesMetadata.next());
+        final String name = asset.get(P_PACKAGE_NAME).toString();
+        final String arch = asset.get(P_ARCHITECTURE).toString();
+        Writer outWriter = streams.computeIfAbsent(arch, result::openOutput);
+        if (!excludeNames.contains(name)) {
+          final String indexSection = asset.get(P_INDEX_SECTION).toString();
+          outWriter.write(indexSection);
+          outWriter.write("\n\n");
         }
       }
       ok = true;
@@ -278,27 +446,6 @@ public class AptHostedMetadataFacet
     return result;
   }
 
-  private void createMetadataFileWithData(
-      final List<AssetChange> changes,
-      final CompressingTempFileStore result,
-      final Map<String, Writer> streams,
-      final List<Map<String, Object>> assets) throws IOException
-  {
-    // NOTE:  We exclude added assets as well to account for the case where we are replacing an asset
-    Set<String> excludeNames = changes.stream().map(c -> c.getAsset().path()).collect(Collectors.toSet());
-
-    for (Map<String, Object> asset : assets) {
-      final String name = asset.get(P_PACKAGE_NAME).toString();
-      final String arch = asset.get(P_ARCHITECTURE).toString();
-      Writer outWriter = streams.computeIfAbsent(arch, result::openOutput);
-      if (!excludeNames.contains(name)) {
-        final String indexSection = asset.get(P_INDEX_SECTION).toString();
-        outWriter.write(indexSection);
-        outWriter.write("\n\n");
-      }
-    }
-  }
-
   private String buildReleaseFile(
       final String distribution,
       final Collection<String> architectures,
@@ -356,16 +503,6 @@ public class AptHostedMetadataFacet
     return (String) FormatAttributesUtils.getFormatAttributes(asset).get(P_ARCHITECTURE);
   }
 
-  private void createEmptyMetadataFile(
-      final CompressingTempFileStore result,
-      final Map<String, Writer> streams,
-      final AssetChange removeAssetChange)
-  {
-    String arch = (String) FormatAttributesUtils.getFormatAttributes(removeAssetChange.getAsset())
-        .get(P_ARCHITECTURE);
-    streams.computeIfAbsent(arch, result::openOutput);
-  }
-
   private AptContentFacet content() {
     return facet(AptContentFacet.class);
   }
@@ -394,6 +531,15 @@ public class AptHostedMetadataFacet
     }
   }
 
+  private String serialize(final Map<String, Object> value) {
+    try {
+      return mapper.writeValueAsString(value);
+    }
+    catch (JsonProcessingException e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
   private Map<String, Object> deserialize(final String value) {
     try {
       return mapper.readValue(value, new TypeReference<Map<String, Object>>() { });
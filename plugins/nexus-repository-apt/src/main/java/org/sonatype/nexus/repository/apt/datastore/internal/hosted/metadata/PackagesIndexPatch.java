@@ -0,0 +1,90 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Writer;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+
+import javax.annotation.Nullable;
+
+/**
+ * Changes to the Packages index of one architecture, applied by streaming the previous index: paragraphs of changed
+ * packages are dropped and the paragraphs of added packages are appended, ordered by file name.
+ *
+ * @since 3.77
+ */
+class PackagesIndexPatch
+{
+  private static final String FILENAME_FIELD = "Filename:";
+
+  private final Set<String> changedPaths = new HashSet<>();
+
+  private final Map<String, String> addedSections = new TreeMap<>();
+
+  void add(final String path, final String indexSection) {
+    changedPaths.add(path);
+    addedSections.put(path, indexSection);
+  }
+
+  void remove(final String path) {
+    changedPaths.add(path);
+    addedSections.remove(path);
+  }
+
+  /**
+   * Writes the patched index, in the same layout as a rebuilt one.
+   *
+   * @param previous the previous index, or {@code null} when the architecture had none
+   */
+  void apply(@Nullable final BufferedReader previous, final Writer out) throws IOException {
+    if (previous != null) {
+      StringBuilder paragraph = new StringBuilder();
+      String filename = null;
+      String line;
+      while ((line = previous.readLine()) != null) {
+        if (line.isEmpty()) {
+          writeUnchanged(paragraph, filename, out);
+          paragraph.setLength(0);
+          filename = null;
+          continue;
+        }
+        if (paragraph.length() > 0) {
+          paragraph.append('\n');
+        }
+        paragraph.append(line);
+        if (line.startsWith(FILENAME_FIELD)) {
+          filename = line.substring(FILENAME_FIELD.length()).trim();
+        }
+      }
+      writeUnchanged(paragraph, filename, out);
+    }
+    for (String indexSection : addedSections.values()) {
+      out.write(indexSection);
+      out.write("\n\n");
+    }
+  }
+
+  private void writeUnchanged(final CharSequence paragraph, @Nullable final String filename, final Writer out)
+      throws IOException
+  {
+    if (paragraph.length() > 0 && !changedPaths.contains(filename)) {
+      out.append(paragraph);
+      out.write("\n\n");
+    }
+  }
+}
@@ -12,18 +12,26 @@
  */
 package org.sonatype.nexus.repository.apt.internal.hosted;
 
+import java.io.FilterOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
 import java.io.OutputStreamWriter;
 import java.io.UncheckedIOException;
 import java.io.Writer;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 import java.util.zip.GZIPOutputStream;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.common.io.InputStreamSupplier;
 
@@ -36,6 +44,9 @@ import org.bouncycastle.util.io.TeeOutputStream;
 /**
  * Stores a set of temp files, automatically compressing each into a GZIP, BZ2 and plain format.
  *
+ * When created with an {@link Executor} the plain file is written first, and the GZIP and BZ2 files are compressed
+ * from it on the executor once its output is closed, so files written one after another are compressed in parallel.
+ *
  * @since 3.17
  */
 public class CompressingTempFileStore
@@ -44,6 +55,22 @@ public class CompressingTempFileStore
 {
   private final Map<String, FileHolder> holdersByKey = new HashMap<>();
 
+  @Nullable
+  private final Executor compressionExecutor;
+
+  private final List<CompletableFuture<Void>> compressions = new ArrayList<>();
+
+  public CompressingTempFileStore() {
+    this(null);
+  }
+
+  /**
+   * @since 3.77
+   */
+  public CompressingTempFileStore(@Nullable final Executor compressionExecutor) {
+    this.compressionExecutor = compressionExecutor;
+  }
+
   public Writer openOutput(final String key) {
     try {
       if (holdersByKey.containsKey(key)) {
@@ -51,21 +78,55 @@ public class CompressingTempFileStore
       }
       FileHolder holder = new FileHolder();
       holdersByKey.put(key, holder);
+      if (compressionExecutor != null) {
+        return new OutputStreamWriter(new CompressOnCloseOutputStream(holder.plainStream, () -> compressLater(holder)),
+            Charsets.UTF_8);
+      }
       return new OutputStreamWriter(new TeeOutputStream(
-          new TeeOutputStream(new GZIPOutputStream(Files.newOutputStream(holder.gzTempFile)),
-              new BZip2CompressorOutputStream(Files.newOutputStream(holder.bzTempFile))),
-          Files.newOutputStream(holder.plainTempFile)), Charsets.UTF_8);
+          new TeeOutputStream(new GZIPOutputStream(holder.gzStream), new BZip2CompressorOutputStream(holder.bzStream)),
+          holder.plainStream), Charsets.UTF_8);
     }
     catch (IOException e) {
       throw new UncheckedIOException(e);
     }
   }
 
+  /**
+   * Returns the stored files, once any compression still running on the executor has completed.
+   */
   public Map<String, FileMetadata> getFiles() {
+    try {
+      CompletableFuture.allOf(compressions.toArray(new CompletableFuture[0])).join();
+    }
+    catch (CompletionException e) {
+      if (e.getCause() instanceof UncheckedIOException) {
+        throw (UncheckedIOException) e.getCause();
+      }
+      throw e;
+    }
     return Maps.transformValues(holdersByKey, holder -> new FileMetadata(holder));
   }
 
+  private void compressLater(final FileHolder holder) {
+    compressions.add(CompletableFuture.runAsync(
+        () -> compress(holder.plainTempFile, holder.gzStream, true), compressionExecutor));
+    compressions.add(CompletableFuture.runAsync(
+        () -> compress(holder.plainTempFile, holder.bzStream, false), compressionExecutor));
+  }
+
+  private static void compress(final Path plainTempFile, final OutputStream target, final boolean gzip) {
+    try (OutputStream out = gzip ? new GZIPOutputStream(target) : new BZip2CompressorOutputStream(target)) {
+      Files.copy(plainTempFile, out);
+    }
+    catch (IOException e) {
+      throw new UncheckedIOException(e);
+    }
+  }
+
   public void close() {
+    // let compressions still writing to the temp files finish before removing them
+    compressions.forEach(compression -> compression.handle((result, e) -> null).join());
+
     List<Path> notDeletedFiles = new LinkedList<>();
 
     for (FileHolder holder : holdersByKey.values()) {
@@ -87,6 +148,32 @@ public class CompressingTempFileStore
     }
   }
 
+  /**
+   * Passes writes straight through, in whole chunks, and schedules compression once closed.
+   */
+  static class CompressOnCloseOutputStream
+      extends FilterOutputStream
+  {
+    private final Runnable onClose;
+
+    CompressOnCloseOutputStream(final OutputStream out, final Runnable onClose) {
+      super(out);
+      this.onClose = onClose;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) throws IOException {
+      // FilterOutputStream would otherwise write the chunk to the unbuffered file one byte at a time
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      super.close();
+      onClose.run();
+    }
+  }
+
   public static class FileMetadata
   {
     private final FileHolder holder;
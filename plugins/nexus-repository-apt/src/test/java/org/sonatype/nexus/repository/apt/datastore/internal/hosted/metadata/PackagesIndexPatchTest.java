@@ -0,0 +1,81 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.datastore.internal.hosted.metadata;
+
+import java.io.BufferedReader;
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * UT for {@link PackagesIndexPatch}
+ */
+public class PackagesIndexPatchTest
+    extends TestSupport
+{
+  private static final String A = "Package: a\nVersion: 1.0\nFilename: pool/a/a/a_1.0_amd64.deb";
+
+  private static final String B = "Package: b\nVersion: 1.0\nDescription: first line\n second line\n" +
+      "Filename: pool/b/b/b_1.0_amd64.deb";
+
+  private static final String B2 = "Package: b\nVersion: 2.0\nFilename: pool/b/b/b_1.0_amd64.deb";
+
+  private static final String C = "Package: c\nVersion: 1.0\nFilename: pool/c/c/c_1.0_amd64.deb";
+
+  private final PackagesIndexPatch underTest = new PackagesIndexPatch();
+
+  @Test
+  public void unchangedParagraphsAreKept() throws Exception {
+    underTest.add("pool/c/c/c_1.0_amd64.deb", C);
+
+    assertThat(apply(A + "\n\n" + B + "\n\n"), equalTo(A + "\n\n" + B + "\n\n" + C + "\n\n"));
+  }
+
+  @Test
+  public void changedParagraphsAreReplaced() throws Exception {
+    underTest.remove("pool/a/a/a_1.0_amd64.deb");
+    underTest.add("pool/b/b/b_1.0_amd64.deb", B2);
+
+    assertThat(apply(A + "\n\n" + B + "\n\n"), equalTo(B2 + "\n\n"));
+  }
+
+  @Test
+  public void laterChangeOfSamePackageWins() throws Exception {
+    underTest.add("pool/c/c/c_1.0_amd64.deb", C);
+    underTest.remove("pool/c/c/c_1.0_amd64.deb");
+
+    assertThat(apply(A + "\n\n"), equalTo(A + "\n\n"));
+  }
+
+  @Test
+  public void missingIndexIsCreated() throws Exception {
+    underTest.add("pool/c/c/c_1.0_amd64.deb", C);
+    underTest.add("pool/a/a/a_1.0_amd64.deb", A);
+
+    StringWriter out = new StringWriter();
+    underTest.apply(null, out);
+    assertThat(out.toString(), equalTo(A + "\n\n" + C + "\n\n"));
+  }
+
+  private String apply(final String previous) throws Exception {
+    StringWriter out = new StringWriter();
+    underTest.apply(new BufferedReader(new StringReader(previous)), out);
+    return out.toString();
+  }
+}
@@ -0,0 +1,138 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.apt.internal.hosted;
+
+import java.io.ByteArrayOutputStream;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.zip.GZIPInputStream;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.apt.internal.hosted.CompressingTempFileStore.CompressOnCloseOutputStream;
+import org.sonatype.nexus.repository.apt.internal.hosted.CompressingTempFileStore.FileMetadata;
+
+import org.apache.commons.compress.compressors.bzip2.BZip2CompressorInputStream;
+import org.apache.commons.io.IOUtils;
+import org.junit.After;
+import org.junit.Test;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.equalTo;
+
+/**
+ * UT for {@link CompressingTempFileStore}
+ */
+public class CompressingTempFileStoreTest
+    extends TestSupport
+{
+  private final ExecutorService executor = Executors.newFixedThreadPool(2);
+
+  @After
+  public void tearDown() {
+    executor.shutdownNow();
+  }
+
+  @Test
+  public void compressesInline() throws Exception {
+    try (CompressingTempFileStore underTest = new CompressingTempFileStore()) {
+      verifyFiles(underTest);
+    }
+  }
+
+  @Test
+  public void compressesOnExecutor() throws Exception {
+    try (CompressingTempFileStore underTest = new CompressingTempFileStore(executor)) {
+      verifyFiles(underTest);
+    }
+  }
+
+  @Test
+  public void writesLargeIndexOnExecutor() throws Exception {
+    StringBuilder index = new StringBuilder();
+    for (int i = 0; i < 20_000; i++) {
+      index.append("Package: package-").append(i).append("\nVersion: 1.0.").append(i).append("\n\n");
+    }
+    String expected = index.toString();
+
+    try (CompressingTempFileStore underTest = new CompressingTempFileStore(executor)) {
+      try (Writer writer = underTest.openOutput("amd64")) {
+        writer.write(expected);
+      }
+
+      FileMetadata file = underTest.getFiles().get("amd64");
+      assertThat(file.plainSize(), equalTo((long) expected.length()));
+      assertThat(read(file.plainSupplier().get()), equalTo(expected));
+      assertThat(read(new GZIPInputStream(file.gzSupplier().get())), equalTo(expected));
+      assertThat(read(new BZip2CompressorInputStream(file.bzSupplier().get())), equalTo(expected));
+    }
+  }
+
+  @Test
+  public void passesChunksThroughWhole() throws Exception {
+    AtomicInteger writes = new AtomicInteger();
+    AtomicBoolean closed = new AtomicBoolean();
+    OutputStream target = new ByteArrayOutputStream()
+    {
+      @Override
+      public synchronized void write(final int b) {
+        writes.incrementAndGet();
+        super.write(b);
+      }
+
+      @Override
+      public synchronized void write(final byte[] b, final int off, final int len) {
+        writes.incrementAndGet();
+        super.write(b, off, len);
+      }
+    };
+
+    try (OutputStream out = new CompressOnCloseOutputStream(target, () -> closed.set(true))) {
+      out.write(new byte[64 * 1024], 0, 64 * 1024);
+    }
+
+    assertThat(writes.get(), equalTo(1));
+    assertThat(closed.get(), equalTo(true));
+  }
+
+  private void verifyFiles(final CompressingTempFileStore underTest) throws Exception {
+    for (String key : new String[]{"amd64", "i386"}) {
+      try (Writer writer = underTest.openOutput(key)) {
+        writer.write("Package: " + key + "\n\n");
+      }
+    }
+
+    Map<String, FileMetadata> files = underTest.getFiles();
+    assertThat(files.keySet().size(), equalTo(2));
+    for (Map.Entry<String, FileMetadata> entry : files.entrySet()) {
+      String expected = "Package: " + entry.getKey() + "\n\n";
+      FileMetadata file = entry.getValue();
+      assertThat(file.plainSize(), equalTo((long) expected.length()));
+      assertThat(read(file.plainSupplier().get()), equalTo(expected));
+      assertThat(read(new GZIPInputStream(file.gzSupplier().get())), equalTo(expected));
+      assertThat(read(new BZip2CompressorInputStream(file.bzSupplier().get())), equalTo(expected));
+    }
+  }
+
+  private static String read(final InputStream in) throws Exception {
+    try (InputStream stream = in) {
+      return IOUtils.toString(stream, StandardCharsets.UTF_8);
+    }
+  }
+}
@@ -15,6 +15,9 @@ package org.sonatype.nexus.repository.httpbridge.internal;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
 import java.util.Map;
 
 import javax.annotation.Nullable;
@@ -31,6 +34,8 @@ import org.sonatype.nexus.repository.view.Request;
 import org.sonatype.nexus.repository.view.Response;
 import org.sonatype.nexus.repository.view.Status;
 
+import org.eclipse.jetty.server.HttpOutput;
+
 /**
  * Default {@link HttpResponseSender}.
  *
@@ -75,8 +80,16 @@ public class DefaultHttpResponseSender
           }
 
           if (request != null && !HttpMethods.HEAD.equals(request.getAction())) {
-            try (InputStream input = payload.openInputStream(); OutputStream output = httpResponse.getOutputStream()) {
-              payload.copy(input, output);
+            try (FileChannel channel = payload.openFileChannel()) {
+              if (channel != null) {
+                transfer(channel, httpResponse);
+              }
+              else {
+                try (InputStream input = payload.openInputStream();
+                     OutputStream output = httpResponse.getOutputStream()) {
+                  payload.copy(input, output);
+                }
+              }
             }
           }
         }
@@ -86,4 +99,29 @@ public class DefaultHttpResponseSender
       }
     }
   }
+
+  /**
+   * Sends file-backed content without copying it through the payload's {@link InputStream}. When the response is
+   * written directly to Jetty the channel is handed over as-is, otherwise {@link FileChannel#transferTo} is used.
+   */
+  private void transfer(final FileChannel channel, final HttpServletResponse httpResponse) throws IOException {
+    try (OutputStream output = httpResponse.getOutputStream()) {
+      if (output instanceof HttpOutput) {
+        ((HttpOutput) output).sendContent(channel);
+      }
+      else {
+        WritableByteChannel target =
+            output instanceof WritableByteChannel ? (WritableByteChannel) output : Channels.newChannel(output);
+        long position = 0;
+        long size = channel.size();
+        while (position < size) {
+          long transferred = channel.transferTo(position, size - position, target);
+          if (transferred <= 0) {
+            break; // content truncated underneath us
+          }
+          position += transferred;
+        }
+      }
+    }
+  }
 }
@@ -0,0 +1,178 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.httpbridge.internal;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Random;
+
+import javax.annotation.Nullable;
+import javax.servlet.ServletOutputStream;
+import javax.servlet.WriteListener;
+import javax.servlet.http.HttpServletResponse;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+import org.sonatype.nexus.repository.http.HttpMethods;
+import org.sonatype.nexus.repository.http.HttpResponses;
+import org.sonatype.nexus.repository.view.Payload;
+import org.sonatype.nexus.repository.view.Request;
+
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.junit.rules.TemporaryFolder;
+import org.mockito.Mock;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.mockito.Mockito.when;
+
+/**
+ * Throughput comparison of the stream copy and file channel paths of {@link DefaultHttpResponseSender}.
+ */
+@Category(Perf.class)
+public class DefaultHttpResponseSenderPerfTest
+    extends TestSupport
+{
+  private static final int CONTENT_SIZE = 256 * 1024 * 1024;
+
+  private static final int WARMUP_ROUNDS = 3;
+
+  private static final int MEASURED_ROUNDS = 10;
+
+  private final DefaultHttpResponseSender underTest = new DefaultHttpResponseSender();
+
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+  @Mock
+  private Request request;
+
+  @Mock
+  private HttpServletResponse httpServletResponse;
+
+  private CountingOutputStream output;
+
+  private Path content;
+
+  @Before
+  public void setUp() throws Exception {
+    content = temporaryFolder.newFile().toPath();
+    byte[] chunk = new byte[1024 * 1024];
+    new Random(0).nextBytes(chunk);
+    try (OutputStream out = Files.newOutputStream(content)) {
+      for (int i = 0; i < CONTENT_SIZE / chunk.length; i++) {
+        out.write(chunk);
+      }
+    }
+
+    output = new CountingOutputStream();
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+    when(httpServletResponse.getOutputStream()).thenReturn(output);
+  }
+
+  @Test
+  public void compareStreamAndChannelThroughput() throws Exception {
+    double streamMbPerSecond = measure(false);
+    double channelMbPerSecond = measure(true);
+
+    log("stream copy: {} MB/s, file channel: {} MB/s", String.format("%.1f", streamMbPerSecond),
+        String.format("%.1f", channelMbPerSecond));
+  }
+
+  private double measure(final boolean channel) throws Exception {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      send(channel);
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      send(channel);
+    }
+    long elapsed = System.nanoTime() - start;
+    return ((double) CONTENT_SIZE * MEASURED_ROUNDS / (1024 * 1024)) / (elapsed / 1e9d);
+  }
+
+  private void send(final boolean channel) throws Exception {
+    output.count = 0;
+    underTest.send(request, HttpResponses.ok(new FilePayload(content, channel)), httpServletResponse);
+    assertThat(output.count, is((long) CONTENT_SIZE));
+  }
+
+  private static class FilePayload
+      implements Payload
+  {
+    private final Path path;
+
+    private final boolean channel;
+
+    FilePayload(final Path path, final boolean channel) {
+      this.path = path;
+      this.channel = channel;
+    }
+
+    @Override
+    public InputStream openInputStream() throws IOException {
+      return Files.newInputStream(path);
+    }
+
+    @Nullable
+    @Override
+    public FileChannel openFileChannel() throws IOException {
+      return channel ? FileChannel.open(path, StandardOpenOption.READ) : null;
+    }
+
+    @Override
+    public long getSize() {
+      return CONTENT_SIZE;
+    }
+
+    @Nullable
+    @Override
+    public String getContentType() {
+      return null;
+    }
+  }
+
+  private static class CountingOutputStream
+      extends ServletOutputStream
+  {
+    private long count;
+
+    @Override
+    public void write(final int b) {
+      count++;
+    }
+
+    @Override
+    public void write(final byte[] b, final int off, final int len) {
+      count += len;
+    }
+
+    @Override
+    public boolean isReady() {
+      return true;
+    }
+
+    @Override
+    public void setWriteListener(final WriteListener writeListener) {
+      // not used
+    }
+  }
+}
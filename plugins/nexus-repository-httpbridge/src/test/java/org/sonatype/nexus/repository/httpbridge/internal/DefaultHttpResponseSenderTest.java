@@ -15,7 +15,11 @@ package org.sonatype.nexus.repository.httpbridge.internal;
 import java.io.ByteArrayInputStream;
 import java.io.IOException;
 import java.io.InputStream;
+import java.nio.channels.FileChannel;
 import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 
 import javax.servlet.ServletOutputStream;
 import javax.servlet.http.HttpServletResponse;
@@ -32,7 +36,9 @@ import org.sonatype.nexus.repository.view.Status;
 import org.sonatype.nexus.repository.view.payloads.StringPayload;
 
 import org.junit.Before;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.mockito.InOrder;
 import org.mockito.Mock;
 import org.mockito.Spy;
@@ -40,9 +46,12 @@ import org.mockito.Spy;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.is;
 import static org.junit.Assert.fail;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
 import static org.mockito.Mockito.atLeastOnce;
 import static org.mockito.Mockito.doThrow;
 import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.never;
 import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 import static org.sonatype.nexus.repository.http.HttpStatus.FORBIDDEN;
@@ -58,6 +67,9 @@ public class DefaultHttpResponseSenderTest
 
   private final HttpResponseSender underTest = new DefaultHttpResponseSender();
 
+  @Rule
+  public TemporaryFolder temporaryFolder = new TemporaryFolder();
+
   @Mock
   private Request request;
 
@@ -119,6 +131,7 @@ public class DefaultHttpResponseSenderTest
 
     order.verify(payload).getContentType();
     order.verify(payload, atLeastOnce()).getSize();
+    order.verify(payload).openFileChannel();
     order.verify(payload).openInputStream();
     order.verify(input).close();
     order.verify(payload).close();
@@ -144,6 +157,7 @@ public class DefaultHttpResponseSenderTest
 
     order.verify(payload).getContentType();
     order.verify(payload, atLeastOnce()).getSize();
+    order.verify(payload).openFileChannel();
     order.verify(payload).openInputStream();
     order.verify(input).close();
     order.verify(payload).close();
@@ -151,6 +165,24 @@ public class DefaultHttpResponseSenderTest
     order.verifyNoMoreInteractions();
   }
 
+  @Test
+  public void fileChannelTransferredWhenAvailable() throws Exception {
+    when(request.getAction()).thenReturn(HttpMethods.GET);
+
+    Path file = temporaryFolder.newFile().toPath();
+    Files.write(file, TEST_CONTENT);
+    FileChannel channel = FileChannel.open(file, StandardOpenOption.READ);
+    when(payload.openFileChannel()).thenReturn(channel);
+
+    underTest.send(request, HttpResponses.ok(payload), httpServletResponse);
+
+    verify(payload, never()).openInputStream();
+    verify(output).write(any(byte[].class), anyInt(), anyInt());
+    verify(output).close();
+    verify(payload).close();
+    assertThat(channel.isOpen(), is(false));
+  }
+
   @Test
   public void customStatusMessageIsMaintained() throws Exception {
     when(request.getAction()).thenReturn(HttpMethods.GET);
@@ -30,6 +30,9 @@ import static com.google.common.base.Preconditions.checkNotNull;
 /**
  * Hosted implementation of {@link MavenIndexFacet}.
  *
+ * Publishes incremental chunks where it can, working out the artifacts removed since the last publish from the
+ * repository content rather than from events, so deletes, purges and changes made on other nodes are all covered.
+ *
  * @since 3.26
  */
 @Named
@@ -51,7 +54,7 @@ public class MavenContentHostedIndexFacet
   @Override
   public void publishIndex() throws IOException {
     try (DuplicateDetectionStrategy<Record> strategy = duplicateDetectionStrategyProvider.get()) {
-      mavenIndexPublisher.publishHostedIndex(getRepository(), strategy);
+      mavenIndexPublisher.publishHostedIndexIncrementally(getRepository(), strategy);
     }
   }
 }
@@ -20,11 +20,16 @@ import java.io.OutputStream;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.OffsetDateTime;
+import java.time.ZoneOffset;
 import java.util.ArrayList;
+import java.util.Date;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.Properties;
+import java.util.Set;
 import java.util.stream.StreamSupport;
 
 import javax.inject.Inject;
@@ -41,6 +46,7 @@ import org.sonatype.nexus.repository.content.Component;
 import org.sonatype.nexus.repository.content.fluent.FluentAsset;
 import org.sonatype.nexus.repository.content.fluent.FluentQuery;
 import org.sonatype.nexus.repository.maven.MavenPath;
+import org.sonatype.nexus.repository.maven.MavenPath.Coordinates;
 import org.sonatype.nexus.repository.maven.MavenPath.SignatureType;
 import org.sonatype.nexus.repository.maven.MavenPathParser;
 import org.sonatype.nexus.repository.maven.internal.Maven2Format;
@@ -48,6 +54,7 @@ import org.sonatype.nexus.repository.maven.internal.MavenIndexPublisher;
 import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
 import org.sonatype.nexus.repository.view.Content;
 
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.Closer;
 import org.apache.maven.index.reader.IndexWriter;
 import org.apache.maven.index.reader.Record;
@@ -79,13 +86,20 @@ import static org.sonatype.nexus.repository.view.Content.CONTENT_LAST_MODIFIED;
 public class MavenContentIndexPublisher
     extends MavenIndexPublisher
 {
+  private static final String CHANGED_ARTIFACTS_FILTER =
+      "kind = #{filterParams.kind} AND last_updated >= #{filterParams.since}";
+
   private final int browseAssetsPageSize;
 
+  private final int maxIncrementalChunks;
+
   @Inject
   public MavenContentIndexPublisher(
-      @Named("${nexus.maven.index.publisher.browseAssetsPageSize:-1000}") final int browseAssetsPageSize)
+      @Named("${nexus.maven.index.publisher.browseAssetsPageSize:-1000}") final int browseAssetsPageSize,
+      @Named("${nexus.maven.index.publisher.maxIncrementalChunks:-30}") final int maxIncrementalChunks)
   {
     this.browseAssetsPageSize = browseAssetsPageSize;
+    this.maxIncrementalChunks = maxIncrementalChunks;
   }
 
   @Override
@@ -122,18 +136,69 @@ public class MavenContentIndexPublisher
       final Repository repository, final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
       throws IOException
   {
+    Date publishStarted = new Date();
+    Properties replacedProperties = loadIndexProperties(repository);
     try (Maven2WritableResourceHandler resourceHandler = new Maven2WritableResourceHandler(repository)) {
       try (IndexWriter indexWriter = new IndexWriter(resourceHandler, repository.getName(), false)) {
         indexWriter.writeChunk(records(repository, duplicateDetectionStrategy).iterator());
       }
     }
+    recordPublishStarted(repository, replacedProperties, publishStarted);
+  }
+
+  @Override
+  public void publishHostedIndexIncrementally(
+      final Repository repository,
+      final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy) throws IOException
+  {
+    Date publishStarted = new Date();
+    Properties properties = loadIndexProperties(repository);
+    Date since = incrementalBase(properties, maxIncrementalChunks);
+    if (since != null) {
+      FluentQuery<FluentAsset> changedQuery = repository.facet(MavenContentFacet.class).assets()
+          .byFilter(CHANGED_ARTIFACTS_FILTER,
+              ImmutableMap.of("kind", ARTIFACT.name(), "since", OffsetDateTime.ofInstant(since.toInstant(), ZoneOffset.UTC)));
+      List<Record> addedRecords = getHostedRecords(repository, changedQuery, duplicateDetectionStrategy);
+      if (publishIncrement(repository, properties, addedRecords, presentArtifacts(repository), publishStarted)) {
+        return;
+      }
+    }
+    log.debug("Publishing full index of {}", repository.getName());
+    publishHostedIndex(repository, duplicateDetectionStrategy);
+  }
+
+  /**
+   * Returns the index keys of the artifacts in the repository, worked out from their paths alone so that this stays
+   * much cheaper than building their records.
+   */
+  private Set<String> presentArtifacts(final Repository repository) {
+    MavenContentFacet mavenContentFacet = repository.facet(MavenContentFacet.class);
+    MavenPathParser mavenPathParser = mavenContentFacet.getMavenPathParser();
+    FluentQuery<FluentAsset> artifactQuery = mavenContentFacet.assets().byKind(ARTIFACT.name());
+
+    Set<String> present = new HashSet<>();
+    Continuation<FluentAsset> assets = artifactQuery.browse(browseAssetsPageSize, null);
+    while (!assets.isEmpty()) {
+      for (FluentAsset asset : assets) {
+        MavenPath mavenPath = mavenPathParser.parsePath(asset.path());
+        Coordinates coordinates = mavenPath.getCoordinates();
+        if (coordinates != null && !mavenPath.isSubordinate()) {
+          present.add(uinfo(coordinates.getGroupId(), coordinates.getArtifactId(), coordinates.getBaseVersion(),
+              coordinates.getClassifier(), pathExtension(mavenPath.getFileName())));
+        }
+      }
+      assets = artifactQuery.browse(browseAssetsPageSize, assets.nextContinuationToken());
+    }
+    return present;
   }
 
   private Iterable<Map<String, String>> records(
       final Repository repository,
       final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
   {
-    List<Record> hostedRecords = getHostedRecords(repository, duplicateDetectionStrategy);
+    FluentQuery<FluentAsset> artifactQuery =
+        repository.facet(MavenContentFacet.class).assets().byKind(ARTIFACT.name());
+    List<Record> hostedRecords = getHostedRecords(repository, artifactQuery, duplicateDetectionStrategy);
     return StreamSupport.stream(decorate(hostedRecords, repository.getName()).spliterator(), false)
         .map(RECORD_COMPACTOR::apply)
         .collect(toList());
@@ -141,12 +206,12 @@ public class MavenContentIndexPublisher
 
   private List<Record> getHostedRecords(
       final Repository repository,
+      final FluentQuery<FluentAsset> artifactQuery,
       final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy) {
 
     List<Record> records = new ArrayList<>();
     MavenContentFacet mavenContentFacet = repository.facet(MavenContentFacet.class);
 
-    FluentQuery<FluentAsset> artifactQuery = mavenContentFacet.assets().byKind(ARTIFACT.name());
     Continuation<FluentAsset> assets = artifactQuery.browse(browseAssetsPageSize, null);
     while (!assets.isEmpty()) {
       records.addAll(assetsToRecords(assets, mavenContentFacet, duplicateDetectionStrategy));
@@ -73,7 +73,8 @@ public class Maven2MavenPathParser
   @Override
   public boolean isRepositoryIndex(final MavenPath path) {
     return path.getPath().equals(Constants.INDEX_MAIN_CHUNK_FILE_PATH) ||
-        path.getPath().equals(Constants.INDEX_PROPERTY_FILE_PATH);
+        path.getPath().equals(Constants.INDEX_PROPERTY_FILE_PATH) ||
+        Constants.INDEX_INCREMENTAL_CHUNK_FILE_PATH.matcher(path.getPath()).matches();
   }
 
   /**
@@ -13,14 +13,24 @@
 package org.sonatype.nexus.repository.maven.internal;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.nio.file.Path;
+import java.text.ParseException;
 import java.util.ArrayList;
 import java.util.Arrays;
+import java.util.Date;
+import java.util.HashMap;
 import java.util.Iterator;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
 import java.util.TreeSet;
 
+import javax.annotation.Nullable;
+
 import org.sonatype.goodies.common.ComponentSupport;
 import org.sonatype.nexus.repository.Repository;
 import org.sonatype.nexus.repository.maven.MavenIndexFacet;
@@ -38,6 +48,7 @@ import org.sonatype.nexus.repository.view.payloads.PathPayload;
 import com.google.common.base.Predicate;
 import com.google.common.io.Closer;
 import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.ChunkWriter;
 import org.apache.maven.index.reader.IndexReader;
 import org.apache.maven.index.reader.IndexWriter;
 import org.apache.maven.index.reader.Record;
@@ -46,6 +57,7 @@ import org.apache.maven.index.reader.RecordCompactor;
 import org.apache.maven.index.reader.RecordExpander;
 import org.apache.maven.index.reader.ResourceHandler;
 import org.apache.maven.index.reader.WritableResourceHandler;
+import org.apache.maven.index.reader.WritableResourceHandler.WritableResource;
 import org.joda.time.DateTime;
 
 import static com.google.common.base.Preconditions.checkArgument;
@@ -54,11 +66,15 @@ import static com.google.common.collect.Iterables.concat;
 import static com.google.common.collect.Iterables.filter;
 import static com.google.common.collect.Iterables.transform;
 import static java.util.Collections.singletonList;
+import static org.apache.maven.index.reader.Utils.INDEX_DATE_FORMAT;
 import static org.apache.maven.index.reader.Utils.allGroups;
 import static org.apache.maven.index.reader.Utils.descriptor;
+import static org.apache.maven.index.reader.Utils.loadProperties;
 import static org.apache.maven.index.reader.Utils.rootGroup;
 import static org.apache.maven.index.reader.Utils.rootGroups;
+import static org.apache.maven.index.reader.Utils.storeProperties;
 import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_FILE_BASE_PATH;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_MAIN_CHUNK_FILE_PATH;
 import static org.sonatype.nexus.repository.maven.internal.Constants.INDEX_PROPERTY_FILE_PATH;
 
@@ -73,6 +89,29 @@ public abstract class MavenIndexPublisher extends ComponentSupport
 
   private static final String INDEX_MAIN_CHUNK_FILE = "/" + INDEX_MAIN_CHUNK_FILE_PATH;
 
+  // names of the index files as located through a ResourceHandler
+  private static final String INDEX_FILE_PREFIX = "nexus-maven-repository-index";
+
+  private static final String INDEX_PROPERTY_NAME = INDEX_FILE_PREFIX + ".properties";
+
+  private static final String INDEX_MAIN_CHUNK_NAME = INDEX_FILE_PREFIX + ".gz";
+
+  private static final String INDEX_CHAIN_ID = "nexus.index.chain-id";
+
+  private static final String INDEX_TIMESTAMP = "nexus.index.timestamp";
+
+  private static final String INDEX_LAST_INCREMENTAL = "nexus.index.last-incremental";
+
+  private static final String INDEX_INCREMENTAL_PREFIX = "nexus.index.incremental-";
+
+  // not part of the index format; when the publish that produced the index started looking at the repository
+  private static final String INDEX_PUBLISH_STARTED = "nexus.index.publish-started";
+
+  // keys of the compacted records identifying an added and a removed artifact
+  private static final String UINFO = "u";
+
+  private static final String DELETED_UINFO = "del";
+
   private static final RecordExpander RECORD_EXPANDER = new RecordExpander();
 
   protected static final RecordCompactor RECORD_COMPACTOR = new RecordCompactor();
@@ -98,6 +137,7 @@ public abstract class MavenIndexPublisher extends ComponentSupport
    */
   public boolean unpublishIndexFiles(final Repository repository) throws IOException {
     checkNotNull(repository);
+    deleteIncrementalChunks(repository, loadIndexProperties(repository));
     return delete(repository, INDEX_PROPERTY_FILE)
         && delete(repository, INDEX_MAIN_CHUNK_FILE);
   }
@@ -123,6 +163,19 @@ public abstract class MavenIndexPublisher extends ComponentSupport
       final Repository repository,
       final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy) throws IOException;
 
+  /**
+   * Publishes MI index into {@code target} as an incremental chunk holding the changes since the index was last
+   * published, when the publisher supports that, or in full otherwise.
+   *
+   * @since 3.77
+   */
+  public void publishHostedIndexIncrementally(
+      final Repository repository,
+      final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy) throws IOException
+  {
+    publishHostedIndex(repository, duplicateDetectionStrategy);
+  }
+
   /**
    * Publishes the Maven index into {@code groupRepository}, sourced from {@code leafMembers} repositories.
    */
@@ -215,6 +268,217 @@ public abstract class MavenIndexPublisher extends ComponentSupport
     }
   }
 
+  /**
+   * Loads the properties of the index published in the given repository, or {@code null} when there is none.
+   *
+   * @since 3.77
+   */
+  @Nullable
+  protected Properties loadIndexProperties(final Repository repository) throws IOException {
+    try (WritableResourceHandler resourceHandler = getResourceHandler(repository);
+         WritableResource resource = resourceHandler.locate(INDEX_PROPERTY_NAME)) {
+      return loadProperties(resource);
+    }
+  }
+
+  /**
+   * Returns when the publish of the given index started looking at the repository, which is where the changes for the
+   * next incremental chunk start from. Returns {@code null} when the index can't take another incremental chunk.
+   *
+   * @since 3.77
+   */
+  @Nullable
+  protected static Date incrementalBase(@Nullable final Properties properties, final int maxIncrementalChunks) {
+    if (properties == null || properties.getProperty(INDEX_PUBLISH_STARTED) == null) {
+      // no index yet, or one published without the bookkeeping
+      return null;
+    }
+    if (lastIncremental(properties) >= maxIncrementalChunks) {
+      return null;
+    }
+    return parseDate(properties.getProperty(INDEX_PUBLISH_STARTED));
+  }
+
+  /**
+   * Records when the publish of a full index started, after the index was written by an {@link IndexWriter}, starts
+   * its chain of incremental chunks and removes the incremental chunks of the index it replaced.
+   *
+   * @since 3.77
+   */
+  protected void recordPublishStarted(
+      final Repository repository,
+      @Nullable final Properties replacedProperties,
+      final Date publishStarted) throws IOException
+  {
+    try (WritableResourceHandler resourceHandler = getResourceHandler(repository)) {
+      Properties properties = loadProperties(resourceHandler.locate(INDEX_PROPERTY_NAME));
+      checkNotNull(properties, "Index properties missing in %s", repository.getName());
+      // clients only follow a chain when they know where they are in it
+      properties.setProperty(INDEX_LAST_INCREMENTAL, "0");
+      properties.setProperty(INDEX_PUBLISH_STARTED, formatDate(publishStarted));
+      storeProperties(resourceHandler.locate(INDEX_PROPERTY_NAME), properties);
+    }
+    deleteIncrementalChunks(repository, replacedProperties);
+  }
+
+  /**
+   * Publishes the added artifacts, and those of the previous main chunk no longer in {@code presentArtifacts}, as the
+   * next incremental chunk of the index described by {@code properties}, and merges them into the main chunk for
+   * clients downloading the whole index.
+   *
+   * The main chunk is merged by streaming the previous one, so the repository content is only consulted for the
+   * changed artifacts and the {@link #uinfo keys} of those present. Removals are derived rather than tracked so that
+   * deletes, purges and changes made by other nodes or before a restart all reach the chunk. Returns {@code false},
+   * leaving the index untouched, when the previous main chunk is missing.
+   *
+   * @since 3.77
+   */
+  protected boolean publishIncrement(
+      final Repository repository,
+      final Properties properties,
+      final Iterable<Record> addedRecords,
+      final Set<String> presentArtifacts,
+      final Date publishStarted) throws IOException
+  {
+    Map<String, Map<String, String>> added = new LinkedHashMap<>();
+    for (Record record : addedRecords) {
+      Map<String, String> compacted = RECORD_COMPACTOR.apply(record);
+      added.put(compacted.get(UINFO), compacted);
+    }
+    Map<String, Map<String, String>> removed = new LinkedHashMap<>();
+
+    int chunk = lastIncremental(properties) + 1;
+    Date timestamp = new Date();
+    String repositoryName = repository.getName();
+
+    try (WritableResourceHandler resourceHandler = getResourceHandler(repository)) {
+      try (WritableResource previous = resourceHandler.locate(INDEX_MAIN_CHUNK_NAME)) {
+        InputStream in = previous.read();
+        if (in == null) {
+          return false;
+        }
+        try (ChunkReader chunkReader = new ChunkReader(INDEX_MAIN_CHUNK_NAME, in)) {
+          Iterable<Record> unchanged = transform(
+              filter(chunkReader, rec -> {
+                String uinfo = rec.get(UINFO);
+                if (uinfo == null || added.containsKey(uinfo)) {
+                  return false;
+                }
+                if (!presentArtifacts.contains(uinfo)) {
+                  removed.put(uinfo, removal(RECORD_EXPANDER.apply(rec), timestamp));
+                  return false;
+                }
+                return true;
+              }),
+              RECORD_EXPANDER::apply);
+          Iterable<Record> merged = concat(unchanged, transform(added.values(), RECORD_EXPANDER::apply));
+          writeChunk(resourceHandler, INDEX_MAIN_CHUNK_NAME, timestamp,
+              transform(decorate(merged, repositoryName), RECORD_COMPACTOR::apply));
+        }
+      }
+
+      writeChunk(resourceHandler, INDEX_FILE_PREFIX + "." + chunk + ".gz", timestamp,
+          concat(singletonList(RECORD_COMPACTOR.apply(descriptor(repositoryName))), added.values(), removed.values()));
+
+      Properties updated = new Properties();
+      for (String key : properties.stringPropertyNames()) {
+        if (!key.startsWith(INDEX_INCREMENTAL_PREFIX)) {
+          updated.setProperty(key, properties.getProperty(key));
+        }
+      }
+      // newest chunk first, as clients walk the list until they find the one after their last
+      for (int i = chunk; i > 0; i--) {
+        updated.setProperty(INDEX_INCREMENTAL_PREFIX + (chunk - i), String.valueOf(i));
+      }
+      updated.setProperty(INDEX_LAST_INCREMENTAL, String.valueOf(chunk));
+      updated.setProperty(INDEX_TIMESTAMP, formatDate(timestamp));
+      updated.setProperty(INDEX_PUBLISH_STARTED, formatDate(publishStarted));
+      storeProperties(resourceHandler.locate(INDEX_PROPERTY_NAME), updated);
+    }
+    log.debug("Published incremental index chunk {} of {} with {} added and {} removed artifacts",
+        chunk, repositoryName, added.size(), removed.size());
+    return true;
+  }
+
+  /**
+   * Returns the key the index identifies an artifact by, as carried by its records.
+   *
+   * @since 3.77
+   */
+  protected static String uinfo(
+      final String groupId,
+      final String artifactId,
+      final String version,
+      @Nullable final String classifier,
+      final String fileExtension)
+  {
+    Record record = new Record(Type.ARTIFACT_REMOVE, new HashMap<>());
+    record.put(Record.GROUP_ID, groupId);
+    record.put(Record.ARTIFACT_ID, artifactId);
+    record.put(Record.VERSION, version);
+    record.put(Record.CLASSIFIER, classifier);
+    record.put(Record.FILE_EXTENSION, fileExtension);
+    return RECORD_COMPACTOR.apply(record).get(DELETED_UINFO);
+  }
+
+  private static Map<String, String> removal(final Record artifact, final Date timestamp) {
+    Record record = new Record(Type.ARTIFACT_REMOVE, new HashMap<>());
+    record.put(Record.REC_MODIFIED, timestamp.getTime());
+    record.put(Record.GROUP_ID, artifact.get(Record.GROUP_ID));
+    record.put(Record.ARTIFACT_ID, artifact.get(Record.ARTIFACT_ID));
+    record.put(Record.VERSION, artifact.get(Record.VERSION));
+    record.put(Record.CLASSIFIER, artifact.get(Record.CLASSIFIER));
+    record.put(Record.FILE_EXTENSION, artifact.get(Record.FILE_EXTENSION));
+    return RECORD_COMPACTOR.apply(record);
+  }
+
+  private static void writeChunk(
+      final WritableResourceHandler resourceHandler,
+      final String name,
+      final Date timestamp,
+      final Iterable<Map<String, String>> records) throws IOException
+  {
+    try (WritableResource resource = resourceHandler.locate(name)) {
+      try (ChunkWriter chunkWriter = new ChunkWriter(name, resource.write(), 1, timestamp)) {
+        chunkWriter.writeChunk(records.iterator());
+      }
+    }
+  }
+
+  private void deleteIncrementalChunks(final Repository repository, @Nullable final Properties properties)
+      throws IOException
+  {
+    if (properties == null) {
+      return;
+    }
+    for (int chunk = lastIncremental(properties); chunk > 0; chunk--) {
+      delete(repository, "/" + INDEX_FILE_BASE_PATH + "." + chunk + ".gz");
+    }
+  }
+
+  private static int lastIncremental(final Properties properties) {
+    String lastIncremental = properties.getProperty(INDEX_LAST_INCREMENTAL);
+    return lastIncremental == null ? 0 : Integer.parseInt(lastIncremental);
+  }
+
+  private static String formatDate(final Date date) {
+    synchronized (INDEX_DATE_FORMAT) {
+      return INDEX_DATE_FORMAT.format(date);
+    }
+  }
+
+  @Nullable
+  private static Date parseDate(final String date) {
+    synchronized (INDEX_DATE_FORMAT) {
+      try {
+        return INDEX_DATE_FORMAT.parse(date);
+      }
+      catch (ParseException e) { // NOSONAR
+        return null;
+      }
+    }
+  }
+
   /**
    * Prefetch proxy repository index files, if possible. Returns {@code true} if successful. Accepts only maven proxy
    * types. Returns {@code true} if successfully prefetched files (they exist on remote and are locally cached).
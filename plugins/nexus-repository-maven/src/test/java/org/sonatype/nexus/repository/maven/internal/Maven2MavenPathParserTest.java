@@ -392,6 +392,11 @@ public class Maven2MavenPathParserTest
     assertThat(mavenPath.getCoordinates(), nullValue());
     assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(true));
     assertThat(pathParser.isRepositoryMetadata(mavenPath), equalTo(false));
+
+    mavenPath = pathParser.parsePath(".index/nexus-maven-repository-index.12.gz");
+    assertThat(mavenPath.getCoordinates(), nullValue());
+    assertThat(pathParser.isRepositoryIndex(mavenPath), equalTo(true));
+    assertThat(pathParser.isRepositoryMetadata(mavenPath), equalTo(false));
   }
 
   @Test
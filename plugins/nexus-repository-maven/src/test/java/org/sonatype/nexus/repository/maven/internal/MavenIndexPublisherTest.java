@@ -0,0 +1,284 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.maven.internal;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import java.util.Set;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.filter.DuplicateDetectionStrategy;
+
+import com.google.common.io.Closer;
+import org.apache.maven.index.reader.ChunkReader;
+import org.apache.maven.index.reader.IndexReader;
+import org.apache.maven.index.reader.IndexWriter;
+import org.apache.maven.index.reader.Record;
+import org.apache.maven.index.reader.Record.Type;
+import org.apache.maven.index.reader.RecordExpander;
+import org.apache.maven.index.reader.WritableResourceHandler;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mock;
+
+import static java.util.Arrays.asList;
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.equalTo;
+import static org.hamcrest.Matchers.hasKey;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.not;
+import static org.hamcrest.Matchers.notNullValue;
+import static org.hamcrest.Matchers.nullValue;
+import static org.mockito.Mockito.when;
+
+/**
+ * UT for incremental publishing of {@link MavenIndexPublisher}.
+ */
+public class MavenIndexPublisherTest
+    extends TestSupport
+{
+  private static final RecordExpander RECORD_EXPANDER = new RecordExpander();
+
+  @Mock
+  private Repository repository;
+
+  private final Map<String, byte[]> published = new HashMap<>();
+
+  private TestIndexPublisher underTest;
+
+  @Before
+  public void setUp() throws Exception {
+    when(repository.getName()).thenReturn("hosted");
+    underTest = new TestIndexPublisher();
+
+    Date started = new Date();
+    try (IndexWriter indexWriter = new IndexWriter(underTest.getResourceHandler(repository), "hosted", false)) {
+      List<Map<String, String>> records = new ArrayList<>();
+      MavenIndexPublisher.decorate(asList(added("a", 1L), added("b", 1L)), "hosted")
+          .forEach(record -> records.add(MavenIndexPublisher.RECORD_COMPACTOR.apply(record)));
+      indexWriter.writeChunk(records.iterator());
+    }
+    underTest.recordPublishStarted(repository, null, started);
+  }
+
+  @Test
+  public void incrementIsPublishedAsChunkAndMergedIntoMainChunk() throws Exception {
+    Map<String, byte[]> client = new HashMap<>();
+    client.put("nexus-maven-repository-index.properties", published.get("nexus-maven-repository-index.properties"));
+
+    Properties properties = underTest.loadIndexProperties(repository);
+    assertThat(underTest.publishIncrement(repository, properties, asList(added("b", 2L), added("c", 2L)),
+        present("b", "c"), new Date()), is(true));
+
+    assertThat(published, hasKey("nexus-maven-repository-index.1.gz"));
+
+    // a client with the previous index only fetches the incremental chunk
+    try (IndexReader indexReader = new IndexReader(new MapResourceHandler(client), new MapResourceHandler(published))) {
+      assertThat(indexReader.isIncremental(), is(true));
+      assertThat(indexReader.getChunkNames(), equalTo(singletonList("nexus-maven-repository-index.1.gz")));
+      List<String> changes = new ArrayList<>();
+      for (ChunkReader chunkReader : indexReader) {
+        chunkReader.forEach(map -> {
+          Record record = RECORD_EXPANDER.apply(map);
+          if (record.getType() == Type.ARTIFACT_ADD) {
+            changes.add("+" + record.get(Record.ARTIFACT_ID) + ":" + record.get(Record.FILE_SIZE));
+          }
+          else if (record.getType() == Type.ARTIFACT_REMOVE) {
+            changes.add("-" + record.get(Record.ARTIFACT_ID));
+          }
+        });
+      }
+      assertThat(changes, containsInAnyOrder("+b:2", "+c:2", "-a"));
+    }
+
+    // a new client gets the merged main chunk
+    assertThat(artifacts(), containsInAnyOrder("b:2", "c:2"));
+  }
+
+  @Test
+  public void incrementsAreChained() throws Exception {
+    underTest.publishIncrement(repository, underTest.loadIndexProperties(repository),
+        singletonList(added("c", 2L)), present("a", "b", "c"), new Date());
+    underTest.publishIncrement(repository, underTest.loadIndexProperties(repository),
+        singletonList(added("d", 3L)), present("a", "c", "d"), new Date());
+
+    Properties properties = underTest.loadIndexProperties(repository);
+    assertThat(properties.getProperty("nexus.index.last-incremental"), equalTo("2"));
+    assertThat(properties.getProperty("nexus.index.incremental-0"), equalTo("2"));
+    assertThat(properties.getProperty("nexus.index.incremental-1"), equalTo("1"));
+    assertThat(artifacts(), containsInAnyOrder("a:1", "c:2", "d:3"));
+  }
+
+  @Test
+  public void chainLengthIsLimited() throws Exception {
+    assertThat(MavenIndexPublisher.incrementalBase(null, 2), nullValue());
+    assertThat(MavenIndexPublisher.incrementalBase(underTest.loadIndexProperties(repository), 2), notNullValue());
+
+    underTest.publishIncrement(repository, underTest.loadIndexProperties(repository),
+        singletonList(added("c", 2L)), present("a", "b", "c"), new Date());
+    assertThat(MavenIndexPublisher.incrementalBase(underTest.loadIndexProperties(repository), 2), notNullValue());
+
+    underTest.publishIncrement(repository, underTest.loadIndexProperties(repository),
+        singletonList(added("d", 3L)), present("a", "b", "c", "d"), new Date());
+    assertThat(MavenIndexPublisher.incrementalBase(underTest.loadIndexProperties(repository), 2), nullValue());
+  }
+
+  @Test
+  public void fullPublishRemovesIncrementalChunks() throws Exception {
+    underTest.publishIncrement(repository, underTest.loadIndexProperties(repository),
+        singletonList(added("c", 2L)), present("a", "b", "c"), new Date());
+    Properties replaced = underTest.loadIndexProperties(repository);
+
+    try (IndexWriter indexWriter = new IndexWriter(underTest.getResourceHandler(repository), "hosted", false)) {
+      indexWriter.writeChunk(Collections.emptyIterator());
+    }
+    underTest.recordPublishStarted(repository, replaced, new Date());
+
+    assertThat(published, not(hasKey("nexus-maven-repository-index.1.gz")));
+    assertThat(underTest.loadIndexProperties(repository).getProperty("nexus.index.chain-id"),
+        not(equalTo(replaced.getProperty("nexus.index.chain-id"))));
+  }
+
+  private List<String> artifacts() throws IOException {
+    List<String> artifacts = new ArrayList<>();
+    try (IndexReader indexReader = new IndexReader(null, new MapResourceHandler(published))) {
+      assertThat(indexReader.getChunkNames(), equalTo(singletonList("nexus-maven-repository-index.gz")));
+      for (ChunkReader chunkReader : indexReader) {
+        chunkReader.forEach(map -> {
+          Record record = RECORD_EXPANDER.apply(map);
+          if (record.getType() == Type.ARTIFACT_ADD) {
+            artifacts.add(record.get(Record.ARTIFACT_ID) + ":" + record.get(Record.FILE_SIZE));
+          }
+        });
+      }
+    }
+    return artifacts;
+  }
+
+  private static Record added(final String artifactId, final long size) {
+    Record record = new Record(Type.ARTIFACT_ADD, new HashMap<>());
+    record.put(Record.REC_MODIFIED, size);
+    record.put(Record.GROUP_ID, "org.example");
+    record.put(Record.ARTIFACT_ID, artifactId);
+    record.put(Record.VERSION, "1.0");
+    record.put(Record.PACKAGING, "jar");
+    record.put(Record.FILE_EXTENSION, "jar");
+    record.put(Record.FILE_MODIFIED, size);
+    record.put(Record.FILE_SIZE, size);
+    record.put(Record.HAS_SOURCES, false);
+    record.put(Record.HAS_JAVADOC, false);
+    record.put(Record.HAS_SIGNATURE, false);
+    record.put(Record.NAME, "");
+    record.put(Record.DESCRIPTION, "");
+    record.put(Record.SHA1, "sha1");
+    return record;
+  }
+
+  private static Set<String> present(final String... artifactIds) {
+    Set<String> present = new HashSet<>();
+    for (String artifactId : artifactIds) {
+      present.add(MavenIndexPublisher.uinfo("org.example", artifactId, "1.0", null, "jar"));
+    }
+    return present;
+  }
+
+  private class TestIndexPublisher
+      extends MavenIndexPublisher
+  {
+    @Override
+    protected MavenPathParser getMavenPathParser(final Repository repository) {
+      return new Maven2MavenPathParser();
+    }
+
+    @Override
+    protected WritableResourceHandler getResourceHandler(final Repository repository) {
+      return new MapResourceHandler(published);
+    }
+
+    @Override
+    protected boolean delete(final Repository repository, final String path) {
+      return published.remove(path.substring(path.lastIndexOf('/') + 1)) != null;
+    }
+
+    @Override
+    protected Iterable<Iterable<Record>> getGroupRecords(final List<Repository> repositories, final Closer closer) {
+      throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void publishHostedIndex(
+        final Repository repository,
+        final DuplicateDetectionStrategy<Record> duplicateDetectionStrategy)
+    {
+      throw new UnsupportedOperationException();
+    }
+  }
+
+  private static class MapResourceHandler
+      implements WritableResourceHandler
+  {
+    private final Map<String, byte[]> files;
+
+    private MapResourceHandler(final Map<String, byte[]> files) {
+      this.files = files;
+    }
+
+    @Override
+    public WritableResource locate(final String name) {
+      return new WritableResource()
+      {
+        private ByteArrayOutputStream out;
+
+        @Override
+        public InputStream read() {
+          byte[] bytes = files.get(name);
+          return bytes == null ? null : new ByteArrayInputStream(bytes);
+        }
+
+        @Override
+        public OutputStream write() {
+          out = new ByteArrayOutputStream();
+          return out;
+        }
+
+        @Override
+        public void close() {
+          if (out != null) {
+            files.put(name, out.toByteArray());
+            out = null;
+          }
+        }
+      };
+    }
+
+    @Override
+    public void close() {
+      // nop
+    }
+  }
+}
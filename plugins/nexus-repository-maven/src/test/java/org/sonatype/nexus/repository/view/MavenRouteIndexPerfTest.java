@@ -0,0 +1,147 @@
+/*
+ * Sonatype Nexus (TM) Open Source Version
+ * Copyright (c) 2008-present Sonatype, Inc.
+ * All rights reserved. Includes the third-party code listed at http://links.sonatype.com/products/nexus/oss/attributions.
+ *
+ * This program and the accompanying materials are made available under the terms of the Eclipse Public License Version 1.0,
+ * which accompanies this distribution and is available at http://www.eclipse.org/legal/epl-v10.html.
+ *
+ * Sonatype Nexus (TM) Professional Version is available from Sonatype, Inc. "Sonatype" and "Sonatype Nexus" are trademarks
+ * of Sonatype, Inc. Apache Maven is a trademark of the Apache Software Foundation. M2eclipse is a trademark of the
+ * Eclipse Foundation. All other trademarks are the property of their respective owners.
+ */
+package org.sonatype.nexus.repository.view;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+
+import org.sonatype.goodies.testsupport.TestSupport;
+import org.sonatype.goodies.testsupport.group.Perf;
+import org.sonatype.nexus.common.template.TemplateHelper;
+import org.sonatype.nexus.repository.Repository;
+import org.sonatype.nexus.repository.maven.MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.Maven2MavenPathParser;
+import org.sonatype.nexus.repository.maven.internal.matcher.MavenArchetypeCatalogMatcher;
+import org.sonatype.nexus.repository.maven.internal.matcher.MavenIndexMatcher;
+import org.sonatype.nexus.repository.maven.internal.matcher.MavenPathMatcher;
+import org.sonatype.nexus.repository.maven.internal.matcher.MavenRepositoryMetadataMatcher;
+import org.sonatype.nexus.repository.view.handlers.BrowseUnsupportedHandler;
+import org.sonatype.nexus.repository.view.handlers.SecurityHandler;
+import org.sonatype.nexus.repository.view.matchers.ActionMatcher;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.experimental.categories.Category;
+import org.mockito.Mock;
+
+import static java.util.Collections.singletonList;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.is;
+import static org.hamcrest.Matchers.sameInstance;
+import static org.mockito.Mockito.mock;
+import static org.sonatype.nexus.repository.http.HttpMethods.GET;
+import static org.sonatype.nexus.repository.http.HttpMethods.HEAD;
+import static org.sonatype.nexus.repository.http.HttpMethods.PUT;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.and;
+import static org.sonatype.nexus.repository.view.matchers.logic.LogicMatchers.or;
+
+/**
+ * Compares {@link RouteIndex} with a linear scan over the route table registered by the Maven2 hosted recipe.
+ */
+@Category(Perf.class)
+public class MavenRouteIndexPerfTest
+    extends TestSupport
+{
+  private static final int WARMUP_ROUNDS = 50_000;
+
+  private static final int MEASURED_ROUNDS = 500_000;
+
+  @Mock
+  private Repository repository;
+
+  @Mock
+  private TemplateHelper templateHelper;
+
+  @Mock
+  private SecurityHandler securityHandler;
+
+  private List<Route> routes;
+
+  private final List<Request> requests = new ArrayList<>();
+
+  @Before
+  public void setUp() {
+    MavenPathParser mavenPathParser = new Maven2MavenPathParser();
+
+    // same order as MavenHostedRecipe
+    routes = ImmutableList.of(
+        new BrowseUnsupportedHandler(templateHelper, securityHandler).getRoute(),
+        route(new MavenRepositoryMetadataMatcher(mavenPathParser)),
+        route(and(new MavenIndexMatcher(mavenPathParser), or(new ActionMatcher(GET), new ActionMatcher(HEAD)))),
+        route(new MavenArchetypeCatalogMatcher(mavenPathParser)),
+        route(new MavenPathMatcher(mavenPathParser)));
+
+    for (int i = 0; i < 100; i++) {
+      String base = "/org/example/group" + i + "/artifact" + i + "/1." + i;
+      requests.add(request(GET, base + "/artifact" + i + "-1." + i + ".jar"));
+      requests.add(request(GET, base + "/artifact" + i + "-1." + i + ".pom.sha1"));
+      requests.add(request(HEAD, base + "/artifact" + i + "-1." + i + ".pom"));
+      requests.add(request(PUT, base + "/artifact" + i + "-1." + i + "-sources.jar"));
+      requests.add(request(GET, "/org/example/group" + i + "/artifact" + i + "/maven-metadata.xml"));
+    }
+    requests.add(request(GET, "/.index/nexus-maven-repository-index.gz"));
+    requests.add(request(GET, "/archetype-catalog.xml"));
+    requests.add(request(GET, "/org/example/"));
+  }
+
+  @Test
+  public void compareIndexAndLinearScan() {
+    RouteIndex index = new RouteIndex(routes);
+
+    Function<Context, Route> linear = context -> {
+      for (Route route : routes) {
+        if (route.getMatcher().matches(context)) {
+          return route;
+        }
+      }
+      return null;
+    };
+
+    for (Request request : requests) {
+      assertThat(request.toString(), index.findRoute(context(request)),
+          is(sameInstance(linear.apply(context(request)))));
+    }
+
+    double linearPerSecond = measure(linear);
+    double indexPerSecond = measure(index::findRoute);
+
+    log("{} routes -> linear: {} dispatches/s, index: {} dispatches/s", routes.size(),
+        String.format("%.0f", linearPerSecond), String.format("%.0f", indexPerSecond));
+  }
+
+  private double measure(final Function<Context, Route> findRoute) {
+    for (int i = 0; i < WARMUP_ROUNDS; i++) {
+      findRoute.apply(context(requests.get(i % requests.size())));
+    }
+    long start = System.nanoTime();
+    for (int i = 0; i < MEASURED_ROUNDS; i++) {
+      findRoute.apply(context(requests.get(i % requests.size())));
+    }
+    long elapsed = System.nanoTime() - start;
+    return MEASURED_ROUNDS / (elapsed / 1e9d);
+  }
+
+  private Context context(final Request request) {
+    return new Context(repository, request);
+  }
+
+  private static Request request(final String action, final String path) {
+    return new Request.Builder().action(action).path(path).build();
+  }
+
+  private static Route route(final Matcher matcher) {
+    return new Route(matcher, singletonList(mock(Handler.class)));
+  }
+}